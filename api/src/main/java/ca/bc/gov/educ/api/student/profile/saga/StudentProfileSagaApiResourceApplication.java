@@ -11,7 +11,6 @@ import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.retry.annotation.EnableRetry;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -24,7 +23,6 @@ import org.springframework.transaction.PlatformTransactionManager;
 @SpringBootApplication
 @EnableCaching
 @Slf4j
-@EnableRetry
 @EnableScheduling
 @EnableSchedulerLock(defaultLockAtMostFor = "1s")
 public class StudentProfileSagaApiResourceApplication {
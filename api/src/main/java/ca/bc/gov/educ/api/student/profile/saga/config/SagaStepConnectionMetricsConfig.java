@@ -0,0 +1,29 @@
+package ca.bc.gov.educ.api.student.profile.saga.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * records how long each saga step holds a database connection, see {@link SagaStepMetricsTrackerFactory}.
+ * the tracker is set on the pool before spring boot binds the default hikari metrics, which are kept as they are.
+ */
+@Configuration
+public class SagaStepConnectionMetricsConfig {
+
+  @Bean
+  public static BeanPostProcessor sagaStepMetricsTrackerPostProcessor(final ObjectProvider<MeterRegistry> meterRegistry) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+        if (bean instanceof HikariDataSource hikariDataSource && hikariDataSource.getMetricRegistry() == null && hikariDataSource.getMetricsTrackerFactory() == null) {
+          hikariDataSource.setMetricsTrackerFactory(new SagaStepMetricsTrackerFactory(meterRegistry));
+        }
+        return bean;
+      }
+    };
+  }
+}
@@ -0,0 +1,65 @@
+package ca.bc.gov.educ.api.student.profile.saga.config;
+
+import ca.bc.gov.educ.api.student.profile.saga.orchestrator.base.SagaUnitOfWork;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * the hikari metrics, and how long each saga step held a connection. hikari reports the usage of a connection on the thread which closes
+ * it, so the step is the {@link SagaUnitOfWork} open on that thread. connections used outside a saga step are only in the hikari metrics.
+ * the registry is looked up when the pool starts, the data source is created before it.
+ */
+public class SagaStepMetricsTrackerFactory implements MetricsTrackerFactory {
+  private final ObjectProvider<MeterRegistry> meterRegistry;
+
+  public SagaStepMetricsTrackerFactory(final ObjectProvider<MeterRegistry> meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public IMetricsTracker create(final String poolName, final PoolStats poolStats) {
+    final var registry = this.meterRegistry.getObject();
+    return new SagaStepMetricsTracker(new MicrometerMetricsTrackerFactory(registry).create(poolName, poolStats), registry);
+  }
+
+  private record SagaStepMetricsTracker(IMetricsTracker delegate, MeterRegistry meterRegistry) implements IMetricsTracker {
+
+    @Override
+    public void recordConnectionCreatedMillis(final long connectionCreatedMillis) {
+      this.delegate.recordConnectionCreatedMillis(connectionCreatedMillis);
+    }
+
+    @Override
+    public void recordConnectionAcquiredNanos(final long elapsedAcquiredNanos) {
+      this.delegate.recordConnectionAcquiredNanos(elapsedAcquiredNanos);
+    }
+
+    @Override
+    public void recordConnectionUsageMillis(final long elapsedBorrowedMillis) {
+      this.delegate.recordConnectionUsageMillis(elapsedBorrowedMillis);
+      SagaUnitOfWork.current().ifPresent(unit -> Timer.builder("saga.step.connection.hold")
+        .description("time a saga step held a database connection, from borrowing it from the pool to returning it")
+        .tags("saga.name", unit.getSagaName(), "step", unit.getStep())
+        .publishPercentileHistogram()
+        .register(this.meterRegistry)
+        .record(elapsedBorrowedMillis, TimeUnit.MILLISECONDS));
+    }
+
+    @Override
+    public void recordConnectionTimeout() {
+      this.delegate.recordConnectionTimeout();
+    }
+
+    @Override
+    public void close() {
+      this.delegate.close();
+    }
+  }
+}
@@ -4,5 +4,6 @@ public enum SagaStatusEnum {
   STARTED,
   IN_PROGRESS,
   COMPLETED,
-  FORCE_STOPPED
+  FORCE_STOPPED,
+  DEAD_LETTERED
 }
@@ -13,6 +13,7 @@ public final class URL {
   public static final String SAGA_ID = "/{sagaID}";
   public static final String SAGA_EVENTS = "/events";
   public static final String PAGINATED = "/paginated";
+  public static final String REDRIVE = "/redrive";
   public static final String BASE_URL = "/api/v1/student-profile-saga";
 
   private URL() {
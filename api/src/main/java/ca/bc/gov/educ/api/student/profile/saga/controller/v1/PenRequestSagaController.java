@@ -6,6 +6,7 @@ import ca.bc.gov.educ.api.student.profile.saga.controller.BaseController;
 import ca.bc.gov.educ.api.student.profile.saga.endpoint.v1.PenRequestSagaEndpoint;
 import ca.bc.gov.educ.api.student.profile.saga.exception.SagaRuntimeException;
 import ca.bc.gov.educ.api.student.profile.saga.model.v1.Saga;
+import ca.bc.gov.educ.api.student.profile.saga.orchestrator.base.SagaStepRetryScheduler;
 import ca.bc.gov.educ.api.student.profile.saga.orchestrator.gmp.*;
 import ca.bc.gov.educ.api.student.profile.saga.service.SagaService;
 import ca.bc.gov.educ.api.student.profile.saga.struct.base.Event;
@@ -31,6 +32,9 @@ public class PenRequestSagaController extends BaseController implements PenReque
   @Getter(PRIVATE)
   private final SagaService sagaService;
 
+  @Getter(PRIVATE)
+  private final SagaStepRetryScheduler sagaStepRetryScheduler;
+
   @Getter(PRIVATE)
   private final PenRequestCompleteSagaOrchestrator penRequestCompleteSagaOrchestrator;
 
@@ -48,30 +52,32 @@ public class PenRequestSagaController extends BaseController implements PenReque
   private final PenRequestUnlinkSagaOrchestrator penRequestUnlinkSagaOrchestrator;
 
   @Autowired
-  public PenRequestSagaController(final SagaService sagaService, final PenRequestCompleteSagaOrchestrator penRequestCompleteSagaOrchestrator, final PenRequestCommentsSagaOrchestrator penRequestCommentsSagaOrchestrator, final PenRequestReturnSagaOrchestrator penRequestReturnSagaOrchestrator, final PenRequestRejectSagaOrchestrator penRequestRejectSagaOrchestrator, final PenRequestUnlinkSagaOrchestrator penRequestUnlinkSagaOrchestrator) {
+  public PenRequestSagaController(final SagaService sagaService, final PenRequestCompleteSagaOrchestrator penRequestCompleteSagaOrchestrator, final PenRequestCommentsSagaOrchestrator penRequestCommentsSagaOrchestrator, final PenRequestReturnSagaOrchestrator penRequestReturnSagaOrchestrator, final PenRequestRejectSagaOrchestrator penRequestRejectSagaOrchestrator, final PenRequestUnlinkSagaOrchestrator penRequestUnlinkSagaOrchestrator, final SagaStepRetryScheduler sagaStepRetryScheduler) {
     this.sagaService = sagaService;
     this.penRequestCompleteSagaOrchestrator = penRequestCompleteSagaOrchestrator;
     this.penRequestCommentsSagaOrchestrator = penRequestCommentsSagaOrchestrator;
     this.penRequestReturnSagaOrchestrator = penRequestReturnSagaOrchestrator;
     this.penRequestRejectSagaOrchestrator = penRequestRejectSagaOrchestrator;
     this.penRequestUnlinkSagaOrchestrator = penRequestUnlinkSagaOrchestrator;
+    this.sagaStepRetryScheduler = sagaStepRetryScheduler;
   }
 
   @Override
   public ResponseEntity<String> completePENRequest(final PenRequestCompleteSagaData penRequestCompleteSagaData) {
     try {
       final var penRequestId = UUID.fromString(penRequestCompleteSagaData.getPenRequestID());
-      final var sagaInProgress = this.getSagaService().findAllByPenRequestIdAndStatuses(penRequestId, this.getStatusesFilter());
-      if (!sagaInProgress.isEmpty()) {
+      final var sagaOptional = this.getSagaService().createPenRequestSagaRecordIfNoneInProgress(penRequestCompleteSagaData, PEN_REQUEST_COMPLETE_SAGA.toString(), penRequestCompleteSagaData.getCreateUser(), penRequestId);
+      if (sagaOptional.isEmpty()) {
         return ResponseEntity.status(HttpStatus.CONFLICT).build();
       }
-      final var saga = this.getSagaService().createPenRequestSagaRecord(penRequestCompleteSagaData, PEN_REQUEST_COMPLETE_SAGA.toString(), penRequestCompleteSagaData.getCreateUser(), penRequestId);
-      this.getPenRequestCompleteSagaOrchestrator().executeSagaEvent(Event.builder()
+      final var saga = sagaOptional.get();
+      final var event = Event.builder()
           .eventType(EventType.INITIATED)
           .eventOutcome(EventOutcome.INITIATE_SUCCESS)
           .penRequestID(penRequestCompleteSagaData.getPenRequestID())
           .sagaId(saga.getSagaId())
-          .build());
+          .build();
+      this.getSagaStepRetryScheduler().execute(saga.getSagaId(), () -> this.getPenRequestCompleteSagaOrchestrator().executeSagaEvent(event));
       return ResponseEntity.ok(saga.getSagaId().toString());
     } catch (final Exception e) {
       throw new SagaRuntimeException(e.getMessage());
@@ -82,17 +88,18 @@ public class PenRequestSagaController extends BaseController implements PenReque
   public ResponseEntity<String> updatePenRequestAndAddComment(final PenRequestCommentsSagaData penRequestCommentsSagaData) {
     try {
       final var penRequestId = UUID.fromString(penRequestCommentsSagaData.getPenRetrievalRequestID());
-      final var sagaInProgress = this.getSagaService().findAllByPenRequestIdAndStatuses(penRequestId, this.getStatusesFilter());
-      if (!sagaInProgress.isEmpty()) {
+      final var sagaOptional = this.getSagaService().createPenRequestSagaRecordIfNoneInProgress(penRequestCommentsSagaData, PEN_REQUEST_COMMENTS_SAGA.toString(), penRequestCommentsSagaData.getCreateUser(), penRequestId);
+      if (sagaOptional.isEmpty()) {
         return ResponseEntity.status(HttpStatus.CONFLICT).build();
       }
-      final Saga saga = this.getSagaService().createPenRequestSagaRecord(penRequestCommentsSagaData, PEN_REQUEST_COMMENTS_SAGA.toString(), penRequestCommentsSagaData.getCreateUser(), penRequestId);
-      this.getPenRequestCommentsSagaOrchestrator().executeSagaEvent(Event.builder()
+      final var saga = sagaOptional.get();
+      final var event = Event.builder()
           .eventType(EventType.INITIATED)
           .eventOutcome(EventOutcome.INITIATE_SUCCESS)
           .penRequestID(penRequestCommentsSagaData.getPenRetrievalRequestID())
           .sagaId(saga.getSagaId())
-          .build());
+          .build();
+      this.getSagaStepRetryScheduler().execute(saga.getSagaId(), () -> this.getPenRequestCommentsSagaOrchestrator().executeSagaEvent(event));
       return ResponseEntity.ok(saga.getSagaId().toString());
     } catch (final Exception e) {
       throw new SagaRuntimeException(e.getMessage());
@@ -103,17 +110,18 @@ public class PenRequestSagaController extends BaseController implements PenReque
   public ResponseEntity<String> returnPENRequest(final PenRequestReturnSagaData penRequestReturnSagaData) {
     try {
       final var penRequestId = UUID.fromString(penRequestReturnSagaData.getPenRetrievalRequestID());
-      final var sagaInProgress = this.getSagaService().findAllByPenRequestIdAndStatuses(penRequestId, this.getStatusesFilter());
-      if (!sagaInProgress.isEmpty()) {
+      final var sagaOptional = this.getSagaService().createPenRequestSagaRecordIfNoneInProgress(penRequestReturnSagaData, PEN_REQUEST_RETURN_SAGA.toString(), penRequestReturnSagaData.getCreateUser(), penRequestId);
+      if (sagaOptional.isEmpty()) {
         return ResponseEntity.status(HttpStatus.CONFLICT).build();
       }
-      final Saga saga = this.getSagaService().createPenRequestSagaRecord(penRequestReturnSagaData, PEN_REQUEST_RETURN_SAGA.toString(), penRequestReturnSagaData.getCreateUser(), penRequestId);
-      this.getPenRequestReturnSagaOrchestrator().executeSagaEvent(Event.builder()
+      final var saga = sagaOptional.get();
+      final var event = Event.builder()
           .eventType(EventType.INITIATED)
           .eventOutcome(EventOutcome.INITIATE_SUCCESS)
           .penRequestID(penRequestReturnSagaData.getPenRetrievalRequestID())
           .sagaId(saga.getSagaId())
-          .build());
+          .build();
+      this.getSagaStepRetryScheduler().execute(saga.getSagaId(), () -> this.getPenRequestReturnSagaOrchestrator().executeSagaEvent(event));
       return ResponseEntity.ok(saga.getSagaId().toString());
     } catch (final Exception e) {
       throw new SagaRuntimeException(e.getMessage());
@@ -124,17 +132,18 @@ public class PenRequestSagaController extends BaseController implements PenReque
   public ResponseEntity<String> rejectPENRequest(final PenRequestRejectSagaData penRequestRejectSagaData) {
     try {
       final var penRequestId = UUID.fromString(penRequestRejectSagaData.getPenRetrievalRequestID());
-      final var sagaInProgress = this.getSagaService().findAllByPenRequestIdAndStatuses(penRequestId, this.getStatusesFilter());
-      if (!sagaInProgress.isEmpty()) {
+      final var sagaOptional = this.getSagaService().createPenRequestSagaRecordIfNoneInProgress(penRequestRejectSagaData, PEN_REQUEST_REJECT_SAGA.toString(), penRequestRejectSagaData.getCreateUser(), penRequestId);
+      if (sagaOptional.isEmpty()) {
         return ResponseEntity.status(HttpStatus.CONFLICT).build();
       }
-      final Saga saga = this.getSagaService().createPenRequestSagaRecord(penRequestRejectSagaData, PEN_REQUEST_REJECT_SAGA.toString(), penRequestRejectSagaData.getCreateUser(), penRequestId);
-      this.getPenRequestRejectSagaOrchestrator().executeSagaEvent(Event.builder()
+      final var saga = sagaOptional.get();
+      final var event = Event.builder()
           .eventType(EventType.INITIATED)
           .eventOutcome(EventOutcome.INITIATE_SUCCESS)
           .penRequestID(penRequestRejectSagaData.getPenRetrievalRequestID())
           .sagaId(saga.getSagaId())
-          .build());
+          .build();
+      this.getSagaStepRetryScheduler().execute(saga.getSagaId(), () -> this.getPenRequestRejectSagaOrchestrator().executeSagaEvent(event));
       return ResponseEntity.ok(saga.getSagaId().toString());
     } catch (final Exception e) {
       throw new SagaRuntimeException(e.getMessage());
@@ -146,6 +155,7 @@ public class PenRequestSagaController extends BaseController implements PenReque
   public ResponseEntity<String> unlinkPenRequest(final PenRequestUnlinkSagaData penRequestUnlinkSagaData) {
     try {
       final var penRequestId = UUID.fromString(penRequestUnlinkSagaData.getPenRetrievalRequestID());
+      this.getSagaService().lockRequest(penRequestId); // sagas started for the pen request meanwhile wait for the force stop and see the unlink saga.
       final var completeSagaInProgress = this.getSagaService().findByPenRequestIdAndStatusInAndSagaName(penRequestId, this.getStatusesFilter(), PEN_REQUEST_COMPLETE_SAGA.toString());
       if (completeSagaInProgress.isPresent()) { // force stop if a complete saga is in progress and then start the unlink saga.
         final var saga = completeSagaInProgress.get();
@@ -155,12 +165,13 @@ public class PenRequestSagaController extends BaseController implements PenReque
         this.getPenRequestCompleteSagaOrchestrator().publishSagaForceStopped(saga);
       }
       final Saga saga = this.getSagaService().createPenRequestSagaRecord(penRequestUnlinkSagaData, PEN_REQUEST_UNLINK_SAGA.toString(), penRequestUnlinkSagaData.getCreateUser(), UUID.fromString(penRequestUnlinkSagaData.getPenRetrievalRequestID()));
-      this.getPenRequestUnlinkSagaOrchestrator().executeSagaEvent(Event.builder()
+      final var event = Event.builder()
           .eventType(EventType.INITIATED)
           .eventOutcome(EventOutcome.INITIATE_SUCCESS)
           .penRequestID(penRequestUnlinkSagaData.getPenRetrievalRequestID())
           .sagaId(saga.getSagaId())
-          .build());
+          .build();
+      this.getSagaStepRetryScheduler().execute(saga.getSagaId(), () -> this.getPenRequestUnlinkSagaOrchestrator().executeSagaEvent(event));
       return ResponseEntity.ok(saga.getSagaId().toString());
     } catch (final Exception e) {
       throw new SagaRuntimeException(e.getMessage());
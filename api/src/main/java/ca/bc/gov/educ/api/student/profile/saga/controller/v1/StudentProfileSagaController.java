@@ -8,6 +8,9 @@ import ca.bc.gov.educ.api.student.profile.saga.exception.EntityNotFoundException
 import ca.bc.gov.educ.api.student.profile.saga.exception.SagaRuntimeException;
 import ca.bc.gov.educ.api.student.profile.saga.mappers.v1.SagaMapper;
 import ca.bc.gov.educ.api.student.profile.saga.model.v1.Saga;
+import ca.bc.gov.educ.api.student.profile.saga.orchestrator.base.Orchestrator;
+import ca.bc.gov.educ.api.student.profile.saga.orchestrator.base.SagaLaneExecutor;
+import ca.bc.gov.educ.api.student.profile.saga.orchestrator.base.SagaStepRetryScheduler;
 import ca.bc.gov.educ.api.student.profile.saga.orchestrator.ump.StudentProfileCommentsSagaOrchestrator;
 import ca.bc.gov.educ.api.student.profile.saga.orchestrator.ump.StudentProfileCompleteSagaOrchestrator;
 import ca.bc.gov.educ.api.student.profile.saga.orchestrator.ump.StudentProfileRejectSagaOrchestrator;
@@ -33,7 +36,9 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -47,6 +52,12 @@ public class StudentProfileSagaController extends BaseController implements Stud
   @Getter(PRIVATE)
   private final SagaService sagaService;
 
+  @Getter(PRIVATE)
+  private final SagaLaneExecutor sagaLaneExecutor;
+
+  @Getter(PRIVATE)
+  private final SagaStepRetryScheduler sagaStepRetryScheduler;
+
   @Getter(PRIVATE)
   private final StudentProfileCompleteSagaOrchestrator studentProfileCompleteSagaOrchestrator;
 
@@ -61,31 +72,38 @@ public class StudentProfileSagaController extends BaseController implements Stud
 
   private final SagaSearchService sagaSearchService;
 
+  @Getter(PRIVATE)
+  private final Map<String, Orchestrator> sagaOrchestrators = new HashMap<>();
+
   @Autowired
-  public StudentProfileSagaController(final SagaService sagaService, final StudentProfileCompleteSagaOrchestrator studentProfileCompleteSagaOrchestrator, final StudentProfileRejectSagaOrchestrator studentProfileRejectSagaOrchestrator, final StudentProfileCommentsSagaOrchestrator studentProfileCommentsSagaOrchestrator, final StudentProfileReturnSagaOrchestrator studentProfileReturnSagaOrchestrator, final SagaSearchService sagaSearchService) {
+  public StudentProfileSagaController(final SagaService sagaService, final StudentProfileCompleteSagaOrchestrator studentProfileCompleteSagaOrchestrator, final StudentProfileRejectSagaOrchestrator studentProfileRejectSagaOrchestrator, final StudentProfileCommentsSagaOrchestrator studentProfileCommentsSagaOrchestrator, final StudentProfileReturnSagaOrchestrator studentProfileReturnSagaOrchestrator, final SagaSearchService sagaSearchService, final SagaLaneExecutor sagaLaneExecutor, final SagaStepRetryScheduler sagaStepRetryScheduler, final List<Orchestrator> orchestrators) {
     this.sagaService = sagaService;
     this.studentProfileCompleteSagaOrchestrator = studentProfileCompleteSagaOrchestrator;
     this.studentProfileRejectSagaOrchestrator = studentProfileRejectSagaOrchestrator;
     this.studentProfileCommentsSagaOrchestrator = studentProfileCommentsSagaOrchestrator;
     this.studentProfileReturnSagaOrchestrator = studentProfileReturnSagaOrchestrator;
     this.sagaSearchService = sagaSearchService;
+    this.sagaLaneExecutor = sagaLaneExecutor;
+    this.sagaStepRetryScheduler = sagaStepRetryScheduler;
+    orchestrators.forEach(orchestrator -> this.sagaOrchestrators.put(orchestrator.getSagaName(), orchestrator));
   }
 
   @Override
   public ResponseEntity<String> completeStudentProfile(final StudentProfileCompleteSagaData studentProfileCompleteSagaData) {
     try {
       final var profileRequestId = UUID.fromString(studentProfileCompleteSagaData.getStudentProfileRequestID());
-      final var sagaInProgress = this.getSagaService().findAllByProfileRequestIdAndStatuses(profileRequestId, this.getStatusesFilter());
-      if (!sagaInProgress.isEmpty()) {
+      final var sagaOptional = this.getSagaService().createProfileRequestSagaRecordIfNoneInProgress(studentProfileCompleteSagaData, STUDENT_PROFILE_COMPLETE_SAGA.toString(), studentProfileCompleteSagaData.getCreateUser(), profileRequestId);
+      if (sagaOptional.isEmpty()) {
         return ResponseEntity.status(HttpStatus.CONFLICT).build();
       }
-      final Saga saga = this.getSagaService().createProfileRequestSagaRecord(studentProfileCompleteSagaData, STUDENT_PROFILE_COMPLETE_SAGA.toString(), studentProfileCompleteSagaData.getCreateUser(), profileRequestId);
-      this.getStudentProfileCompleteSagaOrchestrator().executeSagaEvent(Event.builder()
+      final var saga = sagaOptional.get();
+      final var event = Event.builder()
           .eventType(EventType.INITIATED)
           .eventOutcome(EventOutcome.INITIATE_SUCCESS)
           .sagaId(saga.getSagaId())
           .studentRequestID(studentProfileCompleteSagaData.getStudentProfileRequestID())
-          .build());
+          .build();
+      this.getSagaStepRetryScheduler().execute(saga.getSagaId(), () -> this.getStudentProfileCompleteSagaOrchestrator().executeSagaEvent(event));
       return ResponseEntity.ok(saga.getSagaId().toString());
     } catch (final Exception e) {
       throw new SagaRuntimeException(e.getMessage());
@@ -96,17 +114,18 @@ public class StudentProfileSagaController extends BaseController implements Stud
   public ResponseEntity<String> submitStudentProfileComment(final StudentProfileCommentsSagaData studentProfileCommentsSagaData) {
     try {
       final var profileRequestId = UUID.fromString(studentProfileCommentsSagaData.getStudentProfileRequestID());
-      final var sagaInProgress = this.getSagaService().findAllByProfileRequestIdAndStatuses(profileRequestId, this.getStatusesFilter());
-      if (!sagaInProgress.isEmpty()) {
+      final var sagaOptional = this.getSagaService().createProfileRequestSagaRecordIfNoneInProgress(studentProfileCommentsSagaData, STUDENT_PROFILE_COMMENTS_SAGA.toString(), studentProfileCommentsSagaData.getCreateUser(), profileRequestId);
+      if (sagaOptional.isEmpty()) {
         return ResponseEntity.status(HttpStatus.CONFLICT).build();
       }
-      final Saga saga = this.getSagaService().createProfileRequestSagaRecord(studentProfileCommentsSagaData, STUDENT_PROFILE_COMMENTS_SAGA.toString(), studentProfileCommentsSagaData.getCreateUser(), profileRequestId);
-      this.getStudentProfileCommentsSagaOrchestrator().executeSagaEvent(Event.builder()
+      final var saga = sagaOptional.get();
+      final var event = Event.builder()
           .eventType(EventType.INITIATED)
           .eventOutcome(EventOutcome.INITIATE_SUCCESS)
           .studentRequestID(studentProfileCommentsSagaData.getStudentProfileRequestID())
           .sagaId(saga.getSagaId())
-          .build());
+          .build();
+      this.getSagaStepRetryScheduler().execute(saga.getSagaId(), () -> this.getStudentProfileCommentsSagaOrchestrator().executeSagaEvent(event));
       return ResponseEntity.ok(saga.getSagaId().toString());
     } catch (final Exception e) {
       throw new SagaRuntimeException(e.getMessage());
@@ -117,17 +136,18 @@ public class StudentProfileSagaController extends BaseController implements Stud
   public ResponseEntity<String> rejectStudentProfile(final StudentProfileRequestRejectActionSagaData studentProfileRequestRejectActionSagaData) {
     try {
       final var profileRequestId = UUID.fromString(studentProfileRequestRejectActionSagaData.getStudentProfileRequestID());
-      final var sagaInProgress = this.getSagaService().findAllByProfileRequestIdAndStatuses(profileRequestId, this.getStatusesFilter());
-      if (!sagaInProgress.isEmpty()) {
+      final var sagaOptional = this.getSagaService().createProfileRequestSagaRecordIfNoneInProgress(studentProfileRequestRejectActionSagaData, STUDENT_PROFILE_REJECT_SAGA.toString(), studentProfileRequestRejectActionSagaData.getCreateUser(), profileRequestId);
+      if (sagaOptional.isEmpty()) {
         return ResponseEntity.status(HttpStatus.CONFLICT).build();
       }
-      final Saga saga = this.getSagaService().createProfileRequestSagaRecord(studentProfileRequestRejectActionSagaData, STUDENT_PROFILE_REJECT_SAGA.toString(), studentProfileRequestRejectActionSagaData.getCreateUser(), profileRequestId);
-      this.getStudentProfileRejectSagaOrchestrator().executeSagaEvent(Event.builder()
+      final var saga = sagaOptional.get();
+      final var event = Event.builder()
           .eventType(EventType.INITIATED)
           .eventOutcome(EventOutcome.INITIATE_SUCCESS)
           .studentRequestID(studentProfileRequestRejectActionSagaData.getStudentProfileRequestID())
           .sagaId(saga.getSagaId())
-          .build());
+          .build();
+      this.getSagaStepRetryScheduler().execute(saga.getSagaId(), () -> this.getStudentProfileRejectSagaOrchestrator().executeSagaEvent(event));
       return ResponseEntity.ok(saga.getSagaId().toString());
     } catch (final Exception e) {
       throw new SagaRuntimeException(e.getMessage());
@@ -138,17 +158,18 @@ public class StudentProfileSagaController extends BaseController implements Stud
   public ResponseEntity<String> returnStudentProfile(final StudentProfileReturnActionSagaData studentProfileReturnActionSagaData) {
     try {
       final var profileRequestId = UUID.fromString(studentProfileReturnActionSagaData.getStudentProfileRequestID());
-      final var sagaInProgress = this.getSagaService().findAllByProfileRequestIdAndStatuses(profileRequestId, this.getStatusesFilter());
-      if (!sagaInProgress.isEmpty()) {
+      final var sagaOptional = this.getSagaService().createProfileRequestSagaRecordIfNoneInProgress(studentProfileReturnActionSagaData, STUDENT_PROFILE_RETURN_SAGA.toString(), studentProfileReturnActionSagaData.getCreateUser(), profileRequestId);
+      if (sagaOptional.isEmpty()) {
         return ResponseEntity.status(HttpStatus.CONFLICT).build();
       }
-      final Saga saga = this.getSagaService().createProfileRequestSagaRecord(studentProfileReturnActionSagaData, STUDENT_PROFILE_RETURN_SAGA.toString(), studentProfileReturnActionSagaData.getCreateUser(), profileRequestId);
-      this.getStudentProfileReturnSagaOrchestrator().executeSagaEvent(Event.builder()
+      final var saga = sagaOptional.get();
+      final var event = Event.builder()
           .eventType(EventType.INITIATED)
           .eventOutcome(EventOutcome.INITIATE_SUCCESS)
           .studentRequestID(studentProfileReturnActionSagaData.getStudentProfileRequestID())
           .sagaId(saga.getSagaId())
-          .build());
+          .build();
+      this.getSagaStepRetryScheduler().execute(saga.getSagaId(), () -> this.getStudentProfileReturnSagaOrchestrator().executeSagaEvent(event));
       return ResponseEntity.ok(saga.getSagaId().toString());
     } catch (final Exception e) {
       throw new SagaRuntimeException(e.getMessage());
@@ -177,6 +198,8 @@ public class StudentProfileSagaController extends BaseController implements Stud
 
   /**
    * Update saga
+   * the saga is updated only if it still has the update date, and the version when the caller sends it, which the caller read.
+   * a step of the saga which writes it between the read and the write here makes the update fail with a conflict too.
    *
    * @param saga    - the saga
    * @return        - the updated saga
@@ -187,7 +210,7 @@ public class StudentProfileSagaController extends BaseController implements Stud
     var sagaOptional = getSagaService().findSagaById(sagaID);
     if(sagaOptional.isPresent()) {
       val sagaFromDB = sagaOptional.get();
-      if(!SagaMapper.mapper.toStruct(sagaFromDB).getUpdateDate().equals(saga.getUpdateDate())) {
+      if((saga.getVersion() != null && !saga.getVersion().equals(sagaFromDB.getVersion())) || !SagaMapper.mapper.toStruct(sagaFromDB).getUpdateDate().equals(saga.getUpdateDate())) {
         log.error("Updating saga failed. The saga has already been updated by another process :: " + saga.getSagaId());
         return ResponseEntity.status(HttpStatus.CONFLICT).build();
       }
@@ -200,5 +223,20 @@ public class StudentProfileSagaController extends BaseController implements Stud
       return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
     }
   }
-}
 
+  @Override
+  public ResponseEntity<ca.bc.gov.educ.api.student.profile.saga.struct.Saga> redriveSaga(final UUID sagaID) {
+    val saga = this.getSagaService().findSagaById(sagaID).orElseThrow(() -> new EntityNotFoundException(Saga.class, "sagaID", sagaID.toString()));
+    val orchestrator = this.getSagaOrchestrators().get(saga.getSagaName());
+    if (orchestrator == null) {
+      log.error("Re-driving saga failed. No orchestrator is registered for saga :: {} of type :: {}", sagaID, saga.getSagaName());
+      return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+    if (!this.getSagaService().redriveSaga(saga)) {
+      log.error("Re-driving saga failed. The saga is not dead lettered :: {}", sagaID);
+      return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+    this.getSagaLaneExecutor().execute(saga.getSagaId(), () -> orchestrator.replaySaga(saga));
+    return ResponseEntity.ok(SagaMapper.mapper.toStruct(saga));
+  }
+}
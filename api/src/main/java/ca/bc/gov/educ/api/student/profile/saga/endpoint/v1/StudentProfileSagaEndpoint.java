@@ -64,6 +64,18 @@ public interface StudentProfileSagaEndpoint {
   @Tag(name = "Endpoint to update saga by its ID.", description = "Endpoint to update saga by its ID.")
   ResponseEntity<Saga> updateSaga(@RequestBody Saga saga, @PathVariable UUID sagaID);
 
+  /**
+   * puts a dead lettered saga back in progress and replays it from its last event.
+   *
+   * @param sagaID the saga id
+   * @return the re-driven saga, 409 if the saga is not dead lettered or no orchestrator of this api runs sagas of its type.
+   */
+  @PostMapping(URL.SAGA_ID + URL.REDRIVE)
+  @PreAuthorize("hasAuthority('SCOPE_STUDENT_PROFILE_WRITE_SAGA')")
+  @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "OK."), @ApiResponse(responseCode = "404", description = "Not Found."), @ApiResponse(responseCode = "409", description = "Conflict.")})
+  @Tag(name = "Endpoint to re-drive a dead lettered saga by its ID.", description = "Endpoint to re-drive a dead lettered saga by its ID.")
+  ResponseEntity<Saga> redriveSaga(@PathVariable UUID sagaID);
+
   /**
    * Find all completable future.
    *
@@ -4,6 +4,7 @@ import ca.bc.gov.educ.api.student.profile.saga.exception.errors.ApiError;
 import org.jboss.logging.Logger;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
@@ -17,6 +18,7 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 import java.time.format.DateTimeParseException;
 
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 
 @Order(Ordered.HIGHEST_PRECEDENCE)
@@ -101,6 +103,20 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
     return buildResponseEntity(apiError);
   }
 
+  /**
+   * Handles OptimisticLockingFailureException, the saga was written by someone else between the read and the write of the request.
+   *
+   * @param ex the OptimisticLockingFailureException
+   * @return the ApiError object
+   */
+  @ExceptionHandler(OptimisticLockingFailureException.class)
+  protected ResponseEntity<Object> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+    log.info("handleOptimisticLockingFailure", ex);
+    ApiError apiError = new ApiError(CONFLICT);
+    apiError.setMessage("The saga has already been updated by another process.");
+    return buildResponseEntity(apiError);
+  }
+
   @ExceptionHandler(InvalidPayloadException.class)
   protected ResponseEntity<Object> handleInvalidPayload(
     InvalidPayloadException ex) {
@@ -2,7 +2,7 @@ package ca.bc.gov.educ.api.student.profile.saga.helpers;
 
 import ca.bc.gov.educ.api.student.profile.saga.model.v1.Saga;
 import ca.bc.gov.educ.api.student.profile.saga.props.ApplicationProperties;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import ca.bc.gov.educ.api.student.profile.saga.utils.JsonUtil;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.slf4j.MDC;
@@ -10,13 +10,13 @@ import org.springframework.lang.NonNull;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
 
 @Slf4j
 public final class LogHelper {
-  private static final ObjectMapper mapper = new ObjectMapper();
   private static final String EXCEPTION = "Exception ";
 
   private LogHelper() {
@@ -40,7 +40,7 @@ public final class LogHelper {
       httpMap.put("server_http_request_payload", String.valueOf(request.getAttribute("payload")));
       httpMap.put("server_http_request_remote_address", request.getRemoteAddr());
       httpMap.put("server_http_request_client_name", request.getHeader("X-Client-Name"));
-      MDC.putCloseable("httpEvent", mapper.writeValueAsString(httpMap));
+      MDC.putCloseable("httpEvent", JsonUtil.getJsonStringFromObject(httpMap));
       log.info("");
       MDC.clear();
     } catch (final Exception exception) {
@@ -63,13 +63,24 @@ public final class LogHelper {
     }
   }
 
+  /**
+   * the event is the json bytes of a message, decoded only if the entry is logged.
+   *
+   * @param event the json bytes
+   */
+  public static void logMessagingEventDetails(final byte[] event) {
+    if (log.isInfoEnabled()) {
+      logMessagingEventDetails(new String(event, StandardCharsets.UTF_8));
+    }
+  }
+
   public static void logSagaRetry(final Saga saga) {
     final Map<String, Object> retrySagaMap = new HashMap<>();
     try {
       retrySagaMap.put("sagaName", saga.getSagaName());
       retrySagaMap.put("sagaId", saga.getSagaId());
       retrySagaMap.put("retryCount", saga.getRetryCount());
-      MDC.putCloseable("sagaRetry", mapper.writeValueAsString(retrySagaMap));
+      MDC.putCloseable("sagaRetry", JsonUtil.getJsonStringFromObject(retrySagaMap));
       log.info("Saga is being retried.");
       MDC.clear();
     } catch (final Exception ex) {
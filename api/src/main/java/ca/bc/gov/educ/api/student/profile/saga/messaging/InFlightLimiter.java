@@ -0,0 +1,58 @@
+package ca.bc.gov.educ.api.student.profile.saga.messaging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * caps the number of messages of a topic which were handed to the saga lanes and have not finished yet.
+ * the thread delivering the messages of the topic waits for a slot when all of them are taken, which pauses the delivery of that topic only.
+ */
+class InFlightLimiter {
+  private final int limit;
+  private final Semaphore permits;
+  private final Counter pauses;
+
+  InFlightLimiter(final String topic, final int limit, final MeterRegistry meterRegistry) {
+    this.limit = limit;
+    this.permits = new Semaphore(limit);
+    this.pauses = Counter.builder("saga.subscriber.paused").description("times the delivery of the topic was paused because all its slots were taken").tag("topic", topic).register(meterRegistry);
+    Gauge.builder("saga.subscriber.in.flight", this, InFlightLimiter::inFlight).description("messages of the topic being handled by the saga lanes").tag("topic", topic).register(meterRegistry);
+  }
+
+  /**
+   * takes a slot, waits for one if all of them are taken.
+   */
+  void acquire() throws InterruptedException {
+    this.acquireUpTo(1);
+  }
+
+  /**
+   * takes as many of the free slots as are available up to the given number, waits for one if all of them are taken.
+   *
+   * @return the number of slots taken, at least one.
+   */
+  int acquireUpTo(final int wanted) throws InterruptedException {
+    if (!this.permits.tryAcquire()) {
+      this.pauses.increment();
+      this.permits.acquire();
+    }
+    var acquired = 1;
+    while (acquired < wanted && this.permits.tryAcquire()) {
+      acquired++;
+    }
+    return acquired;
+  }
+
+  void release(final int slots) {
+    if (slots > 0) {
+      this.permits.release(slots);
+    }
+  }
+
+  int inFlight() {
+    return this.limit - this.permits.availablePermits();
+  }
+}
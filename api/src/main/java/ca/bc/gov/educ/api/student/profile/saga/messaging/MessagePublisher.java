@@ -1,6 +1,9 @@
 package ca.bc.gov.educ.api.student.profile.saga.messaging;
 
+import ca.bc.gov.educ.api.student.profile.saga.props.ApplicationProperties;
 import io.nats.client.Connection;
+import io.nats.client.impl.Headers;
+import io.nats.client.impl.NatsMessage;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -11,13 +14,15 @@ import org.springframework.stereotype.Component;
 @Component
 @Slf4j
 public class MessagePublisher {
-
+  static final String MSG_ID_HEADER = "Nats-Msg-Id";
 
   private final Connection connection;
+  private final boolean jetStreamEnabled;
 
   @Autowired
-  public MessagePublisher(final Connection con) {
+  public MessagePublisher(final Connection con, final ApplicationProperties applicationProperties) {
     this.connection = con;
+    this.jetStreamEnabled = applicationProperties.isJetStreamEnabled();
   }
 
   /**
@@ -29,4 +34,20 @@ public class MessagePublisher {
   public void dispatchMessage(final String subject, final byte[] message) {
     this.connection.publish(subject, message);
   }
+
+  /**
+   * Dispatch message, in JetStream mode the id is sent as the Nats-Msg-Id header so a stream capturing the subject drops the message
+   * if it is published again within its duplicate window, e.g. by the outbox relay after a pod died before removing the row.
+   *
+   * @param subject   the subject
+   * @param message   the message
+   * @param messageId the id which is the same every time this message is published.
+   */
+  public void dispatchMessage(final String subject, final byte[] message, final String messageId) {
+    if (!this.jetStreamEnabled) {
+      this.dispatchMessage(subject, message);
+      return;
+    }
+    this.connection.publish(NatsMessage.builder().subject(subject).headers(new Headers().add(MSG_ID_HEADER, messageId)).data(message).build());
+  }
 }
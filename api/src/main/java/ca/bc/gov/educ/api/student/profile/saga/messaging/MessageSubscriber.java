@@ -2,57 +2,293 @@ package ca.bc.gov.educ.api.student.profile.saga.messaging;
 
 import ca.bc.gov.educ.api.student.profile.saga.helpers.LogHelper;
 import ca.bc.gov.educ.api.student.profile.saga.orchestrator.base.SagaEventHandler;
+import ca.bc.gov.educ.api.student.profile.saga.orchestrator.base.SagaLaneExecutor;
+import ca.bc.gov.educ.api.student.profile.saga.orchestrator.base.SagaLaneExecutor.SagaTask;
+import ca.bc.gov.educ.api.student.profile.saga.orchestrator.base.SagaStepRetryScheduler;
+import ca.bc.gov.educ.api.student.profile.saga.props.ApplicationProperties;
 import ca.bc.gov.educ.api.student.profile.saga.struct.base.Event;
 import ca.bc.gov.educ.api.student.profile.saga.utils.JsonUtil;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.nats.client.Connection;
+import io.nats.client.Consumer;
+import io.nats.client.JetStreamApiException;
+import io.nats.client.JetStreamSubscription;
 import io.nats.client.Message;
 import io.nats.client.MessageHandler;
+import io.nats.client.PullSubscribeOptions;
+import io.nats.client.api.AckPolicy;
+import io.nats.client.api.ConsumerConfiguration;
+import io.nats.client.api.RetentionPolicy;
+import io.nats.client.api.StorageType;
+import io.nats.client.api.StreamConfiguration;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import lombok.val;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
 
 
+/**
+ * subscribes the saga event handlers to their topics.
+ * by default these are core NATS queue subscriptions, a message which arrives while no pod is subscribed is lost and the saga is picked up by the replay poller.
+ * in JetStream mode each topic has a durable pull consumer on a stream which captures the saga topics, a message is acked once the saga step which
+ * handled it has committed and is redelivered by the server otherwise. the number of unacked messages is capped by max ack pending.
+ * in both modes the number of messages of a topic on the saga lanes is capped, see {@link InFlightLimiter}. a paused core subscription buffers
+ * up to its pending limits in the client, a paused pull consumer stops fetching and the messages wait on the server.
+ */
 @Component
 @Slf4j
 @SuppressWarnings("java:S2142")
 public class MessageSubscriber {
-
+  private static final Duration FETCH_MAX_WAIT = Duration.ofSeconds(1);
 
   private final Connection connection;
+  private final SagaLaneExecutor sagaLaneExecutor;
+  private final SagaStepRetryScheduler sagaStepRetryScheduler;
+  private final ApplicationProperties applicationProperties;
+  private final MeterRegistry meterRegistry;
+  private final Map<String, InFlightLimiter> limiters = new ConcurrentHashMap<>();
+  private final Map<String, RecentlyProcessedFilter> duplicateFilters = new ConcurrentHashMap<>();
+  private ExecutorService pullExecutor;
+  private volatile boolean running = true;
 
   @Autowired
-  public MessageSubscriber(final Connection con, final List<SagaEventHandler> sagaEventHandlers) {
+  public MessageSubscriber(final Connection con, final List<SagaEventHandler> sagaEventHandlers, final SagaLaneExecutor sagaLaneExecutor, final SagaStepRetryScheduler sagaStepRetryScheduler,
+                           final ApplicationProperties applicationProperties, final MeterRegistry meterRegistry) throws IOException, JetStreamApiException {
     this.connection = con;
-    sagaEventHandlers.forEach(handler -> this.subscribe(handler.getTopicToSubscribe(), handler));
+    this.sagaLaneExecutor = sagaLaneExecutor;
+    this.sagaStepRetryScheduler = sagaStepRetryScheduler;
+    this.applicationProperties = applicationProperties;
+    this.meterRegistry = meterRegistry;
+    if (applicationProperties.isDuplicateFilterEnabled() && applicationProperties.getEnvelopeVersion() < Event.SAGA_VERSION_ENVELOPE_VERSION) {
+      log.warn("The duplicate filter is enabled but events are published in envelope version {}, which does not carry the saga version, so no reply is filtered. "
+        + "Raise messaging.envelope.version to {} once the participants echo sagaVersion in their replies", applicationProperties.getEnvelopeVersion(), Event.SAGA_VERSION_ENVELOPE_VERSION);
+    }
+    if (applicationProperties.isJetStreamEnabled()) {
+      this.addStreamIfAbsent(sagaEventHandlers.stream().map(SagaEventHandler::getTopicToSubscribe).toList());
+      this.pullExecutor = Executors.newFixedThreadPool(sagaEventHandlers.size(), new ThreadFactoryBuilder().setNameFormat("jetstream-pull-%d").build());
+      for (val handler : sagaEventHandlers) {
+        this.subscribeDurable(handler.getTopicToSubscribe(), handler);
+      }
+    } else {
+      sagaEventHandlers.forEach(handler -> this.subscribe(handler.getTopicToSubscribe(), handler));
+    }
   }
 
   public void subscribe(final String topic, final SagaEventHandler eventHandler) {
     final String queue = topic.replace("_", "-");
     final var dispatcher = this.connection.createDispatcher(this.onMessage(eventHandler));
+    dispatcher.setPendingLimits(this.applicationProperties.getSubscriberPendingLimitMessages(), this.applicationProperties.getSubscriberPendingLimitBytes());
     dispatcher.subscribe(topic, queue);
+    this.registerPendingGauge(topic, dispatcher);
+  }
+
+  /**
+   * creates the durable pull consumer of the topic, named like the queue group, and starts pulling from it.
+   * pods share the durable consumer, so each message is delivered to one of them.
+   */
+  public void subscribeDurable(final String topic, final SagaEventHandler eventHandler) throws IOException, JetStreamApiException {
+    final String durable = topic.replace("_", "-");
+    val options = PullSubscribeOptions.builder()
+      .stream(this.applicationProperties.getJetStreamStream())
+      .durable(durable)
+      .configuration(ConsumerConfiguration.builder()
+        .ackPolicy(AckPolicy.Explicit)
+        .ackWait(this.applicationProperties.getJetStreamAckWait())
+        .maxAckPending(this.applicationProperties.getJetStreamMaxAckPending())
+        .build())
+      .build();
+    val subscription = this.connection.jetStream().subscribe(topic, options);
+    this.registerPendingGauge(topic, subscription);
+    this.pullExecutor.execute(() -> {
+      while (this.running) {
+        try {
+          this.pull(subscription, eventHandler);
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        } catch (final IllegalStateException e) {
+          log.warn("JetStream subscription of {} is closed", topic, e);
+          return;
+        } catch (final Exception e) {
+          log.error("Exception while pulling from {}", topic, e);
+        }
+      }
+    });
+  }
+
+  /**
+   * fetches the next batch and hands each message to the saga lanes, waits at most a second when there is nothing to fetch.
+   * the batch is no larger than the free slots of the topic, and nothing is fetched until a slot is free.
+   *
+   * @return the number of messages fetched.
+   */
+  int pull(final JetStreamSubscription subscription, final SagaEventHandler eventHandler) throws InterruptedException {
+    val limiter = this.limiterOf(eventHandler.getTopicToSubscribe());
+    val slots = limiter.acquireUpTo(this.applicationProperties.getJetStreamFetchBatchSize());
+    final List<Message> messages;
+    try {
+      messages = subscription.fetch(slots, FETCH_MAX_WAIT);
+    } catch (final RuntimeException e) {
+      limiter.release(slots);
+      throw e;
+    }
+    limiter.release(slots - messages.size());
+    for (val message : messages) {
+      this.handle(message, eventHandler, true);
+    }
+    return messages.size();
+  }
+
+  @PreDestroy
+  public void close() {
+    this.running = false;
+    if (this.pullExecutor != null) {
+      this.pullExecutor.shutdown();
+    }
   }
 
   /**
    * On message message handler.
+   * the event is parsed straight from the message data, the data is only decoded to a string when messaging events are logged.
+   * the dispatcher thread waits for a free slot of the topic, the messages which arrive meanwhile are buffered by the dispatcher.
    *
    * @return the message handler
    */
-  private MessageHandler onMessage(final SagaEventHandler eventHandler) {
+  MessageHandler onMessage(final SagaEventHandler eventHandler) {
+    val limiter = this.limiterOf(eventHandler.getTopicToSubscribe());
     return (Message message) -> {
       if (message != null) {
+        limiter.acquire();
+        this.handle(message, eventHandler, false);
+      }
+    };
+  }
+
+  /**
+   * runs the event on the lane of its saga, a JetStream message is acked after the step returns, which is after its transaction committed,
+   * and negatively acked if it fails so it is redelivered. a message which cannot be parsed is terminated, redelivering it would not help.
+   * the caller took a slot of the topic for the message, it is given back once the step returns or fails.
+   * a reply this pod already handled is dropped, and acked as it was, unless the duplicate filter is strict.
+   * a step which lost to a concurrent write of the saga is run once more straight away, see {@link #executeSagaEvent}.
+   * a core message which failed is retried after a backoff by the {@link SagaStepRetryScheduler}, its slot is given back meanwhile as the message
+   * is not redelivered anyway. a JetStream message is redelivered by the server.
+   */
+  private void handle(final Message message, final SagaEventHandler eventHandler, final boolean ack) {
+    val limiter = this.limiterOf(eventHandler.getTopicToSubscribe());
+    final Event event;
+    try {
+      LogHelper.logMessagingEventDetails(message.getData());
+      event = JsonUtil.getJsonObjectFromBytes(Event.class, message.getData());
+    } catch (final Exception e) {
+      log.error("Exception ", e);
+      if (ack) {
+        message.term();
+      }
+      limiter.release(1);
+      return;
+    }
+    val duplicateFilter = this.duplicateFilterOf(eventHandler.getTopicToSubscribe());
+    if (duplicateFilter != null && duplicateFilter.isDuplicate(event) && !this.applicationProperties.isDuplicateFilterStrict()) {
+      log.debug("ignoring duplicate message {}", event);
+      if (ack) {
+        message.ack();
+      }
+      limiter.release(1);
+      return;
+    }
+    final SagaTask step = () -> {
+      this.executeSagaEvent(eventHandler, event);
+      if (duplicateFilter != null) {
+        duplicateFilter.recordProcessed(event);
+      }
+    };
+    this.sagaLaneExecutor.execute(event.getSagaId(), () -> {
+      try {
         try {
-          final var eventString = new String(message.getData());
-          LogHelper.logMessagingEventDetails(eventString);
-          final var event = JsonUtil.getJsonObjectFromString(Event.class, eventString);
-          eventHandler.executeSagaEvent(event);
+          step.run();
+        } catch (final OptimisticLockingFailureException e) {
+          if (ack) {
+            message.nak();
+          }
+          throw e;
         } catch (final Exception e) {
-          log.error("Exception ", e);
+          if (ack) {
+            message.nak();
+          } else {
+            this.sagaStepRetryScheduler.retryLater(event.getSagaId(), step, e);
+          }
+          return;
+        }
+        if (ack) {
+          message.ack();
         }
+      } finally {
+        limiter.release(1);
       }
-    };
+    });
+  }
+
+  /**
+   * runs the step, and runs it again once if its saga was written by another pod or a replay meanwhile. the second run reads the saga as it is now,
+   * so a duplicate reply finds the step already done and does nothing.
+   */
+  private void executeSagaEvent(final SagaEventHandler eventHandler, final Event event) throws InterruptedException, IOException, TimeoutException {
+    try {
+      eventHandler.executeSagaEvent(event);
+    } catch (final OptimisticLockingFailureException e) {
+      log.debug("saga :: {} was written while the step ran, running {} again", event.getSagaId(), event.getEventType());
+      this.meterRegistry.counter("saga.subscriber.version.retry", "topic", eventHandler.getTopicToSubscribe()).increment();
+      eventHandler.executeSagaEvent(event);
+    }
+  }
+
+  private InFlightLimiter limiterOf(final String topic) {
+    return this.limiters.computeIfAbsent(topic, key -> new InFlightLimiter(key, this.applicationProperties.getSubscriberMaxInFlight(), this.meterRegistry));
+  }
+
+  private RecentlyProcessedFilter duplicateFilterOf(final String topic) {
+    if (!this.applicationProperties.isDuplicateFilterEnabled()) {
+      return null;
+    }
+    return this.duplicateFilters.computeIfAbsent(topic, key -> new RecentlyProcessedFilter(key, this.applicationProperties.getDuplicateFilterSize(),
+      this.applicationProperties.getDuplicateFilterExpiry(), this.meterRegistry));
   }
 
+  private void registerPendingGauge(final String topic, final Consumer consumer) {
+    Gauge.builder("saga.subscriber.pending", consumer, Consumer::getPendingMessageCount).description("messages of the topic delivered to the client and not handed to the saga lanes yet")
+      .tag("topic", topic).register(this.meterRegistry);
+  }
 
+  /**
+   * creates the stream which captures the saga topics with work queue retention, a message is removed once it is acked.
+   * an existing stream is left as it is.
+   */
+  private void addStreamIfAbsent(final List<String> topics) throws IOException, JetStreamApiException {
+    val streamName = this.applicationProperties.getJetStreamStream();
+    val management = this.connection.jetStreamManagement();
+    if (management.getStreamNames().contains(streamName)) {
+      return;
+    }
+    log.info("Creating JetStream stream {} for {}", streamName, topics);
+    management.addStream(StreamConfiguration.builder()
+      .name(streamName)
+      .subjects(topics)
+      .retentionPolicy(RetentionPolicy.WorkQueue)
+      .storageType(StorageType.File)
+      .duplicateWindow(this.applicationProperties.getJetStreamDuplicateWindow())
+      .build());
+  }
 }
@@ -0,0 +1,71 @@
+package ca.bc.gov.educ.api.student.profile.saga.messaging;
+
+import ca.bc.gov.educ.api.student.profile.saga.constants.EventOutcome;
+import ca.bc.gov.educ.api.student.profile.saga.constants.EventType;
+import ca.bc.gov.educ.api.student.profile.saga.struct.base.Event;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * remembers the events this pod handled recently, so a duplicate reply can be dropped before the saga is read from the database.
+ * an event is only remembered once the step it triggered returned, a failed step is not. the cache is bounded and least recently used
+ * entries are evicted first, a duplicate which is not found here still goes through the check against the saga state.
+ * a reply is only filtered when it carries the version of the saga which sent the request, see {@link Event#SAGA_VERSION_ENVELOPE_VERSION}.
+ * a reply without it has no key, it is counted as keyless rather than as a miss and always goes through to the saga.
+ */
+class RecentlyProcessedFilter {
+  private final Cache<Key, Boolean> processed;
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter keyless;
+
+  RecentlyProcessedFilter(final String topic, final long maximumSize, final Duration expiry, final MeterRegistry meterRegistry) {
+    this.processed = CacheBuilder.newBuilder().maximumSize(maximumSize).expireAfterAccess(expiry).build();
+    this.hits = meterRegistry.counter("saga.subscriber.duplicate.filter", "topic", topic, "result", "hit");
+    this.misses = meterRegistry.counter("saga.subscriber.duplicate.filter", "topic", topic, "result", "miss");
+    this.keyless = meterRegistry.counter("saga.subscriber.duplicate.filter", "topic", topic, "result", "keyless");
+  }
+
+  /**
+   * @param event the event received.
+   * @return true if this pod already handled the same event of the saga.
+   */
+  boolean isDuplicate(final Event event) {
+    final var key = Key.of(event);
+    if (key == null) {
+      this.keyless.increment();
+      return false;
+    }
+    if (this.processed.getIfPresent(key) != null) {
+      this.hits.increment();
+      return true;
+    }
+    this.misses.increment();
+    return false;
+  }
+
+  void recordProcessed(final Event event) {
+    final var key = Key.of(event);
+    if (key != null) {
+      this.processed.put(key, Boolean.TRUE);
+    }
+  }
+
+  /**
+   * a reply is identified by the saga, the version the saga had when it sent the request, and the event type and outcome.
+   * the same request is sent again at another version, e.g. by a replay or by a later step, so the type and outcome alone do not tell the replies apart.
+   */
+  private record Key(UUID sagaId, Long sagaVersion, EventType eventType, EventOutcome eventOutcome) {
+    static Key of(final Event event) {
+      if (event.getSagaId() == null || event.getSagaVersion() == null || event.getEventType() == null || event.getEventOutcome() == null) {
+        return null;
+      }
+      return new Key(event.getSagaId(), event.getSagaVersion(), event.getEventType(), event.getEventOutcome());
+    }
+  }
+}
@@ -0,0 +1,178 @@
+package ca.bc.gov.educ.api.student.profile.saga.messaging;
+
+import ca.bc.gov.educ.api.student.profile.saga.model.v1.SagaOutbox;
+import ca.bc.gov.educ.api.student.profile.saga.orchestrator.base.SagaUnitOfWork;
+import ca.bc.gov.educ.api.student.profile.saga.repository.SagaOutboxRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * The saga outbox relay.
+ * messages are written to the outbox table in the transaction of the saga step and published to NATS through {@link MessagePublisher}
+ * as soon as that transaction commits, in the order they were written. if the pod dies before publishing, the rows are picked up by
+ * {@link #relayPendingMessages(LocalDateTime)} which is run by a scheduler.
+ * a saga step collects its messages in its {@link SagaUnitOfWork}, they are written with the state of the step by {@link #write(List)} and
+ * published by {@link #publish(List)} once that transaction is committed and its connection is released.
+ */
+@Component
+@Slf4j
+public class SagaOutboxRelay {
+  private static final String OUTBOX_MESSAGE_ID_PREFIX = "STUDENT-PROFILE-SAGA-OUTBOX-";
+  @Getter(PRIVATE)
+  private final SagaOutboxRepository sagaOutboxRepository;
+  @Getter(PRIVATE)
+  private final MessagePublisher messagePublisher;
+  private final TransactionTemplate transactionTemplate;
+  private final Timer lagTimer;
+  private final DistributionSummary batchSizeSummary;
+
+  @Value("${saga.outbox.relay.batch.size:500}")
+  @Setter
+  @Getter
+  Integer batchSize;
+
+  @Autowired
+  public SagaOutboxRelay(final SagaOutboxRepository sagaOutboxRepository, final MessagePublisher messagePublisher, final PlatformTransactionManager transactionManager,
+                         final MeterRegistry meterRegistry) {
+    this.sagaOutboxRepository = sagaOutboxRepository;
+    this.messagePublisher = messagePublisher;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.lagTimer = Timer.builder("saga.outbox.relay.lag").description("time between a message being written to the outbox and published to NATS").register(meterRegistry);
+    this.batchSizeSummary = DistributionSummary.builder("saga.outbox.relay.batch.size").description("number of messages published per relay batch").register(meterRegistry);
+  }
+
+  /**
+   * adds the message to the unit of work of the saga step running on this thread. without one the message is written to the outbox in the
+   * current transaction, a new one is started if there is none.
+   * the message is published after the transaction commits and discarded if it rolls back.
+   *
+   * @param subject the subject to publish to.
+   * @param payload the message.
+   * @param sagaId  the saga which produced the message.
+   */
+  public void enqueue(final String subject, final byte[] payload, final UUID sagaId) {
+    val outbox = SagaOutbox.builder().subject(subject).payload(payload).sagaId(sagaId).createDate(LocalDateTime.now()).build();
+    val unit = SagaUnitOfWork.current();
+    if (unit.isPresent()) {
+      unit.get().addMessage(outbox);
+      return;
+    }
+    this.transactionTemplate.executeWithoutResult(status -> this.currentBatch().add(this.getSagaOutboxRepository().save(outbox)));
+  }
+
+  /**
+   * writes the messages of a unit of work to the outbox in the transaction writing the unit, they are published by {@link #publish(List)}.
+   *
+   * @param messages the messages, in the order they are published.
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void write(final List<SagaOutbox> messages) {
+    this.getSagaOutboxRepository().saveAll(messages);
+  }
+
+  /**
+   * publishes the messages of a unit of work once they are written. if the unit was written in an enclosing transaction they are published
+   * when that transaction commits.
+   *
+   * @param messages the messages written by {@link #write(List)}.
+   */
+  public void publish(final List<SagaOutbox> messages) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      this.currentBatch().addAll(messages);
+    } else {
+      this.relay(messages);
+    }
+  }
+
+  /**
+   * publishes the messages which were not relayed by the transaction that wrote them, in batches ordered by outbox id.
+   *
+   * @param createDate only messages written before this date are relayed, newer ones belong to transactions which are still relaying them.
+   * @return the number of messages published.
+   */
+  public int relayPendingMessages(final LocalDateTime createDate) {
+    var relayed = 0;
+    List<SagaOutbox> batch;
+    do {
+      batch = this.getSagaOutboxRepository().findAllByCreateDateBeforeOrderByOutboxIdAsc(createDate, PageRequest.of(0, this.getBatchSize()));
+      val published = this.relay(batch);
+      relayed += published;
+      if (published < batch.size()) {
+        break;
+      }
+    } while (batch.size() == this.getBatchSize());
+    return relayed;
+  }
+
+  /**
+   * publishes the batch in order and removes the published rows, stops at the first failure so the order is kept for the next attempt.
+   *
+   * @return the number of messages published.
+   */
+  private int relay(final List<SagaOutbox> batch) {
+    if (batch.isEmpty()) {
+      return 0;
+    }
+    val publishedIds = new ArrayList<Long>(batch.size());
+    try {
+      for (val outbox : batch) {
+        this.getMessagePublisher().dispatchMessage(outbox.getSubject(), outbox.getPayload(), OUTBOX_MESSAGE_ID_PREFIX + outbox.getOutboxId());
+        this.lagTimer.record(Duration.between(outbox.getCreateDate(), LocalDateTime.now()));
+        publishedIds.add(outbox.getOutboxId());
+      }
+    } catch (final Exception e) {
+      log.error("Exception while relaying outbox message, the remaining {} messages will be relayed later", batch.size() - publishedIds.size(), e);
+    }
+    if (!publishedIds.isEmpty()) {
+      this.batchSizeSummary.record(publishedIds.size());
+      this.getSagaOutboxRepository().deleteAllByOutboxIdIn(publishedIds);
+    }
+    return publishedIds.size();
+  }
+
+  private List<SagaOutbox> currentBatch() {
+    for (val synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+      if (synchronization instanceof RelayOnCommit relayOnCommit) {
+        return relayOnCommit.batch;
+      }
+    }
+    val relayOnCommit = new RelayOnCommit();
+    TransactionSynchronizationManager.registerSynchronization(relayOnCommit);
+    return relayOnCommit.batch;
+  }
+
+  /**
+   * collects the messages written in one transaction and relays them once it commits.
+   */
+  private class RelayOnCommit implements TransactionSynchronization {
+    private final List<SagaOutbox> batch = new ArrayList<>();
+
+    @Override
+    public void afterCommit() {
+      SagaOutboxRelay.this.relay(this.batch);
+    }
+  }
+}
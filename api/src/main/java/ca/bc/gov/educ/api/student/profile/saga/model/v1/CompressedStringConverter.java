@@ -0,0 +1,109 @@
+package ca.bc.gov.educ.api.student.profile.saga.model.v1;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import lombok.val;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * stores the saga payload and the event responses as bytes, deflated when it makes them smaller.
+ * the first byte tells how the rest is stored, so rows written with compression on and off can be read back either way.
+ * small values are stored as they are, deflate does not gain anything on them.
+ */
+@Component
+@Converter
+public class CompressedStringConverter implements AttributeConverter<String, byte[]> {
+  static final byte RAW = 0;
+  static final byte DEFLATE = 1;
+  private static final int BUFFER_SIZE = 8192;
+  private final boolean compressionEnabled;
+  private final int minSize;
+  private final DistributionSummary compressionRatio;
+
+  @Autowired
+  public CompressedStringConverter(@Value("${saga.storage.compression.enabled:true}") final boolean compressionEnabled, @Value("${saga.storage.compression.min.size:512}") final int minSize,
+                                   final MeterRegistry meterRegistry) {
+    this.compressionEnabled = compressionEnabled;
+    this.minSize = minSize;
+    this.compressionRatio = DistributionSummary.builder("saga.storage.compression.ratio").description("size of a payload divided by its compressed size").register(meterRegistry);
+  }
+
+  @Override
+  public byte[] convertToDatabaseColumn(final String attribute) {
+    if (attribute == null) {
+      return null;
+    }
+    val raw = attribute.getBytes(StandardCharsets.UTF_8);
+    if (this.compressionEnabled && raw.length >= this.minSize) {
+      val deflated = deflate(raw);
+      this.compressionRatio.record(raw.length / (double) deflated.length);
+      if (deflated.length < raw.length) {
+        return deflated;
+      }
+    }
+    val data = new byte[raw.length + 1];
+    data[0] = RAW;
+    System.arraycopy(raw, 0, data, 1, raw.length);
+    return data;
+  }
+
+  @Override
+  public String convertToEntityAttribute(final byte[] dbData) {
+    if (dbData == null || dbData.length == 0) {
+      return null;
+    }
+    return switch (dbData[0]) {
+      case RAW -> new String(dbData, 1, dbData.length - 1, StandardCharsets.UTF_8);
+      case DEFLATE -> new String(inflate(dbData), StandardCharsets.UTF_8);
+      default -> throw new IllegalStateException("Unknown storage format " + dbData[0]);
+    };
+  }
+
+  private static byte[] deflate(final byte[] raw) {
+    val deflater = new Deflater(Deflater.BEST_SPEED);
+    try {
+      deflater.setInput(raw);
+      deflater.finish();
+      val out = new ByteArrayOutputStream(raw.length / 2 + 1);
+      out.write(DEFLATE);
+      val buffer = new byte[BUFFER_SIZE];
+      while (!deflater.finished()) {
+        out.write(buffer, 0, deflater.deflate(buffer));
+      }
+      return out.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static byte[] inflate(final byte[] data) {
+    val inflater = new Inflater();
+    try {
+      inflater.setInput(data, 1, data.length - 1);
+      val out = new ByteArrayOutputStream(data.length * 4);
+      val buffer = new byte[BUFFER_SIZE];
+      while (!inflater.finished()) {
+        val inflated = inflater.inflate(buffer);
+        if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new IllegalStateException("Truncated deflate data");
+        }
+        out.write(buffer, 0, inflated);
+      }
+      return out.toByteArray();
+    } catch (final DataFormatException e) {
+      throw new IllegalStateException("Corrupt deflate data", e);
+    } finally {
+      inflater.end();
+    }
+  }
+}
@@ -1,10 +1,12 @@
 package ca.bc.gov.educ.api.student.profile.saga.model.v1;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.GenericGenerator;
 
@@ -40,9 +42,18 @@ public class Saga {
   private String sagaState;
 
   @NotNull(message = "payload cannot be null")
-  @Column(name = "PAYLOAD", length = 10485760)
+  @Convert(converter = CompressedStringConverter.class)
+  @Column(name = "PAYLOAD_DATA", columnDefinition = "BYTEA")
   private String payload;
 
+  /**
+   * the payload of sagas written before it was stored in PAYLOAD_DATA, moved over the next time the saga is written.
+   */
+  @Column(name = "PAYLOAD", length = 10485760)
+  @JsonIgnore
+  @ToString.Exclude
+  private String legacyPayload;
+
   @NotNull(message = "status cannot be null")
   @Column(name = "STATUS")
   private String status;
@@ -77,4 +88,52 @@ public class Saga {
 
   @Column(name = "RETRY_COUNT")
   private Integer retryCount;
+
+  /**
+   * number of event states recorded for this saga, incremented in the same transaction as the event insert.
+   */
+  @Column(name = "STEP_COUNT")
+  private Integer stepCount;
+
+  /**
+   * the saga is being replayed by the pod which claimed it until this time, other pods skip it.
+   */
+  @Column(name = "LEASE_EXPIRES_AT")
+  private LocalDateTime leaseExpiresAt;
+
+  /**
+   * the saga is not replayed before this time, see {@link ca.bc.gov.educ.api.student.profile.saga.orchestrator.base.SagaRetryPolicy}.
+   */
+  @Column(name = "NEXT_RETRY_AT")
+  private LocalDateTime nextRetryAt;
+
+  /**
+   * the reply to the current step is due by this time, the saga is replayed once it passes. null if the saga is not waiting for a reply.
+   */
+  @Column(name = "STEP_DEADLINE")
+  private LocalDateTime stepDeadline;
+
+  /**
+   * the branches of the open fork whose reply is still waited for, comma separated. null if no fork is open.
+   */
+  @Column(name = "PENDING_BRANCHES")
+  private String pendingBranches;
+
+  /**
+   * incremented by every write of the saga, a write made from an older version fails so concurrent steps of the saga cannot overwrite each other.
+   */
+  @Version
+  @Column(name = "VERSION")
+  private Long version;
+
+  /**
+   * reads the payload of a saga which was not written since PAYLOAD_DATA was added, the change is flushed if the saga was loaded in a transaction.
+   */
+  @PostLoad
+  void moveLegacyPayload() {
+    if (this.payload == null && this.legacyPayload != null) {
+      this.payload = this.legacyPayload;
+      this.legacyPayload = null;
+    }
+  }
 }
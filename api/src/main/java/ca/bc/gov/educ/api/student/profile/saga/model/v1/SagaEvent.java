@@ -1,9 +1,12 @@
 package ca.bc.gov.educ.api.student.profile.saga.model.v1;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.GenericGenerator;
 
@@ -19,7 +22,7 @@ import java.util.UUID;
 @NoArgsConstructor
 @Data
 @Entity
-@Table(name = "STUDENT_PROFILE_SAGA_EVENT_STATES")
+@Table(name = "STUDENT_PROFILE_SAGA_EVENT_STATES", uniqueConstraints = {@UniqueConstraint(name = "STUDENT_PROFILE_SAGA_EVENT_STATES_SAGA_STEP_UK", columnNames = {"SAGA_ID", "SAGA_STEP_NUMBER", "SAGA_EVENT_STATE", "SAGA_EVENT_OUTCOME"})})
 @DynamicUpdate
 public class SagaEvent {
 
@@ -46,9 +49,19 @@ public class SagaEvent {
   @Column(name = "SAGA_STEP_NUMBER")
   private Integer sagaStepNumber;
 
-  @Column(name = "SAGA_EVENT_RESPONSE", length = 10485760)
+  /**
+   * the response of the event state being recorded, which is stored once in {@link SagaEventResponse}.
+   */
+  @Transient
   private String sagaEventResponse;
 
+  @ManyToOne
+  @JoinColumn(name = "SAGA_EVENT_RESPONSE_HASH", updatable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+  @JsonIgnore
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  private SagaEventResponse response;
+
   @NotNull(message = "create user cannot be null")
   @Column(name = "CREATE_USER", updatable = false)
   @Size(max = 100)
@@ -66,4 +79,17 @@ public class SagaEvent {
   @PastOrPresent
   @Column(name = "UPDATE_DATE")
   private LocalDateTime updateDate;
+
+  /**
+   * the create date of the saga, the event states are partitioned by it so they are dropped together with their saga.
+   */
+  @Column(name = "SAGA_CREATE_DATE", updatable = false)
+  private LocalDateTime sagaCreateDate;
+
+  public String getSagaEventResponse() {
+    if (this.sagaEventResponse == null && this.response != null) {
+      return this.response.getResponse();
+    }
+    return this.sagaEventResponse;
+  }
 }
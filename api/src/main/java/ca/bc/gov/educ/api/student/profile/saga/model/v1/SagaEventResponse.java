@@ -0,0 +1,40 @@
+package ca.bc.gov.educ.api.student.profile.saga.model.v1;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+/**
+ * an event response stored once for all the event states which received the same content, e.g. the same student returned to every replay of a step.
+ * the response is keyed by the SHA-256 of its content, the last used date is refreshed whenever an event state references it again,
+ * so the purge only removes responses which are both unreferenced and older than the retention.
+ */
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Entity
+@Table(name = "STUDENT_PROFILE_SAGA_EVENT_RESPONSE")
+public class SagaEventResponse {
+  @Id
+  @Column(name = "RESPONSE_HASH", updatable = false, length = 64)
+  private String responseHash;
+
+  @NotNull(message = "response cannot be null")
+  @Convert(converter = CompressedStringConverter.class)
+  @Column(name = "RESPONSE_DATA", updatable = false, columnDefinition = "BYTEA")
+  @ToString.Exclude
+  private String response;
+
+  @Column(name = "CREATE_DATE", updatable = false)
+  private LocalDateTime createDate;
+
+  @Column(name = "LAST_USED_DATE")
+  private LocalDateTime lastUsedDate;
+}
@@ -0,0 +1,42 @@
+package ca.bc.gov.educ.api.student.profile.saga.model.v1;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * a message waiting to be published to NATS, written in the same transaction as the saga state which produced it.
+ * the identity column gives the publish order.
+ */
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Entity
+@Table(name = "STUDENT_PROFILE_SAGA_OUTBOX")
+public class SagaOutbox {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @Column(name = "OUTBOX_ID", updatable = false)
+  private Long outboxId;
+
+  @Column(name = "SAGA_ID", updatable = false, columnDefinition = "BINARY(16)")
+  private UUID sagaId;
+
+  @NotNull(message = "subject cannot be null")
+  @Column(name = "SUBJECT", updatable = false)
+  private String subject;
+
+  @NotNull(message = "payload cannot be null")
+  @Column(name = "PAYLOAD", updatable = false, columnDefinition = "BYTEA")
+  private byte[] payload;
+
+  @Column(name = "CREATE_DATE", updatable = false)
+  private LocalDateTime createDate;
+}
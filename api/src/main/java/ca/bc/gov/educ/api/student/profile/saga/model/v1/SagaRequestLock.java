@@ -0,0 +1,32 @@
+package ca.bc.gov.educ.api.student.profile.saga.model.v1;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * a row per pen request or profile request a saga was started for, locked while a saga is started for the request so two sagas are
+ * never started for it at the same time. the saga table is partitioned by create date, so it cannot have a unique index on the request id.
+ */
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Entity
+@Table(name = "STUDENT_PROFILE_SAGA_REQUEST_LOCK")
+public class SagaRequestLock {
+  @Id
+  @Column(name = "REQUEST_ID", updatable = false, columnDefinition = "BINARY(16)")
+  private UUID requestId;
+
+  @Column(name = "LOCKED_AT")
+  private LocalDateTime lockedAt;
+}
@@ -2,7 +2,8 @@ package ca.bc.gov.educ.api.student.profile.saga.orchestrator.base;
 
 import ca.bc.gov.educ.api.student.profile.saga.constants.EventOutcome;
 import ca.bc.gov.educ.api.student.profile.saga.constants.EventType;
-import ca.bc.gov.educ.api.student.profile.saga.messaging.MessagePublisher;
+import ca.bc.gov.educ.api.student.profile.saga.exception.SagaRuntimeException;
+import ca.bc.gov.educ.api.student.profile.saga.messaging.SagaOutboxRelay;
 import ca.bc.gov.educ.api.student.profile.saga.model.v1.Saga;
 import ca.bc.gov.educ.api.student.profile.saga.model.v1.SagaEvent;
 import ca.bc.gov.educ.api.student.profile.saga.service.SagaService;
@@ -13,17 +14,20 @@ import ca.bc.gov.educ.api.student.profile.saga.utils.JsonUtil;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.springframework.beans.BeanUtils;
-import org.springframework.scheduling.annotation.Async;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
 import jakarta.validation.constraints.NotNull;
 import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
 import static ca.bc.gov.educ.api.student.profile.saga.constants.EventOutcome.*;
 import static ca.bc.gov.educ.api.student.profile.saga.constants.EventType.*;
@@ -34,50 +38,103 @@ import static lombok.AccessLevel.PROTECTED;
 @Slf4j
 public abstract class BaseOrchestrator<T> implements SagaEventHandler, Orchestrator {
   public static final String SELF = "SELF";
+  private static final String BRANCH_SEPARATOR = ",";
   protected static final String DEMOG_CODE_CONFIRMED = "C";
+  /**
+   * the notification steps wait for the email to be sent, which takes longer than the other participants take to reply.
+   */
+  protected static final Duration NOTIFY_STEP_TIMEOUT = Duration.ofMinutes(2);
   protected static final String SYSTEM_IS_GOING_TO_EXECUTE_NEXT_EVENT_FOR_CURRENT_EVENT = "system is going to execute next event :: {} for current event {}";
   protected final Class<T> clazz;
   protected final Map<EventType, List<SagaEventState<T>>> nextStepsToExecute = new LinkedHashMap<>();
+  /**
+   * the compiled form of {@link #nextStepsToExecute}, built once after the steps are registered.
+   */
+  @Getter(PROTECTED)
+  private final SagaTransitionTable<T> transitionTable;
   @Getter(PROTECTED)
   private final SagaService sagaService;
   @Getter(PROTECTED)
-  private final MessagePublisher messagePublisher;
+  private final SagaOutboxRelay sagaOutboxRelay;
   @Getter
   private final String sagaName;
   @Getter
   private final String topicToSubscribe;
 
-  protected BaseOrchestrator(final SagaService sagaService, final MessagePublisher messagePublisher, final Class<T> clazz, final String sagaName, final String topicToSubscribe) {
+  /**
+   * the envelope version of the events published, from {@link Event#RAW_PAYLOAD_VERSION} the payload is embedded as json instead of an escaped string.
+   * participants which are not upgraded only read the string form, so it is raised once all of them are.
+   * from {@link Event#SAGA_VERSION_ENVELOPE_VERSION} the events carry the version of the saga, which the participants echo so duplicate replies can be told apart.
+   */
+  @Value("${messaging.envelope.version:1}")
+  @Setter
+  @Getter
+  Integer envelopeVersion;
+
+  /**
+   * keeps the parsed payload between the steps of a saga, the payload is parsed for every event without it.
+   */
+  @Autowired
+  @Setter
+  @Getter(PROTECTED)
+  SagaPayloadCache sagaPayloadCache;
+
+  /**
+   * how long the reply to a step is waited for when the step does not declare its own timeout.
+   */
+  @Value("${saga.step.timeout.default:PT30S}")
+  @Setter
+  @Getter
+  Duration defaultStepTimeout;
+
+  /**
+   * tracks the deadlines of the steps, a saga whose step times out is replayed. the deadlines are only written to the saga without it.
+   */
+  @Autowired
+  @Setter
+  @Getter(PROTECTED)
+  SagaStepTimeoutWheel sagaStepTimeoutWheel;
+
+  protected BaseOrchestrator(final SagaService sagaService, final SagaOutboxRelay sagaOutboxRelay, final Class<T> clazz, final String sagaName, final String topicToSubscribe) {
     this.sagaService = sagaService;
-    this.messagePublisher = messagePublisher;
+    this.sagaOutboxRelay = sagaOutboxRelay;
     this.clazz = clazz;
     this.sagaName = sagaName;
     this.topicToSubscribe = topicToSubscribe;
     this.populateStepsToExecuteMap();
+    this.transitionTable = SagaTransitionTable.compile(sagaName, this.nextStepsToExecute);
   }
 
-  protected List<SagaEventState<T>> createSingleCollectionEventState(final EventOutcome eventOutcome, final Boolean isCompensating, final EventType nextEventType, final SagaStep<T> stepToExecute) {
+  protected List<SagaEventState<T>> createSingleCollectionEventState(final EventOutcome eventOutcome, final Boolean isCompensating, final EventType nextEventType, final SagaStep<T> stepToExecute,
+                                                                     final Duration timeout) {
     final List<SagaEventState<T>> eventStates = new ArrayList<>();
-    eventStates.add(this.buildSagaEventState(eventOutcome, isCompensating, nextEventType, stepToExecute));
+    eventStates.add(this.buildSagaEventState(eventOutcome, isCompensating, nextEventType, stepToExecute, timeout));
     return eventStates;
   }
 
 
-  protected SagaEventState<T> buildSagaEventState(final EventOutcome eventOutcome, final Boolean isCompensating, final EventType nextEventType, final SagaStep<T> stepToExecute) {
-    return SagaEventState.<T>builder().currentEventOutcome(eventOutcome).isCompensating(isCompensating).nextEventType(nextEventType).stepToExecute(stepToExecute).build();
+  protected SagaEventState<T> buildSagaEventState(final EventOutcome eventOutcome, final Boolean isCompensating, final EventType nextEventType, final SagaStep<T> stepToExecute,
+                                                  final Duration timeout) {
+    return SagaEventState.<T>builder().currentEventOutcome(eventOutcome).isCompensating(isCompensating).nextEventType(nextEventType).stepToExecute(stepToExecute).timeout(timeout).build();
   }
 
 
-  protected BaseOrchestrator<T> registerStepToExecute(final EventType initEvent, final EventOutcome outcome, final Boolean isCompensating, final EventType nextEvent, final SagaStep<T> stepToExecute) {
+  protected BaseOrchestrator<T> registerStepToExecute(final EventType initEvent, final EventOutcome outcome, final Boolean isCompensating, final EventType nextEvent, final SagaStep<T> stepToExecute,
+                                                      final Duration timeout) {
     if (this.nextStepsToExecute.containsKey(initEvent)) {
       val states = this.nextStepsToExecute.get(initEvent);
-      states.add(this.buildSagaEventState(outcome, isCompensating, nextEvent, stepToExecute));
+      states.add(this.buildSagaEventState(outcome, isCompensating, nextEvent, stepToExecute, timeout));
     } else {
-      this.nextStepsToExecute.put(initEvent, this.createSingleCollectionEventState(outcome, isCompensating, nextEvent, stepToExecute));
+      this.nextStepsToExecute.put(initEvent, this.createSingleCollectionEventState(outcome, isCompensating, nextEvent, stepToExecute, timeout));
     }
     return this;
   }
 
+  private BaseOrchestrator<T> registerSagaEventState(final EventType initEvent, final SagaEventState<T> sagaEventState) {
+    this.nextStepsToExecute.computeIfAbsent(initEvent, k -> new ArrayList<>()).add(sagaEventState);
+    return this;
+  }
+
   /**
    * @param currentEvent  the event that has occurred.
    * @param outcome       outcome of the event.
@@ -86,7 +143,54 @@ public abstract class BaseOrchestrator<T> implements SagaEventHandler, Orchestra
    * @return {@link BaseOrchestrator}
    */
   public BaseOrchestrator<T> step(final EventType currentEvent, final EventOutcome outcome, final EventType nextEvent, final SagaStep<T> stepToExecute) {
-    return this.registerStepToExecute(currentEvent, outcome, false, nextEvent, stepToExecute);
+    return this.registerStepToExecute(currentEvent, outcome, false, nextEvent, stepToExecute, null);
+  }
+
+  /**
+   * a step whose reply may take longer or shorter than the default step timeout.
+   *
+   * @param currentEvent  the event that has occurred.
+   * @param outcome       outcome of the event.
+   * @param nextEvent     next event that will occur.
+   * @param stepToExecute which method to execute for the next event. it is a lambda function.
+   * @param timeout       how long the reply to the next event is waited for, the saga is replayed after it.
+   * @return {@link BaseOrchestrator}
+   */
+  public BaseOrchestrator<T> step(final EventType currentEvent, final EventOutcome outcome, final EventType nextEvent, final SagaStep<T> stepToExecute, final Duration timeout) {
+    return this.registerStepToExecute(currentEvent, outcome, false, nextEvent, stepToExecute, timeout);
+  }
+
+  /**
+   * a step which dispatches the events of independent branches together instead of one after the other. the saga waits until every branch
+   * replied, the replies of the branches registered through {@link #join} are folded into the payload as they come in and the saga then
+   * continues with the step registered for the reply of the one branch which is not joined. the branches still waited for are persisted
+   * with the saga, see {@link Saga#getPendingBranches()}.
+   *
+   * @param currentEvent  the event that has occurred.
+   * @param outcome       outcome of the event.
+   * @param stepToExecute which method to execute for the branches, it dispatches the event of every branch.
+   * @param branches      the events dispatched together.
+   * @return {@link BaseOrchestrator}
+   */
+  public BaseOrchestrator<T> fork(final EventType currentEvent, final EventOutcome outcome, final SagaStep<T> stepToExecute, final EventType... branches) {
+    val sagaEventState = this.buildSagaEventState(outcome, false, branches[0], stepToExecute, null);
+    sagaEventState.setForkBranches(List.of(branches));
+    return this.registerSagaEventState(currentEvent, sagaEventState);
+  }
+
+  /**
+   * the reply to a branch of a fork which is joined with another branch of it.
+   *
+   * @param branchEvent   the branch that replied.
+   * @param outcome       outcome of the branch.
+   * @param joinedWith    the branch whose step continues the saga once every branch replied.
+   * @param stepToExecute which method folds the reply into the payload, it dispatches no event.
+   * @return {@link BaseOrchestrator}
+   */
+  public BaseOrchestrator<T> join(final EventType branchEvent, final EventOutcome outcome, final EventType joinedWith, final SagaStep<T> stepToExecute) {
+    val sagaEventState = this.buildSagaEventState(outcome, false, joinedWith, stepToExecute, null);
+    sagaEventState.setJoinedWith(joinedWith);
+    return this.registerSagaEventState(branchEvent, sagaEventState);
   }
 
   /**
@@ -104,14 +208,11 @@ public abstract class BaseOrchestrator<T> implements SagaEventHandler, Orchestra
    *
    * @param currentEventType current event.
    * @param saga             the model object.
-   * @param eventTypes       event types stored in the hashmap
    * @return true or false based on whether the current event with outcome received from the queue is already processed or not.
    */
-  protected boolean isNotProcessedEvent(final EventType currentEventType, final Saga saga, final Set<EventType> eventTypes) {
-    val eventTypeInDB = EventType.valueOf(saga.getSagaState());
-    val events = new LinkedList<>(eventTypes);
-    val dbEventIndex = events.indexOf(eventTypeInDB);
-    val currentEventIndex = events.indexOf(currentEventType);
+  protected boolean isNotProcessedEvent(final EventType currentEventType, final Saga saga) {
+    val dbEventIndex = this.transitionTable.stepOrdinal(EventType.valueOf(saga.getSagaState()));
+    val currentEventIndex = this.transitionTable.stepOrdinal(currentEventType);
     return currentEventIndex >= dbEventIndex;
   }
 
@@ -132,9 +233,10 @@ public abstract class BaseOrchestrator<T> implements SagaEventHandler, Orchestra
       .updateDate(LocalDateTime.now())
       .updateUser(user)
       .saga(saga)
+      .sagaCreateDate(saga.getCreateDate())
       .sagaEventOutcome(eventOutcome.toString())
       .sagaEventState(eventType.toString())
-      .sagaStepNumber(this.calculateStep(saga))
+      .sagaStepNumber(this.stepNumberOf(saga, eventType, eventOutcome))
       .sagaEventResponse(eventPayload == null ? "" : eventPayload)
       .build();
   }
@@ -161,20 +263,28 @@ public abstract class BaseOrchestrator<T> implements SagaEventHandler, Orchestra
     val sagaEvent = this.createEventState(saga, event.getEventType(), event.getEventOutcome(), event.getEventPayload());
     saga.setSagaState(COMPLETED.toString());
     saga.setStatus(COMPLETED.toString());
+    saga.setStepDeadline(null);
     saga.setUpdateDate(LocalDateTime.now());
     this.getSagaService().updateAttachedSagaWithEvents(saga, sagaEvent);
 
   }
 
   /**
-   * calculate step number
+   * the step number of the event, the number it is recorded with already if the step records an event again, e.g. on a replay.
+   */
+  private int stepNumberOf(final Saga saga, final EventType eventType, final EventOutcome eventOutcome) {
+    return SagaUnitOfWork.current().flatMap(unit -> unit.recordedStep(saga.getSagaId(), eventType.toString(), eventOutcome.toString()))
+      .orElseGet(() -> this.calculateStep(saga));
+  }
+
+  /**
+   * calculate step number from the step count persisted on the saga, no event states are read.
    *
    * @param saga the model object.
    * @return step number that was calculated.
    */
   private int calculateStep(final Saga saga) {
-    val sagaStates = this.getSagaService().findAllSagaStates(saga);
-    return (sagaStates.size() + 1);
+    return (saga.getStepCount() == null ? 0 : saga.getStepCount()) + 1;
   }
 
   /**
@@ -187,7 +297,13 @@ public abstract class BaseOrchestrator<T> implements SagaEventHandler, Orchestra
    * @throws TimeoutException     if connection to messaging system times out.
    */
   protected void postMessageToTopic(final String topicName, final Event nextEvent) throws InterruptedException, IOException, TimeoutException {
-    this.getMessagePublisher().dispatchMessage(topicName, JsonUtil.getJsonStringFromObject(nextEvent).getBytes());
+    if (this.getEnvelopeVersion() != null && this.getEnvelopeVersion() >= Event.RAW_PAYLOAD_VERSION) {
+      nextEvent.setEnvelopeVersion(this.getEnvelopeVersion());
+    }
+    if (this.getEnvelopeVersion() != null && this.getEnvelopeVersion() >= Event.SAGA_VERSION_ENVELOPE_VERSION && nextEvent.getSagaId() != null) {
+      SagaUnitOfWork.current().flatMap(unit -> unit.sagaVersion(nextEvent.getSagaId())).ifPresent(nextEvent::setSagaVersion);
+    }
+    this.getSagaOutboxRelay().enqueue(topicName, JsonUtil.getJsonBytesFromObject(nextEvent), nextEvent.getSagaId());
   }
 
   /**
@@ -203,6 +319,7 @@ public abstract class BaseOrchestrator<T> implements SagaEventHandler, Orchestra
 
   /**
    * this method is called from the cron job , which will replay the saga process based on its current state.
+   * no transaction is held while the saga is replayed, the step is written as one {@link SagaUnitOfWork}.
    *
    * @param saga the model object.
    * @throws InterruptedException if thread is interrupted.
@@ -210,49 +327,72 @@ public abstract class BaseOrchestrator<T> implements SagaEventHandler, Orchestra
    * @throws TimeoutException     if connection to messaging system times out.
    */
   @Override
-  @Async("async-task-executor")
-  @Transactional
   public void replaySaga(final Saga saga) throws IOException, InterruptedException, TimeoutException {
-    val eventStates = this.getSagaService().findAllSagaStates(saga);
-    val t = JsonUtil.getJsonObjectFromString(this.clazz, saga.getPayload());
-    if (eventStates.isEmpty()) { //process did not start last time, lets start from beginning.
-      this.replayFromBeginning(saga, t);
-    } else {
-      this.replayFromLastEvent(saga, eventStates, t);
+    try (final var unit = SagaUnitOfWork.begin(this.getSagaName(), saga.getSagaState())) {
+      val eventStates = this.getSagaService().findAllSagaStates(saga);
+      val t = this.readSagaData(saga);
+      if (eventStates.isEmpty()) { //process did not start last time, lets start from beginning.
+        this.replayFromBeginning(saga, t);
+      } else {
+        this.replayFromLastEvent(saga, eventStates, t, unit);
+      }
+      this.cacheSagaData(saga, t);
+      this.completeUnitOfWork(unit);
     }
   }
 
+  /**
+   * finds the event the open fork of the saga was dispatched for, the branches of a fork are dispatched by one step so it is replayed as a whole.
+   *
+   * @param eventStates event states corresponding to the Saga.
+   * @return {@link SagaEvent} if found else empty.
+   */
+  protected Optional<SagaEvent> findTheLastForkOccurred(final List<SagaEvent> eventStates) {
+    return eventStates.stream()
+      .filter(element -> this.findNextSagaEventState(EventType.valueOf(element.getSagaEventState()), EventOutcome.valueOf(element.getSagaEventOutcome()))
+        .map(SagaEventState::getForkBranches).isPresent())
+      .max(Comparator.comparing(SagaEvent::getSagaStepNumber));
+  }
+
   /**
    * This method will restart the saga process from where it was left the last time. which could occur due to various reasons
+   * a saga waiting for the branches of a fork is restarted from the fork, which dispatches the branches which did not reply again.
    *
    * @param saga        the model object.
    * @param eventStates the event states corresponding to the saga
    * @param t           the payload string as an object
+   * @param unit        the unit of work of the replay.
    * @throws InterruptedException if thread is interrupted.
    * @throws IOException          if there is connectivity problem
    * @throws TimeoutException     if connection to messaging system times out.
    */
-  private void replayFromLastEvent(final Saga saga, final List<SagaEvent> eventStates, final T t) throws InterruptedException, TimeoutException, IOException {
-    val sagaEventOptional = this.findTheLastEventOccurred(eventStates);
+  private void replayFromLastEvent(final Saga saga, final List<SagaEvent> eventStates, final T t, final SagaUnitOfWork unit) throws InterruptedException, TimeoutException, IOException {
+    val sagaEventOptional = saga.getPendingBranches() == null ? this.findTheLastEventOccurred(eventStates) : this.findTheLastForkOccurred(eventStates);
     if (sagaEventOptional.isPresent()) {
       val sagaEvent = sagaEventOptional.get();
-      log.trace(sagaEventOptional.toString());
-      val currentEvent = EventType.valueOf(sagaEvent.getSagaEventState());
-      val eventOutcome = EventOutcome.valueOf(sagaEvent.getSagaEventOutcome());
-      val event = Event.builder()
-        .sagaId(saga.getSagaId())
-        .eventOutcome(eventOutcome)
-        .eventType(currentEvent)
-        .eventPayload(sagaEvent.getSagaEventResponse())
-        .build();
-      val sagaEventState = this.findNextSagaEventState(currentEvent, eventOutcome);
+      log.trace("replaying saga :: {} from event :: {} {}", saga.getSagaId(), sagaEvent.getSagaEventState(), sagaEvent.getSagaEventOutcome()); // the saga of the event is not loaded outside a transaction.
+      val event = this.toEvent(saga, sagaEvent);
+      val sagaEventState = this.findNextSagaEventState(event.getEventType(), event.getEventOutcome());
       if (sagaEventState.isPresent()) {
         log.trace(SYSTEM_IS_GOING_TO_EXECUTE_NEXT_EVENT_FOR_CURRENT_EVENT, sagaEventState.get().getNextEventType(), event.toString());
+        unit.recorded(saga.getSagaId(), sagaEvent); // the step records the event again with its own step number, so the insert is a no-op.
         this.invokeNextEvent(event, saga, t, sagaEventState.get());
       }
     }
   }
 
+  /**
+   * the event an event state was recorded for.
+   */
+  private Event toEvent(final Saga saga, final SagaEvent sagaEvent) {
+    return Event.builder()
+      .sagaId(saga.getSagaId())
+      .eventOutcome(EventOutcome.valueOf(sagaEvent.getSagaEventOutcome()))
+      .eventType(EventType.valueOf(sagaEvent.getSagaEventState()))
+      .eventPayload(sagaEvent.getSagaEventResponse())
+      .build();
+  }
+
   /**
    * This method will restart the saga process from the beginning. which could occur due to various reasons
    *
@@ -279,6 +419,7 @@ public abstract class BaseOrchestrator<T> implements SagaEventHandler, Orchestra
 
   /**
    * this method is called if there is a new message on this specific topic which this service is listening.
+   * no transaction is held while the event is handled, the step is written as one {@link SagaUnitOfWork}.
    *
    * @param event the event in the topic received as a json string and then converted to {@link Event}
    * @throws InterruptedException if thread is interrupted.
@@ -287,23 +428,65 @@ public abstract class BaseOrchestrator<T> implements SagaEventHandler, Orchestra
    */
 
   @Override
-  @Async("async-task-executor")
-  @Transactional
   public void executeSagaEvent(@NotNull final Event event) throws InterruptedException, IOException, TimeoutException {
     log.trace("executing saga event {}", event);
     if (this.sagaEventExecutionNotRequired(event)) {
       log.trace("Execution is not required for this message returning EVENT is :: {}", event);
       return;
     }
+    try (final var unit = SagaUnitOfWork.begin(this.getSagaName(), event.getEventType().toString())) {
+      this.handleSagaEvent(event);
+      this.completeUnitOfWork(unit);
+    }
+  }
+
+  /**
+   * writes what the step collected in one short transaction and publishes its messages once that transaction is committed and its
+   * connection is released. a unit joined by a nested step is written by the step which opened it.
+   *
+   * @param unit the unit of work of the step.
+   */
+  private void completeUnitOfWork(final SagaUnitOfWork unit) {
+    if (unit.isJoined()) {
+      return;
+    }
+    if (!unit.isEmpty()) {
+      this.getSagaService().writeUnitOfWork(unit);
+      this.getSagaOutboxRelay().publish(unit.getMessages());
+      this.trackStepDeadlines(unit);
+    }
+    for (val payload : unit.getPayloads()) {
+      this.putSagaData(payload.saga(), payload.data());
+    }
+  }
+
+  /**
+   * tracks the deadlines of the steps the unit dispatched, the sagas which are no longer waiting for a reply are not tracked any more.
+   */
+  private void trackStepDeadlines(final SagaUnitOfWork unit) {
+    if (this.getSagaStepTimeoutWheel() == null) {
+      return;
+    }
+    for (val state : unit.getStates()) {
+      val saga = state.saga();
+      if (saga.getStepDeadline() == null || COMPLETED.toString().equalsIgnoreCase(saga.getStatus())) {
+        this.getSagaStepTimeoutWheel().cancel(saga.getSagaId());
+      } else {
+        this.getSagaStepTimeoutWheel().schedule(saga.getSagaId(), saga.getStepDeadline());
+      }
+    }
+  }
+
+  private void handleSagaEvent(@NotNull final Event event) throws InterruptedException, IOException, TimeoutException {
     this.broadcastSagaInitiatedMessage(event);
     val sagaOptional = this.getSagaService().findSagaById(event.getSagaId());
     if (sagaOptional.isPresent()) {
       val saga = sagaOptional.get();
       if (!COMPLETED.toString().equalsIgnoreCase(sagaOptional.get().getStatus()) && !FORCE_STOPPED.toString().equalsIgnoreCase(sagaOptional.get().getStatus())) {//possible duplicate message or force stop scenario check
-        final var sagaEventState = this.findNextSagaEventState(event.getEventType(), event.getEventOutcome());
+        final var sagaEventState = this.transitionTable.transitionFor(event.getEventType(), event.getEventOutcome());
         log.trace("found next event as {}", sagaEventState);
-        if (sagaEventState.isPresent()) {
-          this.process(event, saga, sagaEventState.get());
+        if (sagaEventState != null) {
+          this.process(event, saga, sagaEventState);
         } else {
           log.error("This should not have happened, please check that both the saga api and all the participating apis are in sync in terms of events and their outcomes. {}", event); // more explicit error message,
         }
@@ -347,8 +530,7 @@ public abstract class BaseOrchestrator<T> implements SagaEventHandler, Orchestra
    * @return {@link Optional<SagaEventState>}
    */
   protected Optional<SagaEventState<T>> findNextSagaEventState(final EventType currentEvent, final EventOutcome eventOutcome) {
-    val sagaEventStates = this.nextStepsToExecute.get(currentEvent);
-    return sagaEventStates == null ? Optional.empty() : sagaEventStates.stream().filter(el -> el.getCurrentEventOutcome() == eventOutcome).findFirst();
+    return Optional.ofNullable(this.transitionTable.transitionFor(currentEvent, eventOutcome));
   }
 
   /**
@@ -362,14 +544,124 @@ public abstract class BaseOrchestrator<T> implements SagaEventHandler, Orchestra
    * @throws TimeoutException     if connection to messaging system times out.
    */
   protected void process(@NotNull final Event event, final Saga saga, final SagaEventState<T> sagaEventState) throws InterruptedException, TimeoutException, IOException {
-    val sagaData = JsonUtil.getJsonObjectFromString(this.clazz, saga.getPayload());
-    if (!saga.getSagaState().equalsIgnoreCase(COMPLETED.toString())
-      && this.isNotProcessedEvent(event.getEventType(), saga, this.nextStepsToExecute.keySet())) {
+    val sagaData = this.readSagaData(saga);
+    if (saga.getPendingBranches() != null) {
+      this.joinBranch(event, saga, sagaData, sagaEventState);
+    } else if (!saga.getSagaState().equalsIgnoreCase(COMPLETED.toString())
+      && this.isNotProcessedEvent(event.getEventType(), saga)) {
       log.info(SYSTEM_IS_GOING_TO_EXECUTE_NEXT_EVENT_FOR_CURRENT_EVENT, sagaEventState.getNextEventType(), event);
       this.invokeNextEvent(event, saga, sagaData, sagaEventState);
     } else {
       log.info("ignoring this message as we have already processed it or it is completed. {}", event.toString()); // it is expected to receive duplicate message in saga pattern, system should be designed to handle duplicates.
     }
+    this.cacheSagaData(saga, sagaData);
+  }
+
+  /**
+   * handles the reply to a branch of the open fork of the saga, a reply to a branch which replied already or is not a branch of the fork is a duplicate.
+   * the reply is recorded and its branch is no longer waited for, the reply to a joined branch is folded into the payload.
+   * once the last branch replied the saga continues with the step for the reply to the branch the others are joined with, which is read back from
+   * its event state if that branch replied before. that event state is marked as recorded in the unit of work, so the step does not record it again.
+   *
+   * @param event          the reply to the branch.
+   * @param saga           the model object.
+   * @param sagaData       the payload as an object.
+   * @param sagaEventState the step registered for the reply.
+   * @throws InterruptedException if thread is interrupted.
+   * @throws IOException          if there is connectivity problem
+   * @throws TimeoutException     if connection to messaging system times out.
+   */
+  private void joinBranch(final Event event, final Saga saga, final T sagaData, final SagaEventState<T> sagaEventState) throws InterruptedException, TimeoutException, IOException {
+    val pendingBranches = new ArrayList<>(Arrays.asList(saga.getPendingBranches().split(BRANCH_SEPARATOR)));
+    if (!pendingBranches.remove(event.getEventType().toString())) {
+      log.info("ignoring this message as it is not the reply to a branch the open fork waits for. {}", event); // a duplicate, or an event of the saga from before the fork.
+      return;
+    }
+    saga.setPendingBranches(pendingBranches.isEmpty() ? null : String.join(BRANCH_SEPARATOR, pendingBranches));
+    val joinedWith = sagaEventState.getJoinedWith();
+    if (joinedWith != null) {
+      sagaEventState.getStepToExecute().apply(event, saga, sagaData);
+    }
+    if (joinedWith != null || !pendingBranches.isEmpty()) { // the reply which continues the saga is recorded by its step.
+      val sagaEvent = this.createEventState(saga, event.getEventType(), event.getEventOutcome(), event.getEventPayload());
+      this.getSagaService().updateAttachedSagaWithEvents(saga, sagaEvent);
+    }
+    if (pendingBranches.isEmpty()) {
+      val continuingEvent = joinedWith == null ? event : this.findBranchReply(saga, joinedWith);
+      val continuingState = this.transitionTable.transitionFor(continuingEvent.getEventType(), continuingEvent.getEventOutcome());
+      if (continuingState == null) {
+        throw new SagaRuntimeException("no step is registered for " + continuingEvent.getEventType() + " " + continuingEvent.getEventOutcome() + " to continue saga :: " + saga.getSagaId() + " after its fork");
+      }
+      log.info(SYSTEM_IS_GOING_TO_EXECUTE_NEXT_EVENT_FOR_CURRENT_EVENT, continuingState.getNextEventType(), continuingEvent);
+      this.invokeNextEvent(continuingEvent, saga, sagaData, continuingState);
+    }
+  }
+
+  /**
+   * the last reply recorded for a branch of the fork, it is marked as recorded in the unit of work of the step.
+   */
+  private Event findBranchReply(final Saga saga, final EventType branch) {
+    val sagaEvent = this.getSagaService().findLastSagaState(saga, branch.toString())
+      .orElseThrow(() -> new SagaRuntimeException("no reply is recorded for branch " + branch + " of saga :: " + saga.getSagaId()));
+    SagaUnitOfWork.current().ifPresent(unit -> unit.recorded(saga.getSagaId(), sagaEvent));
+    return this.toEvent(saga, sagaEvent);
+  }
+
+  /**
+   * whether the fork step dispatches the branch, a fork which is replayed only dispatches the branches which did not reply yet.
+   *
+   * @param saga   the model object.
+   * @param branch the branch of the fork.
+   * @return true if the saga waits for the reply to the branch.
+   */
+  protected boolean isPendingBranch(final Saga saga, final EventType branch) {
+    return saga.getPendingBranches() != null && Arrays.asList(saga.getPendingBranches().split(BRANCH_SEPARATOR)).contains(branch.toString());
+  }
+
+  /**
+   * the payload of the saga as an object, from the payload cache if the saga still has the payload it was parsed from.
+   *
+   * @param saga the model object.
+   * @return the payload as an object, which the step may change.
+   * @throws JsonProcessingException if the payload cannot be parsed.
+   */
+  protected T readSagaData(final Saga saga) throws JsonProcessingException {
+    if (this.getSagaPayloadCache() == null) {
+      return JsonUtil.getJsonObjectFromString(this.clazz, saga.getPayload());
+    }
+    return this.getSagaPayloadCache().take(saga, this.clazz);
+  }
+
+  /**
+   * keeps the payload object for the next step of the saga, inside a step it is cached once the step is written.
+   */
+  private void cacheSagaData(final Saga saga, final T sagaData) {
+    val unit = SagaUnitOfWork.current();
+    if (unit.isPresent()) {
+      unit.get().addPayload(saga, sagaData);
+    } else {
+      this.putSagaData(saga, sagaData);
+    }
+  }
+
+  /**
+   * caches the payload object at the version the saga has now, a completed saga has no next step.
+   */
+  private void putSagaData(final Saga saga, final Object sagaData) {
+    if (this.getSagaPayloadCache() != null && !COMPLETED.toString().equalsIgnoreCase(saga.getStatus())) {
+      this.getSagaPayloadCache().put(saga, sagaData);
+    }
+  }
+
+  /**
+   * writes the changed payload object to the saga, steps only call it when they changed the object so an unchanged payload is not encoded again.
+   *
+   * @param saga     the model object.
+   * @param sagaData the payload as an object.
+   * @throws JsonProcessingException if the payload cannot be written.
+   */
+  protected void updateSagaPayload(final Saga saga, final T sagaData) throws JsonProcessingException {
+    saga.setPayload(JsonUtil.getJsonStringFromObject(sagaData));
   }
 
   /**
@@ -385,14 +677,31 @@ public abstract class BaseOrchestrator<T> implements SagaEventHandler, Orchestra
    */
   protected void invokeNextEvent(final Event event, final Saga saga, final T sagaData, final SagaEventState<T> sagaEventState) throws InterruptedException, TimeoutException, IOException {
     val stepToExecute = sagaEventState.getStepToExecute();
+    saga.setStepDeadline(this.stepDeadline(sagaEventState));
+    if (sagaEventState.getForkBranches() == null) {
+      saga.setPendingBranches(null);
+    } else if (saga.getPendingBranches() == null) {
+      saga.setPendingBranches(sagaEventState.getForkBranches().stream().map(EventType::toString).collect(Collectors.joining(BRANCH_SEPARATOR)));
+    } // else the open fork is replayed, it keeps waiting for the branches which did not reply and only dispatches those again.
     stepToExecute.apply(event, saga, sagaData);
   }
 
+  /**
+   * the time the reply to the event the step dispatches is due by, null for the last step as no reply is waited for.
+   */
+  private LocalDateTime stepDeadline(final SagaEventState<T> sagaEventState) {
+    if (sagaEventState.getNextEventType() == MARK_SAGA_COMPLETE) {
+      return null;
+    }
+    val timeout = sagaEventState.getTimeout() != null ? sagaEventState.getTimeout() : this.getDefaultStepTimeout();
+    return timeout == null ? null : LocalDateTime.now().plus(timeout);
+  }
+
   public abstract void populateStepsToExecuteMap();
 
   protected String getDocumentTypeCode(final String eventPayload) throws JsonProcessingException {
-    final List<DocMetadata> docMetadataList = JsonUtil.objectMapper.readValue(eventPayload, new TypeReference<>() {
-    });
+    final List<DocMetadata> docMetadataList = JsonUtil.getJsonObjectFromString(new TypeReference<>() {
+    }, eventPayload);
     docMetadataList.sort(Comparator.comparing(DocMetadata::getCreateDate).reversed());
     return docMetadataList.get(0).getDocumentTypeCode();
   }
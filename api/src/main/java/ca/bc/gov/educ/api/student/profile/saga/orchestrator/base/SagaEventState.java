@@ -7,6 +7,9 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Duration;
+import java.util.List;
+
 @AllArgsConstructor
 @Builder
 @NoArgsConstructor
@@ -16,4 +19,7 @@ public class SagaEventState<T> {
   private EventType nextEventType;
   private Boolean isCompensating; // does this event out come triggers compensation.
   private SagaStep<T> stepToExecute;
+  private Duration timeout; // how long the reply to the next event is waited for, the default step timeout if null.
+  private List<EventType> forkBranches; // the events a fork dispatches together, null if the step dispatches the next event only.
+  private EventType joinedWith; // the branch whose step continues the saga once every branch of the fork replied, null if this is not the reply to a joined branch.
 }
@@ -0,0 +1,155 @@
+package ca.bc.gov.educ.api.student.profile.saga.orchestrator.base;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs saga events and replays on the async-task-executor through a fixed number of lanes, the lane is picked by the hash of the saga id.
+ * a lane runs one task at a time in submission order, so a duplicate reply and a replay of the same saga never run concurrently,
+ * while sagas in different lanes run in parallel.
+ */
+@Component
+@Slf4j
+public class SagaLaneExecutor {
+  private final Lane[] lanes;
+  private final Counter conflicts;
+
+  @Autowired
+  public SagaLaneExecutor(@Qualifier("async-task-executor") final Executor executor, final MeterRegistry meterRegistry, @Value("${saga.executor.lanes:16}") final int laneCount) {
+    this.lanes = new Lane[laneCount];
+    final var rejections = Counter.builder("saga.executor.lane.rejected").description("hand overs of a lane the executor rejected, the lane ran its tasks on the calling thread").register(meterRegistry);
+    for (var i = 0; i < laneCount; i++) {
+      this.lanes[i] = new Lane(executor, rejections);
+      Gauge.builder("saga.executor.lane.queue.depth", this.lanes[i], Lane::depth).description("saga tasks waiting in the lane").tag("lane", String.valueOf(i)).register(meterRegistry);
+    }
+    this.conflicts = Counter.builder("saga.version.conflict").description("saga tasks dropped as the saga was written by another pod meanwhile").register(meterRegistry);
+  }
+
+  /**
+   * queues the task on the lane of the saga, exceptions are logged as there is no caller to return them to.
+   * a task which lost to a concurrent write of the saga by another pod is dropped, that pod moved the saga on and the replay picks it up if it stalls.
+   *
+   * @param sagaId the saga the task belongs to.
+   * @param task   the task, usually executing an event or replaying the saga.
+   */
+  public void execute(final UUID sagaId, final SagaTask task) {
+    this.lanes[this.laneIndex(sagaId)].execute(() -> {
+      try {
+        task.run();
+      } catch (final OptimisticLockingFailureException e) {
+        this.conflicts.increment();
+        log.info("Saga :: {} was written by another pod while the task ran, the task is dropped.", sagaId);
+      } catch (final Exception e) {
+        log.error("Exception while executing saga task for saga :: {}", sagaId, e);
+      }
+    });
+  }
+
+  int laneIndex(final UUID sagaId) {
+    if (sagaId == null) {
+      return 0;
+    }
+    final var hash = sagaId.hashCode();
+    return Math.floorMod(hash ^ (hash >>> 16), this.lanes.length);
+  }
+
+  @FunctionalInterface
+  public interface SagaTask {
+    void run() throws Exception;
+  }
+
+  /**
+   * a serial view of the shared executor, each task is handed over separately so a busy lane does not hold on to a thread.
+   * a hand over the executor rejects, as it is saturated or shutting down, runs the tasks of the lane on the calling thread instead,
+   * so the lane is not left marked as running with nobody to run it.
+   */
+  private static final class Lane {
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private final Executor executor;
+    private final Counter rejections;
+    private boolean running;
+
+    private Lane(final Executor executor, final Counter rejections) {
+      this.executor = executor;
+      this.rejections = rejections;
+    }
+
+    void execute(final Runnable task) {
+      synchronized (this) {
+        this.tasks.add(task);
+        if (this.running) {
+          return;
+        }
+        this.running = true;
+      }
+      this.handOver();
+    }
+
+    private void handOver() {
+      try {
+        this.executor.execute(this::runNext);
+      } catch (final RejectedExecutionException e) {
+        this.rejections.increment();
+        log.warn("The executor rejected the saga lane, its queued tasks run on the calling thread.", e);
+        this.drain();
+      }
+    }
+
+    /**
+     * runs the queued tasks in order until the lane is empty, the tasks queued meanwhile are run too.
+     */
+    private void drain() {
+      while (true) {
+        final Runnable task;
+        synchronized (this) {
+          task = this.tasks.poll();
+          if (task == null) {
+            this.running = false;
+            return;
+          }
+        }
+        try {
+          task.run();
+        } catch (final RuntimeException | Error e) {
+          synchronized (this) {
+            this.running = false; // the tasks left are handed over again by the next task queued.
+          }
+          throw e;
+        }
+      }
+    }
+
+    private void runNext() {
+      final Runnable task;
+      synchronized (this) {
+        task = this.tasks.poll();
+        if (task == null) {
+          this.running = false;
+          return;
+        }
+      }
+      try {
+        task.run();
+      } finally {
+        this.handOver();
+      }
+    }
+
+    synchronized int depth() {
+      return this.tasks.size();
+    }
+  }
+}
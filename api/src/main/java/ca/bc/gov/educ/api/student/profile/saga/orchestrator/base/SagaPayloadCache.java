@@ -0,0 +1,72 @@
+package ca.bc.gov.educ.api.student.profile.saga.orchestrator.base;
+
+import ca.bc.gov.educ.api.student.profile.saga.model.v1.Saga;
+import ca.bc.gov.educ.api.student.profile.saga.utils.JsonUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.val;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * keeps the parsed payload of a saga between its steps, so it is not parsed again from the saga for every event.
+ * an entry is only used while the saga still has the version it was cached at, a saga updated by another pod or through the api is parsed again.
+ * a step gets the object to itself, the entry is taken out when the step starts and put back once it returned, so a step which changed the
+ * object and failed does not leave it behind.
+ */
+@Component
+public class SagaPayloadCache {
+  private final Cache<UUID, CachedPayload> payloads;
+  private final Counter hits;
+  private final Counter misses;
+
+  @Autowired
+  public SagaPayloadCache(@Value("${saga.payload.cache.size:1000}") final long maximumSize, @Value("${saga.payload.cache.expiry:PT10M}") final Duration expiry,
+                          final MeterRegistry meterRegistry) {
+    this.payloads = CacheBuilder.newBuilder().maximumSize(maximumSize).expireAfterAccess(expiry).build();
+    this.hits = meterRegistry.counter("saga.payload.cache", "result", "hit");
+    this.misses = meterRegistry.counter("saga.payload.cache", "result", "miss");
+  }
+
+  /**
+   * takes the parsed payload of the saga out of the cache, or parses it if it is not cached for the version the saga has now.
+   *
+   * @param saga  the model object.
+   * @param clazz the payload type of the saga.
+   * @param <T>   the payload type of the saga.
+   * @return the payload as an object.
+   * @throws JsonProcessingException if the payload cannot be parsed.
+   */
+  public <T> T take(final Saga saga, final Class<T> clazz) throws JsonProcessingException {
+    val cached = saga.getSagaId() == null ? null : this.payloads.asMap().remove(saga.getSagaId());
+    if (cached != null && clazz.isInstance(cached.data()) && cached.version().equals(saga.getVersion())) {
+      this.hits.increment();
+      return clazz.cast(cached.data());
+    }
+    this.misses.increment();
+    return JsonUtil.getJsonObjectFromString(clazz, saga.getPayload());
+  }
+
+  /**
+   * puts the object back after the step returned and its changes to the saga are written, the step must have written the object to the payload
+   * of the saga if it changed it.
+   *
+   * @param saga the model object, with the version it was written at.
+   * @param data the payload as an object.
+   */
+  public void put(final Saga saga, final Object data) {
+    if (saga.getSagaId() != null && saga.getVersion() != null && data != null) {
+      this.payloads.put(saga.getSagaId(), new CachedPayload(saga.getVersion(), data));
+    }
+  }
+
+  private record CachedPayload(Long version, Object data) {
+  }
+}
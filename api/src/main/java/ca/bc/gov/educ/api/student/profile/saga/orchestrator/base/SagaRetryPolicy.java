@@ -0,0 +1,62 @@
+package ca.bc.gov.educ.api.student.profile.saga.orchestrator.base;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * how often a stuck saga is replayed.
+ * the delay between replays grows exponentially from the initial backoff up to the max backoff, half of it is random so sagas
+ * which got stuck together are not replayed together. once the max attempts are used the saga is dead lettered.
+ * every setting can be overridden per saga name, e.g. {@code saga.retry.PEN_REQUEST_COMPLETE_SAGA.max.attempts=20}.
+ */
+@Component
+public class SagaRetryPolicy {
+  private static final String PREFIX = "saga.retry.";
+  private final Environment environment;
+  private final int maxAttempts;
+  private final Duration initialBackoff;
+  private final Duration maxBackoff;
+  private final double multiplier;
+
+  @Autowired
+  public SagaRetryPolicy(final Environment environment, @Value("${saga.retry.max.attempts:10}") final int maxAttempts, @Value("${saga.retry.backoff.initial:PT1M}") final Duration initialBackoff,
+                         @Value("${saga.retry.backoff.max:PT30M}") final Duration maxBackoff, @Value("${saga.retry.backoff.multiplier:2}") final double multiplier) {
+    this.environment = environment;
+    this.maxAttempts = maxAttempts;
+    this.initialBackoff = initialBackoff;
+    this.maxBackoff = maxBackoff;
+    this.multiplier = multiplier;
+  }
+
+  /**
+   * @param sagaName   the saga name.
+   * @param retryCount the number of times the saga was replayed.
+   * @return true if the saga must not be replayed again.
+   */
+  public boolean isExhausted(final String sagaName, final int retryCount) {
+    return retryCount >= this.property(sagaName, "max.attempts", Integer.class, this.maxAttempts);
+  }
+
+  /**
+   * @param sagaName   the saga name.
+   * @param retryCount the number of times the saga was replayed, including the replay which is about to start.
+   * @return the time to wait before the next replay, between half and all of the exponential backoff.
+   */
+  public Duration nextBackoff(final String sagaName, final int retryCount) {
+    final var initial = this.property(sagaName, "backoff.initial", Duration.class, this.initialBackoff).toMillis();
+    final var max = this.property(sagaName, "backoff.max", Duration.class, this.maxBackoff).toMillis();
+    final var factor = this.property(sagaName, "backoff.multiplier", Double.class, this.multiplier);
+    final var backoff = (long) Math.min(max, initial * Math.pow(factor, Math.max(0, retryCount - 1)));
+    final var half = backoff / 2;
+    return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(backoff - half + 1));
+  }
+
+  private <T> T property(final String sagaName, final String key, final Class<T> type, final T defaultValue) {
+    return this.environment.getProperty(PREFIX + sagaName + "." + key, type, defaultValue);
+  }
+}
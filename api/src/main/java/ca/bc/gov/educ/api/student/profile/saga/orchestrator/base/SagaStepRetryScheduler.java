@@ -0,0 +1,133 @@
+package ca.bc.gov.educ.api.student.profile.saga.orchestrator.base;
+
+import ca.bc.gov.educ.api.student.profile.saga.orchestrator.base.SagaLaneExecutor.SagaTask;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * runs saga steps on the {@link SagaLaneExecutor} and runs a failed step again after a backoff, e.g. while the database fails over.
+ * the backoff is waited on a timer, the lane and its thread are free meanwhile and the step is queued on the lane of its saga again once it is due.
+ * the delay grows exponentially from the initial backoff up to the max backoff. once the max attempts are used the step is given up,
+ * the saga is picked up by the replay poller, see {@link SagaRetryPolicy}.
+ * a step which lost to a concurrent write of its saga is not retried here, see {@link SagaLaneExecutor#execute}.
+ */
+@Component
+@Slf4j
+public class SagaStepRetryScheduler {
+  private final SagaLaneExecutor sagaLaneExecutor;
+  private final MeterRegistry meterRegistry;
+  private final ScheduledExecutorService timer;
+  private final AtomicInteger retriesInFlight = new AtomicInteger();
+  private final int maxAttempts;
+  private final Duration initialBackoff;
+  private final Duration maxBackoff;
+  private final double multiplier;
+
+  @Autowired
+  public SagaStepRetryScheduler(final SagaLaneExecutor sagaLaneExecutor, final MeterRegistry meterRegistry, @Value("${saga.step.retry.max.attempts:5}") final int maxAttempts,
+                                @Value("${saga.step.retry.backoff.initial:PT2S}") final Duration initialBackoff, @Value("${saga.step.retry.backoff.max:PT30S}") final Duration maxBackoff,
+                                @Value("${saga.step.retry.backoff.multiplier:2}") final double multiplier) {
+    this.sagaLaneExecutor = sagaLaneExecutor;
+    this.meterRegistry = meterRegistry;
+    this.maxAttempts = maxAttempts;
+    this.initialBackoff = initialBackoff;
+    this.maxBackoff = maxBackoff;
+    this.multiplier = multiplier;
+    this.timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("saga-step-retry-%d").setDaemon(true).build());
+    Gauge.builder("saga.step.retry.in.flight", this.retriesInFlight, AtomicInteger::get).description("failed saga steps waiting for their next attempt").register(meterRegistry);
+  }
+
+  /**
+   * queues the step on the lane of its saga, it is retried if it fails.
+   *
+   * @param sagaId the saga the step belongs to.
+   * @param step   the step, usually executing an event of the saga.
+   */
+  public void execute(final UUID sagaId, final SagaTask step) {
+    this.attempt(sagaId, step, 1);
+  }
+
+  /**
+   * schedules the next attempt of a step whose first attempt failed on the caller's thread.
+   *
+   * @param sagaId  the saga the step belongs to.
+   * @param step    the step.
+   * @param failure why the first attempt failed.
+   */
+  public void retryLater(final UUID sagaId, final SagaTask step, final Exception failure) {
+    this.scheduleRetry(sagaId, step, 1, failure);
+  }
+
+  @PreDestroy
+  public void close() {
+    this.timer.shutdownNow(); // the sagas of the steps waiting here are replayed by the poller.
+  }
+
+  private void attempt(final UUID sagaId, final SagaTask step, final int attempt) {
+    this.sagaLaneExecutor.execute(sagaId, () -> {
+      try {
+        step.run();
+      } catch (final OptimisticLockingFailureException e) {
+        throw e;
+      } catch (final Exception e) {
+        this.scheduleRetry(sagaId, step, attempt, e);
+        return;
+      }
+      if (attempt > 1) {
+        this.countRetry("recovered");
+      }
+    });
+  }
+
+  private void scheduleRetry(final UUID sagaId, final SagaTask step, final int failedAttempt, final Exception failure) {
+    if (failedAttempt >= this.maxAttempts) {
+      this.countRetry("exhausted");
+      log.error("Saga step for saga :: {} failed {} times, it is left to the replay poller.", sagaId, failedAttempt, failure);
+      return;
+    }
+    val backoff = this.backoff(failedAttempt);
+    log.warn("Saga step for saga :: {} failed on attempt {}, retrying in {} :: {}", sagaId, failedAttempt, backoff, failure.toString());
+    this.countRetry("scheduled");
+    this.retriesInFlight.incrementAndGet();
+    try {
+      this.timer.schedule(() -> {
+        this.retriesInFlight.decrementAndGet();
+        this.attempt(sagaId, step, failedAttempt + 1);
+      }, backoff.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (final RuntimeException e) { // shutting down.
+      this.retriesInFlight.decrementAndGet();
+      log.warn("Could not schedule the retry of the saga step for saga :: {}, it is left to the replay poller.", sagaId);
+    }
+  }
+
+  /**
+   * @param failedAttempt the attempt which failed, starting at 1.
+   * @return the time to wait before the next attempt.
+   */
+  Duration backoff(final int failedAttempt) {
+    return Duration.ofMillis((long) Math.min(this.maxBackoff.toMillis(), this.initialBackoff.toMillis() * Math.pow(this.multiplier, failedAttempt - 1.0)));
+  }
+
+  int retriesInFlight() {
+    return this.retriesInFlight.get();
+  }
+
+  private void countRetry(final String outcome) {
+    this.meterRegistry.counter("saga.step.retry", "outcome", outcome).increment();
+  }
+}
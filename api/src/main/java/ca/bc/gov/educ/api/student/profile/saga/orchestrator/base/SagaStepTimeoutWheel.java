@@ -0,0 +1,165 @@
+package ca.bc.gov.educ.api.student.profile.saga.orchestrator.base;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * tracks the step deadline of every open saga in a hashed timing wheel, a saga whose step is not answered by its deadline is handed to
+ * the expiry handler, see {@link ca.bc.gov.educ.api.student.profile.saga.schedulers.EventTaskScheduler}.
+ * the wheel is a ring of buckets, one per tick. a deadline goes into the bucket of its tick, with the number of turns of the wheel left
+ * before it is due, so adding, moving and expiring a deadline does not depend on the number of sagas tracked.
+ * a saga has one deadline, a new deadline replaces the previous one which is dropped when its bucket comes round.
+ * deadlines are only tracked in memory, they are loaded from the sagas on startup and the replay poller picks up the ones of a pod which stopped.
+ */
+@Component
+@Slf4j
+public class SagaStepTimeoutWheel {
+  private final long tickNanos;
+  private final List<List<Timeout>> buckets;
+  private final int mask;
+  private final long startNanos = System.nanoTime();
+  private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+  private final Map<UUID, Timeout> timeouts = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService ticker;
+  private final Counter expired;
+  private volatile Consumer<UUID> expiryHandler = sagaId -> {
+  };
+  private long tick; // only read and written by the ticker.
+
+  @Autowired
+  public SagaStepTimeoutWheel(final MeterRegistry meterRegistry, @Value("${saga.step.timeout.wheel.tick:PT1S}") final Duration tickDuration,
+                              @Value("${saga.step.timeout.wheel.size:512}") final int wheelSize) {
+    if (Integer.bitCount(wheelSize) != 1) {
+      throw new IllegalArgumentException("the wheel size must be a power of two :: " + wheelSize);
+    }
+    this.tickNanos = tickDuration.toNanos();
+    this.mask = wheelSize - 1;
+    this.buckets = new ArrayList<>(wheelSize);
+    for (var i = 0; i < wheelSize; i++) {
+      this.buckets.add(new ArrayList<>());
+    }
+    this.expired = meterRegistry.counter("saga.step.timeout.expired");
+    Gauge.builder("saga.step.timeout.tracked", this.timeouts, Map::size).description("open saga steps whose deadline is tracked").register(meterRegistry);
+    this.ticker = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("saga-step-timeout-%d").setDaemon(true).build());
+    this.ticker.scheduleAtFixedRate(this::tick, this.tickNanos, this.tickNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * @param expiryHandler called on the ticker with the saga whose step deadline passed, it must hand the saga over rather than replay it.
+   */
+  public void onExpiry(final Consumer<UUID> expiryHandler) {
+    this.expiryHandler = expiryHandler;
+  }
+
+  /**
+   * tracks the deadline of the current step of the saga, replacing the deadline of its previous step.
+   *
+   * @param sagaId   the saga.
+   * @param deadline the time the reply to the step is due by, a deadline which passed already expires on the next tick.
+   */
+  public void schedule(final UUID sagaId, final LocalDateTime deadline) {
+    val delayNanos = Math.max(0, Duration.between(LocalDateTime.now(), deadline).toNanos());
+    val timeout = new Timeout(sagaId, System.nanoTime() - this.startNanos + delayNanos);
+    this.timeouts.put(sagaId, timeout);
+    this.added.add(timeout);
+  }
+
+  /**
+   * stops tracking the saga, e.g. once it is complete.
+   *
+   * @param sagaId the saga.
+   */
+  public void cancel(final UUID sagaId) {
+    this.timeouts.remove(sagaId);
+  }
+
+  @PreDestroy
+  public void close() {
+    this.ticker.shutdownNow(); // the deadlines are loaded again by the next pod which starts, the poller replays the sagas meanwhile.
+  }
+
+  int tracked() {
+    return this.timeouts.size();
+  }
+
+  /**
+   * places the deadlines added since the last tick and expires the ones in the bucket of this tick, the deadlines in the bucket which are due
+   * in a later turn of the wheel wait for it.
+   */
+  private void tick() {
+    try {
+      this.placeAddedTimeouts();
+      val bucket = this.buckets.get((int) (this.tick & this.mask));
+      for (final var iterator = bucket.iterator(); iterator.hasNext(); ) {
+        val timeout = iterator.next();
+        if (this.timeouts.get(timeout.sagaId) != timeout) { // replaced or cancelled.
+          iterator.remove();
+        } else if (timeout.remainingRounds > 0) {
+          timeout.remainingRounds--;
+        } else {
+          iterator.remove();
+          if (this.timeouts.remove(timeout.sagaId, timeout)) {
+            this.expire(timeout.sagaId);
+          }
+        }
+      }
+      this.tick++;
+    } catch (final RuntimeException e) { // a failed tick must not stop the ticker.
+      log.error("Exception while expiring saga step deadlines", e);
+    }
+  }
+
+  private void placeAddedTimeouts() {
+    Timeout timeout;
+    while ((timeout = this.added.poll()) != null) {
+      if (this.timeouts.get(timeout.sagaId) != timeout) {
+        continue;
+      }
+      val dueTick = Math.max(timeout.deadlineNanos / this.tickNanos, this.tick);
+      timeout.remainingRounds = (dueTick - this.tick) / this.buckets.size();
+      this.buckets.get((int) (dueTick & this.mask)).add(timeout);
+    }
+  }
+
+  private void expire(final UUID sagaId) {
+    this.expired.increment();
+    try {
+      this.expiryHandler.accept(sagaId);
+    } catch (final RuntimeException e) {
+      log.error("Exception while handing over the timed out step of saga :: {}", sagaId, e);
+    }
+  }
+
+  private static final class Timeout {
+    private final UUID sagaId;
+    private final long deadlineNanos; // since the wheel started.
+    private long remainingRounds;
+
+    private Timeout(final UUID sagaId, final long deadlineNanos) {
+      this.sagaId = sagaId;
+      this.deadlineNanos = deadlineNanos;
+    }
+  }
+}
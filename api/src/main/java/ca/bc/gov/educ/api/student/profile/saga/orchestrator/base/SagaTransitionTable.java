@@ -0,0 +1,176 @@
+package ca.bc.gov.educ.api.student.profile.saga.orchestrator.base;
+
+import ca.bc.gov.educ.api.student.profile.saga.constants.EventOutcome;
+import ca.bc.gov.educ.api.student.profile.saga.constants.EventType;
+import ca.bc.gov.educ.api.student.profile.saga.exception.SagaRuntimeException;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import static ca.bc.gov.educ.api.student.profile.saga.constants.EventType.INITIATED;
+import static ca.bc.gov.educ.api.student.profile.saga.constants.EventType.MARK_SAGA_COMPLETE;
+
+/**
+ * Immutable, ordinal indexed view of the steps registered through {@link BaseOrchestrator#step}, {@link BaseOrchestrator#fork} and {@link BaseOrchestrator#join}.
+ * It is compiled once when the orchestrator is constructed, so looking up the next step for an incoming event is a plain array read.
+ * The graph is validated while compiling, an invalid saga definition fails the application startup.
+ *
+ * @param <T> the saga payload type
+ */
+public final class SagaTransitionTable<T> {
+  private static final int EVENT_TYPE_COUNT = EventType.values().length;
+  private static final int EVENT_OUTCOME_COUNT = EventOutcome.values().length;
+  /**
+   * the value of {@link #stepOrdinal(EventType)} for an event type which is not registered in the saga.
+   */
+  public static final int UNKNOWN_STEP = -1;
+
+  private final SagaEventState<T>[] transitions; // flattened [eventType.ordinal][eventOutcome.ordinal]
+  private final int[] stepOrdinals; // registration order of the current event types.
+
+  @SuppressWarnings("unchecked")
+  private SagaTransitionTable(final String sagaName, final Map<EventType, List<SagaEventState<T>>> steps) {
+    this.transitions = new SagaEventState[EVENT_TYPE_COUNT * EVENT_OUTCOME_COUNT];
+    this.stepOrdinals = new int[EVENT_TYPE_COUNT];
+    Arrays.fill(this.stepOrdinals, UNKNOWN_STEP);
+    var ordinal = 0;
+    for (final var entry : steps.entrySet()) {
+      this.stepOrdinals[entry.getKey().ordinal()] = ordinal++;
+      for (final var sagaEventState : entry.getValue()) {
+        final var index = index(entry.getKey(), sagaEventState.getCurrentEventOutcome());
+        if (this.transitions[index] != null) {
+          throw new SagaRuntimeException(sagaName + " has duplicate transition for " + entry.getKey() + " :: " + sagaEventState.getCurrentEventOutcome());
+        }
+        this.transitions[index] = sagaEventState;
+      }
+    }
+    this.validate(sagaName, steps);
+    this.validateForks(sagaName, steps);
+  }
+
+  /**
+   * compiles the registered steps of a saga.
+   *
+   * @param sagaName the saga name, used in the error message.
+   * @param steps    the steps in the order they were registered.
+   * @param <T>      the saga payload type
+   * @return the compiled table.
+   * @throws SagaRuntimeException if the saga has duplicate transitions, unreachable steps or steps with no path to {@link EventType#MARK_SAGA_COMPLETE}
+   */
+  public static <T> SagaTransitionTable<T> compile(final String sagaName, final Map<EventType, List<SagaEventState<T>>> steps) {
+    return new SagaTransitionTable<>(sagaName, steps);
+  }
+
+  /**
+   * finds the step registered for the event type and outcome.
+   *
+   * @param eventType    the current event type
+   * @param eventOutcome the outcome of the current event
+   * @return the step or null if nothing is registered.
+   */
+  public SagaEventState<T> transitionFor(final EventType eventType, final EventOutcome eventOutcome) {
+    if (eventType == null || eventOutcome == null) {
+      return null;
+    }
+    return this.transitions[index(eventType, eventOutcome)];
+  }
+
+  /**
+   * @param eventType the event type
+   * @return the position of the event type in the saga flow or {@link #UNKNOWN_STEP}
+   */
+  public int stepOrdinal(final EventType eventType) {
+    return this.stepOrdinals[eventType.ordinal()];
+  }
+
+  private static int index(final EventType eventType, final EventOutcome eventOutcome) {
+    return eventType.ordinal() * EVENT_OUTCOME_COUNT + eventOutcome.ordinal();
+  }
+
+  /**
+   * every registered step must be reachable from {@link EventType#INITIATED} and must have a path to {@link EventType#MARK_SAGA_COMPLETE}.
+   */
+  private void validate(final String sagaName, final Map<EventType, List<SagaEventState<T>>> steps) {
+    if (steps.isEmpty()) {
+      return;
+    }
+    if (!steps.containsKey(INITIATED)) {
+      throw new SagaRuntimeException(sagaName + " has no step registered for " + INITIATED);
+    }
+    final var reachable = EnumSet.noneOf(EventType.class);
+    final var queue = new ArrayDeque<EventType>();
+    queue.add(INITIATED);
+    reachable.add(INITIATED);
+    while (!queue.isEmpty()) {
+      final var current = queue.poll();
+      for (final var sagaEventState : steps.get(current)) {
+        for (final var next : nextEventTypes(sagaEventState)) {
+          if (next == MARK_SAGA_COMPLETE) {
+            continue;
+          }
+          if (!steps.containsKey(next)) {
+            throw new SagaRuntimeException(sagaName + " has no terminal path, no step is registered for " + next + " after " + current + " :: " + sagaEventState.getCurrentEventOutcome());
+          }
+          if (reachable.add(next)) {
+            queue.add(next);
+          }
+        }
+      }
+    }
+    for (final var eventType : steps.keySet()) {
+      if (!reachable.contains(eventType)) {
+        throw new SagaRuntimeException(sagaName + " has unreachable step " + eventType);
+      }
+    }
+    final var terminating = EnumSet.noneOf(EventType.class);
+    var changed = true;
+    while (changed) {
+      changed = false;
+      for (final var entry : steps.entrySet()) {
+        if (!terminating.contains(entry.getKey()) && entry.getValue().stream().map(SagaTransitionTable::nextEventTypes).flatMap(List::stream)
+          .anyMatch(next -> next == MARK_SAGA_COMPLETE || terminating.contains(next))) {
+          terminating.add(entry.getKey());
+          changed = true;
+        }
+      }
+    }
+    for (final var eventType : steps.keySet()) {
+      if (!terminating.contains(eventType)) {
+        throw new SagaRuntimeException(sagaName + " has no terminal path from " + eventType);
+      }
+    }
+  }
+
+  /**
+   * the replies to the branches of a fork are joined with the one branch which is not joined, its step continues the saga.
+   */
+  private void validateForks(final String sagaName, final Map<EventType, List<SagaEventState<T>>> steps) {
+    for (final var entry : steps.entrySet()) {
+      for (final var sagaEventState : entry.getValue()) {
+        if (sagaEventState.getForkBranches() == null) {
+          continue;
+        }
+        final var fork = entry.getKey() + " :: " + sagaEventState.getCurrentEventOutcome();
+        final var continuing = sagaEventState.getForkBranches().stream().filter(branch -> steps.get(branch).stream().allMatch(el -> el.getJoinedWith() == null)).toList();
+        if (continuing.size() != 1) {
+          throw new SagaRuntimeException(sagaName + " fork after " + fork + " must have one branch which is not joined, found " + continuing);
+        }
+        for (final var branch : sagaEventState.getForkBranches()) {
+          if (branch != continuing.get(0) && steps.get(branch).stream().anyMatch(el -> el.getJoinedWith() != continuing.get(0))) {
+            throw new SagaRuntimeException(sagaName + " fork after " + fork + " has branch " + branch + " which is not joined with " + continuing.get(0));
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * the events which follow the step, every branch for a fork.
+   */
+  private static List<EventType> nextEventTypes(final SagaEventState<?> sagaEventState) {
+    return sagaEventState.getForkBranches() != null ? sagaEventState.getForkBranches() : List.of(sagaEventState.getNextEventType());
+  }
+}
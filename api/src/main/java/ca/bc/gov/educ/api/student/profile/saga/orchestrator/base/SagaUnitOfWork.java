@@ -0,0 +1,137 @@
+package ca.bc.gov.educ.api.student.profile.saga.orchestrator.base;
+
+import ca.bc.gov.educ.api.student.profile.saga.model.v1.Saga;
+import ca.bc.gov.educ.api.student.profile.saga.model.v1.SagaEvent;
+import ca.bc.gov.educ.api.student.profile.saga.model.v1.SagaOutbox;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * the database work of one saga step. no transaction is open while the step runs, the state changes and the messages of the step are
+ * collected here and written together in one short transaction once the step is done, see
+ * {@link ca.bc.gov.educ.api.student.profile.saga.service.SagaService#writeUnitOfWork(SagaUnitOfWork)}. the messages are published after
+ * that transaction, so no connection is held while the step works on its payload or while NATS is called.
+ * the unit is bound to the thread the step runs on, a step started on the same thread while a unit is open joins it.
+ */
+public final class SagaUnitOfWork implements AutoCloseable {
+  private static final ThreadLocal<SagaUnitOfWork> CURRENT = new ThreadLocal<>();
+
+  @Getter
+  private final String sagaName;
+  @Getter
+  private final String step;
+  @Getter
+  private final List<SagaState> states = new ArrayList<>();
+  @Getter
+  private final List<SagaOutbox> messages = new ArrayList<>();
+  @Getter
+  private final List<SagaPayload> payloads = new ArrayList<>();
+  private final Map<RecordedEvent, Integer> recordedSteps = new HashMap<>();
+  private int depth = 1;
+
+  private SagaUnitOfWork(final String sagaName, final String step) {
+    this.sagaName = sagaName;
+    this.step = step;
+  }
+
+  /**
+   * opens the unit of the step on this thread, or joins the unit which is open already.
+   *
+   * @param sagaName the saga.
+   * @param step     the step, the event being handled.
+   * @return the unit, to be closed once the step is done.
+   */
+  public static SagaUnitOfWork begin(final String sagaName, final String step) {
+    final var current = CURRENT.get();
+    if (current != null) {
+      current.depth++;
+      return current;
+    }
+    final var unit = new SagaUnitOfWork(sagaName, step);
+    CURRENT.set(unit);
+    return unit;
+  }
+
+  public static Optional<SagaUnitOfWork> current() {
+    return Optional.ofNullable(CURRENT.get());
+  }
+
+  /**
+   * @return true if the unit was opened by an enclosing step, which writes it.
+   */
+  public boolean isJoined() {
+    return this.depth > 1;
+  }
+
+  public boolean isEmpty() {
+    return this.states.isEmpty() && this.messages.isEmpty();
+  }
+
+  public void addState(final Saga saga, final SagaEvent sagaEvent) {
+    this.states.add(new SagaState(saga, sagaEvent));
+  }
+
+  public void addMessage(final SagaOutbox message) {
+    this.messages.add(message);
+  }
+
+  /**
+   * keeps the payload object of the saga for its next step, it is cached once the unit is written and the saga has its new version.
+   */
+  public void addPayload(final Saga saga, final Object data) {
+    this.payloads.add(new SagaPayload(saga, data));
+  }
+
+  /**
+   * @return the version the saga had when the step read it, empty if the step does not change the saga.
+   */
+  public Optional<Long> sagaVersion(final UUID sagaId) {
+    return this.states.stream().map(SagaState::saga).filter(saga -> sagaId.equals(saga.getSagaId())).findFirst().map(Saga::getVersion);
+  }
+
+  /**
+   * marks an event of the saga as recorded already, e.g. the event a replay starts from. a step which records the event again records it
+   * with this step number, so the insert is a no-op.
+   *
+   * @param sagaId    the saga.
+   * @param sagaEvent the event state recorded for the event.
+   */
+  public void recorded(final UUID sagaId, final SagaEvent sagaEvent) {
+    this.recordedSteps.put(new RecordedEvent(sagaId, sagaEvent.getSagaEventState(), sagaEvent.getSagaEventOutcome()), sagaEvent.getSagaStepNumber());
+  }
+
+  /**
+   * @return the step number the event of the saga is recorded with already, empty if it is a new event.
+   */
+  public Optional<Integer> recordedStep(final UUID sagaId, final String eventState, final String eventOutcome) {
+    return Optional.ofNullable(this.recordedSteps.get(new RecordedEvent(sagaId, eventState, eventOutcome)));
+  }
+
+  @Override
+  public void close() {
+    if (--this.depth == 0) {
+      CURRENT.remove();
+    }
+  }
+
+  /**
+   * a state change of a saga, the event state recorded with it.
+   */
+  public record SagaState(Saga saga, SagaEvent sagaEvent) {
+  }
+
+  /**
+   * the payload object of a saga, as the step left it.
+   */
+  public record SagaPayload(Saga saga, Object data) {
+  }
+
+  private record RecordedEvent(UUID sagaId, String eventState, String eventOutcome) {
+  }
+}
@@ -1,6 +1,6 @@
 package ca.bc.gov.educ.api.student.profile.saga.orchestrator.gmp;
 
-import ca.bc.gov.educ.api.student.profile.saga.messaging.MessagePublisher;
+import ca.bc.gov.educ.api.student.profile.saga.messaging.SagaOutboxRelay;
 import ca.bc.gov.educ.api.student.profile.saga.model.v1.Saga;
 import ca.bc.gov.educ.api.student.profile.saga.model.v1.SagaEvent;
 import ca.bc.gov.educ.api.student.profile.saga.orchestrator.base.BaseOrchestrator;
@@ -28,8 +28,8 @@ import static ca.bc.gov.educ.api.student.profile.saga.constants.SagaTopicsEnum.P
 public abstract class BasePenReqSagaOrchestrator<T> extends BaseOrchestrator<T> {
 
 
-  protected BasePenReqSagaOrchestrator(final SagaService sagaService, final MessagePublisher messagePublisher, final Class<T> clazz, final String sagaName, final String topicToSubscribe) {
-    super(sagaService, messagePublisher, clazz, sagaName, topicToSubscribe);
+  protected BasePenReqSagaOrchestrator(final SagaService sagaService, final SagaOutboxRelay sagaOutboxRelay, final Class<T> clazz, final String sagaName, final String topicToSubscribe) {
+    super(sagaService, sagaOutboxRelay, clazz, sagaName, topicToSubscribe);
   }
 
 
@@ -37,7 +37,7 @@ public abstract class BasePenReqSagaOrchestrator<T> extends BaseOrchestrator<T>
     final SagaEvent eventStates = this.createEventState(saga, event.getEventType(), event.getEventOutcome(), event.getEventPayload());
     saga.setSagaState(UPDATE_PEN_REQUEST.toString());
     this.getSagaService().updateAttachedSagaWithEvents(saga, eventStates);
-    val penRequestSagaData = JsonUtil.getJsonObjectFromString(PenRequestSagaData.class, event.getEventPayload());
+    val penRequestSagaData = event.readEventPayload(PenRequestSagaData.class);
     this.updatePenRequestPayload(penRequestSagaData, t);
     val nextEvent = Event.builder().sagaId(saga.getSagaId())
       .eventType(UPDATE_PEN_REQUEST)
@@ -1,7 +1,7 @@
 package ca.bc.gov.educ.api.student.profile.saga.orchestrator.gmp;
 
 import ca.bc.gov.educ.api.student.profile.saga.mappers.v1.PenRequestCommentsMapper;
-import ca.bc.gov.educ.api.student.profile.saga.messaging.MessagePublisher;
+import ca.bc.gov.educ.api.student.profile.saga.messaging.SagaOutboxRelay;
 import ca.bc.gov.educ.api.student.profile.saga.model.v1.Saga;
 import ca.bc.gov.educ.api.student.profile.saga.service.SagaService;
 import ca.bc.gov.educ.api.student.profile.saga.struct.base.Event;
@@ -30,8 +30,8 @@ public class PenRequestCommentsSagaOrchestrator extends BasePenReqSagaOrchestrat
 
 
   @Autowired
-  public PenRequestCommentsSagaOrchestrator(final SagaService sagaService, final MessagePublisher messagePublisher) {
-    super(sagaService, messagePublisher, PenRequestCommentsSagaData.class, PEN_REQUEST_COMMENTS_SAGA.toString(), PEN_REQUEST_COMMENTS_SAGA_TOPIC.toString());
+  public PenRequestCommentsSagaOrchestrator(final SagaService sagaService, final SagaOutboxRelay sagaOutboxRelay) {
+    super(sagaService, sagaOutboxRelay, PenRequestCommentsSagaData.class, PEN_REQUEST_COMMENTS_SAGA.toString(), PEN_REQUEST_COMMENTS_SAGA_TOPIC.toString());
   }
 
   /**
@@ -3,7 +3,7 @@ package ca.bc.gov.educ.api.student.profile.saga.orchestrator.gmp;
 
 import ca.bc.gov.educ.api.student.profile.saga.constants.EventType;
 import ca.bc.gov.educ.api.student.profile.saga.mappers.v1.StudentSagaDataMapper;
-import ca.bc.gov.educ.api.student.profile.saga.messaging.MessagePublisher;
+import ca.bc.gov.educ.api.student.profile.saga.messaging.SagaOutboxRelay;
 import ca.bc.gov.educ.api.student.profile.saga.model.v1.Saga;
 import ca.bc.gov.educ.api.student.profile.saga.service.SagaService;
 import ca.bc.gov.educ.api.student.profile.saga.struct.base.DigitalIdSagaData;
@@ -16,7 +16,6 @@ import ca.bc.gov.educ.api.student.profile.saga.struct.gmp.PenRequestSagaData;
 import ca.bc.gov.educ.api.student.profile.saga.utils.JsonUtil;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.apache.commons.lang3.StringUtils;
@@ -28,6 +27,7 @@ import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.TimeoutException;
 
 import static ca.bc.gov.educ.api.student.profile.saga.constants.EventOutcome.*;
@@ -44,13 +44,9 @@ public class PenRequestCompleteSagaOrchestrator extends BasePenReqSagaOrchestrat
   private static final StudentSagaDataMapper studentSagaDataMapper = StudentSagaDataMapper.mapper;
   private static final String HISTORY_ACTIVITY_CODE_GMP = "GMP";
 
-  /**
-   * The Ob mapper.
-   */
-  private final ObjectMapper obMapper = new ObjectMapper();
   @Autowired
-  public PenRequestCompleteSagaOrchestrator(final SagaService sagaService, final MessagePublisher messagePublisher) {
-    super(sagaService, messagePublisher, PenRequestCompleteSagaData.class, PEN_REQUEST_COMPLETE_SAGA.toString(), PEN_REQUEST_COMPLETE_SAGA_TOPIC.toString());
+  public PenRequestCompleteSagaOrchestrator(final SagaService sagaService, final SagaOutboxRelay sagaOutboxRelay) {
+    super(sagaService, sagaOutboxRelay, PenRequestCompleteSagaData.class, PEN_REQUEST_COMPLETE_SAGA.toString(), PEN_REQUEST_COMPLETE_SAGA_TOPIC.toString());
   }
 
   /**
@@ -59,9 +55,9 @@ public class PenRequestCompleteSagaOrchestrator extends BasePenReqSagaOrchestrat
   @Override
   public void populateStepsToExecuteMap() {
     this.stepBuilder()
-      .step(INITIATED, INITIATE_SUCCESS, GET_PEN_REQUEST_DOCUMENT_METADATA, this::executeGetPenRequestDocuments)
-      .step(GET_PEN_REQUEST_DOCUMENT_METADATA, PEN_REQUEST_DOCUMENTS_FOUND, GET_STUDENT, this::executeGetStudent)
-      .step(GET_PEN_REQUEST_DOCUMENT_METADATA, PEN_REQUEST_DOCUMENTS_NOT_FOUND, GET_STUDENT, this::executeGetStudent)
+      .fork(INITIATED, INITIATE_SUCCESS, this::executeGetPenRequestDocumentsAndStudent, GET_PEN_REQUEST_DOCUMENT_METADATA, GET_STUDENT)
+      .join(GET_PEN_REQUEST_DOCUMENT_METADATA, PEN_REQUEST_DOCUMENTS_FOUND, GET_STUDENT, this::joinPenRequestDocuments)
+      .join(GET_PEN_REQUEST_DOCUMENT_METADATA, PEN_REQUEST_DOCUMENTS_NOT_FOUND, GET_STUDENT, this::joinPenRequestDocuments)
       .step(GET_STUDENT, STUDENT_FOUND, UPDATE_STUDENT, this::executeUpdateStudent)
       .step(GET_STUDENT, STUDENT_NOT_FOUND, CREATE_STUDENT, this::executeCreateStudent)
       .step(CREATE_STUDENT, STUDENT_CREATED, GET_DIGITAL_ID_LIST, this::executeGetDigitalIdStudentLinks)
@@ -73,22 +69,60 @@ public class PenRequestCompleteSagaOrchestrator extends BasePenReqSagaOrchestrat
       .step(GET_DIGITAL_ID, DIGITAL_ID_FOUND, UPDATE_DIGITAL_ID, this::executeUpdateDigitalId)
       .step(UPDATE_DIGITAL_ID, DIGITAL_ID_UPDATED, GET_PEN_REQUEST, this::executeGetPenRequest)
       .step(GET_PEN_REQUEST, PEN_REQUEST_FOUND, UPDATE_PEN_REQUEST, this::executeUpdatePenRequest)
-      .step(UPDATE_PEN_REQUEST, PEN_REQUEST_UPDATED, NOTIFY_STUDENT_PEN_REQUEST_COMPLETE, this::executeNotifyStudentPenRequestComplete)
+      .step(UPDATE_PEN_REQUEST, PEN_REQUEST_UPDATED, NOTIFY_STUDENT_PEN_REQUEST_COMPLETE, this::executeNotifyStudentPenRequestComplete, NOTIFY_STEP_TIMEOUT)
       .step(NOTIFY_STUDENT_PEN_REQUEST_COMPLETE, STUDENT_NOTIFIED, MARK_SAGA_COMPLETE, this::markSagaComplete);
   }
 
-  private void executeGetPenRequestDocuments(final Event event, final Saga saga, final PenRequestCompleteSagaData penRequestCompleteSagaData) throws IOException, InterruptedException, TimeoutException {
+  /**
+   * the document metadata and the student are looked up together as neither lookup needs the other, the saga continues with the student
+   * once both replied.
+   *
+   * @param event                      current event
+   * @param saga                       the model object.
+   * @param penRequestCompleteSagaData the payload as object.
+   * @throws InterruptedException if thread is interrupted.
+   * @throws IOException          if there is connectivity problem
+   * @throws TimeoutException     if connection to messaging system times out.
+   */
+  protected void executeGetPenRequestDocumentsAndStudent(final Event event, final Saga saga, final PenRequestCompleteSagaData penRequestCompleteSagaData) throws IOException, InterruptedException, TimeoutException {
     val eventStates = this.createEventState(saga, event.getEventType(), event.getEventOutcome(), event.getEventPayload());
     saga.setStatus(IN_PROGRESS.toString());
-    saga.setSagaState(GET_PEN_REQUEST_DOCUMENT_METADATA.toString()); // set current event as saga state.
+    saga.setSagaState(GET_PEN_REQUEST_DOCUMENT_METADATA.toString()); // set the first branch as saga state.
     this.getSagaService().updateAttachedSagaWithEvents(saga, eventStates);
-    val nextEvent = Event.builder().sagaId(saga.getSagaId())
-      .eventType(GET_PEN_REQUEST_DOCUMENT_METADATA)
-      .replyTo(this.getTopicToSubscribe())
-      .eventPayload(penRequestCompleteSagaData.getPenRequestID())
-      .build();
-    this.postMessageToTopic(PEN_REQUEST_API_TOPIC.toString(), nextEvent);
-    log.info("message sent to PEN_REQUEST_API_TOPIC for GET_PEN_REQUEST_DOCUMENT_METADATA Event.");
+    if (this.isPendingBranch(saga, GET_PEN_REQUEST_DOCUMENT_METADATA)) {
+      val getDocumentsEvent = Event.builder().sagaId(saga.getSagaId())
+        .eventType(GET_PEN_REQUEST_DOCUMENT_METADATA)
+        .replyTo(this.getTopicToSubscribe())
+        .eventPayload(penRequestCompleteSagaData.getPenRequestID())
+        .build();
+      this.postMessageToTopic(PEN_REQUEST_API_TOPIC.toString(), getDocumentsEvent);
+      log.info("message sent to PEN_REQUEST_API_TOPIC for GET_PEN_REQUEST_DOCUMENT_METADATA Event.");
+    }
+    if (this.isPendingBranch(saga, GET_STUDENT)) {
+      val getStudentEvent = Event.builder().sagaId(saga.getSagaId())
+        .eventType(GET_STUDENT)
+        .replyTo(PEN_REQUEST_COMPLETE_SAGA_TOPIC.toString())
+        .eventPayload(penRequestCompleteSagaData.getPen())
+        .build();
+      this.postMessageToTopic(STUDENT_API_TOPIC.toString(), getStudentEvent);
+      log.info("message sent to STUDENT_API_TOPIC for GET_STUDENT Event.");
+    }
+  }
+
+  /**
+   * the document metadata is joined with the student, the document type of the latest document confirms the demographics when the student
+   * is updated or created.
+   *
+   * @param event                      the reply to get document metadata.
+   * @param saga                       the model object.
+   * @param penRequestCompleteSagaData the payload as object.
+   * @throws JsonProcessingException if the document metadata cannot be read.
+   */
+  protected void joinPenRequestDocuments(final Event event, final Saga saga, final PenRequestCompleteSagaData penRequestCompleteSagaData) throws JsonProcessingException {
+    if (event.getEventOutcome() == PEN_REQUEST_DOCUMENTS_FOUND) {
+      penRequestCompleteSagaData.setDocumentTypeCode(this.getDocumentTypeCode(event.getEventPayload()));
+      this.updateSagaPayload(saga, penRequestCompleteSagaData); // save the updated payload to DB.
+    }
   }
 
   /**
@@ -160,9 +194,9 @@ public class PenRequestCompleteSagaOrchestrator extends BasePenReqSagaOrchestrat
    */
   protected void executeGetDigitalIdStudentLinks(final Event event, final Saga saga, final PenRequestCompleteSagaData penRequestCompleteSagaData) throws InterruptedException, TimeoutException, IOException {
     if (event.getEventType() == CREATE_STUDENT) {
-      val studentDataFromEventResponse = JsonUtil.getJsonObjectFromString(StudentSagaData.class, event.getEventPayload());
+      val studentDataFromEventResponse = event.readEventPayload(StudentSagaData.class);
       penRequestCompleteSagaData.setStudentID(studentDataFromEventResponse.getStudentID()); //update the payload of the original event request with student id.
-      saga.setPayload(JsonUtil.getJsonStringFromObject(penRequestCompleteSagaData));
+      this.updateSagaPayload(saga, penRequestCompleteSagaData);
     }
     val eventStates = this.createEventState(saga, event.getEventType(), event.getEventOutcome(), event.getEventPayload());
     saga.setSagaState(GET_DIGITAL_ID_LIST.toString()); // set current event as saga state.
@@ -188,7 +222,7 @@ public class PenRequestCompleteSagaOrchestrator extends BasePenReqSagaOrchestrat
    * @throws TimeoutException     if connection to messaging system times out.
    */
   protected void executeRemoveDigitalIdStudentLinks(final Event event, final Saga saga, final PenRequestCompleteSagaData penRequestCompleteSagaData) throws InterruptedException, TimeoutException, IOException {
-    final List<DigitalIdSagaData> digitalIDList = this.obMapper.readValue(event.getEventPayload(), new TypeReference<>() { });
+    final List<DigitalIdSagaData> digitalIDList = event.readEventPayload(new TypeReference<>() { });
 
     for(var digitalID : digitalIDList) {
       digitalID.setStudentID(null);
@@ -196,7 +230,7 @@ public class PenRequestCompleteSagaOrchestrator extends BasePenReqSagaOrchestrat
     }
 
     penRequestCompleteSagaData.setDigitalIdLinkedStudents(digitalIDList); //update the payload of the original event request with digital id list.
-    saga.setPayload(JsonUtil.getJsonStringFromObject(penRequestCompleteSagaData));
+    this.updateSagaPayload(saga, penRequestCompleteSagaData);
 
     val eventStates = this.createEventState(saga, event.getEventType(), event.getEventOutcome(), event.getEventPayload());
     saga.setSagaState(UPDATE_DIGITAL_ID_LIST.toString()); // set current event as saga state.
@@ -223,7 +257,7 @@ public class PenRequestCompleteSagaOrchestrator extends BasePenReqSagaOrchestrat
    * @throws TimeoutException     if connection to messaging system times out.
    */
   protected void executeUpdateStudent(final Event event, final Saga saga, final PenRequestCompleteSagaData penRequestCompleteSagaData) throws IOException, InterruptedException, TimeoutException {
-    val studentDataFromEventResponse = JsonUtil.getJsonObjectFromString(StudentSagaData.class, event.getEventPayload());
+    val studentDataFromEventResponse = event.readEventPayload(StudentSagaData.class);
     //update only the fields which are updated through gmp form.
     studentDataFromEventResponse.setLegalFirstName(penRequestCompleteSagaData.getLegalFirstName());
     studentDataFromEventResponse.setLegalLastName(penRequestCompleteSagaData.getLegalLastName());
@@ -243,9 +277,11 @@ public class PenRequestCompleteSagaOrchestrator extends BasePenReqSagaOrchestrat
       studentDataFromEventResponse.setDemogCode(DEMOG_CODE_CONFIRMED);
       studentDataFromEventResponse.setDocumentTypeCode(penRequestCompleteSagaData.getDocumentTypeCode());
     }
-    penRequestCompleteSagaData.setStudentID(studentDataFromEventResponse.getStudentID()); //update the payload of the original event request with student id.
+    if (!Objects.equals(penRequestCompleteSagaData.getStudentID(), studentDataFromEventResponse.getStudentID())) {
+      penRequestCompleteSagaData.setStudentID(studentDataFromEventResponse.getStudentID()); //update the payload of the original event request with student id.
+      this.updateSagaPayload(saga, penRequestCompleteSagaData);
+    }
     saga.setSagaState(UPDATE_STUDENT.toString());
-    saga.setPayload(JsonUtil.getJsonStringFromObject(penRequestCompleteSagaData));
     val eventStates = this.createEventState(saga, event.getEventType(), event.getEventOutcome(), event.getEventPayload());
     this.getSagaService().updateAttachedSagaWithEvents(saga, eventStates);
     log.info("message sent to STUDENT_API_TOPIC for UPDATE_STUDENT Event.");
@@ -302,34 +338,6 @@ public class PenRequestCompleteSagaOrchestrator extends BasePenReqSagaOrchestrat
 
   }
 
-  /**
-   * this method will send a message to student api topic to get student details based on PEN.
-   *
-   * @param event                      current event
-   * @param saga                       the model object.
-   * @param penRequestCompleteSagaData the payload as object.
-   * @throws InterruptedException if thread is interrupted.
-   * @throws IOException          if there is connectivity problem
-   * @throws TimeoutException     if connection to messaging system times out.
-   */
-  protected void executeGetStudent(final Event event, final Saga saga, final PenRequestCompleteSagaData penRequestCompleteSagaData) throws IOException, InterruptedException, TimeoutException {
-    if (event.getEventOutcome() == PEN_REQUEST_DOCUMENTS_FOUND) {
-      penRequestCompleteSagaData.setDocumentTypeCode(this.getDocumentTypeCode(event.getEventPayload()));
-    }
-    val eventStates = this.createEventState(saga, event.getEventType(), event.getEventOutcome(), event.getEventPayload());
-    saga.setSagaState(GET_STUDENT.toString()); // set current event as saga state.
-    saga.setPayload(JsonUtil.getJsonStringFromObject(penRequestCompleteSagaData)); // save the updated payload to DB.
-    this.getSagaService().updateAttachedSagaWithEvents(saga, eventStates);
-    val nextEvent = Event.builder().sagaId(saga.getSagaId())
-      .eventType(GET_STUDENT)
-      .replyTo(PEN_REQUEST_COMPLETE_SAGA_TOPIC.toString())
-      .eventPayload(penRequestCompleteSagaData.getPen())
-      .build();
-    this.postMessageToTopic(STUDENT_API_TOPIC.toString(), nextEvent);
-    log.info("message sent to STUDENT_API_TOPIC for GET_STUDENT Event.");
-  }
-
-
   /**
    * this is executed after get digital id, so the event response would contain the entire digital id payload, this method will only update the student Id.
    *
@@ -344,7 +352,7 @@ public class PenRequestCompleteSagaOrchestrator extends BasePenReqSagaOrchestrat
     val eventStates = this.createEventState(saga, event.getEventType(), event.getEventOutcome(), event.getEventPayload());
     saga.setSagaState(UPDATE_DIGITAL_ID.toString());
     this.getSagaService().updateAttachedSagaWithEvents(saga, eventStates);
-    val digitalIdSagaData = JsonUtil.getJsonObjectFromString(DigitalIdSagaData.class, event.getEventPayload());
+    val digitalIdSagaData = event.readEventPayload(DigitalIdSagaData.class);
     digitalIdSagaData.setStudentID(penRequestCompleteSagaData.getStudentID());
     digitalIdSagaData.setUpdateUser(penRequestCompleteSagaData.getUpdateUser());
     val nextEvent = Event.builder().sagaId(saga.getSagaId())
@@ -1,6 +1,6 @@
 package ca.bc.gov.educ.api.student.profile.saga.orchestrator.gmp;
 
-import ca.bc.gov.educ.api.student.profile.saga.messaging.MessagePublisher;
+import ca.bc.gov.educ.api.student.profile.saga.messaging.SagaOutboxRelay;
 import ca.bc.gov.educ.api.student.profile.saga.model.v1.Saga;
 import ca.bc.gov.educ.api.student.profile.saga.service.SagaService;
 import ca.bc.gov.educ.api.student.profile.saga.struct.base.Event;
@@ -30,8 +30,8 @@ import static ca.bc.gov.educ.api.student.profile.saga.constants.SagaTopicsEnum.P
 public class PenRequestRejectSagaOrchestrator extends BasePenReqSagaOrchestrator<PenRequestRejectSagaData> {
 
   @Autowired
-  public PenRequestRejectSagaOrchestrator(final SagaService sagaService, final MessagePublisher messagePublisher) {
-    super(sagaService, messagePublisher, PenRequestRejectSagaData.class, PEN_REQUEST_REJECT_SAGA.toString(), PEN_REQUEST_REJECT_SAGA_TOPIC.toString());
+  public PenRequestRejectSagaOrchestrator(final SagaService sagaService, final SagaOutboxRelay sagaOutboxRelay) {
+    super(sagaService, sagaOutboxRelay, PenRequestRejectSagaData.class, PEN_REQUEST_REJECT_SAGA.toString(), PEN_REQUEST_REJECT_SAGA_TOPIC.toString());
   }
 
   /**
@@ -42,7 +42,7 @@ public class PenRequestRejectSagaOrchestrator extends BasePenReqSagaOrchestrator
     this.stepBuilder()
       .step(INITIATED, INITIATE_SUCCESS, GET_PEN_REQUEST, this::executeGetPenRequest)
       .step(GET_PEN_REQUEST, PEN_REQUEST_FOUND, UPDATE_PEN_REQUEST, this::executeUpdatePenRequest)
-      .step(UPDATE_PEN_REQUEST, PEN_REQUEST_UPDATED, NOTIFY_STUDENT_PEN_REQUEST_REJECT, this::executeNotifyStudentPenRequestReject)
+      .step(UPDATE_PEN_REQUEST, PEN_REQUEST_UPDATED, NOTIFY_STUDENT_PEN_REQUEST_REJECT, this::executeNotifyStudentPenRequestReject, NOTIFY_STEP_TIMEOUT)
       .step(NOTIFY_STUDENT_PEN_REQUEST_REJECT, STUDENT_NOTIFIED, MARK_SAGA_COMPLETE, this::markSagaComplete);
   }
 
@@ -2,7 +2,7 @@ package ca.bc.gov.educ.api.student.profile.saga.orchestrator.gmp;
 
 
 import ca.bc.gov.educ.api.student.profile.saga.mappers.v1.PenRequestCommentsMapper;
-import ca.bc.gov.educ.api.student.profile.saga.messaging.MessagePublisher;
+import ca.bc.gov.educ.api.student.profile.saga.messaging.SagaOutboxRelay;
 import ca.bc.gov.educ.api.student.profile.saga.model.v1.Saga;
 import ca.bc.gov.educ.api.student.profile.saga.service.SagaService;
 import ca.bc.gov.educ.api.student.profile.saga.struct.base.Event;
@@ -30,8 +30,8 @@ import static ca.bc.gov.educ.api.student.profile.saga.constants.SagaTopicsEnum.*
 public class PenRequestReturnSagaOrchestrator extends BasePenReqSagaOrchestrator<PenRequestReturnSagaData> {
 
   @Autowired
-  public PenRequestReturnSagaOrchestrator(final SagaService sagaService, final MessagePublisher messagePublisher) {
-    super(sagaService, messagePublisher, PenRequestReturnSagaData.class, PEN_REQUEST_RETURN_SAGA.toString(), PEN_REQUEST_RETURN_SAGA_TOPIC.toString());
+  public PenRequestReturnSagaOrchestrator(final SagaService sagaService, final SagaOutboxRelay sagaOutboxRelay) {
+    super(sagaService, sagaOutboxRelay, PenRequestReturnSagaData.class, PEN_REQUEST_RETURN_SAGA.toString(), PEN_REQUEST_RETURN_SAGA_TOPIC.toString());
   }
 
   /**
@@ -44,7 +44,7 @@ public class PenRequestReturnSagaOrchestrator extends BasePenReqSagaOrchestrator
       .step(ADD_PEN_REQUEST_COMMENT, PEN_REQUEST_COMMENT_ADDED, GET_PEN_REQUEST, this::executeGetPenRequest)
       .step(ADD_PEN_REQUEST_COMMENT, PEN_REQUEST_COMMENT_ALREADY_EXIST, GET_PEN_REQUEST, this::executeGetPenRequest)
       .step(GET_PEN_REQUEST, PEN_REQUEST_FOUND, UPDATE_PEN_REQUEST, this::executeUpdatePenRequest)
-      .step(UPDATE_PEN_REQUEST, PEN_REQUEST_UPDATED, NOTIFY_STUDENT_PEN_REQUEST_RETURN, this::executeNotifyStudentPenRequestReturn)
+      .step(UPDATE_PEN_REQUEST, PEN_REQUEST_UPDATED, NOTIFY_STUDENT_PEN_REQUEST_RETURN, this::executeNotifyStudentPenRequestReturn, NOTIFY_STEP_TIMEOUT)
       .step(NOTIFY_STUDENT_PEN_REQUEST_RETURN, STUDENT_NOTIFIED, MARK_SAGA_COMPLETE, this::markSagaComplete);
   }
 
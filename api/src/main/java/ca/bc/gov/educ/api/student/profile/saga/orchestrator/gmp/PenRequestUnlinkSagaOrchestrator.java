@@ -1,6 +1,6 @@
 package ca.bc.gov.educ.api.student.profile.saga.orchestrator.gmp;
 
-import ca.bc.gov.educ.api.student.profile.saga.messaging.MessagePublisher;
+import ca.bc.gov.educ.api.student.profile.saga.messaging.SagaOutboxRelay;
 import ca.bc.gov.educ.api.student.profile.saga.model.v1.Saga;
 import ca.bc.gov.educ.api.student.profile.saga.service.SagaService;
 import ca.bc.gov.educ.api.student.profile.saga.struct.base.DigitalIdSagaData;
@@ -25,8 +25,8 @@ import static ca.bc.gov.educ.api.student.profile.saga.constants.SagaTopicsEnum.P
 @Slf4j
 public class PenRequestUnlinkSagaOrchestrator extends BasePenReqSagaOrchestrator<PenRequestUnlinkSagaData> {
 
-  public PenRequestUnlinkSagaOrchestrator(final SagaService sagaService, final MessagePublisher messagePublisher) {
-    super(sagaService, messagePublisher, PenRequestUnlinkSagaData.class, PEN_REQUEST_UNLINK_SAGA.toString(), PEN_REQUEST_UNLINK_SAGA_TOPIC.toString());
+  public PenRequestUnlinkSagaOrchestrator(final SagaService sagaService, final SagaOutboxRelay sagaOutboxRelay) {
+    super(sagaService, sagaOutboxRelay, PenRequestUnlinkSagaData.class, PEN_REQUEST_UNLINK_SAGA.toString(), PEN_REQUEST_UNLINK_SAGA_TOPIC.toString());
   }
 
   /**
@@ -92,7 +92,7 @@ public class PenRequestUnlinkSagaOrchestrator extends BasePenReqSagaOrchestrator
     final var eventStates = this.createEventState(saga, event.getEventType(), event.getEventOutcome(), event.getEventPayload());
     saga.setSagaState(UPDATE_DIGITAL_ID.toString());
     this.getSagaService().updateAttachedSagaWithEvents(saga, eventStates);
-    final var digitalIdSagaData = JsonUtil.getJsonObjectFromString(DigitalIdSagaData.class, event.getEventPayload());
+    final var digitalIdSagaData = event.readEventPayload(DigitalIdSagaData.class);
     digitalIdSagaData.setStudentID(null);
     digitalIdSagaData.setAutoMatchedDate(null);
     digitalIdSagaData.setUpdateUser(penRequestUnlinkSagaData.getUpdateUser());
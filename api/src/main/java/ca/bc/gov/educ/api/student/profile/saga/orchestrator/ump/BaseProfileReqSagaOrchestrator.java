@@ -1,6 +1,6 @@
 package ca.bc.gov.educ.api.student.profile.saga.orchestrator.ump;
 
-import ca.bc.gov.educ.api.student.profile.saga.messaging.MessagePublisher;
+import ca.bc.gov.educ.api.student.profile.saga.messaging.SagaOutboxRelay;
 import ca.bc.gov.educ.api.student.profile.saga.model.v1.Saga;
 import ca.bc.gov.educ.api.student.profile.saga.orchestrator.base.BaseOrchestrator;
 import ca.bc.gov.educ.api.student.profile.saga.service.SagaService;
@@ -28,8 +28,8 @@ import static ca.bc.gov.educ.api.student.profile.saga.constants.SagaTopicsEnum.S
 public abstract class BaseProfileReqSagaOrchestrator<T> extends BaseOrchestrator<T> {
 
 
-  protected BaseProfileReqSagaOrchestrator(final SagaService sagaService, final MessagePublisher messagePublisher, final Class<T> clazz, final String sagaName, final String topicToSubscribe) {
-    super(sagaService, messagePublisher, clazz, sagaName, topicToSubscribe);
+  protected BaseProfileReqSagaOrchestrator(final SagaService sagaService, final SagaOutboxRelay sagaOutboxRelay, final Class<T> clazz, final String sagaName, final String topicToSubscribe) {
+    super(sagaService, sagaOutboxRelay, clazz, sagaName, topicToSubscribe);
   }
 
 
@@ -37,7 +37,7 @@ public abstract class BaseProfileReqSagaOrchestrator<T> extends BaseOrchestrator
     val eventStates = this.createEventState(saga, event.getEventType(), event.getEventOutcome(), event.getEventPayload());
     saga.setSagaState(UPDATE_STUDENT_PROFILE.toString());
     this.getSagaService().updateAttachedSagaWithEvents(saga, eventStates);
-    val sagaData = JsonUtil.getJsonObjectFromString(StudentProfileSagaData.class, event.getEventPayload());
+    val sagaData = event.readEventPayload(StudentProfileSagaData.class);
     this.updateProfileRequestPayload(sagaData, t);
     val nextEvent = Event.builder().sagaId(saga.getSagaId())
       .eventType(UPDATE_STUDENT_PROFILE)
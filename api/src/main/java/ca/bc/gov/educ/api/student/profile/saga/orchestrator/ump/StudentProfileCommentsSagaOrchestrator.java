@@ -1,7 +1,7 @@
 package ca.bc.gov.educ.api.student.profile.saga.orchestrator.ump;
 
 import ca.bc.gov.educ.api.student.profile.saga.mappers.v1.StudentProfileCommentsMapper;
-import ca.bc.gov.educ.api.student.profile.saga.messaging.MessagePublisher;
+import ca.bc.gov.educ.api.student.profile.saga.messaging.SagaOutboxRelay;
 import ca.bc.gov.educ.api.student.profile.saga.model.v1.Saga;
 import ca.bc.gov.educ.api.student.profile.saga.service.SagaService;
 import ca.bc.gov.educ.api.student.profile.saga.struct.base.Event;
@@ -29,8 +29,8 @@ public class StudentProfileCommentsSagaOrchestrator extends BaseProfileReqSagaOr
   private static final StudentProfileCommentsMapper mapper = StudentProfileCommentsMapper.mapper;
 
   @Autowired
-  public StudentProfileCommentsSagaOrchestrator(final SagaService sagaService, final MessagePublisher messagePublisher) {
-    super(sagaService, messagePublisher, StudentProfileCommentsSagaData.class, STUDENT_PROFILE_COMMENTS_SAGA.toString(), STUDENT_PROFILE_COMMENTS_SAGA_TOPIC.toString());
+  public StudentProfileCommentsSagaOrchestrator(final SagaService sagaService, final SagaOutboxRelay sagaOutboxRelay) {
+    super(sagaService, sagaOutboxRelay, StudentProfileCommentsSagaData.class, STUDENT_PROFILE_COMMENTS_SAGA.toString(), STUDENT_PROFILE_COMMENTS_SAGA_TOPIC.toString());
   }
 
   @Override
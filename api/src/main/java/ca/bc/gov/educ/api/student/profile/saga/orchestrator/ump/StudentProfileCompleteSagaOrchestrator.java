@@ -2,7 +2,7 @@ package ca.bc.gov.educ.api.student.profile.saga.orchestrator.ump;
 
 import ca.bc.gov.educ.api.student.profile.saga.constants.EventType;
 import ca.bc.gov.educ.api.student.profile.saga.mappers.v1.StudentSagaDataMapper;
-import ca.bc.gov.educ.api.student.profile.saga.messaging.MessagePublisher;
+import ca.bc.gov.educ.api.student.profile.saga.messaging.SagaOutboxRelay;
 import ca.bc.gov.educ.api.student.profile.saga.model.v1.Saga;
 import ca.bc.gov.educ.api.student.profile.saga.model.v1.SagaEvent;
 import ca.bc.gov.educ.api.student.profile.saga.service.SagaService;
@@ -23,6 +23,7 @@ import org.springframework.stereotype.Component;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Objects;
 import java.util.concurrent.TimeoutException;
 
 import static ca.bc.gov.educ.api.student.profile.saga.constants.EventOutcome.*;
@@ -51,7 +52,7 @@ public class StudentProfileCompleteSagaOrchestrator extends BaseProfileReqSagaOr
       .step(GET_DIGITAL_ID, DIGITAL_ID_FOUND, UPDATE_DIGITAL_ID, this::executeUpdateDigitalId)
       .step(UPDATE_DIGITAL_ID, DIGITAL_ID_UPDATED, GET_STUDENT_PROFILE, this::executeGetProfileRequest)
       .step(GET_STUDENT_PROFILE, STUDENT_PROFILE_FOUND, UPDATE_STUDENT_PROFILE, this::executeUpdateProfileRequest)
-      .step(UPDATE_STUDENT_PROFILE, STUDENT_PROFILE_UPDATED, NOTIFY_STUDENT_PROFILE_REQUEST_COMPLETE, this::executeNotifyStudentProfileComplete)
+      .step(UPDATE_STUDENT_PROFILE, STUDENT_PROFILE_UPDATED, NOTIFY_STUDENT_PROFILE_REQUEST_COMPLETE, this::executeNotifyStudentProfileComplete, NOTIFY_STEP_TIMEOUT)
       .step(NOTIFY_STUDENT_PROFILE_REQUEST_COMPLETE, STUDENT_NOTIFIED, MARK_SAGA_COMPLETE, this::markSagaComplete);
   }
 
@@ -70,8 +71,8 @@ public class StudentProfileCompleteSagaOrchestrator extends BaseProfileReqSagaOr
   }
 
   @Autowired
-  public StudentProfileCompleteSagaOrchestrator(final SagaService sagaService, final MessagePublisher messagePublisher) {
-    super(sagaService, messagePublisher, StudentProfileCompleteSagaData.class, STUDENT_PROFILE_COMPLETE_SAGA.toString(), STUDENT_PROFILE_COMPLETE_SAGA_TOPIC.toString());
+  public StudentProfileCompleteSagaOrchestrator(final SagaService sagaService, final SagaOutboxRelay sagaOutboxRelay) {
+    super(sagaService, sagaOutboxRelay, StudentProfileCompleteSagaData.class, STUDENT_PROFILE_COMPLETE_SAGA.toString(), STUDENT_PROFILE_COMPLETE_SAGA_TOPIC.toString());
   }
 
   @Override
@@ -98,9 +99,9 @@ public class StudentProfileCompleteSagaOrchestrator extends BaseProfileReqSagaOr
   protected void executeGetDigitalId(final Event event, final Saga saga, final StudentProfileCompleteSagaData studentProfileCompleteSagaData) throws InterruptedException, TimeoutException, IOException {
 
     if (event.getEventType() == CREATE_STUDENT) {
-      final StudentSagaData studentDataFromEventResponse = JsonUtil.getJsonObjectFromString(StudentSagaData.class, event.getEventPayload());
+      final StudentSagaData studentDataFromEventResponse = event.readEventPayload(StudentSagaData.class);
       studentProfileCompleteSagaData.setStudentID(studentDataFromEventResponse.getStudentID()); //update the payload of the original event request with student id.
-      saga.setPayload(JsonUtil.getJsonStringFromObject(studentProfileCompleteSagaData));
+      this.updateSagaPayload(saga, studentProfileCompleteSagaData);
     }
     val eventState = this.createEventState(saga, event.getEventType(), event.getEventOutcome(), event.getEventPayload());
     saga.setSagaState(GET_DIGITAL_ID.toString()); // set current event as saga state.
@@ -119,7 +120,7 @@ public class StudentProfileCompleteSagaOrchestrator extends BaseProfileReqSagaOr
    * we will be passing in the student data to update which we got from saga payload.
    */
   protected void executeUpdateStudent(final Event event, final Saga saga, final StudentProfileCompleteSagaData studentProfileCompleteSagaData) throws IOException, InterruptedException, TimeoutException {
-    val studentDataFromEventResponse = JsonUtil.getJsonObjectFromString(StudentSagaData.class, event.getEventPayload());
+    val studentDataFromEventResponse = event.readEventPayload(StudentSagaData.class);
     //update only the fields which are updated through ump form.
     studentDataFromEventResponse.setLegalFirstName(studentProfileCompleteSagaData.getLegalFirstName());
     studentDataFromEventResponse.setLegalLastName(studentProfileCompleteSagaData.getLegalLastName());
@@ -139,9 +140,11 @@ public class StudentProfileCompleteSagaOrchestrator extends BaseProfileReqSagaOr
       studentDataFromEventResponse.setDemogCode(DEMOG_CODE_CONFIRMED);
       studentDataFromEventResponse.setDocumentTypeCode(studentProfileCompleteSagaData.getDocumentTypeCode());
     }
-    studentProfileCompleteSagaData.setStudentID(studentDataFromEventResponse.getStudentID()); //update the payload of the original event request with student id.
+    if (!Objects.equals(studentProfileCompleteSagaData.getStudentID(), studentDataFromEventResponse.getStudentID())) {
+      studentProfileCompleteSagaData.setStudentID(studentDataFromEventResponse.getStudentID()); //update the payload of the original event request with student id.
+      this.updateSagaPayload(saga, studentProfileCompleteSagaData);
+    }
     saga.setSagaState(UPDATE_STUDENT.toString());
-    saga.setPayload(JsonUtil.getJsonStringFromObject(studentProfileCompleteSagaData));
     val eventState = this.createEventState(saga, event.getEventType(), event.getEventOutcome(), event.getEventPayload());
     this.getSagaService().updateAttachedSagaWithEvents(saga, eventState);
     log.info("message sent to STUDENT_API_TOPIC for UPDATE_STUDENT Event.");
@@ -184,11 +187,11 @@ public class StudentProfileCompleteSagaOrchestrator extends BaseProfileReqSagaOr
   protected void executeGetStudent(final Event event, final Saga saga, final StudentProfileCompleteSagaData studentProfileCompleteSagaData) throws IOException, InterruptedException, TimeoutException {
     if (event.getEventOutcome() == PROFILE_REQUEST_DOCUMENTS_FOUND) {
       studentProfileCompleteSagaData.setDocumentTypeCode(this.getDocumentTypeCode(event.getEventPayload()));
+      this.updateSagaPayload(saga, studentProfileCompleteSagaData); // save the updated payload to DB.
     }
     val eventState = this.createEventState(saga, event.getEventType(), event.getEventOutcome(), event.getEventPayload());
     saga.setStatus(IN_PROGRESS.toString());
     saga.setSagaState(GET_STUDENT.toString()); // set current event as saga state.
-    saga.setPayload(JsonUtil.getJsonStringFromObject(studentProfileCompleteSagaData)); // save the updated payload to DB.
     this.getSagaService().updateAttachedSagaWithEvents(saga, eventState);
     val nextEvent = Event.builder().sagaId(saga.getSagaId())
       .eventType(GET_STUDENT)
@@ -207,7 +210,7 @@ public class StudentProfileCompleteSagaOrchestrator extends BaseProfileReqSagaOr
     final SagaEvent eventState = this.createEventState(saga, event.getEventType(), event.getEventOutcome(), event.getEventPayload());
     saga.setSagaState(UPDATE_DIGITAL_ID.toString());
     this.getSagaService().updateAttachedSagaWithEvents(saga, eventState);
-    val digitalIdSagaData = JsonUtil.getJsonObjectFromString(DigitalIdSagaData.class, event.getEventPayload());
+    val digitalIdSagaData = event.readEventPayload(DigitalIdSagaData.class);
     digitalIdSagaData.setStudentID(studentProfileCompleteSagaData.getStudentID());
     digitalIdSagaData.setUpdateUser(studentProfileCompleteSagaData.getUpdateUser());
     val nextEvent = Event.builder().sagaId(saga.getSagaId())
@@ -1,6 +1,6 @@
 package ca.bc.gov.educ.api.student.profile.saga.orchestrator.ump;
 
-import ca.bc.gov.educ.api.student.profile.saga.messaging.MessagePublisher;
+import ca.bc.gov.educ.api.student.profile.saga.messaging.SagaOutboxRelay;
 import ca.bc.gov.educ.api.student.profile.saga.model.v1.Saga;
 import ca.bc.gov.educ.api.student.profile.saga.service.SagaService;
 import ca.bc.gov.educ.api.student.profile.saga.struct.base.Event;
@@ -30,8 +30,8 @@ import static ca.bc.gov.educ.api.student.profile.saga.constants.SagaTopicsEnum.S
 public class StudentProfileRejectSagaOrchestrator extends BaseProfileReqSagaOrchestrator<StudentProfileRequestRejectActionSagaData> {
 
   @Autowired
-  public StudentProfileRejectSagaOrchestrator(final SagaService sagaService, final MessagePublisher messagePublisher) {
-    super(sagaService, messagePublisher, StudentProfileRequestRejectActionSagaData.class, STUDENT_PROFILE_REJECT_SAGA.toString(), STUDENT_PROFILE_REQUEST_REJECT_SAGA_TOPIC.toString());
+  public StudentProfileRejectSagaOrchestrator(final SagaService sagaService, final SagaOutboxRelay sagaOutboxRelay) {
+    super(sagaService, sagaOutboxRelay, StudentProfileRequestRejectActionSagaData.class, STUDENT_PROFILE_REJECT_SAGA.toString(), STUDENT_PROFILE_REQUEST_REJECT_SAGA_TOPIC.toString());
   }
 
 
@@ -40,7 +40,7 @@ public class StudentProfileRejectSagaOrchestrator extends BaseProfileReqSagaOrch
     this.stepBuilder()
       .step(INITIATED, INITIATE_SUCCESS, GET_STUDENT_PROFILE, this::executeGetProfileRequest)
       .step(GET_STUDENT_PROFILE, STUDENT_PROFILE_FOUND, UPDATE_STUDENT_PROFILE, this::executeUpdateProfileRequest)
-      .step(UPDATE_STUDENT_PROFILE, STUDENT_PROFILE_UPDATED, NOTIFY_STUDENT_PROFILE_REQUEST_REJECT, this::executeNotifyStudentProfileRequestRejected)
+      .step(UPDATE_STUDENT_PROFILE, STUDENT_PROFILE_UPDATED, NOTIFY_STUDENT_PROFILE_REQUEST_REJECT, this::executeNotifyStudentProfileRequestRejected, NOTIFY_STEP_TIMEOUT)
       .step(NOTIFY_STUDENT_PROFILE_REQUEST_REJECT, STUDENT_NOTIFIED, MARK_SAGA_COMPLETE, this::markSagaComplete);
   }
 
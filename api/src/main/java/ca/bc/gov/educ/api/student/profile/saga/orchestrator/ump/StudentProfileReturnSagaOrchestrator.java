@@ -1,7 +1,7 @@
 package ca.bc.gov.educ.api.student.profile.saga.orchestrator.ump;
 
 import ca.bc.gov.educ.api.student.profile.saga.mappers.v1.StudentProfileCommentsMapper;
-import ca.bc.gov.educ.api.student.profile.saga.messaging.MessagePublisher;
+import ca.bc.gov.educ.api.student.profile.saga.messaging.SagaOutboxRelay;
 import ca.bc.gov.educ.api.student.profile.saga.model.v1.Saga;
 import ca.bc.gov.educ.api.student.profile.saga.service.SagaService;
 import ca.bc.gov.educ.api.student.profile.saga.struct.base.Event;
@@ -29,8 +29,8 @@ import static ca.bc.gov.educ.api.student.profile.saga.constants.SagaTopicsEnum.*
 @Slf4j
 public class StudentProfileReturnSagaOrchestrator extends BaseProfileReqSagaOrchestrator<StudentProfileReturnActionSagaData> {
 
-  public StudentProfileReturnSagaOrchestrator(final SagaService sagaService, final MessagePublisher messagePublisher) {
-    super(sagaService, messagePublisher, StudentProfileReturnActionSagaData.class, STUDENT_PROFILE_RETURN_SAGA.toString(), STUDENT_PROFILE_REQUEST_RETURN_SAGA_TOPIC.toString());
+  public StudentProfileReturnSagaOrchestrator(final SagaService sagaService, final SagaOutboxRelay sagaOutboxRelay) {
+    super(sagaService, sagaOutboxRelay, StudentProfileReturnActionSagaData.class, STUDENT_PROFILE_RETURN_SAGA.toString(), STUDENT_PROFILE_REQUEST_RETURN_SAGA_TOPIC.toString());
   }
 
   @Override
@@ -40,7 +40,7 @@ public class StudentProfileReturnSagaOrchestrator extends BaseProfileReqSagaOrch
       .step(ADD_STUDENT_PROFILE_COMMENT, STUDENT_PROFILE_COMMENT_ADDED, GET_STUDENT_PROFILE, this::executeGetProfileRequest)
       .step(ADD_STUDENT_PROFILE_COMMENT, STUDENT_PROFILE_COMMENT_ALREADY_EXIST, GET_STUDENT_PROFILE, this::executeGetProfileRequest)
       .step(GET_STUDENT_PROFILE, STUDENT_PROFILE_FOUND, UPDATE_STUDENT_PROFILE, this::executeUpdateProfileRequest)
-      .step(UPDATE_STUDENT_PROFILE, STUDENT_PROFILE_UPDATED, NOTIFY_STUDENT_PROFILE_REQUEST_RETURN, this::executeNotifyStudentProfileRequestReturned)
+      .step(UPDATE_STUDENT_PROFILE, STUDENT_PROFILE_UPDATED, NOTIFY_STUDENT_PROFILE_REQUEST_RETURN, this::executeNotifyStudentProfileRequestReturned, NOTIFY_STEP_TIMEOUT)
       .step(NOTIFY_STUDENT_PROFILE_REQUEST_RETURN, STUDENT_NOTIFIED, MARK_SAGA_COMPLETE, this::markSagaComplete);
   }
 
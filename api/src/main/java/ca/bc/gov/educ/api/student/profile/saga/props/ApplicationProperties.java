@@ -4,6 +4,8 @@ import lombok.Getter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 @Component
 @Getter
 public class ApplicationProperties {
@@ -16,4 +18,76 @@ public class ApplicationProperties {
 
   @Value("${nats.connectionName}")
   private String connectionName;
+
+  /**
+   * consumes the saga topics through durable JetStream pull consumers instead of core NATS queue subscriptions.
+   */
+  @Value("${nats.jetstream.enabled:false}")
+  private boolean jetStreamEnabled;
+
+  /**
+   * the stream which captures the saga topics, created with work queue retention if it does not exist.
+   */
+  @Value("${nats.jetstream.stream:STUDENT_PROFILE_SAGA_EVENTS}")
+  private String jetStreamStream;
+
+  /**
+   * the number of messages a consumer may have delivered and not acked, the server stops delivering above it.
+   */
+  @Value("${nats.jetstream.max.ack.pending:256}")
+  private int jetStreamMaxAckPending;
+
+  /**
+   * how long a delivered message may stay unacked before it is redelivered.
+   */
+  @Value("${nats.jetstream.ack.wait:PT30S}")
+  private Duration jetStreamAckWait;
+
+  @Value("${nats.jetstream.fetch.batch.size:32}")
+  private int jetStreamFetchBatchSize;
+
+  /**
+   * messages published again with the same Nats-Msg-Id within this window are dropped by the stream.
+   */
+  @Value("${nats.jetstream.duplicate.window:PT2M}")
+  private Duration jetStreamDuplicateWindow;
+
+  /**
+   * the number of messages of a topic which may be handed to the saga lanes and not finished yet, delivery of the topic pauses above it.
+   */
+  @Value("${nats.subscriber.max.in.flight:64}")
+  private int subscriberMaxInFlight;
+
+  /**
+   * the number of messages a core NATS dispatcher buffers while its delivery is paused, the client drops messages above it and reports a slow consumer.
+   */
+  @Value("${nats.subscriber.pending.limit.messages:1024}")
+  private int subscriberPendingLimitMessages;
+
+  @Value("${nats.subscriber.pending.limit.bytes:16777216}")
+  private long subscriberPendingLimitBytes;
+
+  /**
+   * drops replies which this pod already handled before the saga is read, see the duplicate filter of the message subscriber.
+   */
+  @Value("${nats.subscriber.duplicate.filter.enabled:true}")
+  private boolean duplicateFilterEnabled;
+
+  /**
+   * the envelope version of the events published, the duplicate filter only has keys for the replies from {@link ca.bc.gov.educ.api.student.profile.saga.struct.base.Event#SAGA_VERSION_ENVELOPE_VERSION}.
+   */
+  @Value("${messaging.envelope.version:1}")
+  private int envelopeVersion;
+
+  /**
+   * only counts the duplicates the filter finds and still hands them to the saga, where they are checked against the saga state.
+   */
+  @Value("${nats.subscriber.duplicate.filter.strict:false}")
+  private boolean duplicateFilterStrict;
+
+  @Value("${nats.subscriber.duplicate.filter.size:10000}")
+  private long duplicateFilterSize;
+
+  @Value("${nats.subscriber.duplicate.filter.expiry:PT30M}")
+  private Duration duplicateFilterExpiry;
 }
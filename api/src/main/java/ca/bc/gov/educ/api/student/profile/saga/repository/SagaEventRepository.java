@@ -2,11 +2,11 @@ package ca.bc.gov.educ.api.student.profile.saga.repository;
 
 import ca.bc.gov.educ.api.student.profile.saga.model.v1.Saga;
 import ca.bc.gov.educ.api.student.profile.saga.model.v1.SagaEvent;
-import java.time.LocalDateTime;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -15,14 +15,30 @@ import java.util.UUID;
 
 @Repository
 public interface SagaEventRepository extends CrudRepository<SagaEvent, UUID> {
+  @EntityGraph(attributePaths = "response")
   List<SagaEvent> findBySaga(Saga saga);
 
-  Optional<SagaEvent> findBySagaAndSagaEventOutcomeAndSagaEventStateAndSagaStepNumber(Saga saga, String eventOutcome, String eventState, int stepNumber);
-
   Optional<SagaEvent> findBySagaAndSagaEventOutcomeAndSagaEventState(Saga saga, String eventOutcome, String eventState);
 
-  @Transactional
+  /**
+   * the event state of the saga recorded last for the event, e.g. the reply to a branch of a fork.
+   */
+  @EntityGraph(attributePaths = "response")
+  Optional<SagaEvent> findFirstBySagaAndSagaEventStateOrderBySagaStepNumberDesc(Saga saga, String eventState);
+
+  /**
+   * inserts the event state unless the same step, state and outcome is already recorded for the saga, which happens on replays and duplicate messages.
+   *
+   * @param responseHash the hash of the event response, which is stored in {@link ca.bc.gov.educ.api.student.profile.saga.model.v1.SagaEventResponse}.
+   * @return the number of rows inserted, 0 on conflict.
+   */
+  @Modifying
+  @Query(value = "INSERT INTO STUDENT_PROFILE_SAGA_EVENT_STATES (SAGA_EVENT_ID, SAGA_ID, SAGA_EVENT_STATE, SAGA_EVENT_OUTCOME, SAGA_STEP_NUMBER, SAGA_EVENT_RESPONSE_HASH, CREATE_USER, CREATE_DATE, UPDATE_USER, UPDATE_DATE, SAGA_CREATE_DATE) " +
+    "VALUES (:#{#e.sagaEventId}, :#{#e.saga.sagaId}, :#{#e.sagaEventState}, :#{#e.sagaEventOutcome}, :#{#e.sagaStepNumber}, :responseHash, :#{#e.createUser}, :#{#e.createDate}, :#{#e.updateUser}, :#{#e.updateDate}, :#{#e.sagaCreateDate}) " +
+    "ON CONFLICT DO NOTHING", nativeQuery = true)
+  int insertIfAbsent(@Param("e") SagaEvent sagaEvent, @Param("responseHash") String responseHash);
+
   @Modifying
-  @Query(value = "delete from STUDENT_PROFILE_SAGA_EVENT_STATES e where exists(select 1 from STUDENT_PROFILE_SAGA s where s.SAGA_ID = e.SAGA_ID and s.CREATE_DATE <= :createDate)", nativeQuery = true)
-  void deleteBySagaCreateDateBefore(LocalDateTime createDate);
+  @Query("delete from SagaEvent e where e.saga.sagaId in :sagaIds")
+  int deleteAllBySagaIdIn(@Param("sagaIds") List<UUID> sagaIds);
 }
@@ -0,0 +1,48 @@
+package ca.bc.gov.educ.api.student.profile.saga.repository;
+
+import ca.bc.gov.educ.api.student.profile.saga.model.v1.SagaEventResponse;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SagaEventResponseRepository extends CrudRepository<SagaEventResponse, String> {
+
+  /**
+   * marks a stored response as used again, the row lock keeps a concurrent purge from deleting it until the referencing event state is committed.
+   *
+   * @return 0 if the response is not stored.
+   */
+  @Modifying
+  @Query(value = "UPDATE STUDENT_PROFILE_SAGA_EVENT_RESPONSE SET LAST_USED_DATE = :lastUsedDate WHERE RESPONSE_HASH = :responseHash", nativeQuery = true)
+  int markUsed(@Param("responseHash") String responseHash, @Param("lastUsedDate") LocalDateTime lastUsedDate);
+
+  /**
+   * stores a response, a response stored at the same time by another transaction is left as it is.
+   *
+   * @param response the response, already converted by {@link ca.bc.gov.educ.api.student.profile.saga.model.v1.CompressedStringConverter} as native queries skip the converter.
+   */
+  @Modifying
+  @Query(value = "INSERT INTO STUDENT_PROFILE_SAGA_EVENT_RESPONSE (RESPONSE_HASH, RESPONSE_DATA, CREATE_DATE, LAST_USED_DATE) VALUES (:responseHash, :response, :lastUsedDate, :lastUsedDate) " +
+    "ON CONFLICT DO NOTHING", nativeQuery = true)
+  int insertIfAbsent(@Param("responseHash") String responseHash, @Param("response") byte[] response, @Param("lastUsedDate") LocalDateTime lastUsedDate);
+
+  @Query("select r.responseHash from SagaEventResponse r where r.lastUsedDate < :lastUsedDate and not exists (select e.sagaEventId from SagaEvent e where e.response = r) order by r.lastUsedDate")
+  List<String> findUnreferencedResponseHashes(@Param("lastUsedDate") LocalDateTime lastUsedDate, Pageable pageable);
+
+  @Query(value = "SELECT COALESCE(SUM(OCTET_LENGTH(RESPONSE_DATA)), 0) FROM STUDENT_PROFILE_SAGA_EVENT_RESPONSE WHERE RESPONSE_HASH IN (:responseHashes)", nativeQuery = true)
+  long sumResponseBytesByResponseHashIn(@Param("responseHashes") List<String> responseHashes);
+
+  /**
+   * deletes the responses, checking again that they are unreferenced and unused, as an event state may have referenced one since they were found.
+   */
+  @Modifying
+  @Query("delete from SagaEventResponse r where r.responseHash in :responseHashes and r.lastUsedDate < :lastUsedDate and not exists (select e.sagaEventId from SagaEvent e where e.response = r)")
+  int deleteUnreferencedByResponseHashIn(@Param("responseHashes") List<String> responseHashes, @Param("lastUsedDate") LocalDateTime lastUsedDate);
+}
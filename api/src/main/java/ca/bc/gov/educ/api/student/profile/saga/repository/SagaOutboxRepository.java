@@ -0,0 +1,28 @@
+package ca.bc.gov.educ.api.student.profile.saga.repository;
+
+import ca.bc.gov.educ.api.student.profile.saga.model.v1.SagaOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SagaOutboxRepository extends JpaRepository<SagaOutbox, Long> {
+
+  List<SagaOutbox> findAllByCreateDateBeforeOrderByOutboxIdAsc(LocalDateTime createDate, Pageable pageable);
+
+  /**
+   * runs in its own transaction as it is called after the transaction which wrote the messages has committed.
+   */
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  @Modifying
+  @Query("delete from SagaOutbox o where o.outboxId in :outboxIds")
+  int deleteAllByOutboxIdIn(@Param("outboxIds") List<Long> outboxIds);
+}
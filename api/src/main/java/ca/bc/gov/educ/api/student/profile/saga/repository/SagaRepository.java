@@ -1,30 +1,120 @@
 package ca.bc.gov.educ.api.student.profile.saga.repository;
 
 import ca.bc.gov.educ.api.student.profile.saga.model.v1.Saga;
+import ca.bc.gov.educ.api.student.profile.saga.model.v1.SagaEvent;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface SagaRepository extends JpaRepository<Saga, UUID>, JpaSpecificationExecutor<Saga> {
-  List<Saga> findAllByStatusIn(List<String> statuses);
+  boolean existsByPenRequestIdAndStatusIn(UUID penRequestId, List<String> statuses);
 
-  List<Saga> findAllByPenRequestIdAndStatusIn(UUID penRequestId, List<String> statuses);
-
-  List<Saga> findAllByProfileRequestIdAndStatusIn(UUID profileRequestId, List<String> statuses);
+  boolean existsByProfileRequestIdAndStatusIn(UUID profileRequestId, List<String> statuses);
 
   Optional<Saga> findByPenRequestIdAndStatusInAndSagaName(UUID penRequestId, List<String> statuses, String sagaName);
 
-  @Transactional
+  /**
+   * writes the state of the saga after a step, the deadline of the next step and the branches of its fork still waited for, the step count only moves forward.
+   * a step which moves the step count forward starts its retries over, so the retry count and the next retry are reset with it.
+   * the saga is only written if it still has the version it was read with.
+   *
+   * @return the number of rows updated, 0 if the saga was written by someone else meanwhile.
+   */
+  @Modifying
+  @Query("update Saga set sagaState = :#{#saga.sagaState}, status = :#{#saga.status}, payload = :#{#saga.payload}, legacyPayload = null, sagaCompensated = :#{#saga.sagaCompensated}, " +
+    "updateUser = :#{#saga.updateUser}, updateDate = :#{#saga.updateDate}, stepDeadline = :#{#saga.stepDeadline}, pendingBranches = :#{#saga.pendingBranches}, stepCount = case when stepCount < :stepNumber then :stepNumber else stepCount end, " +
+    "retryCount = case when stepCount < :stepNumber then 0 else retryCount end, nextRetryAt = case when stepCount < :stepNumber then null else nextRetryAt end, version = version + 1 " +
+    "where sagaId = :#{#saga.sagaId} and version = :#{#saga.version}")
+  int updateSagaState(@Param("saga") Saga saga, @Param("stepNumber") int stepNumber);
+
+  /**
+   * writes a step in one statement, PostgreSQL only: the saga is updated like {@link #updateSagaState}, the response of the event state is stored or
+   * marked as used again, and the event state is inserted unless it is already recorded. the response row stays locked until the transaction ends, so
+   * a concurrent purge cannot delete it.
+   * the inserts run even if the saga was written by someone else meanwhile, the caller rolls them back then.
+   *
+   * @param payload      the payload of the saga, already converted as native queries skip the converter.
+   * @param responseHash the hash of the event response, null if there is no response.
+   * @param response     the event response, already converted, null if there is no response.
+   * @return the number of sagas updated, 0 if the saga was written by someone else meanwhile.
+   */
+  @Modifying
+  @Query(value = "WITH RESPONSE AS (INSERT INTO STUDENT_PROFILE_SAGA_EVENT_RESPONSE (RESPONSE_HASH, RESPONSE_DATA, CREATE_DATE, LAST_USED_DATE) " +
+    "SELECT CAST(:responseHash AS VARCHAR), CAST(:response AS BYTEA), :lastUsedDate, :lastUsedDate WHERE CAST(:responseHash AS VARCHAR) IS NOT NULL " +
+    "ON CONFLICT (RESPONSE_HASH) DO UPDATE SET LAST_USED_DATE = EXCLUDED.LAST_USED_DATE), " +
+    "EVENT AS (INSERT INTO STUDENT_PROFILE_SAGA_EVENT_STATES (SAGA_EVENT_ID, SAGA_ID, SAGA_EVENT_STATE, SAGA_EVENT_OUTCOME, SAGA_STEP_NUMBER, SAGA_EVENT_RESPONSE_HASH, CREATE_USER, CREATE_DATE, UPDATE_USER, UPDATE_DATE, SAGA_CREATE_DATE) " +
+    "VALUES (:#{#e.sagaEventId}, :#{#e.saga.sagaId}, :#{#e.sagaEventState}, :#{#e.sagaEventOutcome}, :#{#e.sagaStepNumber}, CAST(:responseHash AS VARCHAR), :#{#e.createUser}, :#{#e.createDate}, :#{#e.updateUser}, :#{#e.updateDate}, :#{#e.sagaCreateDate}) " +
+    "ON CONFLICT DO NOTHING) " +
+    "UPDATE STUDENT_PROFILE_SAGA SET SAGA_STATE = :#{#saga.sagaState}, STATUS = :#{#saga.status}, PAYLOAD_DATA = :payload, PAYLOAD = NULL, SAGA_COMPENSATED = :#{#saga.sagaCompensated}, " +
+    "UPDATE_USER = :#{#saga.updateUser}, UPDATE_DATE = :#{#saga.updateDate}, STEP_DEADLINE = :#{#saga.stepDeadline}, PENDING_BRANCHES = :#{#saga.pendingBranches}, " +
+    "STEP_COUNT = CASE WHEN STEP_COUNT < :stepNumber THEN :stepNumber ELSE STEP_COUNT END, RETRY_COUNT = CASE WHEN STEP_COUNT < :stepNumber THEN 0 ELSE RETRY_COUNT END, " +
+    "NEXT_RETRY_AT = CASE WHEN STEP_COUNT < :stepNumber THEN NULL ELSE NEXT_RETRY_AT END, VERSION = VERSION + 1 " +
+    "WHERE SAGA_ID = :#{#saga.sagaId} AND VERSION = :#{#saga.version}", nativeQuery = true)
+  int writeStepState(@Param("saga") Saga saga, @Param("payload") byte[] payload, @Param("stepNumber") int stepNumber, @Param("e") SagaEvent sagaEvent,
+                     @Param("responseHash") String responseHash, @Param("response") byte[] response, @Param("lastUsedDate") LocalDateTime lastUsedDate);
+
+  /**
+   * locks the next page of stale sagas which are not leased and are due for a retry, rows locked by another pod are skipped rather than waited for.
+   * a saga is stale once the deadline of its step passed, a saga without a deadline once it was not updated since the stale before time.
+   * the page starts after the (update date, saga id) of the last row of the previous page.
+   */
+  @Query(value = "SELECT * FROM STUDENT_PROFILE_SAGA WHERE STATUS IN (:statuses) AND SAGA_NAME IN (:sagaNames) " +
+    "AND ((STEP_DEADLINE IS NULL AND UPDATE_DATE < :staleBefore) OR STEP_DEADLINE < :now) " +
+    "AND (LEASE_EXPIRES_AT IS NULL OR LEASE_EXPIRES_AT < :now) AND (NEXT_RETRY_AT IS NULL OR NEXT_RETRY_AT < :now) AND (UPDATE_DATE, SAGA_ID) > (:lastUpdateDate, :lastSagaId) " +
+    "ORDER BY UPDATE_DATE, SAGA_ID LIMIT :batchSize FOR UPDATE SKIP LOCKED", nativeQuery = true)
+  List<Saga> findStaleSagasForUpdate(@Param("statuses") List<String> statuses, @Param("sagaNames") Collection<String> sagaNames, @Param("staleBefore") LocalDateTime staleBefore,
+                                     @Param("now") LocalDateTime now, @Param("lastUpdateDate") LocalDateTime lastUpdateDate, @Param("lastSagaId") UUID lastSagaId, @Param("batchSize") int batchSize);
+
+  /**
+   * locks the saga if the deadline of its step passed, it is not leased and it is due for a retry. a saga locked by another pod is skipped.
+   */
+  @Query(value = "SELECT * FROM STUDENT_PROFILE_SAGA WHERE SAGA_ID = :sagaId AND STATUS IN (:statuses) AND STEP_DEADLINE < :now " +
+    "AND (LEASE_EXPIRES_AT IS NULL OR LEASE_EXPIRES_AT < :now) AND (NEXT_RETRY_AT IS NULL OR NEXT_RETRY_AT < :now) FOR UPDATE SKIP LOCKED", nativeQuery = true)
+  Optional<Saga> findTimedOutSagaForUpdate(@Param("sagaId") UUID sagaId, @Param("statuses") List<String> statuses, @Param("now") LocalDateTime now);
+
+  /**
+   * the step deadlines of the open sagas, without loading the sagas.
+   */
+  @Query("select s.sagaId as sagaId, s.stepDeadline as stepDeadline from Saga s where s.status in :statuses and s.sagaName in :sagaNames and s.stepDeadline is not null")
+  List<SagaStepDeadline> findStepDeadlines(@Param("statuses") List<String> statuses, @Param("sagaNames") Collection<String> sagaNames);
+
+  interface SagaStepDeadline {
+    UUID getSagaId();
+
+    LocalDateTime getStepDeadline();
+  }
+
+  /**
+   * puts a dead lettered saga back in progress with its retries reset, only one caller wins if it is re-driven twice.
+   *
+   * @return 1 if the saga was re-driven, 0 if it is not dead lettered.
+   */
+  @Modifying(clearAutomatically = true)
+  @Query("update Saga set status = :status, retryCount = 0, nextRetryAt = null, leaseExpiresAt = null, updateDate = :updateDate, version = version + 1 " +
+    "where sagaId = :sagaId and status = :deadLettered")
+  int redrive(@Param("sagaId") UUID sagaId, @Param("status") String status, @Param("deadLettered") String deadLettered, @Param("updateDate") LocalDateTime updateDate);
+
+  /**
+   * the oldest sagas created on or before the date, the purge deletes them a page at a time.
+   */
+  @Query("select s.sagaId from Saga s where s.createDate <= :createDate order by s.createDate, s.sagaId")
+  List<UUID> findOldestSagaIds(@Param("createDate") LocalDateTime createDate, Pageable pageable);
+
+  @Query(value = "SELECT COALESCE(SUM(COALESCE(OCTET_LENGTH(PAYLOAD_DATA), 0) + COALESCE(OCTET_LENGTH(PAYLOAD), 0)), 0) FROM STUDENT_PROFILE_SAGA WHERE SAGA_ID IN (:sagaIds)", nativeQuery = true)
+  long sumPayloadBytesBySagaIdIn(@Param("sagaIds") List<UUID> sagaIds);
+
   @Modifying
-  @Query("delete from Saga where createDate <= :createDate")
-  void deleteByCreateDateBefore(LocalDateTime createDate);
+  @Query("delete from Saga where sagaId in :sagaIds")
+  int deleteAllBySagaIdIn(@Param("sagaIds") List<UUID> sagaIds);
 }
@@ -0,0 +1,48 @@
+package ca.bc.gov.educ.api.student.profile.saga.repository;
+
+import ca.bc.gov.educ.api.student.profile.saga.model.v1.SagaRequestLock;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface SagaRequestLockRepository extends CrudRepository<SagaRequestLock, UUID> {
+
+  /**
+   * locks the row of the request until the transaction ends, waits if another transaction holds it.
+   *
+   * @return 0 if there is no row for the request yet.
+   */
+  @Modifying
+  @Query(value = "UPDATE STUDENT_PROFILE_SAGA_REQUEST_LOCK SET LOCKED_AT = :lockedAt WHERE REQUEST_ID = :requestId", nativeQuery = true)
+  int lock(@Param("requestId") UUID requestId, @Param("lockedAt") LocalDateTime lockedAt);
+
+  /**
+   * adds the row of the request, which stays locked until the transaction ends. waits for a transaction adding the same row at the same time.
+   *
+   * @return 0 if the row was added by another transaction.
+   */
+  @Modifying
+  @Query(value = "INSERT INTO STUDENT_PROFILE_SAGA_REQUEST_LOCK (REQUEST_ID, LOCKED_AT) VALUES (:requestId, :lockedAt) ON CONFLICT DO NOTHING", nativeQuery = true)
+  int insertIfAbsent(@Param("requestId") UUID requestId, @Param("lockedAt") LocalDateTime lockedAt);
+
+  /**
+   * the requests last locked the longest ago before the date, the purge deletes them a page at a time.
+   */
+  @Query("select l.requestId from SagaRequestLock l where l.lockedAt < :lockedAt order by l.lockedAt, l.requestId")
+  List<UUID> findOldestRequestIds(@Param("lockedAt") LocalDateTime lockedAt, Pageable pageable);
+
+  /**
+   * deletes the rows of the requests which were not locked again since the date.
+   */
+  @Modifying
+  @Query("delete from SagaRequestLock where requestId in :requestIds and lockedAt < :lockedAt")
+  int deleteByRequestIdInAndLockedAtBefore(@Param("requestIds") List<UUID> requestIds, @Param("lockedAt") LocalDateTime lockedAt);
+}
@@ -4,51 +4,76 @@ import ca.bc.gov.educ.api.student.profile.saga.constants.SagaStatusEnum;
 import ca.bc.gov.educ.api.student.profile.saga.helpers.LogHelper;
 import ca.bc.gov.educ.api.student.profile.saga.model.v1.Saga;
 import ca.bc.gov.educ.api.student.profile.saga.orchestrator.base.Orchestrator;
-import ca.bc.gov.educ.api.student.profile.saga.repository.SagaRepository;
+import ca.bc.gov.educ.api.student.profile.saga.orchestrator.base.SagaLaneExecutor;
+import ca.bc.gov.educ.api.student.profile.saga.orchestrator.base.SagaStepTimeoutWheel;
+import ca.bc.gov.educ.api.student.profile.saga.service.SagaService;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
-import net.javacrumbs.shedlock.core.LockAssert;
-import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.TimeoutException;
+import java.util.*;
 
 import static lombok.AccessLevel.PRIVATE;
 
 /**
  * The type Event task scheduler.
+ * a saga whose step is not answered by the deadline of the step is replayed as soon as the {@link SagaStepTimeoutWheel} expires it.
+ * every pod polls as well, for the sagas whose deadline was tracked by a pod which stopped, the stale sagas are claimed in pages with a lease
+ * so each one is replayed by a single pod.
  */
 @Component
 @Slf4j
 public class EventTaskScheduler {
+  private static final LocalDateTime KEYSET_START_DATE = LocalDateTime.of(1970, 1, 1, 0, 0);
+  private static final UUID KEYSET_START_ID = new UUID(0, 0);
   @Getter(PRIVATE)
   private final Map<String, Orchestrator> sagaOrchestrators = new HashMap<>();
   @Getter(PRIVATE)
-  private final SagaRepository sagaRepository;
+  private final SagaService sagaService;
+  @Getter(PRIVATE)
+  private final SagaLaneExecutor sagaLaneExecutor;
+  @Getter(PRIVATE)
+  private final SagaStepTimeoutWheel sagaStepTimeoutWheel;
 
 
   @Setter
   private List<String> statusFilters;
 
+  @Value("${scheduled.jobs.poll.uncompleted.saga.records.batch.size:100}")
+  @Setter
+  @Getter
+  Integer batchSize;
+
+  @Value("${scheduled.jobs.poll.uncompleted.saga.records.lease:PT2M}")
+  @Setter
+  @Getter
+  Duration lease;
+
   /**
    * Instantiates a new Event task scheduler.
    *
-   * @param sagaRepository the saga repository
+   * @param sagaService      the saga service
+   * @param orchestrators    the orchestrators
+   * @param sagaLaneExecutor     the executor the replays are queued on, in the lane of the saga.
+   * @param sagaStepTimeoutWheel the step deadlines, the sagas it expires are replayed here.
    */
   @Autowired
-  public EventTaskScheduler(final SagaRepository sagaRepository, final List<Orchestrator> orchestrators) {
-    this.sagaRepository = sagaRepository;
+  public EventTaskScheduler(final SagaService sagaService, final List<Orchestrator> orchestrators, final SagaLaneExecutor sagaLaneExecutor,
+                            final SagaStepTimeoutWheel sagaStepTimeoutWheel) {
+    this.sagaService = sagaService;
+    this.sagaLaneExecutor = sagaLaneExecutor;
+    this.sagaStepTimeoutWheel = sagaStepTimeoutWheel;
     orchestrators.forEach(orchestrator -> this.registerSagaOrchestrators(orchestrator.getSagaName(), orchestrator));
+    sagaStepTimeoutWheel.onExpiry(this::replayTimedOutSaga);
   }
 
   /**
@@ -62,41 +87,64 @@ public class EventTaskScheduler {
   }
 
   /**
-   * Poll event table and publish.
+   * tracks the step deadlines of the open sagas again, they are only kept in memory.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void trackStepDeadlines() {
+    val stepDeadlines = this.getSagaService().findStepDeadlines(this.getStatusFilters(), this.getSagaOrchestrators().keySet());
+    for (val stepDeadline : stepDeadlines) {
+      this.getSagaStepTimeoutWheel().schedule(stepDeadline.getSagaId(), stepDeadline.getStepDeadline());
+    }
+    log.info("Tracking the step deadlines of {} open sagas", stepDeadlines.size());
+  }
+
+  /**
+   * replays the saga whose step timed out, on the lane of the saga. the saga is claimed first, so it is not replayed if it moved on
+   * meanwhile or another pod replays it.
    *
-   * @throws InterruptedException the interrupted exception
-   * @throws IOException          the io exception
-   * @throws TimeoutException     the timeout exception
+   * @param sagaId the saga.
+   */
+  void replayTimedOutSaga(final UUID sagaId) {
+    this.getSagaLaneExecutor().execute(sagaId, () -> {
+      val claimed = this.getSagaService().claimTimedOutSaga(sagaId, this.getStatusFilters(), this.getLease());
+      if (claimed.isEmpty() || SagaStatusEnum.DEAD_LETTERED.toString().equals(claimed.get().getStatus())) {
+        return;
+      }
+      val saga = claimed.get();
+      LogHelper.logSagaRetry(saga);
+      this.getSagaOrchestrators().get(saga.getSagaName()).replaySaga(saga);
+    });
+  }
+
+  /**
+   * Poll event table and publish.
+   * claims the sagas in IN_PROGRESS or STARTED status whose step deadline passed, or which have no deadline and have not been updated in the last minute,
+   * and are due for a retry, page by page ordered by update date and saga id.
+   * sagas which used all of their retries come back dead lettered and are not replayed.
    */
-//Run the job every minute to check how many records are in IN_PROGRESS or STARTED status and has not been updated in last 5 minutes.
   @Scheduled(cron = "${scheduled.jobs.poll.uncompleted.saga.records.cron}")
-  @SchedulerLock(name = "ProfileRequestSagaTablePoller",
-    lockAtLeastFor = "${scheduled.jobs.poll.uncompleted.saga.records.cron.lockAtLeastFor}", lockAtMostFor = "$" +
-    "{scheduled.jobs.poll.uncompleted.saga.records.cron.lockAtMostFor}")
-  public void pollEventTableAndPublish() throws InterruptedException, IOException, TimeoutException {
-    LockAssert.assertLocked();
-    final var sagas = this.getSagaRepository().findAllByStatusIn(this.getStatusFilters());
-    if (!sagas.isEmpty()) {
+  public void pollEventTableAndPublish() {
+    final var staleBefore = LocalDateTime.now().minusMinutes(1);
+    var lastUpdateDate = KEYSET_START_DATE;
+    var lastSagaId = KEYSET_START_ID;
+    List<Saga> sagas;
+    do {
+      sagas = this.getSagaService().claimStaleSagas(this.getStatusFilters(), this.getSagaOrchestrators().keySet(), staleBefore, lastUpdateDate, lastSagaId, this.getBatchSize(), this.getLease());
+      if (!sagas.isEmpty()) {
+        // the replay updates the saga, so the keyset is taken before the sagas are handed over.
+        val last = sagas.get(sagas.size() - 1);
+        lastUpdateDate = last.getUpdateDate();
+        lastSagaId = last.getSagaId();
+      }
       for (val saga : sagas) {
-        if (saga.getCreateDate().isBefore(LocalDateTime.now().minusMinutes(1))
-          && this.getSagaOrchestrators().containsKey(saga.getSagaName())) {
-          this.setRetryCountAndLog(saga);
-          this.getSagaOrchestrators().get(saga.getSagaName()).replaySaga(saga);
+        if (SagaStatusEnum.DEAD_LETTERED.toString().equals(saga.getStatus())) {
+          continue;
         }
+        LogHelper.logSagaRetry(saga);
+        val orchestrator = this.getSagaOrchestrators().get(saga.getSagaName());
+        this.getSagaLaneExecutor().execute(saga.getSagaId(), () -> orchestrator.replaySaga(saga));
       }
-    }
-  }
-
-  private void setRetryCountAndLog(final Saga saga) {
-    Integer retryCount = saga.getRetryCount();
-    if (retryCount == null || retryCount == 0) {
-      retryCount = 1;
-    } else {
-      retryCount += 1;
-    }
-    saga.setRetryCount(retryCount);
-    this.sagaRepository.save(saga);
-    LogHelper.logSagaRetry(saga);
+    } while (sagas.size() == this.getBatchSize());
   }
 
   /**
@@ -1,7 +1,7 @@
 package ca.bc.gov.educ.api.student.profile.saga.schedulers;
 
-import ca.bc.gov.educ.api.student.profile.saga.repository.SagaEventRepository;
-import ca.bc.gov.educ.api.student.profile.saga.repository.SagaRepository;
+import ca.bc.gov.educ.api.student.profile.saga.service.SagaPartitionService;
+import ca.bc.gov.educ.api.student.profile.saga.service.SagaPurgeService;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -11,8 +11,9 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import jakarta.transaction.Transactional;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 
 import static lombok.AccessLevel.PRIVATE;
 
@@ -20,35 +21,76 @@ import static lombok.AccessLevel.PRIVATE;
 @Slf4j
 public class PurgeOldSagaRecordsScheduler {
   @Getter(PRIVATE)
-  private final SagaRepository sagaRepository;
+  private final SagaPurgeService sagaPurgeService;
 
   @Getter(PRIVATE)
-  private final SagaEventRepository sagaEventRepository;
+  private final SagaPartitionService sagaPartitionService;
 
   @Value("${purge.records.saga.after.days}")
   @Setter
   @Getter
   Integer sagaRecordStaleInDays;
 
-  public PurgeOldSagaRecordsScheduler(final SagaRepository sagaRepository, final SagaEventRepository sagaEventRepository) {
-    this.sagaRepository = sagaRepository;
-    this.sagaEventRepository = sagaEventRepository;
+  @Value("${purge.records.saga.chunk.size:500}")
+  @Setter
+  @Getter
+  Integer chunkSize;
+
+  /**
+   * how long a run keeps purging, it has to stay below lockAtMostFor so two pods never purge at the same time.
+   */
+  @Value("${purge.records.saga.time.budget:PT50S}")
+  @Setter
+  @Getter
+  Duration timeBudget;
+
+  public PurgeOldSagaRecordsScheduler(final SagaPurgeService sagaPurgeService, final SagaPartitionService sagaPartitionService) {
+    this.sagaPurgeService = sagaPurgeService;
+    this.sagaPartitionService = sagaPartitionService;
   }
 
 
   /**
    * run the job based on configured scheduler(a cron expression) and purge old records from DB.
+   * the partitions for the coming months are created, and when dropping is enabled the months older than the retention are dropped whole.
+   * the records left are purged chunk by chunk until there are none left or the time budget is used, the next run carries on from the oldest records left.
+   * the event responses no longer referenced by the event states left are purged after the sagas, within the same time budget.
+   * last come the lock rows of the requests no saga was started for within the retention, chunk by chunk within the same time budget.
    */
   @Scheduled(cron = "${scheduled.jobs.purge.old.saga.records.cron}")
   @SchedulerLock(name = "PurgeOldSagaRecordsLock",
-    lockAtLeastFor = "55s", lockAtMostFor = "57s")
-  @Transactional
+    lockAtLeastFor = "${scheduled.jobs.purge.old.saga.records.cron.lockAtLeastFor}", lockAtMostFor = "${scheduled.jobs.purge.old.saga.records.cron.lockAtMostFor}")
   public void pollSagaTableAndPurgeOldRecords() {
     LockAssert.assertLocked();
     final LocalDateTime createDateToCompare = this.calculateCreateDateBasedOnStaleSagaRecordInDays();
-    this.sagaEventRepository.deleteBySagaCreateDateBefore(createDateToCompare);
-    this.sagaRepository.deleteByCreateDateBefore(createDateToCompare);
-    log.info("Purged old saga and event records EDUC-STUDENT-PROFILE-SAGA-API");
+    this.getSagaPartitionService().createFuturePartitions(YearMonth.now());
+    if (this.getSagaPartitionService().isDropEnabled()) {
+      this.getSagaPartitionService().dropPartitionsBefore(createDateToCompare);
+    }
+    final long deadline = System.nanoTime() + this.getTimeBudget().toNanos();
+    var purged = 0;
+    int chunk;
+    do {
+      chunk = this.getSagaPurgeService().purgeOldestSagas(createDateToCompare, this.getChunkSize());
+      purged += chunk;
+    } while (chunk == this.getChunkSize() && System.nanoTime() < deadline);
+    if (chunk == this.getChunkSize()) {
+      log.info("Purged {} old saga records EDUC-STUDENT-PROFILE-SAGA-API, the time budget is used and the rest is purged by the next run", purged);
+    } else {
+      log.info("Purged {} old saga records EDUC-STUDENT-PROFILE-SAGA-API", purged);
+    }
+    var purgedResponses = 0;
+    do {
+      chunk = this.getSagaPurgeService().purgeUnreferencedResponses(createDateToCompare, this.getChunkSize());
+      purgedResponses += chunk;
+    } while (chunk == this.getChunkSize() && System.nanoTime() < deadline);
+    log.info("Purged {} unreferenced event responses EDUC-STUDENT-PROFILE-SAGA-API", purgedResponses);
+    var purgedLocks = 0;
+    do {
+      chunk = this.getSagaPurgeService().purgeRequestLocks(createDateToCompare, this.getChunkSize());
+      purgedLocks += chunk;
+    } while (chunk == this.getChunkSize() && System.nanoTime() < deadline);
+    log.info("Purged {} request locks EDUC-STUDENT-PROFILE-SAGA-API", purgedLocks);
   }
 
   private LocalDateTime calculateCreateDateBasedOnStaleSagaRecordInDays() {
@@ -0,0 +1,40 @@
+package ca.bc.gov.educ.api.student.profile.saga.schedulers;
+
+import ca.bc.gov.educ.api.student.profile.saga.messaging.SagaOutboxRelay;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import net.javacrumbs.shedlock.core.LockAssert;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * messages are relayed by the transaction which wrote them as soon as it commits, this job only picks up the ones left behind when a pod
+ * stopped between the commit and the publish.
+ */
+@Component
+@Slf4j
+public class SagaOutboxRelayScheduler {
+  @Getter(PRIVATE)
+  private final SagaOutboxRelay sagaOutboxRelay;
+
+  public SagaOutboxRelayScheduler(final SagaOutboxRelay sagaOutboxRelay) {
+    this.sagaOutboxRelay = sagaOutboxRelay;
+  }
+
+  @Scheduled(cron = "${scheduled.jobs.relay.saga.outbox.cron}")
+  @SchedulerLock(name = "SagaOutboxRelayLock",
+    lockAtLeastFor = "${scheduled.jobs.relay.saga.outbox.cron.lockAtLeastFor}", lockAtMostFor = "${scheduled.jobs.relay.saga.outbox.cron.lockAtMostFor}")
+  public void relayPendingOutboxMessages() {
+    LockAssert.assertLocked();
+    val relayed = this.getSagaOutboxRelay().relayPendingMessages(LocalDateTime.now().minusSeconds(5));
+    if (relayed > 0) {
+      log.info("Relayed {} pending outbox messages", relayed);
+    }
+  }
+}
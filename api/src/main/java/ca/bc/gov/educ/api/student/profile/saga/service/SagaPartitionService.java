@@ -0,0 +1,126 @@
+package ca.bc.gov.educ.api.student.profile.saga.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * manages the monthly partitions of the saga and saga event tables, see V1.0.12.
+ * partitions are always created a few months ahead, and a month is dropped as a whole once all of it is older than the retention, which takes the
+ * same time however many rows it holds. the event states are dropped before the sagas they belong to. dropping can be switched off.
+ * rows of a month without a partition land in the default partition, see V1.0.19, which is never dropped.
+ */
+@Service
+@Slf4j
+public class SagaPartitionService {
+  static final String SAGA_TABLE = "STUDENT_PROFILE_SAGA";
+  static final String SAGA_EVENT_TABLE = "STUDENT_PROFILE_SAGA_EVENT_STATES";
+  private static final Pattern PARTITION_MONTH = Pattern.compile("_P(\\d{4})_(\\d{2})$", Pattern.CASE_INSENSITIVE);
+  private static final String PARTITIONS_QUERY = "SELECT C.RELNAME FROM PG_INHERITS I JOIN PG_CLASS C ON C.OID = I.INHRELID JOIN PG_CLASS P ON P.OID = I.INHPARENT WHERE P.RELNAME = ?";
+
+  @Getter(PRIVATE)
+  private final JdbcTemplate jdbcTemplate;
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * whether the months older than the retention are dropped, otherwise their rows are purged row by row.
+   */
+  @Getter
+  private final boolean dropEnabled;
+
+  private final int monthsAhead;
+
+  @Autowired
+  public SagaPartitionService(final JdbcTemplate jdbcTemplate, final MeterRegistry meterRegistry, @Value("${saga.partitioning.enabled:false}") final boolean dropEnabled,
+                              @Value("${saga.partitioning.months.ahead:3}") final int monthsAhead) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.meterRegistry = meterRegistry;
+    this.dropEnabled = dropEnabled;
+    this.monthsAhead = monthsAhead;
+  }
+
+  /**
+   * makes sure the partitions exist before the first saga is created after a deployment.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void createFuturePartitionsOnStartup() {
+    this.createFuturePartitions(YearMonth.now());
+  }
+
+  /**
+   * creates the partitions of both tables from the given month up to the configured number of months ahead, existing ones are left alone.
+   * pods may do this at the same time, a partition created by another pod is only logged. so is a month the default partition already holds rows of,
+   * its rows stay in the default partition until they are purged.
+   *
+   * @param from the first month to create.
+   */
+  public void createFuturePartitions(final YearMonth from) {
+    for (var month = from; !month.isAfter(from.plusMonths(this.monthsAhead)); month = month.plusMonths(1)) {
+      for (val table : List.of(SAGA_TABLE, SAGA_EVENT_TABLE)) {
+        try {
+          this.getJdbcTemplate().execute(String.format("CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')",
+            partitionName(table, month), table, month.atDay(1), month.plusMonths(1).atDay(1)));
+        } catch (final DataAccessException e) {
+          log.warn("Could not create partition {} of {}, it is probably being created by another pod or the default partition holds rows of that month", partitionName(table, month), table, e);
+        }
+      }
+    }
+  }
+
+  /**
+   * detaches and drops the partitions which only hold sagas created before the date.
+   * the month which contains the date is left for the row by row purge.
+   *
+   * @param createDate sagas created before this date are purged.
+   * @return the number of months dropped.
+   */
+  public int dropPartitionsBefore(final LocalDateTime createDate) {
+    val cutoff = YearMonth.from(createDate);
+    val months = this.getJdbcTemplate().queryForList(PARTITIONS_QUERY, String.class, SAGA_TABLE.toLowerCase(Locale.ROOT)).stream()
+      .map(SagaPartitionService::partitionMonth).flatMap(Optional::stream).filter(month -> month.isBefore(cutoff)).sorted().toList();
+    for (val month : months) {
+      this.dropPartition(SAGA_EVENT_TABLE, month);
+      this.dropPartition(SAGA_TABLE, month);
+      log.info("Dropped the saga partitions of {}", month);
+    }
+    return months.size();
+  }
+
+  private void dropPartition(final String table, final YearMonth month) {
+    val partition = partitionName(table, month);
+    if (this.getJdbcTemplate().queryForList(PARTITIONS_QUERY, String.class, table.toLowerCase(Locale.ROOT)).stream().anyMatch(partition::equalsIgnoreCase)) {
+      this.getJdbcTemplate().execute(String.format("ALTER TABLE %s DETACH PARTITION %s", table, partition));
+    }
+    this.getJdbcTemplate().execute(String.format("DROP TABLE IF EXISTS %s", partition));
+    this.meterRegistry.counter("saga.purge.partitions.dropped", "table", table).increment();
+  }
+
+  static String partitionName(final String table, final YearMonth month) {
+    return String.format("%s_P%04d_%02d", table, month.getYear(), month.getMonthValue());
+  }
+
+  static Optional<YearMonth> partitionMonth(final String partitionName) {
+    val matcher = PARTITION_MONTH.matcher(partitionName);
+    if (!matcher.find()) {
+      return Optional.empty();
+    }
+    return Optional.of(YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+  }
+}
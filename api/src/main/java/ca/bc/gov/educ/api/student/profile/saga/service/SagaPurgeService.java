@@ -0,0 +1,134 @@
+package ca.bc.gov.educ.api.student.profile.saga.service;
+
+import ca.bc.gov.educ.api.student.profile.saga.repository.SagaEventRepository;
+import ca.bc.gov.educ.api.student.profile.saga.repository.SagaEventResponseRepository;
+import ca.bc.gov.educ.api.student.profile.saga.repository.SagaRepository;
+import ca.bc.gov.educ.api.student.profile.saga.repository.SagaRequestLockRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * deletes old sagas and their event states in small chunks, the oldest first.
+ * each chunk is its own transaction, so locks are held briefly and the WAL and autovacuum see a steady trickle instead of one big delete.
+ * as the oldest sagas are always deleted first, a purge which stops part way is picked up by the next run without keeping a cursor.
+ * the event responses are shared between event states, so they are deleted separately once no event state references them.
+ */
+@Service
+@Slf4j
+public class SagaPurgeService {
+  private static final String SAGA_TABLE = "STUDENT_PROFILE_SAGA";
+  private static final String SAGA_EVENT_TABLE = "STUDENT_PROFILE_SAGA_EVENT_STATES";
+  private static final String SAGA_EVENT_RESPONSE_TABLE = "STUDENT_PROFILE_SAGA_EVENT_RESPONSE";
+  private static final String SAGA_REQUEST_LOCK_TABLE = "STUDENT_PROFILE_SAGA_REQUEST_LOCK";
+  @Getter(PRIVATE)
+  private final SagaRepository sagaRepository;
+  @Getter(PRIVATE)
+  private final SagaEventRepository sagaEventRepository;
+  @Getter(PRIVATE)
+  private final SagaEventResponseRepository sagaEventResponseRepository;
+  @Getter(PRIVATE)
+  private final SagaRequestLockRepository sagaRequestLockRepository;
+  private final Counter sagaRowsDeleted;
+  private final Counter sagaEventRowsDeleted;
+  private final Counter sagaBytesDeleted;
+  private final Counter sagaEventResponseRowsDeleted;
+  private final Counter sagaEventResponseBytesDeleted;
+  private final Counter sagaRequestLockRowsDeleted;
+
+  @Autowired
+  public SagaPurgeService(final SagaRepository sagaRepository, final SagaEventRepository sagaEventRepository, final SagaEventResponseRepository sagaEventResponseRepository,
+                          final SagaRequestLockRepository sagaRequestLockRepository, final MeterRegistry meterRegistry) {
+    this.sagaRepository = sagaRepository;
+    this.sagaEventRepository = sagaEventRepository;
+    this.sagaEventResponseRepository = sagaEventResponseRepository;
+    this.sagaRequestLockRepository = sagaRequestLockRepository;
+    this.sagaRowsDeleted = this.rowsCounter(meterRegistry, SAGA_TABLE);
+    this.sagaEventRowsDeleted = this.rowsCounter(meterRegistry, SAGA_EVENT_TABLE);
+    this.sagaBytesDeleted = this.bytesCounter(meterRegistry, SAGA_TABLE);
+    this.sagaEventResponseRowsDeleted = this.rowsCounter(meterRegistry, SAGA_EVENT_RESPONSE_TABLE);
+    this.sagaEventResponseBytesDeleted = this.bytesCounter(meterRegistry, SAGA_EVENT_RESPONSE_TABLE);
+    this.sagaRequestLockRowsDeleted = this.rowsCounter(meterRegistry, SAGA_REQUEST_LOCK_TABLE);
+  }
+
+  /**
+   * deletes the oldest chunk of sagas created on or before the date, together with their event states.
+   *
+   * @param createDate sagas created on or before this date are purged.
+   * @param chunkSize  the maximum number of sagas to delete.
+   * @return the number of sagas deleted, less than the chunk size when there is nothing left to purge.
+   */
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  public int purgeOldestSagas(final LocalDateTime createDate, final int chunkSize) {
+    val sagaIds = this.getSagaRepository().findOldestSagaIds(createDate, PageRequest.of(0, chunkSize));
+    if (sagaIds.isEmpty()) {
+      return 0;
+    }
+    this.sagaBytesDeleted.increment(this.getSagaRepository().sumPayloadBytesBySagaIdIn(sagaIds));
+    this.sagaEventRowsDeleted.increment(this.getSagaEventRepository().deleteAllBySagaIdIn(sagaIds));
+    val deleted = this.getSagaRepository().deleteAllBySagaIdIn(sagaIds);
+    this.sagaRowsDeleted.increment(deleted);
+    log.debug("Purged {} sagas created on or before {}", deleted, createDate);
+    return sagaIds.size();
+  }
+
+  /**
+   * deletes a chunk of the event responses which are no longer referenced by any event state and were last used before the date.
+   * a response used since then is left, even if the event state referencing it is not committed yet.
+   *
+   * @param lastUsedDate responses last used before this date are purged.
+   * @param chunkSize    the maximum number of responses to delete.
+   * @return the number of responses found, less than the chunk size when there is nothing left to purge.
+   */
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  public int purgeUnreferencedResponses(final LocalDateTime lastUsedDate, final int chunkSize) {
+    val responseHashes = this.getSagaEventResponseRepository().findUnreferencedResponseHashes(lastUsedDate, PageRequest.of(0, chunkSize));
+    if (responseHashes.isEmpty()) {
+      return 0;
+    }
+    this.sagaEventResponseBytesDeleted.increment(this.getSagaEventResponseRepository().sumResponseBytesByResponseHashIn(responseHashes));
+    val deleted = this.getSagaEventResponseRepository().deleteUnreferencedByResponseHashIn(responseHashes, lastUsedDate);
+    this.sagaEventResponseRowsDeleted.increment(deleted);
+    log.debug("Purged {} event responses last used before {}", deleted, lastUsedDate);
+    return responseHashes.size();
+  }
+
+  /**
+   * deletes a chunk of the lock rows of the requests no saga was started for since the date, the oldest first. the row is added again if one is.
+   * a row locked again since it was found is left.
+   *
+   * @param lockedAt  rows last locked before this date are purged.
+   * @param chunkSize the maximum number of rows to delete.
+   * @return the number of rows found, less than the chunk size when there is nothing left to purge.
+   */
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  public int purgeRequestLocks(final LocalDateTime lockedAt, final int chunkSize) {
+    val requestIds = this.getSagaRequestLockRepository().findOldestRequestIds(lockedAt, PageRequest.of(0, chunkSize));
+    if (requestIds.isEmpty()) {
+      return 0;
+    }
+    val deleted = this.getSagaRequestLockRepository().deleteByRequestIdInAndLockedAtBefore(requestIds, lockedAt);
+    this.sagaRequestLockRowsDeleted.increment(deleted);
+    log.debug("Purged {} request locks last locked before {}", deleted, lockedAt);
+    return requestIds.size();
+  }
+
+  private Counter rowsCounter(final MeterRegistry meterRegistry, final String table) {
+    return Counter.builder("saga.purge.rows.deleted").description("rows deleted by the purge").tag("table", table).register(meterRegistry);
+  }
+
+  private Counter bytesCounter(final MeterRegistry meterRegistry, final String table) {
+    return Counter.builder("saga.purge.bytes.deleted").description("payload bytes deleted by the purge").baseUnit("bytes").tag("table", table).register(meterRegistry);
+  }
+}
@@ -123,8 +123,8 @@ public class SagaSearchService {
     Specification<Saga> studentSpecs = null;
     try {
       if (StringUtils.isNotBlank(sortCriteriaJson)) {
-        final Map<String, String> sortMap = JsonUtil.objectMapper.readValue(sortCriteriaJson, new TypeReference<>() {
-        });
+        final Map<String, String> sortMap = JsonUtil.getJsonObjectFromString(new TypeReference<>() {
+        }, sortCriteriaJson);
         sortMap.forEach((k, v) -> {
           if ("ASC".equalsIgnoreCase(v)) {
             sorts.add(new Sort.Order(Sort.Direction.ASC, k));
@@ -134,8 +134,8 @@ public class SagaSearchService {
         });
       }
       if (StringUtils.isNotBlank(searchCriteriaListJson)) {
-        final List<Search> searches = JsonUtil.objectMapper.readValue(searchCriteriaListJson, new TypeReference<>() {
-        });
+        final List<Search> searches = JsonUtil.getJsonObjectFromString(new TypeReference<>() {
+        }, searchCriteriaListJson);
         var i = 0;
         for (final var search : searches) {
           studentSpecs = this.getSpecifications(studentSpecs, i, search);
@@ -1,49 +1,106 @@
 package ca.bc.gov.educ.api.student.profile.saga.service;
 
 import ca.bc.gov.educ.api.student.profile.saga.exception.SagaRuntimeException;
+import ca.bc.gov.educ.api.student.profile.saga.messaging.SagaOutboxRelay;
+import ca.bc.gov.educ.api.student.profile.saga.model.v1.CompressedStringConverter;
 import ca.bc.gov.educ.api.student.profile.saga.model.v1.Saga;
 import ca.bc.gov.educ.api.student.profile.saga.model.v1.SagaEvent;
+import ca.bc.gov.educ.api.student.profile.saga.orchestrator.base.SagaRetryPolicy;
+import ca.bc.gov.educ.api.student.profile.saga.orchestrator.base.SagaUnitOfWork;
 import ca.bc.gov.educ.api.student.profile.saga.repository.SagaEventRepository;
+import ca.bc.gov.educ.api.student.profile.saga.repository.SagaEventResponseRepository;
 import ca.bc.gov.educ.api.student.profile.saga.repository.SagaRepository;
+import ca.bc.gov.educ.api.student.profile.saga.repository.SagaRequestLockRepository;
 import ca.bc.gov.educ.api.student.profile.saga.utils.JsonUtil;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.uuid.CustomVersionOneStrategy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static ca.bc.gov.educ.api.student.profile.saga.constants.EventType.INITIATED;
+import static ca.bc.gov.educ.api.student.profile.saga.constants.SagaStatusEnum.DEAD_LETTERED;
+import static ca.bc.gov.educ.api.student.profile.saga.constants.SagaStatusEnum.IN_PROGRESS;
 import static ca.bc.gov.educ.api.student.profile.saga.constants.SagaStatusEnum.STARTED;
 import static lombok.AccessLevel.PRIVATE;
 
 @Service
 @Slf4j
 public class SagaService {
+  /**
+   * a request has at most one saga in one of these statuses.
+   */
+  private static final List<String> IN_PROGRESS_STATUSES = List.of(IN_PROGRESS.toString(), STARTED.toString());
   @Getter(AccessLevel.PRIVATE)
   private final SagaRepository sagaRepository;
   @Getter(PRIVATE)
   private final SagaEventRepository sagaEventRepository;
+  @Getter(PRIVATE)
+  private final SagaEventResponseRepository sagaEventResponseRepository;
+  @Getter(PRIVATE)
+  private final SagaRequestLockRepository sagaRequestLockRepository;
+  /**
+   * same strategy as the id generator of {@link SagaEvent}, used as the event state is inserted natively.
+   */
+  private final CustomVersionOneStrategy uuidGenerator = new CustomVersionOneStrategy();
+  private final EntityManager entityManager;
+  @Getter(PRIVATE)
+  private final SagaRetryPolicy sagaRetryPolicy;
+  private final MeterRegistry meterRegistry;
+  private final CompressedStringConverter compressedStringConverter;
+  @Getter(PRIVATE)
+  private final SagaOutboxRelay sagaOutboxRelay;
+  private final TransactionTemplate transactionTemplate;
+  /**
+   * whether a step is written by one statement, which needs PostgreSQL. other databases, like the H2 of the tests, write it statement by statement.
+   */
+  private final boolean singleStatementWrite;
 
   @Autowired
-  public SagaService(final SagaRepository sagaRepository, final SagaEventRepository sagaEventRepository) {
+  public SagaService(final SagaRepository sagaRepository, final SagaEventRepository sagaEventRepository, final SagaEventResponseRepository sagaEventResponseRepository,
+                     final SagaRequestLockRepository sagaRequestLockRepository, final EntityManager entityManager, final SagaRetryPolicy sagaRetryPolicy,
+                     final MeterRegistry meterRegistry, final CompressedStringConverter compressedStringConverter, final SagaOutboxRelay sagaOutboxRelay,
+                     final PlatformTransactionManager transactionManager) {
     this.sagaRepository = sagaRepository;
     this.sagaEventRepository = sagaEventRepository;
+    this.sagaEventResponseRepository = sagaEventResponseRepository;
+    this.sagaRequestLockRepository = sagaRequestLockRepository;
+    this.entityManager = entityManager;
+    this.sagaRetryPolicy = sagaRetryPolicy;
+    this.meterRegistry = meterRegistry;
+    this.compressedStringConverter = compressedStringConverter;
+    this.sagaOutboxRelay = sagaOutboxRelay;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.singleStatementWrite = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect() instanceof PostgreSQLDialect;
   }
 
 
@@ -54,6 +111,49 @@ public class SagaService {
     return this.getSagaRepository().save(saga);
   }
 
+  /**
+   * creates the saga unless another saga of the profile request is in progress, the check and the insert hold the lock of the request
+   * so two sagas started at the same time cannot both pass the check.
+   *
+   * @return the saga, empty if another saga of the profile request is in progress.
+   */
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  public Optional<Saga> createProfileRequestSagaRecordIfNoneInProgress(final Object sagaData, final String sagaName, final String user, final UUID profileRequestId) throws JsonProcessingException {
+    this.lockRequest(profileRequestId);
+    if (this.getSagaRepository().existsByProfileRequestIdAndStatusIn(profileRequestId, IN_PROGRESS_STATUSES)) {
+      return Optional.empty();
+    }
+    return Optional.of(this.createProfileRequestSagaRecord(sagaData, sagaName, user, profileRequestId));
+  }
+
+  /**
+   * creates the saga unless another saga of the pen request is in progress, see {@link #createProfileRequestSagaRecordIfNoneInProgress}.
+   *
+   * @return the saga, empty if another saga of the pen request is in progress.
+   */
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  public Optional<Saga> createPenRequestSagaRecordIfNoneInProgress(final Object sagaData, final String sagaName, final String user, final UUID penRequestId) throws JsonProcessingException {
+    this.lockRequest(penRequestId);
+    if (this.getSagaRepository().existsByPenRequestIdAndStatusIn(penRequestId, IN_PROGRESS_STATUSES)) {
+      return Optional.empty();
+    }
+    return Optional.of(this.createPenRequestSagaRecord(sagaData, sagaName, user, penRequestId));
+  }
+
+  /**
+   * locks the row of the request until the transaction ends, adding it for the first saga of the request.
+   * if a saga of the same request added it at the same time, the insert waits for it and the row is locked once it is committed.
+   *
+   * @param requestId the pen request or profile request id.
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void lockRequest(final UUID requestId) {
+    val now = LocalDateTime.now();
+    if (this.getSagaRequestLockRepository().lock(requestId, now) == 0 && this.getSagaRequestLockRepository().insertIfAbsent(requestId, now) == 0) {
+      this.getSagaRequestLockRepository().lock(requestId, now);
+    }
+  }
+
   @Transactional(propagation = Propagation.REQUIRES_NEW)
   public Saga createPenRequestSagaRecord(final Object sagaData, final String sagaName, final String user, final UUID penRequestId) throws JsonProcessingException {
     val saga = this.getSaga(JsonUtil.getJsonStringFromObject(sagaData), sagaName, user);
@@ -62,22 +162,198 @@ public class SagaService {
   }
 
   /**
-   * no need to do a get here as it is an attached entity
-   * first find the child record, if exist do not add. this scenario may occur in replay process,
-   * so dont remove this check. removing this check will lead to duplicate records in the child table.
+   * no need to do a get here as it is an attached entity.
+   * the event state is inserted with ON CONFLICT DO NOTHING against the unique (saga, step, state, outcome) key, a conflict means
+   * it was already recorded by a replay or a duplicate message, so dont remove the unique constraint. removing it will lead to duplicate records in the child table.
+   * the saga state and step count are written by a single update, no rows are read. on PostgreSQL the update, the response and the event state are
+   * written by one statement, see {@link SagaRepository#writeStepState}.
+   * inside a saga step the state change is added to the {@link SagaUnitOfWork} of the step and written with its messages once the step is
+   * done, see {@link #writeUnitOfWork(SagaUnitOfWork)}. otherwise it is written right away, in the current transaction if there is one.
+   * the saga is written only if no one else wrote it since it was read, otherwise the step lost to a concurrent step of the saga, the caller
+   * runs it again on the saga as it is now or drops it.
+   * a failure is not retried here, the whole step is retried by the {@link ca.bc.gov.educ.api.student.profile.saga.orchestrator.base.SagaStepRetryScheduler}.
    *
    * @param saga the saga object.
+   * @throws OptimisticLockingFailureException if the saga was written by someone else since it was read.
    */
-  @Transactional(propagation = Propagation.REQUIRES_NEW)
-  @Retryable(value = {Exception.class}, maxAttempts = 5, backoff = @Backoff(multiplier = 2, delay = 2000))
   public void updateAttachedSagaWithEvents(final Saga saga, final SagaEvent sagaEvent) {
+    if (sagaEvent.getSagaEventId() == null) {
+      sagaEvent.setSagaEventId(this.uuidGenerator.generateUUID(null));
+    }
     saga.setUpdateDate(LocalDateTime.now());
-    this.getSagaRepository().save(saga);
-    val result = this.getSagaEventRepository()
-      .findBySagaAndSagaEventOutcomeAndSagaEventStateAndSagaStepNumber(saga, sagaEvent.getSagaEventOutcome(), sagaEvent.getSagaEventState(), sagaEvent.getSagaStepNumber() - 1); //check if the previous step was same and had same outcome, and it is due to replay.
-    if (result.isEmpty()) {
-      this.getSagaEventRepository().save(sagaEvent);
+    if (saga.getStepCount() == null || saga.getStepCount() < sagaEvent.getSagaStepNumber()) {
+      saga.setStepCount(sagaEvent.getSagaStepNumber());
+      saga.setRetryCount(0);
+      saga.setNextRetryAt(null);
+    }
+    val unit = SagaUnitOfWork.current();
+    if (unit.isPresent()) {
+      unit.get().addState(saga, sagaEvent);
+      return;
+    }
+    this.transactionTemplate.executeWithoutResult(status -> this.writeSagaState(saga, sagaEvent));
+  }
+
+  /**
+   * writes the state changes and the outbox messages a saga step collected in one short transaction, the messages are published by the
+   * caller once it is committed.
+   *
+   * @param unit the unit of work of the step.
+   * @throws OptimisticLockingFailureException if one of the sagas was written by someone else since it was read, nothing is written then.
+   */
+  @Transactional
+  public void writeUnitOfWork(final SagaUnitOfWork unit) {
+    for (val state : unit.getStates()) {
+      this.writeSagaState(state.saga(), state.sagaEvent());
+    }
+    if (!unit.getMessages().isEmpty()) {
+      this.getSagaOutboxRelay().write(unit.getMessages());
+    }
+  }
+
+  private void writeSagaState(final Saga saga, final SagaEvent sagaEvent) {
+    if (this.singleStatementWrite && !this.entityManager.contains(saga)) {
+      this.writeStepState(saga, sagaEvent);
+      return;
+    }
+    if (!this.entityManager.contains(saga)) { // a managed saga is written by dirty checking when the transaction flushes, which checks the version too.
+      if (this.getSagaRepository().updateSagaState(saga, sagaEvent.getSagaStepNumber()) == 0) {
+        throw new ObjectOptimisticLockingFailureException(Saga.class, saga.getSagaId());
+      }
+      saga.setVersion(saga.getVersion() + 1);
+    }
+    this.getSagaEventRepository().insertIfAbsent(sagaEvent, this.storeResponse(sagaEvent.getSagaEventResponse()));
+  }
+
+  /**
+   * writes the saga, the response and the event state in one round trip, a saga written by someone else meanwhile fails the step and the transaction
+   * is rolled back with the inserts.
+   */
+  private void writeStepState(final Saga saga, final SagaEvent sagaEvent) {
+    val response = sagaEvent.getSagaEventResponse();
+    val responseHash = response == null ? null : hashOf(response);
+    val storedResponse = response == null ? null : this.compressedStringConverter.convertToDatabaseColumn(response);
+    if (this.getSagaRepository().writeStepState(saga, this.compressedStringConverter.convertToDatabaseColumn(saga.getPayload()), sagaEvent.getSagaStepNumber(), sagaEvent,
+      responseHash, storedResponse, LocalDateTime.now()) == 0) {
+      throw new ObjectOptimisticLockingFailureException(Saga.class, saga.getSagaId());
+    }
+    saga.setVersion(saga.getVersion() + 1);
+  }
+
+  /**
+   * stores the event response once per distinct content, a response already stored is marked as used again so the purge keeps it.
+   * the response is inserted natively, so it is converted here.
+   *
+   * @param response the event response.
+   * @return the hash the event state references the response by, null if there is no response.
+   */
+  private String storeResponse(final String response) {
+    if (response == null) {
+      return null;
+    }
+    val responseHash = hashOf(response);
+    val now = LocalDateTime.now();
+    if (this.getSagaEventResponseRepository().markUsed(responseHash, now) == 0) {
+      this.getSagaEventResponseRepository().insertIfAbsent(responseHash, this.compressedStringConverter.convertToDatabaseColumn(response), now);
+    }
+    return responseHash;
+  }
+
+  static String hashOf(final String response) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(response.getBytes(StandardCharsets.UTF_8)));
+    } catch (final NoSuchAlgorithmException e) {
+      throw new SagaRuntimeException(e);
+    }
+  }
+
+  /**
+   * claims the next page of stale sagas for replay, the claimed sagas are leased, their retry count incremented and their next retry scheduled
+   * by the {@link SagaRetryPolicy}. a saga which used all of its retries is dead lettered instead and stays in the page so the caller can move past it.
+   * sagas locked or leased by another pod are skipped, so every pod can poll at the same time.
+   * the sagas are attached to this transaction, so the changes are written by dirty checking when it commits.
+   *
+   * @param statuses       the statuses of the sagas to replay.
+   * @param sagaNames      the sagas this pod can replay.
+   * @param staleBefore    sagas without a step deadline which were not updated since this time are stale, the others once their deadline passed.
+   * @param lastUpdateDate the update date of the last saga of the previous page.
+   * @param lastSagaId     the id of the last saga of the previous page.
+   * @param batchSize      the page size.
+   * @param lease          how long the sagas are left to this pod.
+   * @return the page of sagas, detached.
+   */
+  @Transactional
+  public List<Saga> claimStaleSagas(final List<String> statuses, final Collection<String> sagaNames, final LocalDateTime staleBefore, final LocalDateTime lastUpdateDate,
+                                    final UUID lastSagaId, final int batchSize, final Duration lease) {
+    final var now = LocalDateTime.now();
+    final var sagas = this.getSagaRepository().findStaleSagasForUpdate(statuses, sagaNames, staleBefore, now, lastUpdateDate, lastSagaId, batchSize);
+    for (val saga : sagas) {
+      this.claim(saga, now, lease);
     }
+    return sagas;
+  }
+
+  /**
+   * claims a saga whose step timed out for replay, the same way {@link #claimStaleSagas} claims a stale saga.
+   * nothing is claimed if the saga moved on to its next step meanwhile, is leased or locked by another pod, or is not due for a retry.
+   *
+   * @param sagaId   the saga.
+   * @param statuses the statuses of the sagas to replay.
+   * @param lease    how long the saga is left to this pod.
+   * @return the claimed saga, detached, empty if it was not claimed.
+   */
+  @Transactional
+  public Optional<Saga> claimTimedOutSaga(final UUID sagaId, final List<String> statuses, final Duration lease) {
+    final var now = LocalDateTime.now();
+    final var saga = this.getSagaRepository().findTimedOutSagaForUpdate(sagaId, statuses, now);
+    saga.ifPresent(timedOut -> this.claim(timedOut, now, lease));
+    return saga;
+  }
+
+  /**
+   * the step deadlines of the open sagas, to track them again after a restart.
+   */
+  public List<SagaRepository.SagaStepDeadline> findStepDeadlines(final List<String> statuses, final Collection<String> sagaNames) {
+    return this.getSagaRepository().findStepDeadlines(statuses, sagaNames);
+  }
+
+  /**
+   * leases the attached saga and increments its retry count, or dead letters it once it used all of its retries.
+   */
+  private void claim(final Saga saga, final LocalDateTime now, final Duration lease) {
+    final int retryCount = saga.getRetryCount() == null ? 0 : saga.getRetryCount();
+    if (this.getSagaRetryPolicy().isExhausted(saga.getSagaName(), retryCount)) {
+      log.error("Saga :: {} of type :: {} was replayed {} times, it is dead lettered and will not be replayed until it is re-driven.", saga.getSagaId(), saga.getSagaName(), retryCount);
+      saga.setStatus(DEAD_LETTERED.toString());
+      saga.setLeaseExpiresAt(null);
+      saga.setNextRetryAt(null);
+      this.meterRegistry.counter("saga.dead.lettered", "saga.name", saga.getSagaName()).increment();
+    } else {
+      saga.setRetryCount(retryCount + 1);
+      saga.setLeaseExpiresAt(now.plus(lease));
+      saga.setNextRetryAt(now.plus(this.getSagaRetryPolicy().nextBackoff(saga.getSagaName(), retryCount + 1)));
+    }
+  }
+
+  /**
+   * puts a dead lettered saga back in progress with its retries reset.
+   *
+   * @param saga the dead lettered saga, updated in place.
+   * @return false if the saga is not dead lettered, e.g. it was already re-driven.
+   */
+  @Transactional
+  public boolean redriveSaga(final Saga saga) {
+    final var now = LocalDateTime.now();
+    if (this.getSagaRepository().redrive(saga.getSagaId(), IN_PROGRESS.toString(), DEAD_LETTERED.toString(), now) == 0) {
+      return false;
+    }
+    saga.setStatus(IN_PROGRESS.toString());
+    saga.setRetryCount(0);
+    saga.setNextRetryAt(null);
+    saga.setLeaseExpiresAt(null);
+    saga.setUpdateDate(now);
+    saga.setVersion(saga.getVersion() + 1);
+    return true;
   }
 
   public Optional<Saga> findSagaById(final UUID sagaId) {
@@ -88,6 +364,10 @@ public class SagaService {
     return this.getSagaEventRepository().findBySaga(saga);
   }
 
+  public Optional<SagaEvent> findLastSagaState(final Saga saga, final String eventState) {
+    return this.getSagaEventRepository().findFirstBySagaAndSagaEventStateOrderBySagaStepNumberDesc(saga, eventState);
+  }
+
 
   private Saga getSaga(final String payload, final String sagaName, final String user) {
     return Saga
@@ -97,6 +377,7 @@ public class SagaService {
       .status(STARTED.toString())
       .sagaState(INITIATED.toString())
       .sagaCompensated(false)
+      .stepCount(0)
       .createDate(LocalDateTime.now())
       .createUser(user)
       .updateUser(user)
@@ -104,14 +385,6 @@ public class SagaService {
       .build();
   }
 
-  public List<Saga> findAllByPenRequestIdAndStatuses(final UUID penRequestId, final List<String> statuses) {
-    return this.getSagaRepository().findAllByPenRequestIdAndStatusIn(penRequestId, statuses);
-  }
-
-  public List<Saga> findAllByProfileRequestIdAndStatuses(final UUID profileRequestId, final List<String> statuses) {
-    return this.getSagaRepository().findAllByProfileRequestIdAndStatusIn(profileRequestId, statuses);
-  }
-
   public Optional<Saga> findByPenRequestIdAndStatusInAndSagaName(final UUID penRequestId, final List<String> statuses, final String sagaName) {
     return this.getSagaRepository().findByPenRequestIdAndStatusInAndSagaName(penRequestId, statuses, sagaName);
   }
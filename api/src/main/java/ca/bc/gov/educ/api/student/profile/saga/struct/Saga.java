@@ -16,6 +16,10 @@ public class Saga {
   private String profileRequestId;
   private String penRequestId;
   private Integer retryCount;
+  private String nextRetryAt;
+  private String stepDeadline;
+  private String pendingBranches;
+  private Long version;
   String createUser;
   String updateUser;
   String createDate;
@@ -2,25 +2,117 @@ package ca.bc.gov.educ.api.student.profile.saga.struct.base;
 
 import ca.bc.gov.educ.api.student.profile.saga.constants.EventOutcome;
 import ca.bc.gov.educ.api.student.profile.saga.constants.EventType;
+import ca.bc.gov.educ.api.student.profile.saga.exception.SagaRuntimeException;
+import ca.bc.gov.educ.api.student.profile.saga.utils.JsonUtil;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
+import java.io.IOException;
 import java.util.UUID;
 
+/**
+ * the envelope of the messages exchanged with the saga participants.
+ * up to {@link #RAW_PAYLOAD_VERSION} the payload is a json string escaped inside the envelope, from it a json payload is embedded as it is.
+ * both forms are read whatever the version, an embedded payload is kept as parsed tokens and only turned into a string when it is asked for.
+ * from {@link #SAGA_VERSION_ENVELOPE_VERSION} the envelope also carries the version of the saga which sent it, which the participants echo in their reply.
+ */
 @AllArgsConstructor
 @Builder
 @NoArgsConstructor
 @Data
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class Event {
+  public static final int RAW_PAYLOAD_VERSION = 2;
+  public static final int SAGA_VERSION_ENVELOPE_VERSION = 3;
+
   private EventType eventType;
   private EventOutcome eventOutcome;
   private UUID sagaId;
   private String replyTo;
+  @JsonSerialize(using = EventPayloadSerializer.class)
   private String eventPayload; // json string
   private String studentRequestID;
   private String penRequestID;
+  /**
+   * left out of the envelopes of the first version, so participants which do not know it see the same message as before.
+   */
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private Integer envelopeVersion;
+  /**
+   * the version the saga had when it sent the event, it tells the replies to two sends of the same request apart, e.g. a request sent again by a replay.
+   */
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private Long sagaVersion;
+
+  @JsonIgnore
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  private TokenBuffer rawEventPayload;
+
+  public String getEventPayload() {
+    if (this.eventPayload == null && this.rawEventPayload != null) {
+      try {
+        this.eventPayload = JsonUtil.getJsonStringFromObject(this.rawEventPayload);
+      } catch (final JsonProcessingException e) {
+        throw new SagaRuntimeException(e);
+      }
+    }
+    return this.eventPayload;
+  }
+
+  public void setEventPayload(final String eventPayload) {
+    this.eventPayload = eventPayload;
+    this.rawEventPayload = null;
+  }
+
+  /**
+   * reads the payload of either envelope form, an embedded payload is kept as tokens instead of a string.
+   *
+   * @param payload the payload value of the envelope.
+   * @throws IOException if the tokens cannot be read.
+   */
+  @JsonSetter("eventPayload")
+  public void setEventPayloadValue(final TokenBuffer payload) throws IOException {
+    if (payload == null || payload.firstToken() == JsonToken.VALUE_NULL) {
+      this.setEventPayload(null);
+    } else if (payload.firstToken() == JsonToken.VALUE_STRING) {
+      try (final var parser = payload.asParser()) {
+        parser.nextToken();
+        this.setEventPayload(parser.getText());
+      }
+    } else {
+      this.eventPayload = null;
+      this.rawEventPayload = payload;
+    }
+  }
+
+  /**
+   * reads the payload as the type, straight from the tokens if it was embedded.
+   */
+  public <P> P readEventPayload(final Class<P> clazz) throws IOException {
+    if (this.rawEventPayload != null) {
+      return JsonUtil.getJsonObjectFromTokens(clazz, this.rawEventPayload);
+    }
+    return JsonUtil.getJsonObjectFromString(clazz, this.eventPayload);
+  }
+
+  public <P> P readEventPayload(final TypeReference<P> typeReference) throws IOException {
+    if (this.rawEventPayload != null) {
+      return JsonUtil.getJsonObjectFromTokens(typeReference, this.rawEventPayload);
+    }
+    return JsonUtil.getJsonObjectFromString(typeReference, this.eventPayload);
+  }
 }
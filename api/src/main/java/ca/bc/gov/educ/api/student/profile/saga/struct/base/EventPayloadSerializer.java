@@ -0,0 +1,46 @@
+package ca.bc.gov.educ.api.student.profile.saga.struct.base;
+
+import ca.bc.gov.educ.api.student.profile.saga.utils.JsonUtil;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * writes the payload of an {@link Event} as a string, or embeds it as json when the event is of the {@link Event#RAW_PAYLOAD_VERSION}.
+ * payloads which are not a single well formed json object or array, such as an id or a truncated json, are always written as strings,
+ * so the envelope stays valid json whatever the payload is.
+ */
+class EventPayloadSerializer extends StdSerializer<String> {
+
+  EventPayloadSerializer() {
+    super(String.class);
+  }
+
+  @Override
+  public void serialize(final String payload, final JsonGenerator gen, final SerializerProvider provider) throws IOException {
+    if (gen.currentValue() instanceof Event event && event.getEnvelopeVersion() != null && event.getEnvelopeVersion() >= Event.RAW_PAYLOAD_VERSION && isJson(payload)) {
+      gen.writeRawValue(payload);
+    } else {
+      gen.writeString(payload);
+    }
+  }
+
+  /**
+   * tokenizes the payload without binding it, it is json if it is one object or array with nothing after it.
+   */
+  private static boolean isJson(final String payload) {
+    try (final var parser = JsonUtil.objectMapper.getFactory().createParser(payload)) {
+      final var token = parser.nextToken();
+      if (token != JsonToken.START_OBJECT && token != JsonToken.START_ARRAY) {
+        return false;
+      }
+      parser.skipChildren();
+      return parser.nextToken() == null;
+    } catch (final IOException e) {
+      return false;
+    }
+  }
+}
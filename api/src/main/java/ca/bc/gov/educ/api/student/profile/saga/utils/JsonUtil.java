@@ -1,19 +1,85 @@
 package ca.bc.gov.educ.api.student.profile.saga.utils;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
 
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * the json codec of the saga api, the saga payloads, the events and the log entries are all read and written through it.
+ * a reader and a writer is created once per type and cached, they are immutable and thread safe, so the serializer lookup is not repeated on every call.
+ * the blackbird module replaces the reflective access to the getters, setters and constructors with generated lambdas.
+ * writing to bytes encodes into jackson's recycled buffers without going through a string.
+ */
 public final class JsonUtil {
-  public static final ObjectMapper objectMapper = new ObjectMapper();
+  public static final ObjectMapper objectMapper = new ObjectMapper().registerModule(new BlackbirdModule());
+  private static final ClassValue<ObjectReader> readers = new ClassValue<>() {
+    @Override
+    protected ObjectReader computeValue(final Class<?> type) {
+      return objectMapper.readerFor(type);
+    }
+  };
+  private static final ClassValue<ObjectWriter> writers = new ClassValue<>() {
+    @Override
+    protected ObjectWriter computeValue(final Class<?> type) {
+      return objectMapper.writerFor(type);
+    }
+  };
+  private static final Map<Type, ObjectReader> genericReaders = new ConcurrentHashMap<>();
 
   private JsonUtil() {
   }
 
   public static String getJsonStringFromObject(final Object payload) throws JsonProcessingException {
-    return objectMapper.writeValueAsString(payload);
+    if (payload == null) {
+      return objectMapper.writeValueAsString(null);
+    }
+    return writers.get(payload.getClass()).writeValueAsString(payload);
+  }
+
+  public static byte[] getJsonBytesFromObject(final Object payload) throws JsonProcessingException {
+    if (payload == null) {
+      return objectMapper.writeValueAsBytes(null);
+    }
+    return writers.get(payload.getClass()).writeValueAsBytes(payload);
   }
 
   public static <T> T getJsonObjectFromString(final Class<T> clazz, final String payload) throws JsonProcessingException {
-    return objectMapper.readValue(payload, clazz);
+    return readers.get(clazz).readValue(payload);
+  }
+
+  public static <T> T getJsonObjectFromBytes(final Class<T> clazz, final byte[] payload) throws IOException {
+    return readers.get(clazz).readValue(payload);
+  }
+
+  public static <T> T getJsonObjectFromTokens(final Class<T> clazz, final TokenBuffer tokens) throws IOException {
+    try (final var parser = tokens.asParser(objectMapper)) {
+      return readers.get(clazz).readValue(parser);
+    }
+  }
+
+  public static <T> T getJsonObjectFromTokens(final TypeReference<T> typeReference, final TokenBuffer tokens) throws IOException {
+    try (final var parser = tokens.asParser(objectMapper)) {
+      return genericReader(typeReference).readValue(parser);
+    }
+  }
+
+  /**
+   * reads a generic type such as a list of structs, the reader is cached by the type the reference stands for.
+   */
+  public static <T> T getJsonObjectFromString(final TypeReference<T> typeReference, final String payload) throws JsonProcessingException {
+    return genericReader(typeReference).readValue(payload);
+  }
+
+  private static ObjectReader genericReader(final TypeReference<?> typeReference) {
+    return genericReaders.computeIfAbsent(typeReference.getType(), type -> objectMapper.readerFor(objectMapper.constructType(type)));
   }
 }
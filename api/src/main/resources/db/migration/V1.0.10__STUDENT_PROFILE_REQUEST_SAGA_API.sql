@@ -0,0 +1,2 @@
+ALTER TABLE STUDENT_PROFILE_SAGA
+    ADD COLUMN NEXT_RETRY_AT TIMESTAMP;
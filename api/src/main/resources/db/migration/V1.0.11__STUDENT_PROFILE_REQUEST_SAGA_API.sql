@@ -0,0 +1 @@
+CREATE INDEX STUDENT_PROFILE_SAGA_CREATE_DATE_IDX ON STUDENT_PROFILE_SAGA (CREATE_DATE, SAGA_ID);
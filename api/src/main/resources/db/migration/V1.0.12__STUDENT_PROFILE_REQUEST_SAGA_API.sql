@@ -0,0 +1,66 @@
+-- range partition the saga tables by month of the saga create date, old months are dropped as a whole by the purge.
+-- the event states are partitioned by the create date of their saga, so a saga and its events always live in the same month
+-- and the unique key, which has to contain the partition key, stays the same for replays of a step.
+-- a primary key of a partitioned table has to contain the partition key, so the foreign key from the event states to the saga is dropped.
+
+ALTER TABLE STUDENT_PROFILE_SAGA_EVENT_STATES
+    DROP CONSTRAINT STUDENT_PROFILE_SAGA_EVENT_STATES_SAGA_ID_FK;
+
+ALTER TABLE STUDENT_PROFILE_SAGA
+    RENAME TO STUDENT_PROFILE_SAGA_UNPARTITIONED;
+ALTER TABLE STUDENT_PROFILE_SAGA_EVENT_STATES
+    RENAME TO STUDENT_PROFILE_SAGA_EVENT_STATES_UNPARTITIONED;
+
+CREATE TABLE STUDENT_PROFILE_SAGA
+(
+    LIKE STUDENT_PROFILE_SAGA_UNPARTITIONED INCLUDING DEFAULTS
+) PARTITION BY RANGE (CREATE_DATE);
+
+CREATE TABLE STUDENT_PROFILE_SAGA_EVENT_STATES
+(
+    LIKE STUDENT_PROFILE_SAGA_EVENT_STATES_UNPARTITIONED INCLUDING DEFAULTS,
+    SAGA_CREATE_DATE TIMESTAMP NOT NULL
+) PARTITION BY RANGE (SAGA_CREATE_DATE);
+
+DO
+$$
+    DECLARE
+        partition_month DATE := DATE_TRUNC('MONTH', COALESCE((SELECT MIN(CREATE_DATE) FROM STUDENT_PROFILE_SAGA_UNPARTITIONED), NOW()));
+        last_month      DATE := DATE_TRUNC('MONTH', NOW() + INTERVAL '3 MONTHS');
+    BEGIN
+        WHILE partition_month <= last_month
+            LOOP
+                EXECUTE FORMAT('CREATE TABLE STUDENT_PROFILE_SAGA_P%s PARTITION OF STUDENT_PROFILE_SAGA FOR VALUES FROM (%L) TO (%L)',
+                               TO_CHAR(partition_month, 'YYYY_MM'), partition_month, partition_month + INTERVAL '1 MONTH');
+                EXECUTE FORMAT('CREATE TABLE STUDENT_PROFILE_SAGA_EVENT_STATES_P%s PARTITION OF STUDENT_PROFILE_SAGA_EVENT_STATES FOR VALUES FROM (%L) TO (%L)',
+                               TO_CHAR(partition_month, 'YYYY_MM'), partition_month, partition_month + INTERVAL '1 MONTH');
+                partition_month := partition_month + INTERVAL '1 MONTH';
+            END LOOP;
+    END
+$$;
+
+INSERT INTO STUDENT_PROFILE_SAGA
+SELECT *
+FROM STUDENT_PROFILE_SAGA_UNPARTITIONED;
+
+INSERT INTO STUDENT_PROFILE_SAGA_EVENT_STATES
+SELECT E.*, S.CREATE_DATE
+FROM STUDENT_PROFILE_SAGA_EVENT_STATES_UNPARTITIONED E
+         JOIN STUDENT_PROFILE_SAGA_UNPARTITIONED S ON S.SAGA_ID = E.SAGA_ID;
+
+DROP TABLE STUDENT_PROFILE_SAGA_EVENT_STATES_UNPARTITIONED;
+DROP TABLE STUDENT_PROFILE_SAGA_UNPARTITIONED;
+
+ALTER TABLE STUDENT_PROFILE_SAGA
+    ADD CONSTRAINT STUDENT_PROFILE_SAGA_PK PRIMARY KEY (SAGA_ID, CREATE_DATE);
+CREATE INDEX STUDENT_PROFILE_SAGA_STATUS_IDX ON STUDENT_PROFILE_SAGA (STATUS);
+CREATE INDEX STUDENT_PROFILE_SAGA_PEN_REQUEST_ID_IDX ON STUDENT_PROFILE_SAGA (PEN_REQUEST_ID);
+CREATE INDEX STUDENT_PROFILE_SAGA_PROFILE_REQUEST_ID_IDX ON STUDENT_PROFILE_SAGA (PROFILE_REQUEST_ID);
+CREATE INDEX STUDENT_PROFILE_SAGA_OPEN_UPDATE_DATE_IDX ON STUDENT_PROFILE_SAGA (UPDATE_DATE, SAGA_ID) WHERE STATUS IN ('STARTED', 'IN_PROGRESS');
+CREATE INDEX STUDENT_PROFILE_SAGA_CREATE_DATE_IDX ON STUDENT_PROFILE_SAGA (CREATE_DATE, SAGA_ID);
+
+ALTER TABLE STUDENT_PROFILE_SAGA_EVENT_STATES
+    ADD CONSTRAINT STUDENT_PROFILE_SAGA_EVENT_STATES_PK PRIMARY KEY (SAGA_EVENT_ID, SAGA_CREATE_DATE);
+ALTER TABLE STUDENT_PROFILE_SAGA_EVENT_STATES
+    ADD CONSTRAINT STUDENT_PROFILE_SAGA_EVENT_STATES_SAGA_STEP_UK UNIQUE (SAGA_ID, SAGA_STEP_NUMBER, SAGA_EVENT_STATE, SAGA_EVENT_OUTCOME, SAGA_CREATE_DATE);
+CREATE INDEX STUDENT_PROFILE_SAGA_EVENT_STATES_SAGA_ID_IDX ON STUDENT_PROFILE_SAGA_EVENT_STATES (SAGA_ID);
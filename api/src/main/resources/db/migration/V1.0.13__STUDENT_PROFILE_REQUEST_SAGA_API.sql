@@ -0,0 +1,15 @@
+-- the payload and event responses move to bytea columns written by CompressedStringConverter, the old columns are read until a row is next written.
+-- the values are deflated already, so postgres is told not to compress them again when they are toasted.
+ALTER TABLE STUDENT_PROFILE_SAGA
+    ADD COLUMN PAYLOAD_DATA BYTEA;
+ALTER TABLE STUDENT_PROFILE_SAGA
+    ALTER COLUMN PAYLOAD_DATA SET STORAGE EXTERNAL;
+ALTER TABLE STUDENT_PROFILE_SAGA
+    ALTER COLUMN PAYLOAD DROP NOT NULL;
+
+ALTER TABLE STUDENT_PROFILE_SAGA_EVENT_STATES
+    ADD COLUMN SAGA_EVENT_RESPONSE_DATA BYTEA;
+ALTER TABLE STUDENT_PROFILE_SAGA_EVENT_STATES
+    ALTER COLUMN SAGA_EVENT_RESPONSE_DATA SET STORAGE EXTERNAL;
+ALTER TABLE STUDENT_PROFILE_SAGA_EVENT_STATES
+    ALTER COLUMN SAGA_EVENT_RESPONSE DROP NOT NULL;
@@ -0,0 +1,17 @@
+-- event responses are stored once per distinct content and referenced by the event states through the SHA-256 of the content.
+-- the event states written before keep their response inline. there is no foreign key, the purge removes a response only once it is unreferenced.
+CREATE TABLE STUDENT_PROFILE_SAGA_EVENT_RESPONSE
+(
+    RESPONSE_HASH  VARCHAR(64)                         NOT NULL,
+    RESPONSE_DATA  BYTEA                               NOT NULL,
+    CREATE_DATE    TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    LAST_USED_DATE TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    CONSTRAINT STUDENT_PROFILE_SAGA_EVENT_RESPONSE_PK PRIMARY KEY (RESPONSE_HASH)
+);
+ALTER TABLE STUDENT_PROFILE_SAGA_EVENT_RESPONSE
+    ALTER COLUMN RESPONSE_DATA SET STORAGE EXTERNAL;
+CREATE INDEX STUDENT_PROFILE_SAGA_EVENT_RESPONSE_LAST_USED_DATE_IDX ON STUDENT_PROFILE_SAGA_EVENT_RESPONSE (LAST_USED_DATE);
+
+ALTER TABLE STUDENT_PROFILE_SAGA_EVENT_STATES
+    ADD COLUMN SAGA_EVENT_RESPONSE_HASH VARCHAR(64);
+CREATE INDEX STUDENT_PROFILE_SAGA_EVENT_STATES_RESPONSE_HASH_IDX ON STUDENT_PROFILE_SAGA_EVENT_STATES (SAGA_EVENT_RESPONSE_HASH);
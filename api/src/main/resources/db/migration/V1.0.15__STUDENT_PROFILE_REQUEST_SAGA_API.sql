@@ -0,0 +1,13 @@
+-- a row per pen request or profile request, locked while a saga is started for the request so only one saga is in progress for it.
+-- the saga table is partitioned by create date and a unique index there has to contain it, so it cannot keep two sagas of a request apart.
+CREATE TABLE STUDENT_PROFILE_SAGA_REQUEST_LOCK
+(
+    REQUEST_ID UUID                                NOT NULL,
+    LOCKED_AT  TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    CONSTRAINT STUDENT_PROFILE_SAGA_REQUEST_LOCK_PK PRIMARY KEY (REQUEST_ID)
+);
+CREATE INDEX STUDENT_PROFILE_SAGA_REQUEST_LOCK_LOCKED_AT_IDX ON STUDENT_PROFILE_SAGA_REQUEST_LOCK (LOCKED_AT);
+
+-- the in progress check only needs the index, the open sagas of a request are few.
+CREATE INDEX STUDENT_PROFILE_SAGA_OPEN_PEN_REQUEST_ID_IDX ON STUDENT_PROFILE_SAGA (PEN_REQUEST_ID) WHERE STATUS IN ('STARTED', 'IN_PROGRESS');
+CREATE INDEX STUDENT_PROFILE_SAGA_OPEN_PROFILE_REQUEST_ID_IDX ON STUDENT_PROFILE_SAGA (PROFILE_REQUEST_ID) WHERE STATUS IN ('STARTED', 'IN_PROGRESS');
@@ -0,0 +1,2 @@
+-- every write of a saga checks the version it read and increments it, a writer which read an older version loses instead of overwriting the saga.
+ALTER TABLE STUDENT_PROFILE_SAGA ADD COLUMN VERSION BIGINT DEFAULT 0 NOT NULL;
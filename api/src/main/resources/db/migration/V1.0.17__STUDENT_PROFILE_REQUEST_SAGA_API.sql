@@ -0,0 +1,5 @@
+-- the time the reply to the current step of the saga is due by, the saga is replayed once it passes. null for sagas which are not waiting for a reply.
+ALTER TABLE STUDENT_PROFILE_SAGA ADD COLUMN STEP_DEADLINE TIMESTAMP;
+
+-- the step deadlines are loaded on startup, only the open sagas have one.
+CREATE INDEX STUDENT_PROFILE_SAGA_OPEN_STEP_DEADLINE_IDX ON STUDENT_PROFILE_SAGA (STEP_DEADLINE) WHERE STATUS IN ('STARTED', 'IN_PROGRESS');
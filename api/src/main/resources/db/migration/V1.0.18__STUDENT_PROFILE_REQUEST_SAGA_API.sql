@@ -0,0 +1,2 @@
+-- the branches of the open fork of the saga whose reply is still waited for, null for sagas without an open fork.
+ALTER TABLE STUDENT_PROFILE_SAGA ADD COLUMN PENDING_BRANCHES VARCHAR(255);
@@ -0,0 +1,4 @@
+-- a saga created in a month whose partition is missing, e.g. because the partitions ahead were not created in time, lands in the
+-- default partition instead of failing. the default partitions are never dropped, their rows are purged row by row.
+CREATE TABLE IF NOT EXISTS STUDENT_PROFILE_SAGA_DEFAULT PARTITION OF STUDENT_PROFILE_SAGA DEFAULT;
+CREATE TABLE IF NOT EXISTS STUDENT_PROFILE_SAGA_EVENT_STATES_DEFAULT PARTITION OF STUDENT_PROFILE_SAGA_EVENT_STATES DEFAULT;
@@ -0,0 +1,21 @@
+-- the event states reference their response in STUDENT_PROFILE_SAGA_EVENT_RESPONSE since V1.0.14, which is where the responses are compressed.
+-- the responses written to SAGA_EVENT_RESPONSE_DATA before that are moved there, and the column is dropped.
+-- a response stored as it is (first byte 0) is keyed by the SHA-256 of its content like the responses stored since. a deflated one cannot be
+-- inflated here, so it is keyed by the SHA-256 of its stored bytes and is just not shared with an equal response stored later.
+UPDATE STUDENT_PROFILE_SAGA_EVENT_STATES
+SET SAGA_EVENT_RESPONSE_HASH = CASE
+                                   WHEN GET_BYTE(SAGA_EVENT_RESPONSE_DATA, 0) = 0 THEN ENCODE(SHA256(SUBSTRING(SAGA_EVENT_RESPONSE_DATA FROM 2)), 'hex')
+                                   ELSE ENCODE(SHA256(SAGA_EVENT_RESPONSE_DATA), 'hex') END
+WHERE SAGA_EVENT_RESPONSE_HASH IS NULL
+  AND OCTET_LENGTH(SAGA_EVENT_RESPONSE_DATA) > 0;
+
+INSERT INTO STUDENT_PROFILE_SAGA_EVENT_RESPONSE (RESPONSE_HASH, RESPONSE_DATA, CREATE_DATE, LAST_USED_DATE)
+SELECT SAGA_EVENT_RESPONSE_HASH, SAGA_EVENT_RESPONSE_DATA, MIN(CREATE_DATE), MAX(UPDATE_DATE)
+FROM STUDENT_PROFILE_SAGA_EVENT_STATES
+WHERE SAGA_EVENT_RESPONSE_HASH IS NOT NULL
+  AND OCTET_LENGTH(SAGA_EVENT_RESPONSE_DATA) > 0
+GROUP BY SAGA_EVENT_RESPONSE_HASH, SAGA_EVENT_RESPONSE_DATA
+ON CONFLICT (RESPONSE_HASH) DO NOTHING;
+
+ALTER TABLE STUDENT_PROFILE_SAGA_EVENT_STATES
+    DROP COLUMN SAGA_EVENT_RESPONSE_DATA;
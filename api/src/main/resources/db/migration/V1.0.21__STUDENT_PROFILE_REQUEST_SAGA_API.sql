@@ -0,0 +1,18 @@
+-- the event states written before V1.0.14 still hold their response as text in SAGA_EVENT_RESPONSE.
+-- they are moved to STUDENT_PROFILE_SAGA_EVENT_RESPONSE, stored as they are (first byte 0) and keyed by the SHA-256 of their content like the
+-- responses stored since, so an equal response already stored there is shared. the column is dropped so nothing is left to read or write it.
+UPDATE STUDENT_PROFILE_SAGA_EVENT_STATES
+SET SAGA_EVENT_RESPONSE_HASH = ENCODE(SHA256(CONVERT_TO(SAGA_EVENT_RESPONSE, 'UTF8')), 'hex')
+WHERE SAGA_EVENT_RESPONSE_HASH IS NULL
+  AND SAGA_EVENT_RESPONSE IS NOT NULL;
+
+INSERT INTO STUDENT_PROFILE_SAGA_EVENT_RESPONSE (RESPONSE_HASH, RESPONSE_DATA, CREATE_DATE, LAST_USED_DATE)
+SELECT SAGA_EVENT_RESPONSE_HASH, '\x00'::BYTEA || CONVERT_TO(SAGA_EVENT_RESPONSE, 'UTF8'), MIN(CREATE_DATE), MAX(UPDATE_DATE)
+FROM STUDENT_PROFILE_SAGA_EVENT_STATES
+WHERE SAGA_EVENT_RESPONSE_HASH IS NOT NULL
+  AND SAGA_EVENT_RESPONSE IS NOT NULL
+GROUP BY SAGA_EVENT_RESPONSE_HASH, SAGA_EVENT_RESPONSE
+ON CONFLICT (RESPONSE_HASH) DO NOTHING;
+
+ALTER TABLE STUDENT_PROFILE_SAGA_EVENT_STATES
+    DROP COLUMN SAGA_EVENT_RESPONSE;
@@ -0,0 +1,8 @@
+ALTER TABLE STUDENT_PROFILE_SAGA
+    ADD COLUMN STEP_COUNT INTEGER;
+
+UPDATE STUDENT_PROFILE_SAGA S
+SET STEP_COUNT = (SELECT COUNT(*) FROM STUDENT_PROFILE_SAGA_EVENT_STATES E WHERE E.SAGA_ID = S.SAGA_ID);
+
+ALTER TABLE STUDENT_PROFILE_SAGA ALTER COLUMN STEP_COUNT SET DEFAULT 0;
+ALTER TABLE STUDENT_PROFILE_SAGA ALTER COLUMN STEP_COUNT SET NOT NULL;
@@ -0,0 +1,11 @@
+DELETE
+FROM STUDENT_PROFILE_SAGA_EVENT_STATES A
+    USING STUDENT_PROFILE_SAGA_EVENT_STATES B
+WHERE A.SAGA_ID = B.SAGA_ID
+  AND A.SAGA_STEP_NUMBER = B.SAGA_STEP_NUMBER
+  AND A.SAGA_EVENT_STATE = B.SAGA_EVENT_STATE
+  AND A.SAGA_EVENT_OUTCOME = B.SAGA_EVENT_OUTCOME
+  AND A.SAGA_EVENT_ID > B.SAGA_EVENT_ID;
+
+ALTER TABLE STUDENT_PROFILE_SAGA_EVENT_STATES
+    ADD CONSTRAINT STUDENT_PROFILE_SAGA_EVENT_STATES_SAGA_STEP_UK UNIQUE (SAGA_ID, SAGA_STEP_NUMBER, SAGA_EVENT_STATE, SAGA_EVENT_OUTCOME);
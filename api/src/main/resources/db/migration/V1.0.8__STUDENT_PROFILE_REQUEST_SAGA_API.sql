@@ -0,0 +1,10 @@
+CREATE TABLE STUDENT_PROFILE_SAGA_OUTBOX
+(
+    OUTBOX_ID   BIGINT GENERATED ALWAYS AS IDENTITY NOT NULL,
+    SAGA_ID     UUID,
+    SUBJECT     VARCHAR(255)                        NOT NULL,
+    PAYLOAD     BYTEA                               NOT NULL,
+    CREATE_DATE TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    CONSTRAINT STUDENT_PROFILE_SAGA_OUTBOX_PK PRIMARY KEY (OUTBOX_ID)
+);
+CREATE INDEX STUDENT_PROFILE_SAGA_OUTBOX_CREATE_DATE_IDX ON STUDENT_PROFILE_SAGA_OUTBOX (CREATE_DATE);
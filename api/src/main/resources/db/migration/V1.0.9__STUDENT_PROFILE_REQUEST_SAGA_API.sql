@@ -0,0 +1,4 @@
+ALTER TABLE STUDENT_PROFILE_SAGA
+    ADD COLUMN LEASE_EXPIRES_AT TIMESTAMP;
+
+CREATE INDEX STUDENT_PROFILE_SAGA_OPEN_UPDATE_DATE_IDX ON STUDENT_PROFILE_SAGA (UPDATE_DATE, SAGA_ID) WHERE STATUS IN ('STARTED', 'IN_PROGRESS');
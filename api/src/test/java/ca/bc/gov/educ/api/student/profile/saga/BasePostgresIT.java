@@ -0,0 +1,43 @@
+package ca.bc.gov.educ.api.student.profile.saga;
+
+import ca.bc.gov.educ.api.student.profile.saga.support.PostgresTestContainer;
+import ca.bc.gov.educ.api.student.profile.saga.support.SagApiTestUtils;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * runs against the PostgreSQL container with the schema built by the flyway migrations, for the statements H2 cannot run.
+ * the tests are skipped where there is no docker.
+ */
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@SpringBootTest(classes = {StudentProfileSagaApiResourceApplication.class}, properties = {"spring.flyway.enabled=true", "spring.jpa.hibernate.ddl-auto=none",
+  "spring.jpa.generate-ddl=false"})
+public abstract class BasePostgresIT {
+  @Autowired
+  SagApiTestUtils sagApiTestUtils;
+
+  @BeforeClass
+  public static void startPostgres() {
+    PostgresTestContainer.start();
+  }
+
+  @Before
+  public void before() {
+    this.sagApiTestUtils.cleanDB();
+  }
+
+  @DynamicPropertySource
+  static void postgresProperties(final DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", () -> PostgresTestContainer.jdbcUrl(PostgresTestContainer.databaseName()));
+    registry.add("spring.datasource.username", PostgresTestContainer::username);
+    registry.add("spring.datasource.password", PostgresTestContainer::password);
+  }
+}
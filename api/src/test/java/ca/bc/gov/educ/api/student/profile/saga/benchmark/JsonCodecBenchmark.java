@@ -0,0 +1,89 @@
+package ca.bc.gov.educ.api.student.profile.saga.benchmark;
+
+import ca.bc.gov.educ.api.student.profile.saga.constants.EventOutcome;
+import ca.bc.gov.educ.api.student.profile.saga.constants.EventType;
+import ca.bc.gov.educ.api.student.profile.saga.struct.base.DigitalIdSagaData;
+import ca.bc.gov.educ.api.student.profile.saga.struct.base.Event;
+import ca.bc.gov.educ.api.student.profile.saga.struct.gmp.PenRequestCompleteSagaData;
+import ca.bc.gov.educ.api.student.profile.saga.utils.JsonUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * compares a plain {@link ObjectMapper}, as JsonUtil used before, with the cached readers and writers and the blackbird module of {@link JsonUtil}.
+ * each benchmark is a full round trip of the saga data or of an event carrying it, the way a step publishes the next event and the saga data is read
+ * from the reply.
+ * the event is round tripped in the first envelope version, which escapes the payload into a string, and in the {@link Event#RAW_PAYLOAD_VERSION}, which embeds it.
+ * run with -prof gc to see the allocation rate of each codec.
+ * <p>
+ * run with {@code mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt} and
+ * {@code java -cp target/test-classes:target/classes:$(cat cp.txt) ca.bc.gov.educ.api.student.profile.saga.benchmark.JsonCodecBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(3)
+public class JsonCodecBenchmark {
+  private final ObjectMapper plainMapper = new ObjectMapper();
+  private PenRequestCompleteSagaData sagaData;
+  private Event event;
+  private Event rawPayloadEvent;
+
+  public static void main(final String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(JsonCodecBenchmark.class.getSimpleName()).build()).run();
+  }
+
+  @Setup
+  public void setUp() throws IOException {
+    this.sagaData = PenRequestCompleteSagaData.builder()
+      .studentID(UUID.randomUUID().toString()).digitalID(UUID.randomUUID().toString()).penRequestID(UUID.randomUUID().toString())
+      .pen("123456789").legalFirstName("JACKSON").legalMiddleNames("ALEXANDER").legalLastName("MORGAN").dob("2001-04-12").sexCode("M").genderCode("M")
+      .usualFirstName("JACK").usualLastName("MORGAN").localID("12345").postalCode("V8W1A1").gradeCode("12").mincode("12345678")
+      .emailVerified("Y").email("jackson.morgan@example.com").createUser("STAFF_ADMIN").updateUser("STAFF_ADMIN").bcscAutoMatchOutcome("ONEMATCH")
+      .penRequestStatusCode("MANUAL").statusUpdateDate("2020-04-17T22:29:00").reviewer("STAFF_ADMIN").demogChanged("N").identityType("BASIC")
+      .historyActivityCode("GMP")
+      .digitalIdLinkedStudents(List.of(DigitalIdSagaData.builder().digitalID(UUID.randomUUID().toString()).studentID(UUID.randomUUID().toString())
+        .identityTypeCode("BASIC").identityValue("ID").lastAccessChannelCode("AC").lastAccessDate("2020-04-17T22:29:00").updateUser("STAFF_ADMIN").build()))
+      .build();
+    this.event = Event.builder().sagaId(UUID.randomUUID()).eventType(EventType.UPDATE_STUDENT).eventOutcome(EventOutcome.STUDENT_UPDATED)
+      .replyTo("PEN_REQUEST_COMPLETE_SAGA_TOPIC").penRequestID(this.sagaData.getPenRequestID()).eventPayload(JsonUtil.getJsonStringFromObject(this.sagaData)).build();
+    this.rawPayloadEvent = Event.builder().sagaId(this.event.getSagaId()).eventType(this.event.getEventType()).eventOutcome(this.event.getEventOutcome())
+      .replyTo(this.event.getReplyTo()).penRequestID(this.event.getPenRequestID()).eventPayload(this.event.getEventPayload()).envelopeVersion(Event.RAW_PAYLOAD_VERSION).build();
+  }
+
+  @Benchmark
+  public PenRequestCompleteSagaData sagaDataRoundTripPlainMapper() throws IOException {
+    return this.plainMapper.readValue(this.plainMapper.writeValueAsString(this.sagaData), PenRequestCompleteSagaData.class);
+  }
+
+  @Benchmark
+  public PenRequestCompleteSagaData sagaDataRoundTripCodec() throws IOException {
+    return JsonUtil.getJsonObjectFromString(PenRequestCompleteSagaData.class, JsonUtil.getJsonStringFromObject(this.sagaData));
+  }
+
+  @Benchmark
+  public PenRequestCompleteSagaData eventRoundTripPlainMapper() throws IOException {
+    final var event = this.plainMapper.readValue(this.plainMapper.writeValueAsString(this.event).getBytes(), Event.class);
+    return this.plainMapper.readValue(event.getEventPayload(), PenRequestCompleteSagaData.class);
+  }
+
+  @Benchmark
+  public PenRequestCompleteSagaData eventRoundTripCodec() throws IOException {
+    return JsonUtil.getJsonObjectFromBytes(Event.class, JsonUtil.getJsonBytesFromObject(this.event)).readEventPayload(PenRequestCompleteSagaData.class);
+  }
+
+  @Benchmark
+  public PenRequestCompleteSagaData rawPayloadEventRoundTripCodec() throws IOException {
+    return JsonUtil.getJsonObjectFromBytes(Event.class, JsonUtil.getJsonBytesFromObject(this.rawPayloadEvent)).readEventPayload(PenRequestCompleteSagaData.class);
+  }
+}
@@ -0,0 +1,69 @@
+package ca.bc.gov.educ.api.student.profile.saga.benchmark;
+
+import ca.bc.gov.educ.api.student.profile.saga.constants.EventOutcome;
+import ca.bc.gov.educ.api.student.profile.saga.constants.EventType;
+import ca.bc.gov.educ.api.student.profile.saga.struct.base.Event;
+import ca.bc.gov.educ.api.student.profile.saga.utils.JsonUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * compares the bytes allocated per message when an event is decoded from a NATS message and encoded for the outbox,
+ * going through a string as MessageSubscriber and BaseOrchestrator did, and working on the bytes directly.
+ * the gc profiler is on, gc.alloc.rate.norm is the number of bytes allocated per message.
+ * <p>
+ * run with {@code mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt} and
+ * {@code java -cp target/test-classes:target/classes:$(cat cp.txt) ca.bc.gov.educ.api.student.profile.saga.benchmark.MessageCodecBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class MessageCodecBenchmark {
+  private Event event;
+  private byte[] message;
+
+  public static void main(final String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(MessageCodecBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class).build()).run();
+  }
+
+  @Setup
+  public void setUp() throws IOException {
+    final var student = "{\"studentID\":\"" + UUID.randomUUID() + "\",\"pen\":\"123456789\",\"legalFirstName\":\"JACKSON\",\"legalMiddleNames\":\"ALEXANDER\"," +
+      "\"legalLastName\":\"MORGAN\",\"dob\":\"2001-04-12\",\"sexCode\":\"M\",\"genderCode\":\"M\",\"usualFirstName\":\"JACK\",\"postalCode\":\"V8W1A1\"," +
+      "\"email\":\"jackson.morgan@example.com\",\"emailVerified\":\"Y\",\"createUser\":\"STAFF_ADMIN\",\"updateUser\":\"STAFF_ADMIN\"}";
+    this.event = Event.builder().sagaId(UUID.randomUUID()).eventType(EventType.GET_STUDENT).eventOutcome(EventOutcome.STUDENT_FOUND)
+      .replyTo("PEN_REQUEST_COMPLETE_SAGA_TOPIC").eventPayload(student).build();
+    this.message = JsonUtil.getJsonBytesFromObject(this.event);
+  }
+
+  @Benchmark
+  public Event decodeThroughString() throws IOException {
+    return JsonUtil.getJsonObjectFromString(Event.class, new String(this.message, StandardCharsets.UTF_8));
+  }
+
+  @Benchmark
+  public Event decodeBytes() throws IOException {
+    return JsonUtil.getJsonObjectFromBytes(Event.class, this.message);
+  }
+
+  @Benchmark
+  public byte[] encodeThroughString() throws IOException {
+    return JsonUtil.getJsonStringFromObject(this.event).getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public byte[] encodeBytes() throws IOException {
+    return JsonUtil.getJsonBytesFromObject(this.event);
+  }
+}
@@ -15,7 +15,13 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static ca.bc.gov.educ.api.student.profile.saga.constants.EventType.INITIATED;
 import static ca.bc.gov.educ.api.student.profile.saga.constants.SagaStatusEnum.STARTED;
@@ -280,6 +286,26 @@ public class PenRequestSagaControllerTest extends BaseSagaApiTest {
     assertEquals("FORCE_STOPPED", updatedSaga.get().getStatus());
   }
 
+  @Test
+  public void test_createPenRequestSagaRecordIfNoneInProgress_givenConcurrentStarts_shouldCreateOneSaga() throws Exception {
+    final var penRequestId = UUID.randomUUID();
+    final var executor = Executors.newFixedThreadPool(4);
+    try {
+      final var starts = new ArrayList<Future<Optional<Saga>>>();
+      for (var i = 0; i < 4; i++) {
+        starts.add(executor.submit(() -> this.service.createPenRequestSagaRecordIfNoneInProgress(Map.of("penRequestID", penRequestId.toString()), "PEN_REQUEST_RETURN_SAGA", "marco", penRequestId)));
+      }
+      var started = 0;
+      for (final var start : starts) {
+        started += start.get(30, TimeUnit.SECONDS).isPresent() ? 1 : 0;
+      }
+      assertEquals(1, started);
+      assertEquals(1, this.repository.findAll().stream().filter(saga -> penRequestId.equals(saga.getPenRequestId())).count());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   private Saga getSaga(final String payload, final String sagaName, final UUID penRequestId) {
     return Saga
         .builder()
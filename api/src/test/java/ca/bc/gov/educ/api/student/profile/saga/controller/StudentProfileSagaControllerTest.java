@@ -28,6 +28,8 @@ import java.util.*;
 
 import static ca.bc.gov.educ.api.student.profile.saga.constants.EventType.INITIATED;
 import static ca.bc.gov.educ.api.student.profile.saga.constants.SagaEnum.STUDENT_PROFILE_COMMENTS_SAGA;
+import static ca.bc.gov.educ.api.student.profile.saga.constants.SagaStatusEnum.DEAD_LETTERED;
+import static ca.bc.gov.educ.api.student.profile.saga.constants.SagaStatusEnum.IN_PROGRESS;
 import static ca.bc.gov.educ.api.student.profile.saga.constants.SagaStatusEnum.STARTED;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
@@ -174,6 +176,47 @@ public class StudentProfileSagaControllerTest extends BaseSagaApiTest {
       .andDo(print()).andExpect(status().isNotFound());
   }
 
+  @Test
+  @SuppressWarnings("java:S100")
+  public void testRedriveSaga_whenSagaIsDeadLettered_shouldResetRetriesAndReturnStatusOk() throws Exception {
+    final var saga = this.getSaga(this.getPayload(), STUDENT_PROFILE_COMMENTS_SAGA.toString(), "test", UUID.fromString(this.profileRequestID));
+    saga.setStatus(DEAD_LETTERED.toString());
+    saga.setRetryCount(10);
+    this.repository.save(saga);
+    this.mockMvc.perform(post(URL.BASE_URL + URL.SAGA_ID + URL.REDRIVE, saga.getSagaId()).with(jwt().jwt((jwt) -> jwt.claim("scope", "STUDENT_PROFILE_WRITE_SAGA"))))
+      .andDo(print()).andExpect(status().isOk()).andExpect(jsonPath("$.status", is(IN_PROGRESS.toString()))).andExpect(jsonPath("$.retryCount", is(0)));
+    final var redriven = this.repository.findById(saga.getSagaId());
+    assertThat(redriven).isPresent();
+    assertThat(redriven.get().getStatus()).isNotEqualTo(DEAD_LETTERED.toString());
+    assertThat(redriven.get().getRetryCount()).isZero();
+  }
+
+  @Test
+  @SuppressWarnings("java:S100")
+  public void testRedriveSaga_whenSagaIsNotDeadLettered_shouldReturnStatusConflict() throws Exception {
+    final var saga = this.repository.save(this.getSaga(this.getPayload(), STUDENT_PROFILE_COMMENTS_SAGA.toString(), "test", UUID.fromString(this.profileRequestID)));
+    this.mockMvc.perform(post(URL.BASE_URL + URL.SAGA_ID + URL.REDRIVE, saga.getSagaId()).with(jwt().jwt((jwt) -> jwt.claim("scope", "STUDENT_PROFILE_WRITE_SAGA"))))
+      .andDo(print()).andExpect(status().isConflict());
+  }
+
+  @Test
+  @SuppressWarnings("java:S100")
+  public void testRedriveSaga_whenNoOrchestratorRunsTheSaga_shouldReturnStatusConflictAndLeaveItDeadLettered() throws Exception {
+    final var saga = this.getSaga(this.getPayload(), "UNKNOWN_SAGA", "test", UUID.fromString(this.profileRequestID));
+    saga.setStatus(DEAD_LETTERED.toString());
+    this.repository.save(saga);
+    this.mockMvc.perform(post(URL.BASE_URL + URL.SAGA_ID + URL.REDRIVE, saga.getSagaId()).with(jwt().jwt((jwt) -> jwt.claim("scope", "STUDENT_PROFILE_WRITE_SAGA"))))
+      .andDo(print()).andExpect(status().isConflict());
+    assertThat(this.repository.findById(saga.getSagaId())).get().extracting(Saga::getStatus).isEqualTo(DEAD_LETTERED.toString());
+  }
+
+  @Test
+  @SuppressWarnings("java:S100")
+  public void testRedriveSaga_whenSagaIDIsInValid_shouldReturnStatusNotFound() throws Exception {
+    this.mockMvc.perform(post(URL.BASE_URL + URL.SAGA_ID + URL.REDRIVE, UUID.randomUUID()).with(jwt().jwt((jwt) -> jwt.claim("scope", "STUDENT_PROFILE_WRITE_SAGA"))))
+      .andDo(print()).andExpect(status().isNotFound());
+  }
+
   @Test
   @SuppressWarnings("java:S100")
   public void testGetSagaEventsBySagaID_whenSagaIDIsValid_shouldReturnStatusOk() throws Exception {
@@ -0,0 +1,35 @@
+package ca.bc.gov.educ.api.student.profile.saga.messaging;
+
+import ca.bc.gov.educ.api.student.profile.saga.props.ApplicationProperties;
+import io.nats.client.Connection;
+import io.nats.client.Message;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class MessagePublisherTest {
+
+  @Test
+  public void testDispatchMessage_givenJetStreamEnabled_shouldSetTheMessageIdHeader() {
+    final var connection = mock(Connection.class);
+    final var applicationProperties = mock(ApplicationProperties.class);
+    when(applicationProperties.isJetStreamEnabled()).thenReturn(true);
+    new MessagePublisher(connection, applicationProperties).dispatchMessage("STUDENT_API_TOPIC", "message".getBytes(), "OUTBOX-1");
+    final var message = ArgumentCaptor.forClass(Message.class);
+    verify(connection).publish(message.capture());
+    assertThat(message.getValue().getSubject()).isEqualTo("STUDENT_API_TOPIC");
+    assertThat(message.getValue().getHeaders().get(MessagePublisher.MSG_ID_HEADER)).containsExactly("OUTBOX-1");
+    assertThat(message.getValue().getData()).isEqualTo("message".getBytes());
+  }
+
+  @Test
+  public void testDispatchMessage_givenCoreNats_shouldPublishWithoutHeaders() {
+    final var connection = mock(Connection.class);
+    new MessagePublisher(connection, mock(ApplicationProperties.class)).dispatchMessage("STUDENT_API_TOPIC", "message".getBytes(), "OUTBOX-1");
+    verify(connection).publish("STUDENT_API_TOPIC", "message".getBytes());
+    verify(connection, never()).publish(any(Message.class));
+  }
+}
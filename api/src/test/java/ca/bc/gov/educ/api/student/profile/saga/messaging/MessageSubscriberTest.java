@@ -0,0 +1,286 @@
+package ca.bc.gov.educ.api.student.profile.saga.messaging;
+
+import ca.bc.gov.educ.api.student.profile.saga.constants.EventOutcome;
+import ca.bc.gov.educ.api.student.profile.saga.constants.EventType;
+import ca.bc.gov.educ.api.student.profile.saga.orchestrator.base.SagaEventHandler;
+import ca.bc.gov.educ.api.student.profile.saga.orchestrator.base.SagaLaneExecutor;
+import ca.bc.gov.educ.api.student.profile.saga.orchestrator.base.SagaStepRetryScheduler;
+import ca.bc.gov.educ.api.student.profile.saga.props.ApplicationProperties;
+import ca.bc.gov.educ.api.student.profile.saga.struct.base.Event;
+import ca.bc.gov.educ.api.student.profile.saga.utils.JsonUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.nats.client.*;
+import io.nats.client.api.RetentionPolicy;
+import io.nats.client.api.StreamConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class MessageSubscriberTest {
+  private static final String TOPIC = "PEN_REQUEST_COMPLETE_SAGA_TOPIC";
+  private static final String CORE_TOPIC = "STUDENT_PROFILE_COMPLETE_SAGA_TOPIC";
+  private Connection connection;
+  private JetStream jetStream;
+  private JetStreamManagement jetStreamManagement;
+  private ApplicationProperties applicationProperties;
+  private SimpleMeterRegistry meterRegistry;
+  private SagaEventHandler eventHandler;
+  private MessageSubscriber messageSubscriber;
+  private SagaStepRetryScheduler sagaStepRetryScheduler;
+
+  @Before
+  public void setUp() throws IOException, JetStreamApiException, InterruptedException {
+    this.connection = mock(Connection.class);
+    this.jetStream = mock(JetStream.class);
+    this.jetStreamManagement = mock(JetStreamManagement.class);
+    when(this.connection.jetStream()).thenReturn(this.jetStream);
+    when(this.connection.jetStreamManagement()).thenReturn(this.jetStreamManagement);
+    this.applicationProperties = this.applicationProperties(true);
+    final var idleSubscription = mock(JetStreamSubscription.class);
+    when(idleSubscription.fetch(anyInt(), any(Duration.class))).thenAnswer(invocation -> {
+      Thread.sleep(10);
+      return List.of();
+    });
+    when(this.jetStream.subscribe(eq(TOPIC), any(PullSubscribeOptions.class))).thenReturn(idleSubscription);
+    this.eventHandler = mock(SagaEventHandler.class);
+    when(this.eventHandler.getTopicToSubscribe()).thenReturn(TOPIC);
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.sagaStepRetryScheduler = mock(SagaStepRetryScheduler.class);
+    this.messageSubscriber = new MessageSubscriber(this.connection, List.of(this.eventHandler), new SagaLaneExecutor(Runnable::run, this.meterRegistry, 1), this.sagaStepRetryScheduler, this.applicationProperties, this.meterRegistry);
+  }
+
+  @After
+  public void tearDown() {
+    this.messageSubscriber.close();
+  }
+
+  @Test
+  public void testMessageSubscriber_givenJetStreamEnabled_shouldAddTheStreamAndADurableConsumerPerTopic() throws IOException, JetStreamApiException {
+    final var stream = ArgumentCaptor.forClass(StreamConfiguration.class);
+    verify(this.jetStreamManagement).addStream(stream.capture());
+    assertThat(stream.getValue().getSubjects()).containsExactly(TOPIC);
+    assertThat(stream.getValue().getRetentionPolicy()).isEqualTo(RetentionPolicy.WorkQueue);
+    final var options = ArgumentCaptor.forClass(PullSubscribeOptions.class);
+    verify(this.jetStream).subscribe(eq(TOPIC), options.capture());
+    assertThat(options.getValue().getDurable()).isEqualTo("PEN-REQUEST-COMPLETE-SAGA-TOPIC");
+    assertThat(options.getValue().getConsumerConfiguration().getMaxAckPending()).isEqualTo(64);
+    verify(this.connection, never()).createDispatcher(any());
+  }
+
+  @Test
+  public void testPull_givenStepCompletes_shouldAckTheMessageAfterIt() throws Exception {
+    final var message = this.message(JsonUtil.getJsonBytesFromObject(Event.builder().sagaId(UUID.randomUUID()).eventType(EventType.GET_STUDENT).eventOutcome(EventOutcome.STUDENT_FOUND).build()));
+    assertThat(this.messageSubscriber.pull(this.subscriptionOf(message), this.eventHandler)).isEqualTo(1);
+    final var inOrder = inOrder(this.eventHandler, message);
+    inOrder.verify(this.eventHandler).executeSagaEvent(any(Event.class));
+    inOrder.verify(message).ack();
+    verify(message, never()).nak();
+  }
+
+  @Test
+  public void testPull_givenStepFails_shouldNakTheMessage() throws Exception {
+    final var message = this.message(JsonUtil.getJsonBytesFromObject(Event.builder().sagaId(UUID.randomUUID()).eventType(EventType.GET_STUDENT).eventOutcome(EventOutcome.STUDENT_FOUND).build()));
+    final var handler = this.handler(TOPIC);
+    doThrow(new IOException("database is down")).when(handler).executeSagaEvent(any(Event.class));
+    this.messageSubscriber.pull(this.subscriptionOf(message), handler);
+    verify(message).nak();
+    verify(message, never()).ack();
+  }
+
+  @Test
+  public void testPull_givenUnreadableMessage_shouldTerminateIt() throws Exception {
+    final var message = this.message("not json".getBytes());
+    this.messageSubscriber.pull(this.subscriptionOf(message), this.eventHandler);
+    verify(message).term();
+    verify(this.eventHandler, never()).executeSagaEvent(any(Event.class));
+  }
+
+  @Test
+  public void testPull_givenReplyAlreadyHandled_shouldAckItWithoutRunningTheStep() throws Exception {
+    final var data = this.eventBytes();
+    final var duplicate = this.message(data);
+    this.messageSubscriber.pull(this.subscriptionOf(this.message(data)), this.eventHandler);
+    this.messageSubscriber.pull(this.subscriptionOf(duplicate), this.eventHandler);
+    verify(this.eventHandler, times(1)).executeSagaEvent(any(Event.class));
+    verify(duplicate).ack();
+    assertThat(this.meterRegistry.get("saga.subscriber.duplicate.filter").tags("topic", TOPIC, "result", "hit").counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  public void testPull_givenReplyToTheSameRequestSentAgain_shouldRunTheStepAgain() throws Exception {
+    final var sagaId = UUID.randomUUID();
+    this.messageSubscriber.pull(this.subscriptionOf(this.message(this.eventBytes(sagaId, 1L))), this.eventHandler);
+    this.messageSubscriber.pull(this.subscriptionOf(this.message(this.eventBytes(sagaId, 2L))), this.eventHandler);
+    verify(this.eventHandler, times(2)).executeSagaEvent(any(Event.class));
+  }
+
+  @Test
+  public void testPull_givenReplyWithoutSagaVersion_shouldNotFilterIt() throws Exception {
+    final var data = this.eventBytes(UUID.randomUUID(), null);
+    this.messageSubscriber.pull(this.subscriptionOf(this.message(data)), this.eventHandler);
+    this.messageSubscriber.pull(this.subscriptionOf(this.message(data)), this.eventHandler);
+    verify(this.eventHandler, times(2)).executeSagaEvent(any(Event.class));
+    assertThat(this.meterRegistry.get("saga.subscriber.duplicate.filter").tags("topic", TOPIC, "result", "hit").counter().count()).isZero();
+    assertThat(this.meterRegistry.get("saga.subscriber.duplicate.filter").tags("topic", TOPIC, "result", "miss").counter().count()).isZero();
+    assertThat(this.meterRegistry.get("saga.subscriber.duplicate.filter").tags("topic", TOPIC, "result", "keyless").counter().count()).isEqualTo(2);
+  }
+
+  @Test
+  public void testPull_givenStepFailed_shouldNotTreatTheRedeliveryAsDuplicate() throws Exception {
+    final var data = this.eventBytes();
+    final var handler = this.handler(TOPIC);
+    doThrow(new IOException("database is down")).doNothing().when(handler).executeSagaEvent(any(Event.class));
+    this.messageSubscriber.pull(this.subscriptionOf(this.message(data)), handler);
+    this.messageSubscriber.pull(this.subscriptionOf(this.message(data)), handler);
+    verify(handler, times(2)).executeSagaEvent(any(Event.class));
+  }
+
+  @Test
+  public void testPull_givenStrictDuplicateFilter_shouldStillRunTheStep() throws Exception {
+    doReturn(true).when(this.applicationProperties).isDuplicateFilterStrict();
+    final var data = this.eventBytes();
+    this.messageSubscriber.pull(this.subscriptionOf(this.message(data)), this.eventHandler);
+    this.messageSubscriber.pull(this.subscriptionOf(this.message(data)), this.eventHandler);
+    verify(this.eventHandler, times(2)).executeSagaEvent(any(Event.class));
+    assertThat(this.meterRegistry.get("saga.subscriber.duplicate.filter").tags("topic", TOPIC, "result", "hit").counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  public void testPull_givenSlotsTaken_shouldFetchOnlyTheFreeSlots() throws Exception {
+    final Queue<Runnable> laneTasks = new ConcurrentLinkedQueue<>();
+    final var coreConnection = mock(Connection.class);
+    when(coreConnection.createDispatcher(any())).thenReturn(mock(Dispatcher.class));
+    final var subscriber = this.coreSubscriber(coreConnection, laneTasks);
+    final var subscription = this.subscriptionOf(this.message(this.eventBytes()));
+    subscriber.pull(subscription, this.coreHandler());
+    subscriber.pull(subscription, this.coreHandler());
+    verify(subscription).fetch(eq(2), any(Duration.class));
+    verify(subscription).fetch(eq(1), any(Duration.class));
+    assertThat(this.meterRegistry.get("saga.subscriber.in.flight").tag("topic", CORE_TOPIC).gauge().value()).isEqualTo(2);
+    laneTasks.poll().run();
+    assertThat(this.meterRegistry.get("saga.subscriber.in.flight").tag("topic", CORE_TOPIC).gauge().value()).isEqualTo(1);
+  }
+
+  @Test
+  public void testOnMessage_givenAllSlotsTaken_shouldPauseTheDispatcherUntilAStepFinishes() throws Exception {
+    final Queue<Runnable> laneTasks = new ConcurrentLinkedQueue<>();
+    final var dispatcher = mock(Dispatcher.class);
+    final var handler = ArgumentCaptor.forClass(MessageHandler.class);
+    final var coreConnection = mock(Connection.class);
+    when(coreConnection.createDispatcher(handler.capture())).thenReturn(dispatcher);
+    this.coreSubscriber(coreConnection, laneTasks);
+    verify(dispatcher).setPendingLimits(1024, 1024L * 1024);
+    verify(dispatcher).subscribe(CORE_TOPIC, "STUDENT-PROFILE-COMPLETE-SAGA-TOPIC");
+    handler.getValue().onMessage(this.message(this.eventBytes()));
+    handler.getValue().onMessage(this.message(this.eventBytes()));
+    final var third = this.message(this.eventBytes());
+    final var paused = new Thread(() -> {
+      try {
+        handler.getValue().onMessage(third);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    paused.start();
+    paused.join(200);
+    assertThat(paused.isAlive()).isTrue();
+    assertThat(this.meterRegistry.get("saga.subscriber.paused").tag("topic", CORE_TOPIC).counter().count()).isEqualTo(1);
+    laneTasks.poll().run();
+    paused.join(TimeUnit.SECONDS.toMillis(5));
+    assertThat(paused.isAlive()).isFalse();
+    assertThat(this.meterRegistry.get("saga.subscriber.in.flight").tag("topic", CORE_TOPIC).gauge().value()).isEqualTo(2);
+    assertThat(this.meterRegistry.find("saga.subscriber.pending").tag("topic", CORE_TOPIC).gauge()).isNotNull();
+  }
+
+  @Test
+  public void testOnMessage_givenStepFails_shouldRetryItLaterAndFreeTheSlot() throws Exception {
+    final Queue<Runnable> laneTasks = new ConcurrentLinkedQueue<>();
+    final var handler = ArgumentCaptor.forClass(MessageHandler.class);
+    final var coreConnection = mock(Connection.class);
+    when(coreConnection.createDispatcher(handler.capture())).thenReturn(mock(Dispatcher.class));
+    final var failingHandler = this.coreHandler();
+    doThrow(new IOException("database is down")).when(failingHandler).executeSagaEvent(any(Event.class));
+    this.coreSubscriber(coreConnection, laneTasks, failingHandler);
+    handler.getValue().onMessage(this.message(this.eventBytes()));
+    laneTasks.poll().run();
+    verify(this.sagaStepRetryScheduler).retryLater(any(UUID.class), any(SagaLaneExecutor.SagaTask.class), any(IOException.class));
+    assertThat(this.meterRegistry.get("saga.subscriber.in.flight").tag("topic", CORE_TOPIC).gauge().value()).isZero();
+  }
+
+  /**
+   * a subscriber of its own in core mode, the pull loop of the setup subscriber keeps using the shared mocks meanwhile.
+   */
+  private MessageSubscriber coreSubscriber(final Connection coreConnection, final Queue<Runnable> laneTasks) throws IOException, JetStreamApiException {
+    return this.coreSubscriber(coreConnection, laneTasks, this.coreHandler());
+  }
+
+  private MessageSubscriber coreSubscriber(final Connection coreConnection, final Queue<Runnable> laneTasks, final SagaEventHandler handler) throws IOException, JetStreamApiException {
+    return new MessageSubscriber(coreConnection, List.of(handler), new SagaLaneExecutor(laneTasks::add, this.meterRegistry, 1), this.sagaStepRetryScheduler, this.applicationProperties(false),
+      this.meterRegistry);
+  }
+
+  private ApplicationProperties applicationProperties(final boolean jetStreamEnabled) {
+    final var applicationProperties = mock(ApplicationProperties.class);
+    when(applicationProperties.isJetStreamEnabled()).thenReturn(jetStreamEnabled);
+    when(applicationProperties.getJetStreamStream()).thenReturn("STUDENT_PROFILE_SAGA_EVENTS");
+    when(applicationProperties.getJetStreamMaxAckPending()).thenReturn(64);
+    when(applicationProperties.getJetStreamAckWait()).thenReturn(Duration.ofSeconds(30));
+    when(applicationProperties.getJetStreamFetchBatchSize()).thenReturn(10);
+    when(applicationProperties.getJetStreamDuplicateWindow()).thenReturn(Duration.ofMinutes(2));
+    when(applicationProperties.getSubscriberMaxInFlight()).thenReturn(2);
+    when(applicationProperties.getSubscriberPendingLimitMessages()).thenReturn(1024);
+    when(applicationProperties.getSubscriberPendingLimitBytes()).thenReturn(1024L * 1024);
+    when(applicationProperties.isDuplicateFilterEnabled()).thenReturn(true);
+    when(applicationProperties.getEnvelopeVersion()).thenReturn(Event.SAGA_VERSION_ENVELOPE_VERSION);
+    when(applicationProperties.getDuplicateFilterSize()).thenReturn(100L);
+    when(applicationProperties.getDuplicateFilterExpiry()).thenReturn(Duration.ofMinutes(10));
+    return applicationProperties;
+  }
+
+  private SagaEventHandler coreHandler() {
+    return this.handler(CORE_TOPIC);
+  }
+
+  /**
+   * a handler of its own for tests which stub the step, the pull loop of the subscriber reads the topic of the shared one meanwhile.
+   */
+  private SagaEventHandler handler(final String topic) {
+    final var handler = mock(SagaEventHandler.class);
+    when(handler.getTopicToSubscribe()).thenReturn(topic);
+    return handler;
+  }
+
+  private byte[] eventBytes() throws JsonProcessingException {
+    return this.eventBytes(UUID.randomUUID(), 1L);
+  }
+
+  private byte[] eventBytes(final UUID sagaId, final Long sagaVersion) throws JsonProcessingException {
+    return JsonUtil.getJsonBytesFromObject(Event.builder().sagaId(sagaId).sagaVersion(sagaVersion).eventType(EventType.GET_STUDENT).eventOutcome(EventOutcome.STUDENT_FOUND).build());
+  }
+
+  private Message message(final byte[] data) {
+    final var message = mock(Message.class);
+    when(message.getData()).thenReturn(data);
+    return message;
+  }
+
+  private JetStreamSubscription subscriptionOf(final Message message) {
+    final var subscription = mock(JetStreamSubscription.class);
+    when(subscription.fetch(anyInt(), any(Duration.class))).thenReturn(List.of(message));
+    return subscription;
+  }
+}
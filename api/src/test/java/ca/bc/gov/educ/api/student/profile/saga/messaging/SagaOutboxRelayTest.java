@@ -0,0 +1,107 @@
+package ca.bc.gov.educ.api.student.profile.saga.messaging;
+
+import ca.bc.gov.educ.api.student.profile.saga.BaseSagaApiTest;
+import ca.bc.gov.educ.api.student.profile.saga.model.v1.SagaOutbox;
+import ca.bc.gov.educ.api.student.profile.saga.repository.SagaOutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class SagaOutboxRelayTest extends BaseSagaApiTest {
+
+  @Autowired
+  SagaOutboxRelay sagaOutboxRelay;
+
+  @Autowired
+  SagaOutboxRepository sagaOutboxRepository;
+
+  @Autowired
+  MessagePublisher messagePublisher;
+
+  @Autowired
+  MeterRegistry meterRegistry;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @Before
+  public void setUp() {
+    Mockito.clearInvocations(this.messagePublisher);
+  }
+
+  @After
+  public void tearDown() {
+    this.sagaOutboxRelay.setBatchSize(500);
+  }
+
+  @Test
+  public void testEnqueue_givenCommittedTransaction_shouldPublishInOrderAndRemoveTheMessages() {
+    final var publishedBefore = this.meterRegistry.get("saga.outbox.relay.batch.size").summary().totalAmount();
+    new TransactionTemplate(this.transactionManager).executeWithoutResult(status -> {
+      this.sagaOutboxRelay.enqueue("TOPIC_A", "first".getBytes(), UUID.randomUUID());
+      this.sagaOutboxRelay.enqueue("TOPIC_B", "second".getBytes(), UUID.randomUUID());
+      verify(this.messagePublisher, never()).dispatchMessage(any(), any(), any());
+    });
+    final var inOrder = inOrder(this.messagePublisher);
+    inOrder.verify(this.messagePublisher).dispatchMessage(eq("TOPIC_A"), eq("first".getBytes()), anyString());
+    inOrder.verify(this.messagePublisher).dispatchMessage(eq("TOPIC_B"), eq("second".getBytes()), anyString());
+    assertThat(this.sagaOutboxRepository.findAll()).isEmpty();
+    assertThat(this.meterRegistry.get("saga.outbox.relay.batch.size").summary().totalAmount()).isEqualTo(publishedBefore + 2);
+    assertThat(this.meterRegistry.get("saga.outbox.relay.lag").timer().count()).isPositive();
+  }
+
+  @Test
+  public void testEnqueue_givenRolledBackTransaction_shouldNotPublish() {
+    new TransactionTemplate(this.transactionManager).executeWithoutResult(status -> {
+      this.sagaOutboxRelay.enqueue("TOPIC_A", "first".getBytes(), UUID.randomUUID());
+      status.setRollbackOnly();
+    });
+    verify(this.messagePublisher, never()).dispatchMessage(any(), any(), any());
+    assertThat(this.sagaOutboxRepository.findAll()).isEmpty();
+  }
+
+  @Test
+  public void testRelayPendingMessages_givenMessagesLeftBehind_shouldPublishThemInBatches() {
+    for (var i = 0; i < 3; i++) {
+      this.sagaOutboxRepository.save(SagaOutbox.builder().subject("TOPIC").payload(("message-" + i).getBytes()).createDate(LocalDateTime.now().minusMinutes(1)).build());
+    }
+    this.sagaOutboxRepository.save(SagaOutbox.builder().subject("TOPIC").payload("in-flight".getBytes()).createDate(LocalDateTime.now()).build());
+    this.sagaOutboxRelay.setBatchSize(2);
+    final var relayed = this.sagaOutboxRelay.relayPendingMessages(LocalDateTime.now().minusSeconds(5));
+    assertThat(relayed).isEqualTo(3);
+    final var inOrder = inOrder(this.messagePublisher);
+    for (var i = 0; i < 3; i++) {
+      inOrder.verify(this.messagePublisher).dispatchMessage(eq("TOPIC"), eq(("message-" + i).getBytes()), anyString());
+    }
+    verify(this.messagePublisher, never()).dispatchMessage(eq("TOPIC"), eq("in-flight".getBytes()), anyString());
+    assertThat(this.sagaOutboxRepository.findAll()).hasSize(1);
+  }
+
+  @Test
+  public void testRelayPendingMessages_givenPublishFailure_shouldKeepTheRemainingMessages() {
+    for (var i = 0; i < 3; i++) {
+      this.sagaOutboxRepository.save(SagaOutbox.builder().subject("TOPIC").payload(("message-" + i).getBytes()).createDate(LocalDateTime.now().minusMinutes(1)).build());
+    }
+    doThrow(new IllegalStateException("connection closed")).when(this.messagePublisher).dispatchMessage(eq("TOPIC"), eq("message-1".getBytes()), anyString());
+    try {
+      final var relayed = this.sagaOutboxRelay.relayPendingMessages(LocalDateTime.now().minusSeconds(5));
+      assertThat(relayed).isEqualTo(1);
+      assertThat(this.sagaOutboxRepository.findAll()).extracting(SagaOutbox::getPayload).containsExactly("message-1".getBytes(), "message-2".getBytes());
+    } finally {
+      Mockito.reset(this.messagePublisher);
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package ca.bc.gov.educ.api.student.profile.saga.model.v1;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CompressedStringConverterTest {
+  private static final String STUDENT = "{\"studentID\":\"ac334ce6-7600-1bc1-8176-004c3fdb0003\",\"pen\":\"200004562\",\"legalFirstName\":\"TESTER\",\"legalLastName\":\"AUTOMATION\",\"dob\":\"1999-12-01\"}";
+  private SimpleMeterRegistry meterRegistry;
+  private CompressedStringConverter converter;
+
+  @Before
+  public void setUp() {
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.converter = new CompressedStringConverter(true, 512, this.meterRegistry);
+  }
+
+  @Test
+  public void testConvert_givenLargePayload_shouldDeflateAndReadItBack() {
+    final var payload = "[" + String.join(",", Collections.nCopies(20, STUDENT)) + "]";
+    final var data = this.converter.convertToDatabaseColumn(payload);
+    assertThat(data[0]).isEqualTo(CompressedStringConverter.DEFLATE);
+    assertThat(data.length).isLessThan(payload.length() / 4);
+    assertThat(this.converter.convertToEntityAttribute(data)).isEqualTo(payload);
+    assertThat(this.meterRegistry.get("saga.storage.compression.ratio").summary().mean()).isGreaterThan(4);
+  }
+
+  @Test
+  public void testConvert_givenSmallPayloadOrCompressionDisabled_shouldStoreItRaw() {
+    final var small = this.converter.convertToDatabaseColumn("{\"a\":\"é\"}");
+    assertThat(small[0]).isEqualTo(CompressedStringConverter.RAW);
+    assertThat(this.converter.convertToEntityAttribute(small)).isEqualTo("{\"a\":\"é\"}");
+    final var payload = "[" + String.join(",", Collections.nCopies(20, STUDENT)) + "]";
+    final var raw = new CompressedStringConverter(false, 512, this.meterRegistry).convertToDatabaseColumn(payload);
+    assertThat(raw[0]).isEqualTo(CompressedStringConverter.RAW);
+    assertThat(this.converter.convertToEntityAttribute(raw)).isEqualTo(payload);
+    assertThat(this.converter.convertToDatabaseColumn(null)).isNull();
+    assertThat(this.converter.convertToEntityAttribute(null)).isNull();
+  }
+}
@@ -0,0 +1,126 @@
+package ca.bc.gov.educ.api.student.profile.saga.orchestrator.base;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SagaLaneExecutorTest {
+  private ExecutorService pool;
+  private SimpleMeterRegistry meterRegistry;
+  private SagaLaneExecutor sagaLaneExecutor;
+
+  @Before
+  public void setUp() {
+    this.pool = Executors.newFixedThreadPool(8);
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.sagaLaneExecutor = new SagaLaneExecutor(this.pool, this.meterRegistry, 4);
+  }
+
+  @After
+  public void tearDown() {
+    this.pool.shutdownNow();
+  }
+
+  @Test
+  public void testExecute_givenTasksForOneSaga_shouldRunThemOneAtATimeInOrder() throws InterruptedException {
+    final var sagaId = UUID.randomUUID();
+    final var executed = Collections.synchronizedList(new ArrayList<Integer>());
+    final var running = new AtomicInteger();
+    final var maxRunning = new AtomicInteger();
+    final var done = new CountDownLatch(200);
+    for (var i = 0; i < 200; i++) {
+      final var step = i;
+      this.sagaLaneExecutor.execute(sagaId, () -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        executed.add(step);
+        running.decrementAndGet();
+        done.countDown();
+      });
+    }
+    assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(maxRunning.get()).isEqualTo(1);
+    final List<Integer> expected = new ArrayList<>();
+    for (var i = 0; i < 200; i++) {
+      expected.add(i);
+    }
+    assertThat(executed).isEqualTo(expected);
+  }
+
+  @Test
+  public void testExecute_givenSagasInDifferentLanes_shouldRunThemInParallel() throws InterruptedException {
+    final var first = UUID.randomUUID();
+    var second = UUID.randomUUID();
+    while (this.sagaLaneExecutor.laneIndex(second) == this.sagaLaneExecutor.laneIndex(first)) {
+      second = UUID.randomUUID();
+    }
+    final var bothStarted = new CountDownLatch(2);
+    final var done = new CountDownLatch(2);
+    final SagaLaneExecutor.SagaTask task = () -> {
+      bothStarted.countDown();
+      if (bothStarted.await(5, TimeUnit.SECONDS)) {
+        done.countDown();
+      }
+    };
+    this.sagaLaneExecutor.execute(first, task);
+    this.sagaLaneExecutor.execute(second, task);
+    assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void testExecute_givenBlockedLane_shouldReportQueueDepthAndKeepRunningAfterFailure() throws InterruptedException {
+    final var sagaId = UUID.randomUUID();
+    final var lane = String.valueOf(this.sagaLaneExecutor.laneIndex(sagaId));
+    final var started = new CountDownLatch(1);
+    final var release = new CountDownLatch(1);
+    final var done = new CountDownLatch(1);
+    this.sagaLaneExecutor.execute(sagaId, () -> {
+      started.countDown();
+      release.await();
+    });
+    assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+    this.sagaLaneExecutor.execute(sagaId, () -> {
+      throw new IllegalStateException("failed step");
+    });
+    this.sagaLaneExecutor.execute(sagaId, done::countDown);
+    assertThat(this.meterRegistry.get("saga.executor.lane.queue.depth").tag("lane", lane).gauge().value()).isEqualTo(2);
+    release.countDown();
+    assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(this.meterRegistry.get("saga.executor.lane.queue.depth").tag("lane", lane).gauge().value()).isZero();
+  }
+
+  @Test
+  public void testExecute_givenExecutorRejectsTheLane_shouldRunItsTasksOnTheCallerAndKeepTheLaneUsable() throws InterruptedException {
+    final var rejecting = new AtomicBoolean(true);
+    final var executor = new SagaLaneExecutor(command -> {
+      if (rejecting.get()) {
+        throw new RejectedExecutionException("pool is saturated");
+      }
+      this.pool.execute(command);
+    }, this.meterRegistry, 1);
+    final var sagaId = UUID.randomUUID();
+    final var caller = Thread.currentThread();
+    final var ranOn = new ArrayList<Thread>();
+    executor.execute(sagaId, () -> ranOn.add(Thread.currentThread()));
+    assertThat(ranOn).containsExactly(caller);
+    assertThat(this.meterRegistry.get("saga.executor.lane.rejected").counter().count()).isEqualTo(1);
+    rejecting.set(false);
+    final var done = new CountDownLatch(1);
+    executor.execute(sagaId, done::countDown);
+    assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+  }
+}
@@ -0,0 +1,56 @@
+package ca.bc.gov.educ.api.student.profile.saga.orchestrator.base;
+
+import ca.bc.gov.educ.api.student.profile.saga.model.v1.Saga;
+import ca.bc.gov.educ.api.student.profile.saga.struct.gmp.PenRequestCompleteSagaData;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SagaPayloadCacheTest {
+  private static final String PAYLOAD = "{\"penRequestID\":\"ac334a38-715f-1340-8171-607a59d0000a\",\"pen\":\"123456789\"}";
+  private SimpleMeterRegistry meterRegistry;
+  private SagaPayloadCache sagaPayloadCache;
+
+  @Before
+  public void setUp() {
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.sagaPayloadCache = new SagaPayloadCache(100, Duration.ofMinutes(10), this.meterRegistry);
+  }
+
+  @Test
+  public void testTake_givenSagaStillHasTheCachedVersion_shouldReturnTheCachedObject() throws JsonProcessingException {
+    final var saga = Saga.builder().sagaId(UUID.randomUUID()).payload(PAYLOAD).version(1L).build();
+    final var data = this.sagaPayloadCache.take(saga, PenRequestCompleteSagaData.class);
+    assertThat(data.getPen()).isEqualTo("123456789");
+    this.sagaPayloadCache.put(saga, data);
+    final var reloaded = Saga.builder().sagaId(saga.getSagaId()).payload(PAYLOAD).version(1L).build();
+    assertThat(this.sagaPayloadCache.take(reloaded, PenRequestCompleteSagaData.class)).isSameAs(data);
+    assertThat(this.meterRegistry.get("saga.payload.cache").tag("result", "hit").counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  public void testTake_givenSagaWrittenSinceCached_shouldParseItAgain() throws JsonProcessingException {
+    final var saga = Saga.builder().sagaId(UUID.randomUUID()).payload(PAYLOAD).version(1L).build();
+    final var data = this.sagaPayloadCache.take(saga, PenRequestCompleteSagaData.class);
+    this.sagaPayloadCache.put(saga, data);
+    saga.setPayload(PAYLOAD.replace("123456789", "987654321"));
+    saga.setVersion(2L);
+    assertThat(this.sagaPayloadCache.take(saga, PenRequestCompleteSagaData.class).getPen()).isEqualTo("987654321");
+  }
+
+  @Test
+  public void testTake_givenStepDidNotPutTheObjectBack_shouldParseItAgain() throws JsonProcessingException {
+    final var saga = Saga.builder().sagaId(UUID.randomUUID()).payload(PAYLOAD).version(1L).build();
+    final var data = this.sagaPayloadCache.take(saga, PenRequestCompleteSagaData.class);
+    this.sagaPayloadCache.put(saga, data);
+    final var taken = this.sagaPayloadCache.take(saga, PenRequestCompleteSagaData.class);
+    taken.setPen("987654321"); // the step changed the object and failed before writing it to the saga.
+    assertThat(this.sagaPayloadCache.take(saga, PenRequestCompleteSagaData.class).getPen()).isEqualTo("123456789");
+  }
+}
@@ -0,0 +1,43 @@
+package ca.bc.gov.educ.api.student.profile.saga.orchestrator.base;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SagaRetryPolicyTest {
+  private static final String SAGA_NAME = "PEN_REQUEST_COMPLETE_SAGA";
+  private MockEnvironment environment;
+  private SagaRetryPolicy sagaRetryPolicy;
+
+  @Before
+  public void setUp() {
+    this.environment = new MockEnvironment();
+    this.environment.setConversionService(new ApplicationConversionService());
+    this.sagaRetryPolicy = new SagaRetryPolicy(this.environment, 3, Duration.ofMinutes(1), Duration.ofMinutes(10), 2);
+  }
+
+  @Test
+  public void testNextBackoff_givenRetryCount_shouldGrowExponentiallyWithJitterUpToTheMax() {
+    for (var i = 0; i < 100; i++) {
+      assertThat(this.sagaRetryPolicy.nextBackoff(SAGA_NAME, 1)).isBetween(Duration.ofSeconds(30), Duration.ofMinutes(1));
+      assertThat(this.sagaRetryPolicy.nextBackoff(SAGA_NAME, 3)).isBetween(Duration.ofMinutes(2), Duration.ofMinutes(4));
+      assertThat(this.sagaRetryPolicy.nextBackoff(SAGA_NAME, 20)).isBetween(Duration.ofMinutes(5), Duration.ofMinutes(10));
+    }
+  }
+
+  @Test
+  public void testIsExhausted_givenOverrideForSagaName_shouldUseIt() {
+    assertThat(this.sagaRetryPolicy.isExhausted(SAGA_NAME, 2)).isFalse();
+    assertThat(this.sagaRetryPolicy.isExhausted(SAGA_NAME, 3)).isTrue();
+    this.environment.setProperty("saga.retry." + SAGA_NAME + ".max.attempts", "5");
+    this.environment.setProperty("saga.retry." + SAGA_NAME + ".backoff.initial", "10s");
+    assertThat(this.sagaRetryPolicy.isExhausted(SAGA_NAME, 3)).isFalse();
+    assertThat(this.sagaRetryPolicy.isExhausted("PEN_REQUEST_REJECT_SAGA", 3)).isTrue();
+    assertThat(this.sagaRetryPolicy.nextBackoff(SAGA_NAME, 1)).isBetween(Duration.ofSeconds(5), Duration.ofSeconds(10));
+  }
+}
@@ -0,0 +1,100 @@
+package ca.bc.gov.educ.api.student.profile.saga.orchestrator.base;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SagaStepRetrySchedulerTest {
+  private ExecutorService pool;
+  private SimpleMeterRegistry meterRegistry;
+  private SagaStepRetryScheduler sagaStepRetryScheduler;
+
+  @Before
+  public void setUp() {
+    this.pool = Executors.newFixedThreadPool(2);
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.sagaStepRetryScheduler = new SagaStepRetryScheduler(new SagaLaneExecutor(this.pool, this.meterRegistry, 2), this.meterRegistry, 3, Duration.ofMillis(10),
+      Duration.ofMillis(50), 2);
+  }
+
+  @After
+  public void tearDown() {
+    this.sagaStepRetryScheduler.close();
+    this.pool.shutdownNow();
+  }
+
+  @Test
+  public void testExecute_givenStepFailsOnce_shouldRunItAgainAfterTheBackoff() throws InterruptedException {
+    final var attempts = new AtomicInteger();
+    final var done = new CountDownLatch(1);
+    this.sagaStepRetryScheduler.execute(UUID.randomUUID(), () -> {
+      if (attempts.incrementAndGet() == 1) {
+        throw new IOException("database is down");
+      }
+      done.countDown();
+    });
+    assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(attempts.get()).isEqualTo(2);
+    assertThat(this.meterRegistry.get("saga.step.retry").tag("outcome", "scheduled").counter().count()).isEqualTo(1);
+    this.awaitCount("recovered", 1);
+    assertThat(this.sagaStepRetryScheduler.retriesInFlight()).isZero();
+  }
+
+  @Test
+  public void testExecute_givenStepKeepsFailing_shouldGiveUpAfterTheMaxAttempts() throws InterruptedException {
+    final var attempts = new AtomicInteger();
+    this.sagaStepRetryScheduler.execute(UUID.randomUUID(), () -> {
+      attempts.incrementAndGet();
+      throw new IOException("database is down");
+    });
+    this.awaitCount("exhausted", 1);
+    assertThat(attempts.get()).isEqualTo(3);
+    assertThat(this.meterRegistry.get("saga.step.retry").tag("outcome", "scheduled").counter().count()).isEqualTo(2);
+    assertThat(this.sagaStepRetryScheduler.retriesInFlight()).isZero();
+  }
+
+  @Test
+  public void testRetryLater_givenFailedFirstAttempt_shouldNotHoldTheLaneWhileWaiting() throws InterruptedException {
+    final var sagaId = UUID.randomUUID();
+    final var retried = new CountDownLatch(1);
+    final var other = new CountDownLatch(1);
+    this.sagaStepRetryScheduler.close();
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.sagaStepRetryScheduler = new SagaStepRetryScheduler(new SagaLaneExecutor(this.pool, this.meterRegistry, 1), this.meterRegistry, 3, Duration.ofMillis(500),
+      Duration.ofMillis(500), 2);
+    this.sagaStepRetryScheduler.retryLater(sagaId, retried::countDown, new IOException("database is down"));
+    assertThat(this.meterRegistry.get("saga.step.retry.in.flight").gauge().value()).isEqualTo(1);
+    this.sagaStepRetryScheduler.execute(sagaId, other::countDown);
+    assertThat(other.await(200, TimeUnit.MILLISECONDS)).isTrue();
+    assertThat(retried.getCount()).isEqualTo(1);
+    assertThat(retried.await(5, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void testBackoff_givenAttempts_shouldGrowUpToTheMax() {
+    assertThat(this.sagaStepRetryScheduler.backoff(1)).isEqualTo(Duration.ofMillis(10));
+    assertThat(this.sagaStepRetryScheduler.backoff(2)).isEqualTo(Duration.ofMillis(20));
+    assertThat(this.sagaStepRetryScheduler.backoff(4)).isEqualTo(Duration.ofMillis(50));
+  }
+
+  private void awaitCount(final String outcome, final double count) throws InterruptedException {
+    final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (this.meterRegistry.find("saga.step.retry").tag("outcome", outcome).counter() == null
+      || this.meterRegistry.get("saga.step.retry").tag("outcome", outcome).counter().count() < count) {
+      assertThat(System.nanoTime()).isLessThan(deadline);
+      Thread.sleep(5);
+    }
+  }
+}
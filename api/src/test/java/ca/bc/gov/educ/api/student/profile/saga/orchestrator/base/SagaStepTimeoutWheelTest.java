@@ -0,0 +1,81 @@
+package ca.bc.gov.educ.api.student.profile.saga.orchestrator.base;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SagaStepTimeoutWheelTest {
+  private SimpleMeterRegistry meterRegistry;
+  private SagaStepTimeoutWheel sagaStepTimeoutWheel;
+  private List<UUID> expired;
+  private CountDownLatch expiry;
+
+  @Before
+  public void setUp() {
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.sagaStepTimeoutWheel = new SagaStepTimeoutWheel(this.meterRegistry, Duration.ofMillis(10), 8); // a turn of the wheel is 80ms.
+    this.expired = new CopyOnWriteArrayList<>();
+    this.expiry = new CountDownLatch(1);
+    this.sagaStepTimeoutWheel.onExpiry(sagaId -> {
+      this.expired.add(sagaId);
+      this.expiry.countDown();
+    });
+  }
+
+  @After
+  public void tearDown() {
+    this.sagaStepTimeoutWheel.close();
+  }
+
+  @Test
+  public void testSchedule_givenDeadlineSeveralTurnsAhead_shouldExpireTheSagaOnceItPassed() throws InterruptedException {
+    final var sagaId = UUID.randomUUID();
+    final var start = System.nanoTime();
+    this.sagaStepTimeoutWheel.schedule(sagaId, LocalDateTime.now().plus(Duration.ofMillis(250)));
+    assertThat(this.expiry.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(240));
+    assertThat(this.expired).containsExactly(sagaId);
+    assertThat(this.sagaStepTimeoutWheel.tracked()).isZero();
+    assertThat(this.meterRegistry.get("saga.step.timeout.expired").counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  public void testSchedule_givenDeadlineInThePast_shouldExpireTheSagaOnTheNextTick() throws InterruptedException {
+    final var sagaId = UUID.randomUUID();
+    this.sagaStepTimeoutWheel.schedule(sagaId, LocalDateTime.now().minusMinutes(1));
+    assertThat(this.expiry.await(1, TimeUnit.SECONDS)).isTrue();
+    assertThat(this.expired).containsExactly(sagaId);
+  }
+
+  @Test
+  public void testSchedule_givenNextStepOfTheSaga_shouldOnlyExpireTheNewDeadline() throws InterruptedException {
+    final var sagaId = UUID.randomUUID();
+    final var start = System.nanoTime();
+    this.sagaStepTimeoutWheel.schedule(sagaId, LocalDateTime.now().plus(Duration.ofMillis(50)));
+    this.sagaStepTimeoutWheel.schedule(sagaId, LocalDateTime.now().plus(Duration.ofMillis(300)));
+    assertThat(this.expiry.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(290));
+    Thread.sleep(100);
+    assertThat(this.expired).containsExactly(sagaId);
+  }
+
+  @Test
+  public void testCancel_givenCompletedSaga_shouldNotExpireIt() throws InterruptedException {
+    final var sagaId = UUID.randomUUID();
+    this.sagaStepTimeoutWheel.schedule(sagaId, LocalDateTime.now().plus(Duration.ofMillis(50)));
+    this.sagaStepTimeoutWheel.cancel(sagaId);
+    assertThat(this.expiry.await(300, TimeUnit.MILLISECONDS)).isFalse();
+    assertThat(this.sagaStepTimeoutWheel.tracked()).isZero();
+  }
+}
@@ -0,0 +1,107 @@
+package ca.bc.gov.educ.api.student.profile.saga.orchestrator.base;
+
+import ca.bc.gov.educ.api.student.profile.saga.constants.EventOutcome;
+import ca.bc.gov.educ.api.student.profile.saga.constants.EventType;
+import ca.bc.gov.educ.api.student.profile.saga.exception.SagaRuntimeException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static ca.bc.gov.educ.api.student.profile.saga.constants.EventOutcome.*;
+import static ca.bc.gov.educ.api.student.profile.saga.constants.EventType.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SagaTransitionTableTest {
+
+  private final SagaStep<String> noop = (event, saga, sagaData) -> {
+  };
+  private Map<EventType, List<SagaEventState<String>>> steps;
+
+  @Before
+  public void setUp() {
+    this.steps = new LinkedHashMap<>();
+  }
+
+  @Test
+  public void testCompile_givenValidSaga_shouldResolveTransitionsAndStepOrdinals() {
+    this.step(INITIATED, INITIATE_SUCCESS, GET_PEN_REQUEST);
+    this.step(GET_PEN_REQUEST, PEN_REQUEST_FOUND, UPDATE_PEN_REQUEST);
+    this.step(UPDATE_PEN_REQUEST, PEN_REQUEST_UPDATED, MARK_SAGA_COMPLETE);
+    final var table = SagaTransitionTable.compile("TEST_SAGA", this.steps);
+    assertThat(table.transitionFor(GET_PEN_REQUEST, PEN_REQUEST_FOUND).getNextEventType()).isEqualTo(UPDATE_PEN_REQUEST);
+    assertThat(table.transitionFor(GET_PEN_REQUEST, STUDENT_FOUND)).isNull();
+    assertThat(table.transitionFor(GET_STUDENT, STUDENT_FOUND)).isNull();
+    assertThat(table.stepOrdinal(INITIATED)).isZero();
+    assertThat(table.stepOrdinal(UPDATE_PEN_REQUEST)).isEqualTo(2);
+    assertThat(table.stepOrdinal(GET_STUDENT)).isEqualTo(SagaTransitionTable.UNKNOWN_STEP);
+  }
+
+  @Test
+  public void testCompile_givenDuplicateTransition_shouldFail() {
+    this.step(INITIATED, INITIATE_SUCCESS, GET_PEN_REQUEST);
+    this.step(GET_PEN_REQUEST, PEN_REQUEST_FOUND, MARK_SAGA_COMPLETE);
+    this.step(GET_PEN_REQUEST, PEN_REQUEST_FOUND, MARK_SAGA_COMPLETE);
+    assertThatThrownBy(() -> SagaTransitionTable.compile("TEST_SAGA", this.steps)).isInstanceOf(SagaRuntimeException.class).hasMessageContaining("duplicate");
+  }
+
+  @Test
+  public void testCompile_givenUnreachableStep_shouldFail() {
+    this.step(INITIATED, INITIATE_SUCCESS, GET_PEN_REQUEST);
+    this.step(GET_PEN_REQUEST, PEN_REQUEST_FOUND, MARK_SAGA_COMPLETE);
+    this.step(GET_STUDENT, STUDENT_FOUND, MARK_SAGA_COMPLETE);
+    assertThatThrownBy(() -> SagaTransitionTable.compile("TEST_SAGA", this.steps)).isInstanceOf(SagaRuntimeException.class).hasMessageContaining("unreachable");
+  }
+
+  @Test
+  public void testCompile_givenStepWithoutTerminalPath_shouldFail() {
+    this.step(INITIATED, INITIATE_SUCCESS, GET_PEN_REQUEST);
+    this.step(GET_PEN_REQUEST, PEN_REQUEST_FOUND, UPDATE_PEN_REQUEST);
+    assertThatThrownBy(() -> SagaTransitionTable.compile("TEST_SAGA", this.steps)).isInstanceOf(SagaRuntimeException.class).hasMessageContaining("no terminal path");
+  }
+
+  @Test
+  public void testCompile_givenCycleWithoutTerminalPath_shouldFail() {
+    this.step(INITIATED, INITIATE_SUCCESS, GET_PEN_REQUEST);
+    this.step(GET_PEN_REQUEST, PEN_REQUEST_FOUND, UPDATE_PEN_REQUEST);
+    this.step(UPDATE_PEN_REQUEST, PEN_REQUEST_UPDATED, GET_PEN_REQUEST);
+    assertThatThrownBy(() -> SagaTransitionTable.compile("TEST_SAGA", this.steps)).isInstanceOf(SagaRuntimeException.class).hasMessageContaining("no terminal path");
+  }
+
+  @Test
+  public void testCompile_givenForkJoinedWithOneBranch_shouldReachEveryBranch() {
+    this.fork(INITIATED, INITIATE_SUCCESS, GET_PEN_REQUEST_DOCUMENT_METADATA, GET_STUDENT);
+    this.join(GET_PEN_REQUEST_DOCUMENT_METADATA, PEN_REQUEST_DOCUMENTS_FOUND, GET_STUDENT);
+    this.step(GET_STUDENT, STUDENT_FOUND, MARK_SAGA_COMPLETE);
+    final var table = SagaTransitionTable.compile("TEST_SAGA", this.steps);
+    assertThat(table.transitionFor(INITIATED, INITIATE_SUCCESS).getForkBranches()).containsExactly(GET_PEN_REQUEST_DOCUMENT_METADATA, GET_STUDENT);
+    assertThat(table.transitionFor(GET_PEN_REQUEST_DOCUMENT_METADATA, PEN_REQUEST_DOCUMENTS_FOUND).getJoinedWith()).isEqualTo(GET_STUDENT);
+  }
+
+  @Test
+  public void testCompile_givenForkWithoutJoin_shouldFail() {
+    this.fork(INITIATED, INITIATE_SUCCESS, GET_PEN_REQUEST_DOCUMENT_METADATA, GET_STUDENT);
+    this.step(GET_PEN_REQUEST_DOCUMENT_METADATA, PEN_REQUEST_DOCUMENTS_FOUND, MARK_SAGA_COMPLETE);
+    this.step(GET_STUDENT, STUDENT_FOUND, MARK_SAGA_COMPLETE);
+    assertThatThrownBy(() -> SagaTransitionTable.compile("TEST_SAGA", this.steps)).isInstanceOf(SagaRuntimeException.class).hasMessageContaining("one branch which is not joined");
+  }
+
+  private void fork(final EventType currentEvent, final EventOutcome outcome, final EventType... branches) {
+    this.steps.computeIfAbsent(currentEvent, k -> new ArrayList<>())
+      .add(SagaEventState.<String>builder().currentEventOutcome(outcome).isCompensating(false).nextEventType(branches[0]).forkBranches(List.of(branches)).stepToExecute(this.noop).build());
+  }
+
+  private void join(final EventType branchEvent, final EventOutcome outcome, final EventType joinedWith) {
+    this.steps.computeIfAbsent(branchEvent, k -> new ArrayList<>())
+      .add(SagaEventState.<String>builder().currentEventOutcome(outcome).isCompensating(false).nextEventType(joinedWith).joinedWith(joinedWith).stepToExecute(this.noop).build());
+  }
+
+  private void step(final EventType currentEvent, final EventOutcome outcome, final EventType nextEvent) {
+    this.steps.computeIfAbsent(currentEvent, k -> new ArrayList<>())
+      .add(SagaEventState.<String>builder().currentEventOutcome(outcome).isCompensating(false).nextEventType(nextEvent).stepToExecute(this.noop).build());
+  }
+}
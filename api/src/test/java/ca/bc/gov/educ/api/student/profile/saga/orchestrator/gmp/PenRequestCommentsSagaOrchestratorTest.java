@@ -11,23 +11,36 @@ import ca.bc.gov.educ.api.student.profile.saga.service.SagaService;
 import ca.bc.gov.educ.api.student.profile.saga.struct.base.Event;
 import ca.bc.gov.educ.api.student.profile.saga.struct.gmp.PenRequestCommentsSagaData;
 import ca.bc.gov.educ.api.student.profile.saga.utils.JsonUtil;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import static ca.bc.gov.educ.api.student.profile.saga.constants.EventType.*;
 import static ca.bc.gov.educ.api.student.profile.saga.constants.SagaEnum.PEN_REQUEST_COMMENTS_SAGA;
 import static ca.bc.gov.educ.api.student.profile.saga.constants.SagaTopicsEnum.PEN_REQUEST_API_TOPIC;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.verify;
 import static org.mockito.MockitoAnnotations.openMocks;
 
@@ -47,6 +60,9 @@ public class PenRequestCommentsSagaOrchestratorTest extends BaseSagaApiTest {
   @Autowired
   PenRequestCommentsSagaOrchestrator orchestrator;
 
+  @Autowired
+  MeterRegistry meterRegistry;
+
   PenRequestCommentsSagaData sagaData;
   @Captor
   ArgumentCaptor<byte[]> eventCaptor;
@@ -73,7 +89,7 @@ public class PenRequestCommentsSagaOrchestratorTest extends BaseSagaApiTest {
         .sagaId(this.saga.getSagaId())
         .build();
     this.orchestrator.executeAddPenRequestComments(event, this.saga, this.sagaData);
-    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(PEN_REQUEST_API_TOPIC.toString()), this.eventCaptor.capture());
+    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(PEN_REQUEST_API_TOPIC.toString()), this.eventCaptor.capture(), anyString());
     final var newEvent = JsonUtil.getJsonObjectFromString(Event.class, new String(this.eventCaptor.getValue()));
     assertThat(newEvent.getEventType()).isEqualTo(ADD_PEN_REQUEST_COMMENT);
     final var sagaFromDB = this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow();
@@ -96,7 +112,7 @@ public class PenRequestCommentsSagaOrchestratorTest extends BaseSagaApiTest {
         .sagaId(this.saga.getSagaId())
         .build();
     this.orchestrator.executeGetPenRequest(event, this.saga, this.sagaData);
-    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(PEN_REQUEST_API_TOPIC.toString()), this.eventCaptor.capture());
+    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(PEN_REQUEST_API_TOPIC.toString()), this.eventCaptor.capture(), anyString());
     final var newEvent = JsonUtil.getJsonObjectFromString(Event.class, new String(this.eventCaptor.getValue()));
     assertThat(newEvent.getEventType()).isEqualTo(GET_PEN_REQUEST);
     final var sagaFromDB = this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow();
@@ -119,7 +135,7 @@ public class PenRequestCommentsSagaOrchestratorTest extends BaseSagaApiTest {
         .sagaId(this.saga.getSagaId())
         .build();
     this.orchestrator.executeUpdatePenRequest(event, this.saga, this.sagaData);
-    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(PEN_REQUEST_API_TOPIC.toString()), this.eventCaptor.capture());
+    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(PEN_REQUEST_API_TOPIC.toString()), this.eventCaptor.capture(), anyString());
     final var newEvent = JsonUtil.getJsonObjectFromString(Event.class, new String(this.eventCaptor.getValue()));
     assertThat(newEvent.getEventType()).isEqualTo(UPDATE_PEN_REQUEST);
     final var sagaFromDB = this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow();
@@ -133,6 +149,74 @@ public class PenRequestCommentsSagaOrchestratorTest extends BaseSagaApiTest {
     assertThat(sagaStates.get(0).getSagaEventOutcome()).isEqualTo(EventOutcome.PEN_REQUEST_FOUND.toString());
   }
 
+  @Test
+  public void testExecuteSagaEvent_givenDuplicateRepliesInParallel_shouldRunTheNextStepOnce() throws Exception {
+    this.orchestrator.executeSagaEvent(Event.builder().eventType(INITIATED).eventOutcome(EventOutcome.INITIATE_SUCCESS).sagaId(this.saga.getSagaId()).build());
+    final var reply = Event.builder()
+        .eventType(ADD_PEN_REQUEST_COMMENT)
+        .eventOutcome(EventOutcome.PEN_REQUEST_COMMENT_ADDED)
+        .eventPayload(this.getPenRequestCommentPayload())
+        .sagaId(this.saga.getSagaId())
+        .build();
+    final var replies = 8;
+    final var start = new CountDownLatch(1);
+    final var executor = Executors.newFixedThreadPool(replies);
+    try {
+      final List<Future<Boolean>> results = new ArrayList<>();
+      for (var i = 0; i < replies; i++) {
+        results.add(executor.submit(() -> { // every thread plays a pod which got the reply, a step which lost is run once more like the subscriber does.
+          start.await();
+          try {
+            this.orchestrator.executeSagaEvent(reply);
+            return false;
+          } catch (final OptimisticLockingFailureException e) {
+            this.orchestrator.executeSagaEvent(reply);
+            return true;
+          }
+        }));
+      }
+      start.countDown();
+      for (final var result : results) {
+        result.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(PEN_REQUEST_API_TOPIC.toString()), this.eventCaptor.capture(), anyString());
+    final var nextEvents = this.eventCaptor.getAllValues().stream().map(bytes -> {
+      try {
+        return JsonUtil.getJsonObjectFromString(Event.class, new String(bytes));
+      } catch (final IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }).filter(event -> this.saga.getSagaId().equals(event.getSagaId())).map(Event::getEventType).toList();
+    assertThat(nextEvents).containsOnlyOnce(GET_PEN_REQUEST);
+    final var sagaFromDB = this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow();
+    assertThat(sagaFromDB.getSagaState()).isEqualTo(GET_PEN_REQUEST.toString());
+    assertThat(sagaFromDB.getStepCount()).isEqualTo(2);
+    assertThat(sagaFromDB.getVersion()).isEqualTo(this.saga.getVersion() + 2);
+    assertThat(this.sagaService.findAllSagaStates(this.saga)).hasSize(2);
+  }
+
+  @Test
+  public void testExecuteSagaEvent_givenStep_shouldPublishOutsideTheTransactionAndRecordTheConnectionHoldTime() throws Exception {
+    final var publishedInTransaction = new ArrayList<Boolean>();
+    doAnswer(invocation -> publishedInTransaction.add(TransactionSynchronizationManager.isActualTransactionActive()))
+        .when(this.messagePublisher).dispatchMessage(anyString(), any(), anyString());
+    try {
+      this.orchestrator.executeSagaEvent(Event.builder().eventType(INITIATED).eventOutcome(EventOutcome.INITIATE_SUCCESS).sagaId(this.saga.getSagaId()).build());
+    } finally {
+      Mockito.reset(this.messagePublisher);
+    }
+    assertThat(publishedInTransaction).isNotEmpty().containsOnly(false);
+    final var sagaFromDB = this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow();
+    assertThat(sagaFromDB.getSagaState()).isEqualTo(ADD_PEN_REQUEST_COMMENT.toString());
+    assertThat(sagaFromDB.getStepDeadline()).isAfter(LocalDateTime.now().plus(this.orchestrator.getDefaultStepTimeout()).minusMinutes(1));
+    assertThat(this.sagaService.findAllSagaStates(this.saga)).hasSize(1);
+    assertThat(this.meterRegistry.get("saga.step.connection.hold").tag("saga.name", PEN_REQUEST_COMMENTS_SAGA.toString()).tag("step", INITIATED.toString())
+        .timer().count()).isPositive();
+  }
+
   String getPenRequestCommentPayload() {
     return  "{\n" +
         "  \"commentContent\": \"Hi\",\n" +
@@ -4,7 +4,12 @@ import ca.bc.gov.educ.api.student.profile.saga.BaseSagaApiTest;
 import ca.bc.gov.educ.api.student.profile.saga.constants.EventOutcome;
 import ca.bc.gov.educ.api.student.profile.saga.constants.EventType;
 import ca.bc.gov.educ.api.student.profile.saga.messaging.MessagePublisher;
+import ca.bc.gov.educ.api.student.profile.saga.messaging.MessageSubscriber;
 import ca.bc.gov.educ.api.student.profile.saga.model.v1.Saga;
+import ca.bc.gov.educ.api.student.profile.saga.model.v1.SagaEvent;
+import ca.bc.gov.educ.api.student.profile.saga.orchestrator.base.SagaLaneExecutor;
+import ca.bc.gov.educ.api.student.profile.saga.orchestrator.base.SagaStepRetryScheduler;
+import ca.bc.gov.educ.api.student.profile.saga.props.ApplicationProperties;
 import ca.bc.gov.educ.api.student.profile.saga.repository.SagaEventRepository;
 import ca.bc.gov.educ.api.student.profile.saga.repository.SagaRepository;
 import ca.bc.gov.educ.api.student.profile.saga.service.SagaService;
@@ -14,15 +19,25 @@ import ca.bc.gov.educ.api.student.profile.saga.struct.base.StudentSagaData;
 import ca.bc.gov.educ.api.student.profile.saga.struct.gmp.PenRequestCompleteSagaData;
 import ca.bc.gov.educ.api.student.profile.saga.utils.JsonUtil;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.nats.client.Connection;
+import io.nats.client.Dispatcher;
+import io.nats.client.JetStreamApiException;
+import io.nats.client.Message;
+import io.nats.client.MessageHandler;
+import jakarta.persistence.EntityManagerFactory;
 import lombok.val;
 import org.junit.Before;
+import org.hibernate.SessionFactory;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -32,9 +47,9 @@ import static ca.bc.gov.educ.api.student.profile.saga.constants.EventType.*;
 import static ca.bc.gov.educ.api.student.profile.saga.constants.SagaEnum.PEN_REQUEST_COMPLETE_SAGA;
 import static ca.bc.gov.educ.api.student.profile.saga.constants.SagaTopicsEnum.*;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.atLeastOnce;
-import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.*;
 import static org.mockito.MockitoAnnotations.openMocks;
 
 public class PenRequestCompleteSagaOrchestratorTest extends BaseSagaApiTest {
@@ -53,6 +68,12 @@ public class PenRequestCompleteSagaOrchestratorTest extends BaseSagaApiTest {
   @Autowired
   PenRequestCompleteSagaOrchestrator orchestrator;
 
+  @Autowired
+  EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  MeterRegistry meterRegistry;
+
   PenRequestCompleteSagaData sagaData;
   @Captor
   ArgumentCaptor<byte[]> eventCaptor;
@@ -78,7 +99,7 @@ public class PenRequestCompleteSagaOrchestratorTest extends BaseSagaApiTest {
         .sagaId(this.saga.getSagaId())
         .build();
     this.orchestrator.executeGetPenRequest(event, this.saga, this.sagaData);
-    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(PEN_REQUEST_API_TOPIC.toString()), this.eventCaptor.capture());
+    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(PEN_REQUEST_API_TOPIC.toString()), this.eventCaptor.capture(), anyString());
     final var newEvent = JsonUtil.getJsonObjectFromString(Event.class, new String(this.eventCaptor.getValue()));
     assertThat(newEvent.getEventType()).isEqualTo(GET_PEN_REQUEST);
     assertThat(newEvent.getEventPayload()).isEqualTo(this.penRequestID);
@@ -92,6 +113,24 @@ public class PenRequestCompleteSagaOrchestratorTest extends BaseSagaApiTest {
     assertThat(sagaStates.get(0).getSagaEventOutcome()).isEqualTo(EventOutcome.DIGITAL_ID_UPDATED.toString());
   }
 
+  @Test
+  public void testExecuteGetPenRequest_givenReplayedSaga_shouldResetItsRetriesOnceTheStepMovesForward() throws IOException, InterruptedException, TimeoutException {
+    this.saga.setRetryCount(3);
+    this.saga.setNextRetryAt(LocalDateTime.now().plusHours(1));
+    this.saga = this.repository.save(this.saga);
+    final var event = Event.builder()
+        .eventType(EventType.UPDATE_DIGITAL_ID)
+        .eventOutcome(EventOutcome.DIGITAL_ID_UPDATED)
+        .eventPayload(this.getCompletePenRequestPayload())
+        .sagaId(this.saga.getSagaId())
+        .build();
+    this.orchestrator.executeGetPenRequest(event, this.saga, this.sagaData);
+    final var sagaFromDB = this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow();
+    assertThat(sagaFromDB.getStepCount()).isEqualTo(1);
+    assertThat(sagaFromDB.getRetryCount()).isZero();
+    assertThat(sagaFromDB.getNextRetryAt()).isNull();
+  }
+
   @Test
   public void testExecuteUpdatePenRequest_givenEventAndSagaData_shouldPostEventToPenRequestApi() throws IOException, InterruptedException, TimeoutException {
     final var event = Event.builder()
@@ -101,7 +140,7 @@ public class PenRequestCompleteSagaOrchestratorTest extends BaseSagaApiTest {
         .sagaId(this.saga.getSagaId())
         .build();
     this.orchestrator.executeUpdatePenRequest(event, this.saga, this.sagaData);
-    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(PEN_REQUEST_API_TOPIC.toString()), this.eventCaptor.capture());
+    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(PEN_REQUEST_API_TOPIC.toString()), this.eventCaptor.capture(), anyString());
     final var newEvent = JsonUtil.getJsonObjectFromString(Event.class, new String(this.eventCaptor.getValue()));
     assertThat(newEvent.getEventType()).isEqualTo(UPDATE_PEN_REQUEST);
     final var sagaFromDB = this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow();
@@ -123,7 +162,7 @@ public class PenRequestCompleteSagaOrchestratorTest extends BaseSagaApiTest {
         .sagaId(this.saga.getSagaId())
         .build();
     this.orchestrator.executeGetDigitalId(event, this.saga, this.sagaData);
-    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(DIGITAL_ID_API_TOPIC.toString()), this.eventCaptor.capture());
+    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(DIGITAL_ID_API_TOPIC.toString()), this.eventCaptor.capture(), anyString());
     final var newEvent = JsonUtil.getJsonObjectFromString(Event.class, new String(this.eventCaptor.getValue()));
     assertThat(newEvent.getEventType()).isEqualTo(GET_DIGITAL_ID);
     final var sagaFromDB = this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow();
@@ -144,7 +183,7 @@ public class PenRequestCompleteSagaOrchestratorTest extends BaseSagaApiTest {
         .sagaId(this.saga.getSagaId())
         .build();
     this.orchestrator.executeUpdateDigitalId(event, this.saga, this.sagaData);
-    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(DIGITAL_ID_API_TOPIC.toString()), this.eventCaptor.capture());
+    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(DIGITAL_ID_API_TOPIC.toString()), this.eventCaptor.capture(), anyString());
     final var newEvent = JsonUtil.getJsonObjectFromString(Event.class, new String(this.eventCaptor.getValue()));
     assertThat(newEvent.getEventType()).isEqualTo(UPDATE_DIGITAL_ID);
     final var sagaFromDB = this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow();
@@ -166,7 +205,7 @@ public class PenRequestCompleteSagaOrchestratorTest extends BaseSagaApiTest {
       .sagaId(this.saga.getSagaId())
       .build();
     this.orchestrator.executeGetDigitalIdStudentLinks(event, this.saga, this.sagaData);
-    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(DIGITAL_ID_API_TOPIC.toString()), this.eventCaptor.capture());
+    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(DIGITAL_ID_API_TOPIC.toString()), this.eventCaptor.capture(), anyString());
     final var newEvent = JsonUtil.getJsonObjectFromString(Event.class, new String(this.eventCaptor.getValue()));
     assertThat(newEvent.getEventType()).isEqualTo(GET_DIGITAL_ID_LIST);
     final var sagaFromDB = this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow();
@@ -190,7 +229,7 @@ public class PenRequestCompleteSagaOrchestratorTest extends BaseSagaApiTest {
       .sagaId(this.saga.getSagaId())
       .build();
     this.orchestrator.executeRemoveDigitalIdStudentLinks(event, this.saga, this.sagaData);
-    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(DIGITAL_ID_API_TOPIC.toString()), this.eventCaptor.capture());
+    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(DIGITAL_ID_API_TOPIC.toString()), this.eventCaptor.capture(), anyString());
     final var newEvent = JsonUtil.getJsonObjectFromString(Event.class, new String(this.eventCaptor.getValue()));
     assertThat(newEvent.getEventType()).isEqualTo(UPDATE_DIGITAL_ID_LIST);
     final var sagaFromDB = this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow();
@@ -204,25 +243,147 @@ public class PenRequestCompleteSagaOrchestratorTest extends BaseSagaApiTest {
   }
 
   @Test
-  public void testExecuteGetStudent_givenEventAndSagaData_shouldPostEventToStudentApi() throws IOException, InterruptedException, TimeoutException {
-    final var event = Event.builder()
-        .eventType(EventType.INITIATED)
-        .eventOutcome(EventOutcome.INITIATE_SUCCESS)
-        .eventPayload(this.getCompletePenRequestPayload())
-        .sagaId(this.saga.getSagaId())
-        .build();
-    this.orchestrator.executeGetStudent(event, this.saga, this.sagaData);
-    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(STUDENT_API_TOPIC.toString()), this.eventCaptor.capture());
+  public void testExecuteSagaEvent_givenInitiated_shouldGetDocumentsAndStudentTogether() throws IOException, InterruptedException, TimeoutException {
+    this.orchestrator.executeSagaEvent(Event.builder().eventType(INITIATED).eventOutcome(EventOutcome.INITIATE_SUCCESS).sagaId(this.saga.getSagaId()).build());
+    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(PEN_REQUEST_API_TOPIC.toString()), this.eventCaptor.capture(), anyString());
+    assertThat(JsonUtil.getJsonObjectFromString(Event.class, new String(this.eventCaptor.getValue())).getEventType()).isEqualTo(GET_PEN_REQUEST_DOCUMENT_METADATA);
+    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(STUDENT_API_TOPIC.toString()), this.eventCaptor.capture(), anyString());
     final var newEvent = JsonUtil.getJsonObjectFromString(Event.class, new String(this.eventCaptor.getValue()));
     assertThat(newEvent.getEventType()).isEqualTo(GET_STUDENT);
+    assertThat(newEvent.getEventPayload()).isEqualTo(this.sagaData.getPen());
     final var sagaFromDB = this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow();
-    assertThat(sagaFromDB.getCreateUser()).isEqualTo("OMISHRA");
-    assertThat(sagaFromDB.getUpdateUser()).isEqualTo("OMISHRA");
-    assertThat(sagaFromDB.getSagaState()).isEqualTo(GET_STUDENT.toString());
+    assertThat(sagaFromDB.getSagaState()).isEqualTo(GET_PEN_REQUEST_DOCUMENT_METADATA.toString());
+    assertThat(sagaFromDB.getPendingBranches()).isEqualTo(GET_PEN_REQUEST_DOCUMENT_METADATA + "," + GET_STUDENT);
     final var sagaStates = this.sagaService.findAllSagaStates(this.saga);
     assertThat(sagaStates).hasSize(1);
     assertThat(sagaStates.get(0).getSagaEventState()).isEqualTo(EventType.INITIATED.toString());
-    assertThat(sagaStates.get(0).getSagaEventOutcome()).isEqualTo(EventOutcome.INITIATE_SUCCESS.toString());
+  }
+
+  @Test
+  public void testExecuteSagaEvent_givenSagaVersionEnvelope_shouldSendTheSagaVersionTheStepRead() throws IOException, InterruptedException, TimeoutException {
+    this.orchestrator.setEnvelopeVersion(Event.SAGA_VERSION_ENVELOPE_VERSION);
+    try {
+      this.orchestrator.executeSagaEvent(Event.builder().eventType(INITIATED).eventOutcome(EventOutcome.INITIATE_SUCCESS).sagaId(this.saga.getSagaId()).build());
+    } finally {
+      this.orchestrator.setEnvelopeVersion(1);
+    }
+    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(STUDENT_API_TOPIC.toString()), this.eventCaptor.capture(), anyString());
+    final var newEvent = JsonUtil.getJsonObjectFromString(Event.class, new String(this.eventCaptor.getValue()));
+    assertThat(newEvent.getSagaId()).isEqualTo(this.saga.getSagaId());
+    assertThat(newEvent.getSagaVersion()).isEqualTo(this.saga.getVersion());
+  }
+
+  @Test
+  public void testExecuteSagaEvent_givenNextStepOfTheSaga_shouldTakeThePayloadFromTheCache() throws IOException, InterruptedException, TimeoutException {
+    this.orchestrator.executeSagaEvent(Event.builder().eventType(INITIATED).eventOutcome(EventOutcome.INITIATE_SUCCESS).sagaId(this.saga.getSagaId()).build());
+    final var hitsBefore = this.meterRegistry.get("saga.payload.cache").tag("result", "hit").counter().count();
+    this.orchestrator.executeSagaEvent(Event.builder().eventType(GET_STUDENT).eventOutcome(EventOutcome.STUDENT_FOUND).eventPayload(this.studentJson).sagaId(this.saga.getSagaId()).build());
+    assertThat(this.meterRegistry.get("saga.payload.cache").tag("result", "hit").counter().count() - hitsBefore).isEqualTo(1);
+  }
+
+  @Test
+  public void testExecuteSagaEvent_givenStudentRepliesBeforeDocuments_shouldUpdateStudentOnceBothReplied() throws IOException, InterruptedException, TimeoutException {
+    final var docs = "[{\"documentTypeCode\":\"CABIRTH\",\"createDate\":\"2020-01-01T10:00:00\"}]";
+    this.orchestrator.executeSagaEvent(Event.builder().eventType(INITIATED).eventOutcome(EventOutcome.INITIATE_SUCCESS).sagaId(this.saga.getSagaId()).build());
+    this.orchestrator.executeSagaEvent(Event.builder().eventType(GET_STUDENT).eventOutcome(EventOutcome.STUDENT_FOUND).eventPayload(this.studentJson).sagaId(this.saga.getSagaId()).build());
+    var sagaFromDB = this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow();
+    assertThat(sagaFromDB.getSagaState()).isEqualTo(GET_PEN_REQUEST_DOCUMENT_METADATA.toString());
+    assertThat(sagaFromDB.getPendingBranches()).isEqualTo(GET_PEN_REQUEST_DOCUMENT_METADATA.toString());
+    this.orchestrator.executeSagaEvent(Event.builder().eventType(GET_STUDENT).eventOutcome(EventOutcome.STUDENT_FOUND).eventPayload(this.studentJson).sagaId(this.saga.getSagaId()).build());
+    this.orchestrator.executeSagaEvent(Event.builder().eventType(GET_PEN_REQUEST_DOCUMENT_METADATA).eventOutcome(EventOutcome.PEN_REQUEST_DOCUMENTS_FOUND).eventPayload(docs).sagaId(this.saga.getSagaId()).build());
+    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(STUDENT_API_TOPIC.toString()), this.eventCaptor.capture(), anyString());
+    final var newEvent = JsonUtil.getJsonObjectFromString(Event.class, new String(this.eventCaptor.getValue()));
+    assertThat(newEvent.getEventType()).isEqualTo(UPDATE_STUDENT);
+    val student = JsonUtil.getJsonObjectFromString(StudentSagaData.class, newEvent.getEventPayload());
+    assertThat(student.getDocumentTypeCode()).isEqualTo("CABIRTH");
+    assertThat(student.getLegalFirstName()).isEqualTo(this.sagaData.getLegalFirstName());
+    sagaFromDB = this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow();
+    assertThat(sagaFromDB.getSagaState()).isEqualTo(UPDATE_STUDENT.toString());
+    assertThat(sagaFromDB.getPendingBranches()).isNull();
+    assertThat(this.sagaService.findAllSagaStates(this.saga)).extracting(SagaEvent::getSagaEventState)
+      .containsExactlyInAnyOrder(INITIATED.toString(), GET_STUDENT.toString(), GET_PEN_REQUEST_DOCUMENT_METADATA.toString());
+  }
+
+  @Test
+  public void testReplaySaga_givenForkWaitingForABranch_shouldDispatchOnlyTheBranchWhichDidNotReply() throws IOException, InterruptedException, TimeoutException {
+    this.orchestrator.executeSagaEvent(Event.builder().eventType(INITIATED).eventOutcome(EventOutcome.INITIATE_SUCCESS).sagaId(this.saga.getSagaId()).build());
+    this.orchestrator.executeSagaEvent(Event.builder().eventType(GET_PEN_REQUEST_DOCUMENT_METADATA).eventOutcome(EventOutcome.PEN_REQUEST_DOCUMENTS_NOT_FOUND).eventPayload("[]").sagaId(this.saga.getSagaId()).build());
+    this.orchestrator.replaySaga(this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow());
+    final var sagaFromDB = this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow();
+    assertThat(sagaFromDB.getSagaState()).isEqualTo(GET_PEN_REQUEST_DOCUMENT_METADATA.toString());
+    assertThat(sagaFromDB.getPendingBranches()).isEqualTo(GET_STUDENT.toString());
+    assertThat(sagaFromDB.getStepCount()).isEqualTo(2);
+    assertThat(this.dispatchedEvents(STUDENT_API_TOPIC.toString(), GET_STUDENT)).hasSize(2);
+    assertThat(this.dispatchedEvents(PEN_REQUEST_API_TOPIC.toString(), GET_PEN_REQUEST_DOCUMENT_METADATA)).hasSize(1);
+  }
+
+  @Test
+  public void testReplaySaga_givenHalfJoinedForkAndRepliesThroughTheSubscriber_shouldContinueOnceTheResentBranchReplies() throws IOException, InterruptedException, TimeoutException, JetStreamApiException {
+    final var handler = ArgumentCaptor.forClass(MessageHandler.class);
+    final var connection = mock(Connection.class);
+    when(connection.createDispatcher(handler.capture())).thenReturn(mock(Dispatcher.class));
+    final var retryScheduler = mock(SagaStepRetryScheduler.class);
+    final var subscriber = new MessageSubscriber(connection, List.of(this.orchestrator), new SagaLaneExecutor(Runnable::run, this.meterRegistry, 1), retryScheduler,
+      this.coreApplicationProperties(), this.meterRegistry);
+    this.orchestrator.setEnvelopeVersion(Event.SAGA_VERSION_ENVELOPE_VERSION);
+    try {
+      this.orchestrator.executeSagaEvent(Event.builder().eventType(INITIATED).eventOutcome(EventOutcome.INITIATE_SUCCESS).sagaId(this.saga.getSagaId()).build());
+      final var getDocumentsEvent = this.dispatchedEvents(PEN_REQUEST_API_TOPIC.toString(), GET_PEN_REQUEST_DOCUMENT_METADATA).get(0);
+      handler.getValue().onMessage(this.message(Event.builder().eventType(GET_PEN_REQUEST_DOCUMENT_METADATA).eventOutcome(EventOutcome.PEN_REQUEST_DOCUMENTS_NOT_FOUND)
+        .eventPayload("[]").sagaId(this.saga.getSagaId()).sagaVersion(getDocumentsEvent.getSagaVersion()).build()));
+
+      this.orchestrator.replaySaga(this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow());
+      var sagaFromDB = this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow();
+      assertThat(sagaFromDB.getPendingBranches()).isEqualTo(GET_STUDENT.toString());
+      assertThat(this.dispatchedEvents(PEN_REQUEST_API_TOPIC.toString(), GET_PEN_REQUEST_DOCUMENT_METADATA)).hasSize(1);
+      final var getStudentEvents = this.dispatchedEvents(STUDENT_API_TOPIC.toString(), GET_STUDENT);
+      assertThat(getStudentEvents).hasSize(2);
+
+      handler.getValue().onMessage(this.message(Event.builder().eventType(GET_STUDENT).eventOutcome(EventOutcome.STUDENT_FOUND).eventPayload(this.studentJson)
+        .sagaId(this.saga.getSagaId()).sagaVersion(getStudentEvents.get(1).getSagaVersion()).build()));
+      sagaFromDB = this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow();
+      assertThat(sagaFromDB.getSagaState()).isEqualTo(UPDATE_STUDENT.toString());
+      assertThat(sagaFromDB.getPendingBranches()).isNull();
+      assertThat(this.dispatchedEvents(STUDENT_API_TOPIC.toString(), UPDATE_STUDENT)).hasSize(1);
+      verifyNoInteractions(retryScheduler);
+    } finally {
+      this.orchestrator.setEnvelopeVersion(1);
+      subscriber.close();
+    }
+  }
+
+  /**
+   * the events dispatched to the topic for the saga of the test, in the order they were sent.
+   */
+  private List<Event> dispatchedEvents(final String topic, final EventType eventType) throws IOException, InterruptedException, TimeoutException {
+    final var events = ArgumentCaptor.forClass(byte[].class);
+    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(topic), events.capture(), anyString());
+    final var dispatchedEvents = new ArrayList<Event>();
+    for (final var eventBytes : events.getAllValues()) {
+      final var newEvent = JsonUtil.getJsonObjectFromString(Event.class, new String(eventBytes));
+      if (this.saga.getSagaId().equals(newEvent.getSagaId()) && newEvent.getEventType() == eventType) {
+        dispatchedEvents.add(newEvent);
+      }
+    }
+    return dispatchedEvents;
+  }
+
+  private Message message(final Event event) throws JsonProcessingException {
+    final var message = mock(Message.class);
+    when(message.getData()).thenReturn(JsonUtil.getJsonBytesFromObject(event));
+    return message;
+  }
+
+  private ApplicationProperties coreApplicationProperties() {
+    final var applicationProperties = mock(ApplicationProperties.class);
+    when(applicationProperties.isJetStreamEnabled()).thenReturn(false);
+    when(applicationProperties.getSubscriberMaxInFlight()).thenReturn(2);
+    when(applicationProperties.getSubscriberPendingLimitMessages()).thenReturn(1024);
+    when(applicationProperties.getSubscriberPendingLimitBytes()).thenReturn(1024L * 1024);
+    when(applicationProperties.isDuplicateFilterEnabled()).thenReturn(true);
+    when(applicationProperties.getDuplicateFilterSize()).thenReturn(100L);
+    when(applicationProperties.getDuplicateFilterExpiry()).thenReturn(Duration.ofMinutes(10));
+    return applicationProperties;
   }
 
 
@@ -235,7 +396,7 @@ public class PenRequestCompleteSagaOrchestratorTest extends BaseSagaApiTest {
       .sagaId(this.saga.getSagaId())
       .build();
     this.orchestrator.executeCreateStudent(event, this.saga, this.sagaData);
-    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(STUDENT_API_TOPIC.toString()), this.eventCaptor.capture());
+    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(STUDENT_API_TOPIC.toString()), this.eventCaptor.capture(), anyString());
     final var newEvent = JsonUtil.getJsonObjectFromString(Event.class, new String(this.eventCaptor.getValue()));
     assertThat(newEvent.getEventType()).isEqualTo(CREATE_STUDENT);
     val studentCreate = JsonUtil.getJsonObjectFromString(StudentSagaData.class, newEvent.getEventPayload());
@@ -259,7 +420,7 @@ public class PenRequestCompleteSagaOrchestratorTest extends BaseSagaApiTest {
         .sagaId(this.saga.getSagaId())
         .build();
     this.orchestrator.executeUpdateStudent(event, this.saga, this.sagaData);
-    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(STUDENT_API_TOPIC.toString()), this.eventCaptor.capture());
+    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(STUDENT_API_TOPIC.toString()), this.eventCaptor.capture(), anyString());
     final var newEvent = JsonUtil.getJsonObjectFromString(Event.class, new String(this.eventCaptor.getValue()));
     assertThat(newEvent.getEventType()).isEqualTo(UPDATE_STUDENT);
     final var sagaFromDB = this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow();
@@ -281,7 +442,7 @@ public class PenRequestCompleteSagaOrchestratorTest extends BaseSagaApiTest {
         .sagaId(this.saga.getSagaId())
         .build();
     this.orchestrator.executeNotifyStudentPenRequestComplete(event, this.saga, this.sagaData);
-    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(PROFILE_REQUEST_EMAIL_API_TOPIC.toString()), this.eventCaptor.capture());
+    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(PROFILE_REQUEST_EMAIL_API_TOPIC.toString()), this.eventCaptor.capture(), anyString());
     final var newEvent = JsonUtil.getJsonObjectFromString(Event.class, new String(this.eventCaptor.getValue()));
     assertThat(newEvent.getEventType()).isEqualTo(NOTIFY_STUDENT_PEN_REQUEST_COMPLETE);
     final var sagaFromDB = this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow();
@@ -294,6 +455,34 @@ public class PenRequestCompleteSagaOrchestratorTest extends BaseSagaApiTest {
     assertThat(sagaStates.get(0).getSagaEventOutcome()).isEqualTo(EventOutcome.PEN_REQUEST_UPDATED.toString());
   }
 
+  @Test
+  public void testExecuteSagaEvent_givenForwardPath_shouldNumberStepsWithoutReadingSagaEvents() throws IOException, InterruptedException, TimeoutException {
+    final var statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    this.orchestrator.executeSagaEvent(Event.builder().eventType(INITIATED).eventOutcome(EventOutcome.INITIATE_SUCCESS).sagaId(this.saga.getSagaId()).build());
+    this.orchestrator.executeSagaEvent(Event.builder().eventType(GET_PEN_REQUEST_DOCUMENT_METADATA).eventOutcome(EventOutcome.PEN_REQUEST_DOCUMENTS_NOT_FOUND).eventPayload("[]").sagaId(this.saga.getSagaId()).build());
+    this.orchestrator.executeSagaEvent(Event.builder().eventType(GET_STUDENT).eventOutcome(EventOutcome.STUDENT_NOT_FOUND).eventPayload("123456789").sagaId(this.saga.getSagaId()).build());
+    assertThat(statistics.getEntityStatistics(SagaEvent.class.getName()).getLoadCount()).isZero();
+    final var sagaFromDB = this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow();
+    assertThat(sagaFromDB.getSagaState()).isEqualTo(CREATE_STUDENT.toString());
+    assertThat(sagaFromDB.getStepCount()).isEqualTo(3);
+    final var sagaStates = this.sagaService.findAllSagaStates(this.saga);
+    assertThat(sagaStates).extracting(SagaEvent::getSagaStepNumber).containsExactlyInAnyOrder(1, 2, 3);
+  }
+
+  @Test
+  public void testReplaySaga_givenLastEventAlreadyRecorded_shouldNotDuplicateEventState() throws IOException, InterruptedException, TimeoutException {
+    this.orchestrator.executeSagaEvent(Event.builder().eventType(INITIATED).eventOutcome(EventOutcome.INITIATE_SUCCESS).sagaId(this.saga.getSagaId()).build());
+    this.orchestrator.replaySaga(this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow());
+    final var replayed = this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow();
+    this.orchestrator.replaySaga(replayed);
+    assertThat(replayed.getStepCount()).isEqualTo(1); // the replayed event keeps its step number, the step counter is not rewound for it.
+    final var sagaFromDB = this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow();
+    assertThat(sagaFromDB.getSagaState()).isEqualTo(GET_PEN_REQUEST_DOCUMENT_METADATA.toString());
+    assertThat(sagaFromDB.getStepCount()).isEqualTo(1);
+    assertThat(this.sagaService.findAllSagaStates(this.saga)).hasSize(1);
+  }
+
   String studentJson = "{\"studentID\":null,\"pen\":\"123456789\",\"legalFirstName\":\"om\",\"legalMiddleNames\":\"mishra\",\"legalLastName\":\"mishra\",\"dob\":\"2000-01-01\",\"sexCode\":\"M\",\"genderCode\":\"M\",\"usualFirstName\":null,\"usualMiddleNames\":null,\"usualLastName\":null,\"email\":\"om@gmail.com\",\"deceasedDate\":null,\"createUser\":\"OMISHRA\",\"updateUser\":\"OMISHRA\",\"localID\":null,\"postalCode\":null,\"gradeCode\":null,\"mincode\":null,\"emailVerified\":null,\"historyActivityCode\":\"UMP\",\"gradeYear\":null,\"demogCode\":\"A\",\"statusCode\":\"A\",\"memo\":null,\"trueStudentID\":null,\"documentTypeCode\":\"ABC\",\"dateOfConfirmation\":\"2021-08-30T09:16:49.2208031\"}\n";
 
   @Test
@@ -306,7 +495,7 @@ public class PenRequestCompleteSagaOrchestratorTest extends BaseSagaApiTest {
       .build();
     this.sagaData.setDocumentTypeCode("CABIRTH");
     this.orchestrator.executeCreateStudent(event, this.saga, this.sagaData);
-    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(STUDENT_API_TOPIC.toString()), this.eventCaptor.capture());
+    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(STUDENT_API_TOPIC.toString()), this.eventCaptor.capture(), anyString());
     final var newEvent = JsonUtil.getJsonObjectFromString(Event.class, new String(this.eventCaptor.getValue()));
     assertThat(newEvent.getEventType()).isEqualTo(CREATE_STUDENT);
     val student = JsonUtil.getJsonObjectFromString(StudentSagaData.class, newEvent.getEventPayload());
@@ -340,7 +529,7 @@ public class PenRequestCompleteSagaOrchestratorTest extends BaseSagaApiTest {
       .build();
     this.sagaData.setDocumentTypeCode("CABIRTH");
     this.orchestrator.executeUpdateStudent(event, this.saga, this.sagaData);
-    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(STUDENT_API_TOPIC.toString()), this.eventCaptor.capture());
+    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(STUDENT_API_TOPIC.toString()), this.eventCaptor.capture(), anyString());
     final var newEvent = JsonUtil.getJsonObjectFromString(Event.class, new String(this.eventCaptor.getValue()));
     assertThat(newEvent.getEventType()).isEqualTo(UPDATE_STUDENT);
     val student = JsonUtil.getJsonObjectFromString(StudentSagaData.class, newEvent.getEventPayload());
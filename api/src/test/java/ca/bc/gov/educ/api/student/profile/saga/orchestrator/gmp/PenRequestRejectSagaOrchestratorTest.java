@@ -26,6 +26,7 @@ import static ca.bc.gov.educ.api.student.profile.saga.constants.SagaEnum.PEN_REQ
 import static ca.bc.gov.educ.api.student.profile.saga.constants.SagaTopicsEnum.PEN_REQUEST_API_TOPIC;
 import static ca.bc.gov.educ.api.student.profile.saga.constants.SagaTopicsEnum.PROFILE_REQUEST_EMAIL_API_TOPIC;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.verify;
@@ -74,7 +75,7 @@ public class PenRequestRejectSagaOrchestratorTest extends BaseSagaApiTest {
         .sagaId(this.saga.getSagaId())
         .build();
     this.orchestrator.executeGetPenRequest(event, this.saga, this.sagaData);
-    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(PEN_REQUEST_API_TOPIC.toString()), this.eventCaptor.capture());
+    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(PEN_REQUEST_API_TOPIC.toString()), this.eventCaptor.capture(), anyString());
     final var newEvent = JsonUtil.getJsonObjectFromString(Event.class, new String(this.eventCaptor.getValue()));
     assertThat(newEvent.getEventType()).isEqualTo(GET_PEN_REQUEST);
     final var sagaFromDB = this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow();
@@ -95,7 +96,7 @@ public class PenRequestRejectSagaOrchestratorTest extends BaseSagaApiTest {
         .sagaId(this.saga.getSagaId())
         .build();
     this.orchestrator.executeUpdatePenRequest(event, this.saga, this.sagaData);
-    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(PEN_REQUEST_API_TOPIC.toString()), this.eventCaptor.capture());
+    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(PEN_REQUEST_API_TOPIC.toString()), this.eventCaptor.capture(), anyString());
     final var newEvent = JsonUtil.getJsonObjectFromString(Event.class, new String(this.eventCaptor.getValue()));
     assertThat(newEvent.getEventType()).isEqualTo(UPDATE_PEN_REQUEST);
     final var sagaFromDB = this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow();
@@ -117,7 +118,7 @@ public class PenRequestRejectSagaOrchestratorTest extends BaseSagaApiTest {
         .sagaId(this.saga.getSagaId())
         .build();
     this.orchestrator.executeNotifyStudentPenRequestReject(event, this.saga, this.sagaData);
-    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(PROFILE_REQUEST_EMAIL_API_TOPIC.toString()), this.eventCaptor.capture());
+    verify(this.messagePublisher, atLeastOnce()).dispatchMessage(eq(PROFILE_REQUEST_EMAIL_API_TOPIC.toString()), this.eventCaptor.capture(), anyString());
     final var newEvent = JsonUtil.getJsonObjectFromString(Event.class, new String(this.eventCaptor.getValue()));
     assertThat(newEvent.getEventType()).isEqualTo(NOTIFY_STUDENT_PEN_REQUEST_REJECT);
     final var sagaFromDB = this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow();
@@ -11,6 +11,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
@@ -19,6 +20,7 @@ import java.util.concurrent.TimeoutException;
 
 import static ca.bc.gov.educ.api.student.profile.saga.constants.EventType.INITIATED;
 import static ca.bc.gov.educ.api.student.profile.saga.constants.SagaEnum.STUDENT_PROFILE_RETURN_SAGA;
+import static ca.bc.gov.educ.api.student.profile.saga.constants.SagaStatusEnum.DEAD_LETTERED;
 import static ca.bc.gov.educ.api.student.profile.saga.constants.SagaStatusEnum.STARTED;
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -32,6 +34,8 @@ public class EventTaskSchedulerTest extends BaseSagaApiTest {
   private SagaRepository repository;
   @Autowired
   private SagaEventRepository sagaEventRepository;
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
   public static final String PAYLOAD_STR = "  \"studentProfileRequestID\": \"ac335214-7252-1946-8172-589e58000004\",\n" +
     "  \"createUser\": \"om\",\n" +
     "  \"updateUser\": \"om\",\n" +
@@ -101,6 +105,116 @@ public class EventTaskSchedulerTest extends BaseSagaApiTest {
   }
 
 
+  @Test
+  public void testPollEventTableAndPublish_givenMoreStaleSagasThanBatchSize_shouldClaimAllPages() {
+    final String payload = "{\n" +
+      PAYLOAD_STR +
+      "}";
+    for (var i = 0; i < 5; i++) {
+      this.repository.save(this.createDummySagaRecord(payload, STUDENT_PROFILE_RETURN_SAGA.toString()));
+    }
+    this.eventTaskScheduler.setBatchSize(2);
+    try {
+      this.eventTaskScheduler.pollEventTableAndPublish();
+    } finally {
+      this.eventTaskScheduler.setBatchSize(100);
+    }
+    assertThat(this.repository.findAll()).hasSize(5).allSatisfy(saga -> {
+      assertThat(saga.getRetryCount()).isEqualTo(1);
+      assertThat(saga.getLeaseExpiresAt()).isAfter(LocalDateTime.now());
+      assertThat(saga.getNextRetryAt()).isAfter(LocalDateTime.now());
+    });
+  }
+
+  @Test
+  public void testPollEventTableAndPublish_givenLeasedBackedOffOrRecentlyUpdatedSaga_shouldNotBeClaimed() {
+    final String payload = "{\n" +
+      PAYLOAD_STR +
+      "}";
+    final var leased = this.createDummySagaRecord(payload, STUDENT_PROFILE_RETURN_SAGA.toString());
+    leased.setLeaseExpiresAt(LocalDateTime.now().plusMinutes(1));
+    this.repository.save(leased);
+    final var recent = this.createDummySagaRecord(payload, STUDENT_PROFILE_RETURN_SAGA.toString());
+    recent.setUpdateDate(LocalDateTime.now());
+    this.repository.save(recent);
+    final var backedOff = this.createDummySagaRecord(payload, STUDENT_PROFILE_RETURN_SAGA.toString());
+    backedOff.setNextRetryAt(LocalDateTime.now().plusMinutes(1));
+    this.repository.save(backedOff);
+    this.eventTaskScheduler.pollEventTableAndPublish();
+    assertThat(this.repository.findAll()).hasSize(3).allSatisfy(saga -> assertThat(saga.getRetryCount()).isNull());
+    assertThat(this.sagaEventRepository.findAll()).isEmpty();
+  }
+
+  @Test
+  public void testPollEventTableAndPublish_givenSagaWithStepDeadline_shouldBeClaimedOnceTheDeadlinePassed() {
+    final String payload = "{\n" +
+      PAYLOAD_STR +
+      "}";
+    final var waiting = this.createDummySagaRecord(payload, STUDENT_PROFILE_RETURN_SAGA.toString());
+    waiting.setStepDeadline(LocalDateTime.now().plusMinutes(1));
+    this.repository.save(waiting);
+    final var timedOut = this.createDummySagaRecord(payload, STUDENT_PROFILE_RETURN_SAGA.toString());
+    timedOut.setUpdateDate(LocalDateTime.now());
+    timedOut.setStepDeadline(LocalDateTime.now().minusSeconds(1));
+    this.repository.save(timedOut);
+    this.eventTaskScheduler.pollEventTableAndPublish();
+    assertThat(this.repository.findById(waiting.getSagaId())).get().extracting(Saga::getRetryCount).isNull();
+    assertThat(this.repository.findById(timedOut.getSagaId())).get().extracting(Saga::getRetryCount).isEqualTo(1);
+  }
+
+  @Test
+  public void testReplayTimedOutSaga_givenStepDeadlinePassed_shouldReplayOnlyThatSaga() {
+    final String payload = "{\n" +
+      PAYLOAD_STR +
+      "}";
+    final var timedOut = this.createDummySagaRecord(payload, STUDENT_PROFILE_RETURN_SAGA.toString());
+    timedOut.setUpdateDate(LocalDateTime.now());
+    timedOut.setStepDeadline(LocalDateTime.now().minusSeconds(1));
+    this.repository.save(timedOut);
+    final var other = this.createDummySagaRecord(payload, STUDENT_PROFILE_RETURN_SAGA.toString());
+    other.setStepDeadline(LocalDateTime.now().minusSeconds(1));
+    this.repository.save(other);
+    this.eventTaskScheduler.replayTimedOutSaga(timedOut.getSagaId());
+    val replayed = this.repository.findById(timedOut.getSagaId()).orElseThrow();
+    assertThat(replayed.getRetryCount()).isEqualTo(1);
+    assertThat(replayed.getStepDeadline()).isAfter(LocalDateTime.now());
+    assertThat(this.sagaEventRepository.findBySaga(timedOut)).isNotEmpty();
+    assertThat(this.repository.findById(other.getSagaId())).get().extracting(Saga::getRetryCount).isNull();
+    this.eventTaskScheduler.replayTimedOutSaga(timedOut.getSagaId()); // the replay set the deadline of the step again.
+    assertThat(this.repository.findById(timedOut.getSagaId())).get().extracting(Saga::getRetryCount).isEqualTo(1);
+  }
+
+  @Test
+  public void testPollEventTableAndPublish_givenSagaWhichUsedAllRetries_shouldBeDeadLetteredAndNotReplayed() {
+    final String payload = "{\n" +
+      PAYLOAD_STR +
+      "}";
+    final var saga = this.createDummySagaRecord(payload, STUDENT_PROFILE_RETURN_SAGA.toString());
+    saga.setRetryCount(10);
+    this.repository.save(saga);
+    this.eventTaskScheduler.pollEventTableAndPublish();
+    val updatedRecordFromDB = this.repository.findById(saga.getSagaId());
+    assertThat(updatedRecordFromDB).isPresent();
+    assertThat(updatedRecordFromDB.get().getStatus()).isEqualTo(DEAD_LETTERED.toString());
+    assertThat(updatedRecordFromDB.get().getRetryCount()).isEqualTo(10);
+    assertThat(this.sagaEventRepository.findAll()).isEmpty();
+  }
+
+  @Test
+  public void testPollEventTableAndPublish_givenSagaWithLegacyPayload_shouldMoveItToPayloadData() {
+    final String payload = "{\n" +
+      PAYLOAD_STR +
+      "}";
+    final var saga = this.repository.save(this.createDummySagaRecord(payload, STUDENT_PROFILE_RETURN_SAGA.toString()));
+    // the test schema is generated from the entity, V1.0.13 makes PAYLOAD_DATA nullable for the rows written before it.
+    this.jdbcTemplate.execute("ALTER TABLE STUDENT_PROFILE_SAGA ALTER COLUMN PAYLOAD_DATA SET NULL");
+    this.jdbcTemplate.update("UPDATE STUDENT_PROFILE_SAGA SET PAYLOAD = ?, PAYLOAD_DATA = NULL", payload);
+    assertThat(this.repository.findById(saga.getSagaId())).get().extracting(Saga::getPayload).isEqualTo(payload);
+    this.eventTaskScheduler.pollEventTableAndPublish();
+    assertThat(this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM STUDENT_PROFILE_SAGA WHERE PAYLOAD IS NULL AND PAYLOAD_DATA IS NOT NULL", Integer.class)).isEqualTo(1);
+    assertThat(this.repository.findById(saga.getSagaId())).get().extracting(Saga::getPayload).isEqualTo(payload);
+  }
+
   private Saga createDummySagaRecord(final String payload, final String sagaName) {
     return Saga
       .builder()
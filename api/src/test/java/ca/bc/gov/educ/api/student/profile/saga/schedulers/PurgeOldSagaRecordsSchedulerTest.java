@@ -3,12 +3,20 @@ package ca.bc.gov.educ.api.student.profile.saga.schedulers;
 import ca.bc.gov.educ.api.student.profile.saga.BaseSagaApiTest;
 import ca.bc.gov.educ.api.student.profile.saga.model.v1.Saga;
 import ca.bc.gov.educ.api.student.profile.saga.model.v1.SagaEvent;
+import ca.bc.gov.educ.api.student.profile.saga.model.v1.SagaRequestLock;
 import ca.bc.gov.educ.api.student.profile.saga.repository.SagaEventRepository;
+import ca.bc.gov.educ.api.student.profile.saga.repository.SagaEventResponseRepository;
 import ca.bc.gov.educ.api.student.profile.saga.repository.SagaRepository;
+import ca.bc.gov.educ.api.student.profile.saga.repository.SagaRequestLockRepository;
+import ca.bc.gov.educ.api.student.profile.saga.service.SagaService;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.javacrumbs.shedlock.core.LockAssert;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.UUID;
 
 import static ca.bc.gov.educ.api.student.profile.saga.constants.EventType.INITIATED;
@@ -27,6 +35,22 @@ public class PurgeOldSagaRecordsSchedulerTest extends BaseSagaApiTest {
   @Autowired
   PurgeOldSagaRecordsScheduler purgeOldSagaRecordsScheduler;
 
+  @Autowired
+  MeterRegistry meterRegistry;
+
+  @Autowired
+  SagaEventResponseRepository sagaEventResponseRepository;
+
+  @Autowired
+  SagaService sagaService;
+
+  @Autowired
+  SagaRequestLockRepository sagaRequestLockRepository;
+
+  private static final String SAGA_EVENT_TABLE = "STUDENT_PROFILE_SAGA_EVENT_STATES";
+  private static final String SAGA_EVENT_RESPONSE_TABLE = "STUDENT_PROFILE_SAGA_EVENT_RESPONSE";
+  private static final String PAYLOAD = "{\"penRetrievalRequestID\": \"ac334a38-715f-1340-8171-607a59d0000a\"}";
+
 
   @Test
   public void pollSagaTableAndPurgeOldRecords_givenOldRecordsPresent_shouldBeDeleted() {
@@ -40,7 +64,7 @@ public class PurgeOldSagaRecordsSchedulerTest extends BaseSagaApiTest {
         "}";
     final var saga = this.getSaga(payload, UUID.fromString("ac334a38-715f-1340-8171-607a59d0000a"));
     this.repository.save(saga);
-    this.sagaEventRepository.save(this.getSagaEvent(saga,payload));
+    this.sagaService.updateAttachedSagaWithEvents(saga, this.getSagaEvent(saga, payload));
     this.purgeOldSagaRecordsScheduler.setSagaRecordStaleInDays(0);
     this.purgeOldSagaRecordsScheduler.pollSagaTableAndPurgeOldRecords();
     final var sagas = this.repository.findAll();
@@ -48,6 +72,94 @@ public class PurgeOldSagaRecordsSchedulerTest extends BaseSagaApiTest {
   }
 
 
+  @Test
+  public void pollSagaTableAndPurgeOldRecords_givenMoreOldRecordsThanChunkSize_shouldDeleteAllChunksAndCountThem() {
+    LockAssert.TestHelper.makeAllAssertsPass(true);
+    final var rowsBefore = this.deletedRows(SAGA_EVENT_TABLE);
+    for (var i = 0; i < 5; i++) {
+      final var saga = this.repository.save(this.getSaga(PAYLOAD, UUID.randomUUID()));
+      this.sagaService.updateAttachedSagaWithEvents(saga, this.getSagaEvent(saga, PAYLOAD));
+    }
+    this.purgeOldSagaRecordsScheduler.setSagaRecordStaleInDays(0);
+    this.purgeOldSagaRecordsScheduler.setChunkSize(2);
+    try {
+      this.purgeOldSagaRecordsScheduler.pollSagaTableAndPurgeOldRecords();
+    } finally {
+      this.purgeOldSagaRecordsScheduler.setChunkSize(500);
+    }
+    assertThat(this.repository.findAll()).isEmpty();
+    assertThat(this.sagaEventRepository.findAll()).isEmpty();
+    assertThat(this.deletedRows(SAGA_EVENT_TABLE) - rowsBefore).isEqualTo(5);
+  }
+
+  @Test
+  public void pollSagaTableAndPurgeOldRecords_givenSharedEventResponse_shouldStoreItOnceAndDeleteItWithTheLastReference() {
+    LockAssert.TestHelper.makeAllAssertsPass(true);
+    final var responsesBefore = this.deletedRows(SAGA_EVENT_RESPONSE_TABLE);
+    final var storedBefore = this.sagaEventResponseRepository.count();
+    final var sagas = new ArrayList<Saga>();
+    for (var i = 0; i < 3; i++) {
+      final var saga = this.repository.save(this.getSaga(PAYLOAD, UUID.randomUUID()));
+      this.sagaService.updateAttachedSagaWithEvents(saga, this.getSagaEvent(saga, PAYLOAD));
+      sagas.add(saga);
+    }
+    assertThat(this.sagaEventResponseRepository.count()).isEqualTo(storedBefore + 1);
+    assertThat(this.sagaService.findAllSagaStates(sagas.get(2))).singleElement().extracting(SagaEvent::getSagaEventResponse).isEqualTo(PAYLOAD);
+    this.purgeOldSagaRecordsScheduler.setSagaRecordStaleInDays(0);
+    this.purgeOldSagaRecordsScheduler.pollSagaTableAndPurgeOldRecords();
+    assertThat(this.sagaEventRepository.findAll()).isEmpty();
+    assertThat(this.sagaEventResponseRepository.count()).isZero();
+    assertThat(this.deletedRows(SAGA_EVENT_RESPONSE_TABLE) - responsesBefore).isEqualTo(storedBefore + 1.0);
+  }
+
+  @Test
+  public void pollSagaTableAndPurgeOldRecords_givenTimeBudgetIsUsed_shouldResumeOnTheNextRun() {
+    LockAssert.TestHelper.makeAllAssertsPass(true);
+    for (var i = 0; i < 5; i++) {
+      this.repository.save(this.getSaga(PAYLOAD, UUID.randomUUID()));
+    }
+    this.purgeOldSagaRecordsScheduler.setSagaRecordStaleInDays(0);
+    this.purgeOldSagaRecordsScheduler.setChunkSize(2);
+    this.purgeOldSagaRecordsScheduler.setTimeBudget(Duration.ZERO);
+    try {
+      this.purgeOldSagaRecordsScheduler.pollSagaTableAndPurgeOldRecords();
+      assertThat(this.repository.findAll()).hasSize(3);
+      this.purgeOldSagaRecordsScheduler.pollSagaTableAndPurgeOldRecords();
+      assertThat(this.repository.findAll()).hasSize(1);
+      this.purgeOldSagaRecordsScheduler.pollSagaTableAndPurgeOldRecords();
+      assertThat(this.repository.findAll()).isEmpty();
+    } finally {
+      this.purgeOldSagaRecordsScheduler.setChunkSize(500);
+      this.purgeOldSagaRecordsScheduler.setTimeBudget(Duration.ofSeconds(50));
+    }
+  }
+
+  @Test
+  public void pollSagaTableAndPurgeOldRecords_givenMoreRequestLocksThanChunkSize_shouldDeleteAChunkPerRunWithinTheTimeBudget() {
+    LockAssert.TestHelper.makeAllAssertsPass(true);
+    for (var i = 0; i < 5; i++) {
+      this.sagaRequestLockRepository.save(SagaRequestLock.builder().requestId(UUID.randomUUID()).lockedAt(LocalDateTime.now().minusDays(1).plusMinutes(i)).build());
+    }
+    final var recent = this.sagaRequestLockRepository.save(SagaRequestLock.builder().requestId(UUID.randomUUID()).lockedAt(LocalDateTime.now().plusMinutes(5)).build());
+    this.purgeOldSagaRecordsScheduler.setSagaRecordStaleInDays(0);
+    this.purgeOldSagaRecordsScheduler.setChunkSize(2);
+    this.purgeOldSagaRecordsScheduler.setTimeBudget(Duration.ZERO);
+    try {
+      this.purgeOldSagaRecordsScheduler.pollSagaTableAndPurgeOldRecords();
+      assertThat(this.sagaRequestLockRepository.count()).isEqualTo(4);
+      this.purgeOldSagaRecordsScheduler.setTimeBudget(Duration.ofSeconds(50));
+      this.purgeOldSagaRecordsScheduler.pollSagaTableAndPurgeOldRecords();
+      assertThat(this.sagaRequestLockRepository.findAll()).singleElement().extracting(SagaRequestLock::getRequestId).isEqualTo(recent.getRequestId());
+    } finally {
+      this.purgeOldSagaRecordsScheduler.setChunkSize(500);
+      this.purgeOldSagaRecordsScheduler.setTimeBudget(Duration.ofSeconds(50));
+    }
+  }
+
+  private double deletedRows(final String table) {
+    return this.meterRegistry.get("saga.purge.rows.deleted").tag("table", table).counter().count();
+  }
+
   private Saga getSaga(final String payload, final UUID penRequestId) {
     return Saga
         .builder()
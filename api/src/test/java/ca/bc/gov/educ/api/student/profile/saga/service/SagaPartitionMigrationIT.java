@@ -0,0 +1,144 @@
+package ca.bc.gov.educ.api.student.profile.saga.service;
+
+import ca.bc.gov.educ.api.student.profile.saga.model.v1.CompressedStringConverter;
+import ca.bc.gov.educ.api.student.profile.saga.support.PostgresTestContainer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+
+import static ca.bc.gov.educ.api.student.profile.saga.service.SagaPartitionService.SAGA_EVENT_TABLE;
+import static ca.bc.gov.educ.api.student.profile.saga.service.SagaPartitionService.SAGA_TABLE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * migrates a database holding sagas of the unpartitioned schema to the partitioned one of V1.0.12 and V1.0.19, and their inline event responses
+ * to the response table of V1.0.21, on PostgreSQL as the migrations only run there. each test migrates a database of its own.
+ */
+public class SagaPartitionMigrationIT {
+  private static final String PARTITIONS_OF = "SELECT COUNT(*) FROM PG_INHERITS I JOIN PG_CLASS C ON C.OID = I.INHRELID JOIN PG_CLASS P ON P.OID = I.INHPARENT "
+    + "WHERE P.RELNAME = LOWER(?) AND C.RELNAME = LOWER(?)";
+  private static final String INITIATED_RESPONSE = "{}";
+  private static final String GET_STUDENT_RESPONSE = "{\"legalFirstName\":\"Zoë\"}";
+  private static final String PARTITION_OF_SAGA = "SELECT TABLEOID::REGCLASS::TEXT FROM STUDENT_PROFILE_SAGA WHERE SAGA_ID = ?";
+
+  private final YearMonth currentMonth = YearMonth.now();
+  private final LocalDateTime twoMonthsAgo = LocalDateTime.now().minusMonths(2);
+  private final UUID oldSagaId = UUID.randomUUID();
+  private final UUID currentSagaId = UUID.randomUUID();
+  private String url;
+  private JdbcTemplate jdbcTemplate;
+
+  @BeforeClass
+  public static void startPostgres() {
+    PostgresTestContainer.start();
+  }
+
+  @Before
+  public void setUp() {
+    final var database = "saga_migration_" + UUID.randomUUID().toString().replace("-", "");
+    new JdbcTemplate(this.dataSource(PostgresTestContainer.jdbcUrl(PostgresTestContainer.databaseName()))).execute("CREATE DATABASE " + database);
+    this.url = PostgresTestContainer.jdbcUrl(database);
+    this.jdbcTemplate = new JdbcTemplate(this.dataSource(this.url));
+    this.migrate("1.0.11");
+    this.insertSaga(this.oldSagaId, this.twoMonthsAgo);
+    this.insertEvent(this.oldSagaId, 1, "INITIATED", INITIATED_RESPONSE);
+    this.insertEvent(this.oldSagaId, 2, "GET_STUDENT", GET_STUDENT_RESPONSE);
+    this.insertSaga(this.currentSagaId, LocalDateTime.now());
+    this.insertEvent(this.currentSagaId, 1, "INITIATED", INITIATED_RESPONSE);
+    this.migrate("latest");
+  }
+
+  @Test
+  public void testMigrate_givenUnpartitionedSagas_shouldCopyThemIntoTheirMonths() {
+    assertThat(this.jdbcTemplate.queryForObject(PARTITION_OF_SAGA, String.class, this.oldSagaId))
+      .isEqualToIgnoringCase(SagaPartitionService.partitionName(SAGA_TABLE, YearMonth.from(this.twoMonthsAgo)));
+    assertThat(this.jdbcTemplate.queryForObject(PARTITION_OF_SAGA, String.class, this.currentSagaId))
+      .isEqualToIgnoringCase(SagaPartitionService.partitionName(SAGA_TABLE, this.currentMonth));
+    assertThat(this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM STUDENT_PROFILE_SAGA_EVENT_STATES E JOIN STUDENT_PROFILE_SAGA S ON S.SAGA_ID = E.SAGA_ID "
+      + "AND S.CREATE_DATE = E.SAGA_CREATE_DATE", Integer.class)).isEqualTo(3);
+    assertThat(this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM PG_CLASS WHERE RELNAME LIKE '%_unpartitioned'", Integer.class)).isZero();
+  }
+
+  @Test
+  public void testMigrate_givenInlineEventResponses_shouldStoreEachOnceKeyedByItsHashAndDropTheColumn() {
+    final var converter = new CompressedStringConverter(true, 512, new SimpleMeterRegistry());
+    final var responses = this.jdbcTemplate.query("SELECT E.SAGA_EVENT_STATE, E.SAGA_EVENT_RESPONSE_HASH, R.RESPONSE_DATA FROM STUDENT_PROFILE_SAGA_EVENT_STATES E "
+        + "JOIN STUDENT_PROFILE_SAGA_EVENT_RESPONSE R ON R.RESPONSE_HASH = E.SAGA_EVENT_RESPONSE_HASH",
+      (rs, rowNum) -> List.of(rs.getString(1), rs.getString(2), converter.convertToEntityAttribute(rs.getBytes(3))));
+    assertThat(responses).containsExactlyInAnyOrder(
+      List.of("INITIATED", SagaService.hashOf(INITIATED_RESPONSE), INITIATED_RESPONSE),
+      List.of("INITIATED", SagaService.hashOf(INITIATED_RESPONSE), INITIATED_RESPONSE),
+      List.of("GET_STUDENT", SagaService.hashOf(GET_STUDENT_RESPONSE), GET_STUDENT_RESPONSE));
+    assertThat(this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM STUDENT_PROFILE_SAGA_EVENT_RESPONSE", Integer.class)).isEqualTo(2);
+    assertThat(this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_NAME = 'student_profile_saga_event_states' "
+      + "AND COLUMN_NAME = 'saga_event_response'", Integer.class)).isZero();
+  }
+
+  @Test
+  public void testMigrate_givenOldestSaga_shouldCreateTheMonthsFromItToThreeMonthsAheadAndTheDefaultPartitions() {
+    for (var month = YearMonth.from(this.twoMonthsAgo); !month.isAfter(this.currentMonth.plusMonths(3)); month = month.plusMonths(1)) {
+      assertThat(this.isPartitionOf(SAGA_TABLE, SagaPartitionService.partitionName(SAGA_TABLE, month))).as("saga partition of %s", month).isTrue();
+      assertThat(this.isPartitionOf(SAGA_EVENT_TABLE, SagaPartitionService.partitionName(SAGA_EVENT_TABLE, month))).as("event partition of %s", month).isTrue();
+    }
+    assertThat(this.isPartitionOf(SAGA_TABLE, SAGA_TABLE + "_DEFAULT")).isTrue();
+    assertThat(this.isPartitionOf(SAGA_EVENT_TABLE, SAGA_EVENT_TABLE + "_DEFAULT")).isTrue();
+  }
+
+  @Test
+  public void testInsert_givenMonthWithoutPartition_shouldLandInTheDefaultPartition() {
+    final var sagaId = UUID.randomUUID();
+    this.insertSaga(sagaId, LocalDateTime.now().minusYears(2));
+    assertThat(this.jdbcTemplate.queryForObject(PARTITION_OF_SAGA, String.class, sagaId)).isEqualToIgnoringCase(SAGA_TABLE + "_DEFAULT");
+  }
+
+  @Test
+  public void testInsert_givenSameSagaIdAndCreateDate_shouldBeRejected() {
+    final var createDate = this.jdbcTemplate.queryForObject("SELECT CREATE_DATE FROM STUDENT_PROFILE_SAGA WHERE SAGA_ID = ?", LocalDateTime.class, this.currentSagaId);
+    assertThatThrownBy(() -> this.insertSaga(this.currentSagaId, createDate)).hasMessageContaining("student_profile_saga");
+  }
+
+  @Test
+  public void testPartitionService_givenMigratedSchema_shouldCreateMonthsAheadAndDropWholeMonthsBeforeTheRetention() {
+    final var sagaPartitionService = new SagaPartitionService(this.jdbcTemplate, new SimpleMeterRegistry(), true, 5);
+    sagaPartitionService.createFuturePartitions(this.currentMonth);
+    assertThat(this.isPartitionOf(SAGA_TABLE, SagaPartitionService.partitionName(SAGA_TABLE, this.currentMonth.plusMonths(5)))).isTrue();
+    assertThat(this.isPartitionOf(SAGA_EVENT_TABLE, SagaPartitionService.partitionName(SAGA_EVENT_TABLE, this.currentMonth.plusMonths(5)))).isTrue();
+
+    assertThat(sagaPartitionService.dropPartitionsBefore(this.currentMonth.atDay(1).atStartOfDay())).isEqualTo(2);
+    assertThat(this.jdbcTemplate.queryForList("SELECT SAGA_ID FROM STUDENT_PROFILE_SAGA", UUID.class)).containsExactly(this.currentSagaId);
+    assertThat(this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM STUDENT_PROFILE_SAGA_EVENT_STATES", Integer.class)).isEqualTo(1);
+    assertThat(this.isPartitionOf(SAGA_TABLE, SAGA_TABLE + "_DEFAULT")).isTrue();
+  }
+
+  private void migrate(final String target) {
+    Flyway.configure().dataSource(this.url, PostgresTestContainer.username(), PostgresTestContainer.password()).table("FLYWAY_SCHEMA_HISTORY").target(target).load().migrate();
+  }
+
+  private void insertSaga(final UUID sagaId, final LocalDateTime createDate) {
+    this.jdbcTemplate.update("INSERT INTO STUDENT_PROFILE_SAGA (SAGA_ID, SAGA_NAME, SAGA_STATE, PAYLOAD, STATUS, SAGA_COMPENSATED, CREATE_USER, CREATE_DATE, UPDATE_USER, UPDATE_DATE) "
+      + "VALUES (?, 'PEN_REQUEST_COMPLETE_SAGA', 'INITIATED', '{}', 'IN_PROGRESS', FALSE, 'TEST', ?, 'TEST', ?)", sagaId, createDate, createDate);
+  }
+
+  private void insertEvent(final UUID sagaId, final int stepNumber, final String eventState, final String response) {
+    this.jdbcTemplate.update("INSERT INTO STUDENT_PROFILE_SAGA_EVENT_STATES (SAGA_EVENT_ID, SAGA_ID, SAGA_EVENT_STATE, SAGA_EVENT_OUTCOME, SAGA_STEP_NUMBER, SAGA_EVENT_RESPONSE, "
+      + "CREATE_USER, CREATE_DATE, UPDATE_USER, UPDATE_DATE) VALUES (?, ?, ?, 'SUCCESS', ?, ?, 'TEST', NOW(), 'TEST', NOW())", UUID.randomUUID(), sagaId, eventState, stepNumber, response);
+  }
+
+  private boolean isPartitionOf(final String table, final String partition) {
+    return this.jdbcTemplate.queryForObject(PARTITIONS_OF, Integer.class, table, partition) == 1;
+  }
+
+  private DriverManagerDataSource dataSource(final String jdbcUrl) {
+    return new DriverManagerDataSource(jdbcUrl, PostgresTestContainer.username(), PostgresTestContainer.password());
+  }
+}
@@ -0,0 +1,73 @@
+package ca.bc.gov.educ.api.student.profile.saga.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static ca.bc.gov.educ.api.student.profile.saga.service.SagaPartitionService.SAGA_EVENT_TABLE;
+import static ca.bc.gov.educ.api.student.profile.saga.service.SagaPartitionService.SAGA_TABLE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class SagaPartitionServiceTest {
+  private JdbcTemplate jdbcTemplate;
+  private SimpleMeterRegistry meterRegistry;
+  private SagaPartitionService sagaPartitionService;
+
+  @Before
+  public void setUp() {
+    this.jdbcTemplate = mock(JdbcTemplate.class);
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.sagaPartitionService = new SagaPartitionService(this.jdbcTemplate, this.meterRegistry, true, 2);
+  }
+
+  @Test
+  public void testPartitionMonth_givenPartitionName_shouldParseTheMonth() {
+    assertThat(SagaPartitionService.partitionName(SAGA_EVENT_TABLE, YearMonth.of(2026, 3))).isEqualTo("STUDENT_PROFILE_SAGA_EVENT_STATES_P2026_03");
+    assertThat(SagaPartitionService.partitionMonth("student_profile_saga_p2026_03")).contains(YearMonth.of(2026, 3));
+    assertThat(SagaPartitionService.partitionMonth("student_profile_saga")).isEmpty();
+  }
+
+  @Test
+  public void testCreateFuturePartitions_givenMonthsAhead_shouldCreateBothTablesForEachMonth() {
+    this.sagaPartitionService.createFuturePartitions(YearMonth.of(2026, 11));
+    final var statements = ArgumentCaptor.forClass(String.class);
+    verify(this.jdbcTemplate, times(6)).execute(statements.capture());
+    assertThat(statements.getAllValues()).contains(
+      "CREATE TABLE IF NOT EXISTS STUDENT_PROFILE_SAGA_P2026_11 PARTITION OF STUDENT_PROFILE_SAGA FOR VALUES FROM ('2026-11-01') TO ('2026-12-01')",
+      "CREATE TABLE IF NOT EXISTS STUDENT_PROFILE_SAGA_EVENT_STATES_P2027_01 PARTITION OF STUDENT_PROFILE_SAGA_EVENT_STATES FOR VALUES FROM ('2027-01-01') TO ('2027-02-01')");
+  }
+
+  @Test
+  public void testCreateFuturePartitionsOnStartup_givenDroppingDisabled_shouldStillCreateThePartitions() {
+    new SagaPartitionService(this.jdbcTemplate, this.meterRegistry, false, 0).createFuturePartitionsOnStartup();
+    verify(this.jdbcTemplate, times(2)).execute(anyString());
+  }
+
+  @Test
+  public void testDropPartitionsBefore_givenPartitions_shouldDropOnlyWholeMonthsBeforeTheDateEventsFirst() {
+    when(this.jdbcTemplate.queryForList(anyString(), eq(String.class), eq("student_profile_saga")))
+      .thenReturn(List.of("student_profile_saga_p2026_09", "student_profile_saga_p2026_08", "student_profile_saga_p2026_10", "student_profile_saga_default"));
+    when(this.jdbcTemplate.queryForList(anyString(), eq(String.class), eq("student_profile_saga_event_states")))
+      .thenReturn(List.of("student_profile_saga_event_states_p2026_08", "student_profile_saga_event_states_p2026_09", "student_profile_saga_event_states_p2026_10"));
+    assertThat(this.sagaPartitionService.dropPartitionsBefore(LocalDateTime.of(2026, 10, 18, 10, 0))).isEqualTo(2);
+    final InOrder inOrder = inOrder(this.jdbcTemplate);
+    inOrder.verify(this.jdbcTemplate).execute("ALTER TABLE STUDENT_PROFILE_SAGA_EVENT_STATES DETACH PARTITION STUDENT_PROFILE_SAGA_EVENT_STATES_P2026_08");
+    inOrder.verify(this.jdbcTemplate).execute("DROP TABLE IF EXISTS STUDENT_PROFILE_SAGA_EVENT_STATES_P2026_08");
+    inOrder.verify(this.jdbcTemplate).execute("ALTER TABLE STUDENT_PROFILE_SAGA DETACH PARTITION STUDENT_PROFILE_SAGA_P2026_08");
+    inOrder.verify(this.jdbcTemplate).execute("DROP TABLE IF EXISTS STUDENT_PROFILE_SAGA_P2026_08");
+    inOrder.verify(this.jdbcTemplate).execute("DROP TABLE IF EXISTS STUDENT_PROFILE_SAGA_P2026_09");
+    verify(this.jdbcTemplate, never()).execute("DROP TABLE IF EXISTS STUDENT_PROFILE_SAGA_P2026_10");
+    verify(this.jdbcTemplate, never()).execute("DROP TABLE IF EXISTS STUDENT_PROFILE_SAGA_DEFAULT");
+    assertThat(this.meterRegistry.get("saga.purge.partitions.dropped").tag("table", SAGA_TABLE).counter().count()).isEqualTo(2);
+  }
+}
@@ -0,0 +1,82 @@
+package ca.bc.gov.educ.api.student.profile.saga.service;
+
+import ca.bc.gov.educ.api.student.profile.saga.BasePostgresIT;
+import ca.bc.gov.educ.api.student.profile.saga.model.v1.Saga;
+import ca.bc.gov.educ.api.student.profile.saga.model.v1.SagaEvent;
+import ca.bc.gov.educ.api.student.profile.saga.repository.SagaEventResponseRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static ca.bc.gov.educ.api.student.profile.saga.constants.EventOutcome.INITIATE_SUCCESS;
+import static ca.bc.gov.educ.api.student.profile.saga.constants.EventType.GET_STUDENT;
+import static ca.bc.gov.educ.api.student.profile.saga.constants.EventType.INITIATED;
+import static ca.bc.gov.educ.api.student.profile.saga.constants.SagaEnum.PEN_REQUEST_COMPLETE_SAGA;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SagaServicePostgresIT extends BasePostgresIT {
+  @Autowired
+  SagaService sagaService;
+  @Autowired
+  SagaEventResponseRepository sagaEventResponseRepository;
+  @Autowired
+  EntityManagerFactory entityManagerFactory;
+
+  private Saga saga;
+  private final String response = "{\"penRequestID\":\"" + UUID.randomUUID() + "\"}";
+
+  @Before
+  public void setUp() throws JsonProcessingException {
+    this.saga = this.sagaService.createPenRequestSagaRecord("{}", PEN_REQUEST_COMPLETE_SAGA.toString(), "TEST", UUID.randomUUID());
+  }
+
+  @Test
+  public void testUpdateAttachedSagaWithEvents_givenStep_shouldWriteTheSagaTheResponseAndTheEventStateInOneStatement() {
+    final var statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    final var statementsBefore = statistics.getPrepareStatementCount();
+    this.saga.setSagaState(GET_STUDENT.toString());
+    this.sagaService.updateAttachedSagaWithEvents(this.saga, this.eventState(1));
+    assertThat(statistics.getPrepareStatementCount() - statementsBefore).isEqualTo(1);
+    final var sagaFromDB = this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow();
+    assertThat(sagaFromDB.getSagaState()).isEqualTo(GET_STUDENT.toString());
+    assertThat(sagaFromDB.getStepCount()).isEqualTo(1);
+    assertThat(sagaFromDB.getVersion()).isEqualTo(this.saga.getVersion()).isEqualTo(1);
+    assertThat(sagaFromDB.getPayload()).isEqualTo(this.saga.getPayload());
+    assertThat(this.sagaService.findAllSagaStates(this.saga)).singleElement().extracting(SagaEvent::getSagaEventResponse).isEqualTo(this.response);
+    assertThat(this.sagaEventResponseRepository.findById(SagaService.hashOf(this.response))).isPresent();
+  }
+
+  @Test
+  public void testUpdateAttachedSagaWithEvents_givenStepWrittenAgain_shouldNotDuplicateTheEventState() {
+    this.sagaService.updateAttachedSagaWithEvents(this.saga, this.eventState(1));
+    this.sagaService.updateAttachedSagaWithEvents(this.saga, this.eventState(1));
+    assertThat(this.sagaService.findAllSagaStates(this.saga)).hasSize(1);
+    assertThat(this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow().getVersion()).isEqualTo(2);
+  }
+
+  @Test
+  public void testUpdateAttachedSagaWithEvents_givenSagaWrittenMeanwhile_shouldFailAndWriteNothing() {
+    final var staleSaga = this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow();
+    this.sagaService.updateAttachedSagaWithEvents(this.saga, this.eventState(1));
+    final var staleEvent = this.eventState(2);
+    staleEvent.setSaga(staleSaga);
+    staleEvent.setSagaEventResponse("{\"stale\":true}");
+    assertThatThrownBy(() -> this.sagaService.updateAttachedSagaWithEvents(staleSaga, staleEvent)).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+    assertThat(this.sagaService.findAllSagaStates(this.saga)).hasSize(1);
+    assertThat(this.sagaService.findSagaById(this.saga.getSagaId()).orElseThrow().getStepCount()).isEqualTo(1);
+    assertThat(this.sagaEventResponseRepository.findById(SagaService.hashOf("{\"stale\":true}"))).isEmpty();
+  }
+
+  private SagaEvent eventState(final int stepNumber) {
+    return SagaEvent.builder().saga(this.saga).sagaCreateDate(this.saga.getCreateDate()).sagaEventState(INITIATED.toString()).sagaEventOutcome(INITIATE_SUCCESS.toString())
+      .sagaStepNumber(stepNumber).sagaEventResponse(this.response).createUser("TEST").updateUser("TEST").createDate(LocalDateTime.now()).updateDate(LocalDateTime.now()).build();
+  }
+}
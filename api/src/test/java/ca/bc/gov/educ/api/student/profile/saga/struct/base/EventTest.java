@@ -0,0 +1,61 @@
+package ca.bc.gov.educ.api.student.profile.saga.struct.base;
+
+import ca.bc.gov.educ.api.student.profile.saga.constants.EventOutcome;
+import ca.bc.gov.educ.api.student.profile.saga.constants.EventType;
+import ca.bc.gov.educ.api.student.profile.saga.utils.JsonUtil;
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EventTest {
+  private static final String PAYLOAD = "{\"digitalID\":\"ac337def-704b-169f-8170-653e2f7c001\",\"studentID\":\"ac337def-704b-169f-8170-653e2f7c002\"}";
+
+  @Test
+  public void testSerialize_givenFirstVersion_shouldEscapeThePayloadAsBefore() throws IOException {
+    final var event = Event.builder().sagaId(UUID.randomUUID()).eventType(EventType.GET_DIGITAL_ID).eventOutcome(EventOutcome.DIGITAL_ID_FOUND).eventPayload(PAYLOAD).build();
+    final var json = JsonUtil.getJsonStringFromObject(event);
+    assertThat(json).contains("\"eventPayload\":\"{\\\"digitalID\\\"").doesNotContain("envelopeVersion");
+    final var read = JsonUtil.getJsonObjectFromString(Event.class, json);
+    assertThat(read).isEqualTo(event);
+    assertThat(read.readEventPayload(DigitalIdSagaData.class).getDigitalID()).isEqualTo("ac337def-704b-169f-8170-653e2f7c001");
+  }
+
+  @Test
+  public void testSerialize_givenRawPayloadVersion_shouldEmbedThePayloadAndReadItLazily() throws IOException {
+    final var event = Event.builder().sagaId(UUID.randomUUID()).eventType(EventType.GET_DIGITAL_ID).eventOutcome(EventOutcome.DIGITAL_ID_FOUND).eventPayload(PAYLOAD)
+      .envelopeVersion(Event.RAW_PAYLOAD_VERSION).build();
+    final var json = JsonUtil.getJsonBytesFromObject(event);
+    assertThat(new String(json)).contains("\"eventPayload\":" + PAYLOAD);
+    final var read = JsonUtil.getJsonObjectFromBytes(Event.class, json);
+    assertThat(read.getRawEventPayload()).isNotNull();
+    assertThat(read.readEventPayload(DigitalIdSagaData.class).getStudentID()).isEqualTo("ac337def-704b-169f-8170-653e2f7c002");
+    assertThat(read.getEventPayload()).isEqualTo(PAYLOAD);
+    assertThat(read).isEqualTo(event);
+  }
+
+  @Test
+  public void testSerialize_givenRawPayloadVersionAndIdOrListPayload_shouldEmbedOnlyJson() throws IOException {
+    final var id = Event.builder().eventType(EventType.GET_STUDENT).eventPayload("ac337def-704b-169f-8170-653e2f7c002").envelopeVersion(Event.RAW_PAYLOAD_VERSION).build();
+    assertThat(JsonUtil.getJsonStringFromObject(id)).contains("\"eventPayload\":\"ac337def-704b-169f-8170-653e2f7c002\"");
+    assertThat(JsonUtil.getJsonObjectFromString(Event.class, JsonUtil.getJsonStringFromObject(id)).getEventPayload()).isEqualTo(id.getEventPayload());
+    final var list = Event.builder().eventType(EventType.GET_DIGITAL_ID).eventPayload("[" + PAYLOAD + "]").envelopeVersion(Event.RAW_PAYLOAD_VERSION).build();
+    final List<DigitalIdSagaData> digitalIds = JsonUtil.getJsonObjectFromString(Event.class, JsonUtil.getJsonStringFromObject(list)).readEventPayload(new TypeReference<>() {
+    });
+    assertThat(digitalIds).extracting(DigitalIdSagaData::getDigitalID).containsExactly("ac337def-704b-169f-8170-653e2f7c001");
+  }
+
+  @Test
+  public void testSerialize_givenRawPayloadVersionAndMalformedBracketedPayload_shouldWriteItAsString() throws IOException {
+    for (final var payload : List.of("{\"digitalID\":", "[" + PAYLOAD, "{\"digitalID\":\"a\"} trailing", PAYLOAD + PAYLOAD, "{digitalID}")) {
+      final var event = Event.builder().eventType(EventType.GET_DIGITAL_ID).eventPayload(payload).envelopeVersion(Event.RAW_PAYLOAD_VERSION).build();
+      final var json = JsonUtil.getJsonStringFromObject(event);
+      assertThat(JsonUtil.objectMapper.readTree(json).get("eventPayload").isTextual()).as(payload).isTrue();
+      assertThat(JsonUtil.getJsonObjectFromString(Event.class, json).getEventPayload()).isEqualTo(payload);
+    }
+  }
+}
@@ -10,6 +10,8 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
 
+import java.util.concurrent.Executor;
+
 @Profile("test")
 @Configuration
 public class MockConfiguration {
@@ -37,4 +39,12 @@ public class MockConfiguration {
   public NatsConnection natsConnection() {
     return Mockito.mock(NatsConnection.class);
   }
+
+  /**
+   * runs the saga tasks on the calling thread so the tests can assert right after the call.
+   */
+  @Bean("async-task-executor")
+  public Executor asyncTaskExecutor() {
+    return Runnable::run;
+  }
 }
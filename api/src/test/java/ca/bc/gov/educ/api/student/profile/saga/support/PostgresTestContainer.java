@@ -0,0 +1,45 @@
+package ca.bc.gov.educ.api.student.profile.saga.support;
+
+import org.junit.Assume;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * the PostgreSQL container the integration tests share, it is started once and stopped with the JVM.
+ */
+public final class PostgresTestContainer {
+  private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:14-alpine");
+
+  private PostgresTestContainer() {
+  }
+
+  /**
+   * starts the container unless it is running already, the tests of the caller are skipped where there is no docker.
+   */
+  public static void start() {
+    Assume.assumeTrue("docker is needed to run PostgreSQL", DockerClientFactory.instance().isDockerAvailable());
+    if (!POSTGRES.isRunning()) {
+      POSTGRES.start();
+    }
+  }
+
+  /**
+   * @param database the database, the one of the container or one a test created.
+   * @return the jdbc url of the database.
+   */
+  public static String jdbcUrl(final String database) {
+    return String.format("jdbc:postgresql://%s:%d/%s", POSTGRES.getHost(), POSTGRES.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT), database);
+  }
+
+  public static String databaseName() {
+    return POSTGRES.getDatabaseName();
+  }
+
+  public static String username() {
+    return POSTGRES.getUsername();
+  }
+
+  public static String password() {
+    return POSTGRES.getPassword();
+  }
+}
@@ -1,7 +1,9 @@
 package ca.bc.gov.educ.api.student.profile.saga.support;
 
 import ca.bc.gov.educ.api.student.profile.saga.repository.SagaEventRepository;
+import ca.bc.gov.educ.api.student.profile.saga.repository.SagaOutboxRepository;
 import ca.bc.gov.educ.api.student.profile.saga.repository.SagaRepository;
+import ca.bc.gov.educ.api.student.profile.saga.repository.SagaRequestLockRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Propagation;
@@ -14,10 +16,16 @@ public class SagApiTestUtils {
   SagaRepository sagaRepository;
   @Autowired
   SagaEventRepository sagaEventRepository;
+  @Autowired
+  SagaOutboxRepository sagaOutboxRepository;
+  @Autowired
+  SagaRequestLockRepository sagaRequestLockRepository;
 
   @Transactional(propagation = Propagation.REQUIRES_NEW)
   public void cleanDB() {
+    this.sagaOutboxRepository.deleteAll();
     this.sagaEventRepository.deleteAll();
     this.sagaRepository.deleteAll();
+    this.sagaRequestLockRepository.deleteAll();
   }
 }
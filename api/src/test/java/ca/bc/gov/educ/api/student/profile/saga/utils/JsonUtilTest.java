@@ -0,0 +1,37 @@
+package ca.bc.gov.educ.api.student.profile.saga.utils;
+
+import ca.bc.gov.educ.api.student.profile.saga.constants.EventOutcome;
+import ca.bc.gov.educ.api.student.profile.saga.constants.EventType;
+import ca.bc.gov.educ.api.student.profile.saga.struct.base.DigitalIdSagaData;
+import ca.bc.gov.educ.api.student.profile.saga.struct.base.Event;
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JsonUtilTest {
+
+  @Test
+  public void testGetJsonBytesFromObject_givenEvent_shouldReadBackTheSameEvent() throws IOException {
+    final var event = Event.builder().sagaId(UUID.randomUUID()).eventType(EventType.GET_STUDENT).eventOutcome(EventOutcome.STUDENT_FOUND).eventPayload("{\"pen\":\"123456789\"}").build();
+    final var bytes = JsonUtil.getJsonBytesFromObject(event);
+    assertThat(bytes).isEqualTo(JsonUtil.getJsonStringFromObject(event).getBytes());
+    assertThat(JsonUtil.getJsonObjectFromBytes(Event.class, bytes)).isEqualTo(event);
+    assertThat(JsonUtil.getJsonStringFromObject(null)).isEqualTo("null");
+  }
+
+  @Test
+  public void testGetJsonObjectFromString_givenTypeReference_shouldReadTheList() throws IOException {
+    final var payload = "[{\"digitalID\":\"1\"},{\"digitalID\":\"2\"}]";
+    final List<DigitalIdSagaData> first = JsonUtil.getJsonObjectFromString(new TypeReference<>() {
+    }, payload);
+    final List<DigitalIdSagaData> second = JsonUtil.getJsonObjectFromString(new TypeReference<>() {
+    }, payload);
+    assertThat(first).extracting(DigitalIdSagaData::getDigitalID).containsExactly("1", "2");
+    assertThat(second).isEqualTo(first);
+  }
+}